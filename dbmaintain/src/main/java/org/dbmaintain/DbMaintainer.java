@@ -15,6 +15,10 @@
  */
 package org.dbmaintain;
 
+import org.dbmaintain.script.progress.ProgressListener;
+
+import java.io.File;
+
 /**
  * Defines the contract for classes that perform automatic maintenance of a database.<br>
  * <br>
@@ -50,4 +54,34 @@ public interface DbMaintainer {
      */
     void markDatabaseAsUpToDate();
 
+
+    /**
+     * This operation analyzes which updates {@link #updateDatabase} would perform and writes them to a plan file,
+     * together with a fingerprint of the current state of the executed scripts table. No updates are performed.
+     *
+     * @param planFile The file to write the plan to, not null
+     * @return True if the plan contains updates, false if the database is up to date
+     */
+    boolean planUpdate(File planFile);
+
+
+    /**
+     * This operation performs the updates of a plan that was made using {@link #planUpdate}, without analyzing the
+     * scripts again. The plan is refused if the executed scripts table changed since the plan was made, or if one of
+     * the scripts to execute was changed.
+     *
+     * @param planFile The file containing the plan, not null
+     * @return True if updates were performed on the database
+     */
+    boolean applyPlan(File planFile);
+
+
+    /**
+     * Registers a listener that is notified of the progress of the database updates, together with an estimate
+     * of the remaining time.
+     *
+     * @param progressListener The listener, not null
+     */
+    void addProgressListener(ProgressListener progressListener);
+
 }
\ No newline at end of file
@@ -26,6 +26,7 @@ import org.dbmaintain.structure.clean.DBCleaner;
 import org.dbmaintain.structure.clear.DBClearer;
 import org.dbmaintain.structure.constraint.ConstraintsDisabler;
 import org.dbmaintain.structure.sequence.SequenceUpdater;
+import org.dbmaintain.structure.snapshot.DBSnapshotter;
 
 import static org.dbmaintain.config.DbMaintainProperties.*;
 
@@ -41,6 +42,9 @@ public class DbMaintainerFactory extends FactoryWithDatabase<DbMaintainer> {
 
         boolean cleanDbEnabled = PropertyUtils.getBoolean(PROPERTY_CLEANDB, getConfiguration());
         boolean fromScratchEnabled = PropertyUtils.getBoolean(PROPERTY_FROM_SCRATCH_ENABLED, getConfiguration());
+        boolean resumeFailedScripts = PropertyUtils.getBoolean(PROPERTY_RESUME_FAILED_SCRIPTS, false, getConfiguration());
+        int maxNrOfScriptsPerGroupedTransaction = PropertyUtils.getInt(PROPERTY_GROUPED_TRANSACTION_MAX_NR_OF_SCRIPTS, 1, getConfiguration());
+        long maxScriptSizeForGroupedTransaction = PropertyUtils.getLong(PROPERTY_GROUPED_TRANSACTION_MAX_SCRIPT_SIZE, 0, getConfiguration());
         boolean useScriptFileLastModificationDates = PropertyUtils.getBoolean(PROPERTY_USESCRIPTFILELASTMODIFICATIONDATES, getConfiguration());
         boolean allowOutOfSequenceExecutionOfPatchScripts = PropertyUtils.getBoolean(PROPERTY_PATCH_ALLOWOUTOFSEQUENCEEXECUTION, getConfiguration());
         boolean disableConstraintsEnabled = PropertyUtils.getBoolean(PROPERTY_DISABLE_CONSTRAINTS, getConfiguration());
@@ -58,11 +62,17 @@ public class DbMaintainerFactory extends FactoryWithDatabase<DbMaintainer> {
         ScriptRunner scriptRunner = mainFactory.createScriptRunner();
         ScriptUpdatesFormatter scriptUpdatesFormatter = createScriptUpdatesFormatter();
         ExecutedScriptInfoSource executedScriptInfoSource = mainFactory.createExecutedScriptInfoSource();
+        DBSnapshotter dbSnapshotter = null;
+        if (fromScratchEnabled && PropertyUtils.getBoolean(PROPERTY_FROM_SCRATCH_SNAPSHOT_ENABLED, false, getConfiguration())) {
+            dbSnapshotter = mainFactory.createDBSnapshotter();
+        }
 
         return new DefaultDbMaintainer(scriptRunner, scriptRepository, executedScriptInfoSource, fromScratchEnabled,
                 useScriptFileLastModificationDates, allowOutOfSequenceExecutionOfPatchScripts, cleanDbEnabled, disableConstraintsEnabled,
                 updateSequencesEnabled, dbClearer, dbCleaner, constraintsDisabler, sequenceUpdater, scriptUpdatesFormatter, getSqlHandler(),
-                maxNrOfCharsWhenLoggingScriptContent, baseLineRevision, ignoreDeletions, filenameColumnSize);
+                maxNrOfCharsWhenLoggingScriptContent, baseLineRevision, ignoreDeletions, filenameColumnSize, factoryWithDatabaseContext.getMetrics(),
+                resumeFailedScripts, maxNrOfScriptsPerGroupedTransaction, maxScriptSizeForGroupedTransaction, dbSnapshotter,
+                factoryWithDatabaseContext.getBaselineScript());
     }
 
 
@@ -18,27 +18,48 @@ package org.dbmaintain;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.dbmaintain.database.SQLHandler;
+import org.dbmaintain.metrics.Metrics;
+import org.dbmaintain.metrics.impl.NoOpMetrics;
 import org.dbmaintain.script.ExecutedScript;
 import org.dbmaintain.script.Script;
+import org.dbmaintain.script.ScriptContentHandle;
+import org.dbmaintain.script.StatementCheckpoint;
 import org.dbmaintain.script.analyzer.ScriptUpdate;
 import org.dbmaintain.script.analyzer.ScriptUpdates;
 import org.dbmaintain.script.analyzer.ScriptUpdatesAnalyzer;
 import org.dbmaintain.script.analyzer.ScriptUpdatesFormatter;
 import org.dbmaintain.script.executedscriptinfo.ExecutedScriptInfoSource;
 import org.dbmaintain.script.executedscriptinfo.ScriptIndexes;
+import org.dbmaintain.script.plan.UpdatePlan;
+import org.dbmaintain.script.plan.UpdatePlan.PlannedScript;
+import org.dbmaintain.script.progress.ProgressListener;
+import org.dbmaintain.script.progress.ProgressReporter;
 import org.dbmaintain.script.repository.ScriptRepository;
 import org.dbmaintain.script.runner.ScriptRunner;
 import org.dbmaintain.structure.clean.DBCleaner;
 import org.dbmaintain.structure.clear.DBClearer;
 import org.dbmaintain.structure.constraint.ConstraintsDisabler;
 import org.dbmaintain.structure.sequence.SequenceUpdater;
+import org.dbmaintain.structure.snapshot.DBSnapshotter;
 import org.dbmaintain.util.DbMaintainException;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static java.lang.System.currentTimeMillis;
+import static java.util.Collections.singleton;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.dbmaintain.script.analyzer.ScriptUpdateType.REPEATABLE_SCRIPT_DELETED;
 import static org.dbmaintain.script.analyzer.ScriptUpdateType.REPEATABLE_SCRIPT_UPDATED;
 
@@ -105,6 +126,25 @@ public class DefaultDbMaintainer implements DbMaintainer {
     /* The maxmimum length of filenames that can be stored in the database */
     private long filenameColumnSize;
 
+    /* Collects the timings of the analysis and check sum calculation */
+    protected Metrics metrics;
+    /* If true, a failed incremental script that was not changed is resumed after its last committed statement */
+    protected boolean resumeFailedScripts;
+    /* The maximum nr of consecutive scripts that are executed in one grouped transaction, 1 to use a transaction per script */
+    protected int maxNrOfScriptsPerGroupedTransaction = 1;
+    /* The maximum size in bytes of a script that is executed in a grouped transaction */
+    protected long maxScriptSizeForGroupedTransaction;
+
+    /* The listeners that are notified of the progress of an update */
+    protected List<ProgressListener> progressListeners = new ArrayList<>();
+    /* Reports the progress of the update that is being performed, null if no update is being performed */
+    protected ProgressReporter progressReporter;
+
+    /* Saves and restores a snapshot of the database when it is recreated from scratch, null if disabled */
+    protected DBSnapshotter dbSnapshotter;
+    /* The script that recreates the database state of the baseline revision, null if there is no such script */
+    protected Script baselineScript;
+
     /**
      * Creates a new instance
      *
@@ -139,6 +179,122 @@ public class DefaultDbMaintainer implements DbMaintainer {
             ScriptUpdatesFormatter scriptUpdatesFormatter, SQLHandler sqlHandler, long maxNrOfCharsWhenLoggingScriptContent,
             ScriptIndexes baseLineRevision, boolean ignoreDeletions, long filenameColumnSize) {
 
+        this(scriptRunner, scriptRepository, executedScriptInfoSource, fromScratchEnabled, useScriptFileLastModificationDates,
+                allowOutOfSequenceExecutionOfPatchScripts, cleanDb, disableConstraints, updateSequences, dbClearer, dbCleaner,
+                constraintsDisabler, sequenceUpdater, scriptUpdatesFormatter, sqlHandler, maxNrOfCharsWhenLoggingScriptContent,
+                baseLineRevision, ignoreDeletions, filenameColumnSize, new NoOpMetrics());
+    }
+
+    /**
+     * Creates a new instance
+     *
+     * @param metrics collects the timings of the analysis and check sum calculation, not null
+     * @see #DefaultDbMaintainer(ScriptRunner, ScriptRepository, ExecutedScriptInfoSource, boolean, boolean, boolean, boolean, boolean, boolean, DBClearer, DBCleaner, ConstraintsDisabler, SequenceUpdater, ScriptUpdatesFormatter, SQLHandler, long, ScriptIndexes, boolean, long)
+     */
+    public DefaultDbMaintainer(ScriptRunner scriptRunner, ScriptRepository scriptRepository,
+            ExecutedScriptInfoSource executedScriptInfoSource, boolean fromScratchEnabled, boolean useScriptFileLastModificationDates,
+            boolean allowOutOfSequenceExecutionOfPatchScripts, boolean cleanDb, boolean disableConstraints, boolean updateSequences,
+            DBClearer dbClearer, DBCleaner dbCleaner, ConstraintsDisabler constraintsDisabler, SequenceUpdater sequenceUpdater,
+            ScriptUpdatesFormatter scriptUpdatesFormatter, SQLHandler sqlHandler, long maxNrOfCharsWhenLoggingScriptContent,
+            ScriptIndexes baseLineRevision, boolean ignoreDeletions, long filenameColumnSize, Metrics metrics) {
+
+        this(scriptRunner, scriptRepository, executedScriptInfoSource, fromScratchEnabled, useScriptFileLastModificationDates,
+                allowOutOfSequenceExecutionOfPatchScripts, cleanDb, disableConstraints, updateSequences, dbClearer, dbCleaner,
+                constraintsDisabler, sequenceUpdater, scriptUpdatesFormatter, sqlHandler, maxNrOfCharsWhenLoggingScriptContent,
+                baseLineRevision, ignoreDeletions, filenameColumnSize, metrics, false);
+    }
+
+    /**
+     * Creates a new instance
+     *
+     * @param metrics             collects the timings of the analysis and check sum calculation, not null
+     * @param resumeFailedScripts if true, a failed incremental script that was not changed is resumed after its last committed statement
+     * @see #DefaultDbMaintainer(ScriptRunner, ScriptRepository, ExecutedScriptInfoSource, boolean, boolean, boolean, boolean, boolean, boolean, DBClearer, DBCleaner, ConstraintsDisabler, SequenceUpdater, ScriptUpdatesFormatter, SQLHandler, long, ScriptIndexes, boolean, long)
+     */
+    public DefaultDbMaintainer(ScriptRunner scriptRunner, ScriptRepository scriptRepository,
+            ExecutedScriptInfoSource executedScriptInfoSource, boolean fromScratchEnabled, boolean useScriptFileLastModificationDates,
+            boolean allowOutOfSequenceExecutionOfPatchScripts, boolean cleanDb, boolean disableConstraints, boolean updateSequences,
+            DBClearer dbClearer, DBCleaner dbCleaner, ConstraintsDisabler constraintsDisabler, SequenceUpdater sequenceUpdater,
+            ScriptUpdatesFormatter scriptUpdatesFormatter, SQLHandler sqlHandler, long maxNrOfCharsWhenLoggingScriptContent,
+            ScriptIndexes baseLineRevision, boolean ignoreDeletions, long filenameColumnSize, Metrics metrics, boolean resumeFailedScripts) {
+
+        this(scriptRunner, scriptRepository, executedScriptInfoSource, fromScratchEnabled, useScriptFileLastModificationDates,
+                allowOutOfSequenceExecutionOfPatchScripts, cleanDb, disableConstraints, updateSequences, dbClearer, dbCleaner,
+                constraintsDisabler, sequenceUpdater, scriptUpdatesFormatter, sqlHandler, maxNrOfCharsWhenLoggingScriptContent,
+                baseLineRevision, ignoreDeletions, filenameColumnSize, metrics, resumeFailedScripts, 1, 0);
+    }
+
+    /**
+     * Creates a new instance
+     *
+     * @param metrics             collects the timings of the analysis and check sum calculation, not null
+     * @param resumeFailedScripts if true, a failed incremental script that was not changed is resumed after its last committed statement
+     * @param maxNrOfScriptsPerGroupedTransaction
+     *                            the maximum nr of consecutive scripts that are executed in one grouped transaction, 1 to use a transaction per script
+     * @param maxScriptSizeForGroupedTransaction
+     *                            the maximum size in bytes of a script that is executed in a grouped transaction
+     * @see #DefaultDbMaintainer(ScriptRunner, ScriptRepository, ExecutedScriptInfoSource, boolean, boolean, boolean, boolean, boolean, boolean, DBClearer, DBCleaner, ConstraintsDisabler, SequenceUpdater, ScriptUpdatesFormatter, SQLHandler, long, ScriptIndexes, boolean, long)
+     */
+    public DefaultDbMaintainer(ScriptRunner scriptRunner, ScriptRepository scriptRepository,
+            ExecutedScriptInfoSource executedScriptInfoSource, boolean fromScratchEnabled, boolean useScriptFileLastModificationDates,
+            boolean allowOutOfSequenceExecutionOfPatchScripts, boolean cleanDb, boolean disableConstraints, boolean updateSequences,
+            DBClearer dbClearer, DBCleaner dbCleaner, ConstraintsDisabler constraintsDisabler, SequenceUpdater sequenceUpdater,
+            ScriptUpdatesFormatter scriptUpdatesFormatter, SQLHandler sqlHandler, long maxNrOfCharsWhenLoggingScriptContent,
+            ScriptIndexes baseLineRevision, boolean ignoreDeletions, long filenameColumnSize, Metrics metrics, boolean resumeFailedScripts,
+            int maxNrOfScriptsPerGroupedTransaction, long maxScriptSizeForGroupedTransaction) {
+
+        this(scriptRunner, scriptRepository, executedScriptInfoSource, fromScratchEnabled, useScriptFileLastModificationDates,
+                allowOutOfSequenceExecutionOfPatchScripts, cleanDb, disableConstraints, updateSequences, dbClearer, dbCleaner,
+                constraintsDisabler, sequenceUpdater, scriptUpdatesFormatter, sqlHandler, maxNrOfCharsWhenLoggingScriptContent,
+                baseLineRevision, ignoreDeletions, filenameColumnSize, metrics, resumeFailedScripts, maxNrOfScriptsPerGroupedTransaction,
+                maxScriptSizeForGroupedTransaction, null);
+    }
+
+    /**
+     * Creates a new instance
+     *
+     * @param metrics             collects the timings of the analysis and check sum calculation, not null
+     * @param resumeFailedScripts if true, a failed incremental script that was not changed is resumed after its last committed statement
+     * @param maxNrOfScriptsPerGroupedTransaction
+     *                            the maximum nr of consecutive scripts that are executed in one grouped transaction, 1 to use a transaction per script
+     * @param maxScriptSizeForGroupedTransaction
+     *                            the maximum size in bytes of a script that is executed in a grouped transaction
+     * @param dbSnapshotter       helper object that saves and restores a snapshot of the database when it is recreated from scratch,
+     *                            null to always clear the database and execute all scripts
+     * @see #DefaultDbMaintainer(ScriptRunner, ScriptRepository, ExecutedScriptInfoSource, boolean, boolean, boolean, boolean, boolean, boolean, DBClearer, DBCleaner, ConstraintsDisabler, SequenceUpdater, ScriptUpdatesFormatter, SQLHandler, long, ScriptIndexes, boolean, long)
+     */
+    public DefaultDbMaintainer(ScriptRunner scriptRunner, ScriptRepository scriptRepository,
+            ExecutedScriptInfoSource executedScriptInfoSource, boolean fromScratchEnabled, boolean useScriptFileLastModificationDates,
+            boolean allowOutOfSequenceExecutionOfPatchScripts, boolean cleanDb, boolean disableConstraints, boolean updateSequences,
+            DBClearer dbClearer, DBCleaner dbCleaner, ConstraintsDisabler constraintsDisabler, SequenceUpdater sequenceUpdater,
+            ScriptUpdatesFormatter scriptUpdatesFormatter, SQLHandler sqlHandler, long maxNrOfCharsWhenLoggingScriptContent,
+            ScriptIndexes baseLineRevision, boolean ignoreDeletions, long filenameColumnSize, Metrics metrics, boolean resumeFailedScripts,
+            int maxNrOfScriptsPerGroupedTransaction, long maxScriptSizeForGroupedTransaction, DBSnapshotter dbSnapshotter) {
+
+        this(scriptRunner, scriptRepository, executedScriptInfoSource, fromScratchEnabled, useScriptFileLastModificationDates,
+                allowOutOfSequenceExecutionOfPatchScripts, cleanDb, disableConstraints, updateSequences, dbClearer, dbCleaner,
+                constraintsDisabler, sequenceUpdater, scriptUpdatesFormatter, sqlHandler, maxNrOfCharsWhenLoggingScriptContent,
+                baseLineRevision, ignoreDeletions, filenameColumnSize, metrics, resumeFailedScripts, maxNrOfScriptsPerGroupedTransaction,
+                maxScriptSizeForGroupedTransaction, dbSnapshotter, null);
+    }
+
+    /**
+     * Creates a new instance
+     *
+     * @param baselineScript the script that recreates the database state of the baseline revision. If set, the
+     *                       database can be recreated from scratch even if a baseline revision is set: this script is
+     *                       then executed instead of the scripts below the baseline revision. Null if there is no such script.
+     * @see #DefaultDbMaintainer(ScriptRunner, ScriptRepository, ExecutedScriptInfoSource, boolean, boolean, boolean, boolean, boolean, boolean, DBClearer, DBCleaner, ConstraintsDisabler, SequenceUpdater, ScriptUpdatesFormatter, SQLHandler, long, ScriptIndexes, boolean, long, Metrics, boolean, int, long, DBSnapshotter)
+     */
+    public DefaultDbMaintainer(ScriptRunner scriptRunner, ScriptRepository scriptRepository,
+            ExecutedScriptInfoSource executedScriptInfoSource, boolean fromScratchEnabled, boolean useScriptFileLastModificationDates,
+            boolean allowOutOfSequenceExecutionOfPatchScripts, boolean cleanDb, boolean disableConstraints, boolean updateSequences,
+            DBClearer dbClearer, DBCleaner dbCleaner, ConstraintsDisabler constraintsDisabler, SequenceUpdater sequenceUpdater,
+            ScriptUpdatesFormatter scriptUpdatesFormatter, SQLHandler sqlHandler, long maxNrOfCharsWhenLoggingScriptContent,
+            ScriptIndexes baseLineRevision, boolean ignoreDeletions, long filenameColumnSize, Metrics metrics, boolean resumeFailedScripts,
+            int maxNrOfScriptsPerGroupedTransaction, long maxScriptSizeForGroupedTransaction, DBSnapshotter dbSnapshotter,
+            Script baselineScript) {
+
         this.scriptRunner = scriptRunner;
         this.scriptRepository = scriptRepository;
         this.executedScriptInfoSource = executedScriptInfoSource;
@@ -158,6 +314,12 @@ public class DefaultDbMaintainer implements DbMaintainer {
         this.baseLineRevision = baseLineRevision;
         this.ignoreDeletions = ignoreDeletions;
         this.filenameColumnSize = filenameColumnSize;
+        this.metrics = metrics;
+        this.resumeFailedScripts = resumeFailedScripts;
+        this.maxNrOfScriptsPerGroupedTransaction = maxNrOfScriptsPerGroupedTransaction;
+        this.maxScriptSizeForGroupedTransaction = maxScriptSizeForGroupedTransaction;
+        this.dbSnapshotter = dbSnapshotter;
+        this.baselineScript = baselineScript;
     }
 
 
@@ -175,22 +337,26 @@ public class DefaultDbMaintainer implements DbMaintainer {
     public boolean updateDatabase(boolean dryRun) {
         try {
             ScriptUpdates scriptUpdates = getScriptUpdates();
+            // create the reporter before the database is updated, to have the execution times of the previous updates
+            progressReporter = new ProgressReporter(executedScriptInfoSource.getExecutedScripts(), progressListeners);
+
+            ExecutedScript scriptToResume = getIncrementalScriptToResume(scriptUpdates);
 
-            checkConsistencyOfScriptUpdates(scriptUpdates);
+            checkConsistencyOfScriptUpdates(scriptUpdates, scriptToResume);
 
             informAboutIgnoredScripts(scriptUpdates);
 
-            if (databaseIsUpToDate(scriptUpdates)) return false;
+            if (scriptToResume == null && databaseIsUpToDate(scriptUpdates)) return false;
 
             boolean recreateFromScratch = isInitialDatabaseUpdate() || hasIrregularScriptUpdates(scriptUpdates);
 
             if (recreateFromScratch) {
                 recreateDatabaseFromScratch(dryRun);
             } else {
-                updateDatabaseIncrementally(dryRun, scriptUpdates);
+                updateDatabaseIncrementally(dryRun, scriptUpdates, scriptToResume);
             }
 
-            if (scriptUpdates.noUpdatesOtherThanRepeatableScriptDeletionsOrRenames()) {
+            if (scriptToResume == null && scriptUpdates.noUpdatesOtherThanRepeatableScriptDeletionsOrRenames()) {
                 logger.info("No script updates were detected, except for repeatable script deletions and script renames. Therefore, actions such as the execution of postprocessing scripts and disabling the constraints are skipped.");
                 return false;
             }
@@ -199,14 +365,20 @@ public class DefaultDbMaintainer implements DbMaintainer {
 
             return true;
         } finally {
+            progressReporter = null;
+            recordCheckSumMetrics();
             sqlHandler.closeAllConnections();
         }
     }
 
     private void postProcessing(boolean dryRun) {
+        postProcessing(dryRun, scriptRepository.getPostProcessingScripts());
+    }
+
+    private void postProcessing(boolean dryRun, Collection<Script> postProcessingScripts) {
         if (!dryRun) {
             // Execute all post processing scripts
-            executePostprocessingScripts();
+            executePostprocessingScripts(postProcessingScripts);
 
             // If the disable constraints option is enabled, disable all FK and not null constraints
             if (disableConstraints) {
@@ -224,12 +396,14 @@ public class DefaultDbMaintainer implements DbMaintainer {
         }
     }
 
-    private void checkConsistencyOfScriptUpdates(ScriptUpdates scriptUpdates) {
+    private void checkConsistencyOfScriptUpdates(ScriptUpdates scriptUpdates, ExecutedScript scriptToResume) {
         containTooLongFilenames(scriptUpdates);
 
         containsIgnoredScriptsAndScriptChanges(scriptUpdates);
 
-        containsFailedIncrementalScripts(scriptUpdates);
+        if (scriptToResume == null) {
+            containsFailedIncrementalScripts(scriptUpdates);
+        }
 
         containsFailedRepeatableScripts(scriptUpdates);
     }
@@ -244,8 +418,13 @@ public class DefaultDbMaintainer implements DbMaintainer {
         }
     }
 
-    private void updateDatabaseIncrementally(boolean dryRun, ScriptUpdates scriptUpdates) {
-        logger.info("The database is updated incrementally, since following regular script updates were detected:\n" + scriptUpdatesFormatter.formatScriptUpdates(scriptUpdates.getRegularScriptUpdates()));
+    private void updateDatabaseIncrementally(boolean dryRun, ScriptUpdates scriptUpdates, ExecutedScript scriptToResume) {
+        if (scriptToResume != null) {
+            logger.info("The database is updated incrementally, since failed script " + scriptToResume + " is resumed after " +
+                    scriptToResume.getStatementCheckpoint() + " and following regular script updates were detected:\n" + scriptUpdatesFormatter.formatScriptUpdates(scriptUpdates.getRegularScriptUpdates()));
+        } else {
+            logger.info("The database is updated incrementally, since following regular script updates were detected:\n" + scriptUpdatesFormatter.formatScriptUpdates(scriptUpdates.getRegularScriptUpdates()));
+        }
 
         if (!dryRun) {
             // If the disable constraints option is enabled, disable all FK and not null constraints
@@ -257,8 +436,20 @@ public class DefaultDbMaintainer implements DbMaintainer {
                 dbCleaner.cleanDatabase();
             }
 
+            progressReporter.addScripts(scriptRepository.getPreProcessingScripts());
+            if (scriptToResume != null) {
+                progressReporter.addScripts(singleton(scriptToResume.getScript()));
+            }
+            progressReporter.addScripts(getScripts(scriptUpdates.getRegularlyAddedPatchScripts()));
+            progressReporter.addScripts(getScripts(scriptUpdates.getRegularlyAddedOrModifiedScripts()));
+            progressReporter.addScripts(scriptRepository.getPostProcessingScripts());
+
             logger.info("Executing preprocessing scripts.");
             executePreprocessingScripts();
+            // If a failed script is resumed, finish it first: it failed before the other scripts could be executed
+            if (scriptToResume != null) {
+                resumeFailedScript(scriptToResume);
+            }
             // If there are incremental patch scripts with a lower index and the option allowOutOfSequenceExecutionOfPatches
             // is enabled, execute them first
             executeScriptUpdates(scriptUpdates.getRegularlyAddedPatchScripts());
@@ -272,17 +463,84 @@ public class DefaultDbMaintainer implements DbMaintainer {
     }
 
     private void recreateDatabaseFromScratch(boolean dryRun) {
-        if (baseLineRevision != null) {
-            throw new DbMaintainException("Unable to recreate the database from scratch: a baseline revision is set.\n" +
-                    "After clearing the database only scripts starting from the baseline revision would have been executed. The other scripts would have been ignored resulting in an inconsistent database state.\n" +
-                    "Please clear the baseline revision if you want to perform a from scratch update.\n" +
-                    "Another option is to explicitly clear the database using the clear task and then performing the update.");
+        checkRecreateFromScratchAllowed();
+        if (!dryRun && restoreSnapshot()) {
+            logger.info("The database is restored from a snapshot that contains all database scripts.");
+            progressReporter.addScripts(scriptRepository.getPostProcessingScripts());
+            executedScriptInfoSource.resetCachedState();
+            return;
         }
         logger.info("The database is cleared, and all database scripts are executed.");
         if (!dryRun) {
+            progressReporter.addScripts(scriptRepository.getAllUpdateScripts());
+            progressReporter.addScripts(scriptRepository.getPostProcessingScripts());
+
             dbClearer.clearDatabase();
             executedScriptInfoSource.resetCachedState();
+            executeBaselineScript();
             executeScripts(scriptRepository.getAllUpdateScripts());
+            // save the snapshot before post processing, the post processing is performed again after restoring it
+            if (dbSnapshotter != null) {
+                dbSnapshotter.saveSnapshot(getScriptsOfRecreatedDatabase());
+            }
+        }
+    }
+
+    /**
+     * Restores the snapshot of the recreated database, if there is one. If restoring fails, the database is possibly
+     * only partially restored: it is then recreated by clearing it and executing all scripts instead.
+     *
+     * @return True if the snapshot was restored
+     */
+    private boolean restoreSnapshot() {
+        if (dbSnapshotter == null) {
+            return false;
+        }
+        try {
+            return dbSnapshotter.restoreSnapshot(getScriptsOfRecreatedDatabase());
+        } catch (RuntimeException e) {
+            logger.warn("Unable to restore the database snapshot. The database is recreated without the snapshot.", e);
+            return false;
+        }
+    }
+
+    /**
+     * @return The scripts that make up a database that is recreated from scratch, including the baseline script, not null
+     */
+    private List<Script> getScriptsOfRecreatedDatabase() {
+        List<Script> scripts = new ArrayList<>();
+        if (baselineScript != null) {
+            scripts.add(baselineScript);
+        }
+        scripts.addAll(scriptRepository.getAllUpdateScripts());
+        return scripts;
+    }
+
+    /**
+     * Executes the baseline script, if there is one, on the cleared database. The baseline script takes the place of
+     * the ignored scripts below the baseline revision and is therefore not registered as executed script.
+     */
+    protected void executeBaselineScript() {
+        if (baselineScript == null) {
+            return;
+        }
+        logger.info("Executing baseline script " + baselineScript.getFileName());
+        scriptRunner.initialize();
+        try {
+            scriptRunner.execute(baselineScript);
+        } catch (DbMaintainException e) {
+            throw new DbMaintainException("Error while executing baseline script " + baselineScript.getFileName() + ".", e);
+        } finally {
+            scriptRunner.close();
+        }
+    }
+
+    private void checkRecreateFromScratchAllowed() {
+        if (baseLineRevision != null && baselineScript == null) {
+            throw new DbMaintainException("Unable to recreate the database from scratch: a baseline revision is set.\n" +
+                    "After clearing the database only scripts starting from the baseline revision would have been executed. The other scripts would have been ignored resulting in an inconsistent database state.\n" +
+                    "Please clear the baseline revision or configure a baseline script if you want to perform a from scratch update.\n" +
+                    "Another option is to explicitly clear the database using the clear task and then performing the update.");
         }
     }
 
@@ -340,6 +598,37 @@ public class DefaultDbMaintainer implements DbMaintainer {
         }
     }
 
+    /**
+     * A failed incremental script can be resumed if resuming is enabled, the statements up to a checkpoint were
+     * committed and the script was not changed since.
+     *
+     * @param scriptUpdates The script updates, not null
+     * @return The failed script that should be resumed, null if there is none. The script of the returned
+     *         executed script provides access to the content.
+     */
+    protected ExecutedScript getIncrementalScriptToResume(ScriptUpdates scriptUpdates) {
+        if (!resumeFailedScripts || scriptUpdates.hasIrregularScriptUpdates()) {
+            return null;
+        }
+        SortedSet<ExecutedScript> failedExecutedScripts = getIncrementalScriptsThatFailedDuringLastUpdate();
+        if (failedExecutedScripts.size() != 1) {
+            return null;
+        }
+        ExecutedScript failedExecutedScript = failedExecutedScripts.first();
+        StatementCheckpoint statementCheckpoint = failedExecutedScript.getStatementCheckpoint();
+        if (statementCheckpoint == null) {
+            return null;
+        }
+        for (Script script : scriptRepository.getIndexedScripts()) {
+            if (script.equals(failedExecutedScript.getScript()) && script.isScriptContentEqualTo(failedExecutedScript.getScript(), false)) {
+                ExecutedScript scriptToResume = new ExecutedScript(script, failedExecutedScript.getExecutedAt(), false);
+                scriptToResume.setStatementCheckpoint(statementCheckpoint);
+                return scriptToResume;
+            }
+        }
+        return null;
+    }
+
     private void containsIgnoredScriptsAndScriptChanges(ScriptUpdates scriptUpdates) {
         if (scriptUpdates.hasIgnoredScriptsAndScriptChanges()) {
             throw new DbMaintainException(
@@ -362,14 +651,225 @@ public class DefaultDbMaintainer implements DbMaintainer {
     }
 
 
+    /**
+     * Analyzes the scripts and the executed scripts table in the same way as {@link #updateDatabase}, and writes
+     * the actions that the update would perform to the given file. The plan can then be applied later using
+     * {@link #applyPlan}, without scanning and analyzing the scripts again.
+     *
+     * @param planFile The file to write the plan to, not null
+     * @return True if the plan contains updates, false if the database is up to date
+     */
+    public boolean planUpdate(File planFile) {
+        try {
+            ScriptUpdates scriptUpdates = getScriptUpdates();
+            checkConsistencyOfScriptUpdates(scriptUpdates, null);
+            informAboutIgnoredScripts(scriptUpdates);
+
+            UpdatePlan updatePlan = createUpdatePlan(scriptUpdates);
+            writeUpdatePlan(updatePlan, planFile);
+            logger.info("The update plan was written to " + planFile + ".");
+            return !updatePlan.isEmpty();
+        } finally {
+            recordCheckSumMetrics();
+            sqlHandler.closeAllConnections();
+        }
+    }
+
+    /**
+     * Applies a plan that was made by {@link #planUpdate}. The plan is only applied if the executed scripts table
+     * did not change since the plan was made. Only the scripts that are executed are read and their check sums
+     * are verified against the plan.
+     *
+     * @param planFile The file containing the plan, not null
+     * @return True if updates were performed on the database
+     */
+    public boolean applyPlan(File planFile) {
+        try {
+            UpdatePlan updatePlan = readUpdatePlan(planFile);
+            Set<ExecutedScript> executedScripts = executedScriptInfoSource.getExecutedScripts();
+            if (!updatePlan.getExecutedScriptsFingerprint().equals(UpdatePlan.getFingerprint(executedScripts))) {
+                throw new DbMaintainException("Unable to apply update plan " + planFile + ": the database was updated since the plan was made. Please make a new plan.");
+            }
+            if (updatePlan.isEmpty()) {
+                logger.info("The database is up to date");
+                return false;
+            }
+            Map<String, Script> scriptsPerFileName = new HashMap<>();
+            for (Script script : scriptRepository.getAllScripts()) {
+                scriptsPerFileName.put(script.getFileName(), script);
+            }
+            List<Script> preProcessingScripts = getPlannedScripts(updatePlan.getPreProcessingScripts(), scriptsPerFileName);
+            List<Script> scripts = getPlannedScripts(updatePlan.getScripts(), scriptsPerFileName);
+            List<Script> postProcessingScripts = getPlannedScripts(updatePlan.getPostProcessingScripts(), scriptsPerFileName);
+
+            progressReporter = new ProgressReporter(executedScripts, progressListeners);
+            if (updatePlan.isRecreateFromScratch()) {
+                checkRecreateFromScratchAllowed();
+                logger.info("The database is cleared, and all database scripts of the update plan are executed.");
+                progressReporter.addScripts(scripts);
+                progressReporter.addScripts(postProcessingScripts);
+
+                dbClearer.clearDatabase();
+                executedScriptInfoSource.resetCachedState();
+                executeBaselineScript();
+                executeScripts(scripts);
+            } else {
+                logger.info("The database is updated incrementally, executing " + scripts.size() + " scripts of the update plan.");
+                if (disableConstraints) {
+                    constraintsDisabler.disableConstraints();
+                }
+                if (cleanDb) {
+                    dbCleaner.cleanDatabase();
+                }
+                progressReporter.addScripts(preProcessingScripts);
+                progressReporter.addScripts(scripts);
+                progressReporter.addScripts(postProcessingScripts);
+
+                executePreprocessingScripts(preProcessingScripts);
+                executeScripts(scripts);
+                applyPlannedDeletionsAndRenames(updatePlan, executedScripts, scriptsPerFileName);
+            }
+            if (!updatePlan.isPostProcessing()) {
+                logger.info("No script updates were planned, except for repeatable script deletions and script renames. Therefore, actions such as the execution of postprocessing scripts and disabling the constraints are skipped.");
+                return false;
+            }
+            postProcessing(false, postProcessingScripts);
+            return true;
+        } finally {
+            progressReporter = null;
+            recordCheckSumMetrics();
+            sqlHandler.closeAllConnections();
+        }
+    }
+
+    protected UpdatePlan createUpdatePlan(ScriptUpdates scriptUpdates) {
+        String fingerprint = UpdatePlan.getFingerprint(executedScriptInfoSource.getExecutedScripts());
+        if (databaseIsUpToDate(scriptUpdates)) {
+            return new UpdatePlan(fingerprint, false, false);
+        }
+        if (isInitialDatabaseUpdate() || hasIrregularScriptUpdates(scriptUpdates)) {
+            checkRecreateFromScratchAllowed();
+            UpdatePlan updatePlan = new UpdatePlan(fingerprint, true, true);
+            addPlannedScripts(scriptRepository.getAllUpdateScripts(), updatePlan.getScripts());
+            addPlannedScripts(scriptRepository.getPostProcessingScripts(), updatePlan.getPostProcessingScripts());
+            return updatePlan;
+        }
+        boolean postProcessing = !scriptUpdates.noUpdatesOtherThanRepeatableScriptDeletionsOrRenames();
+        UpdatePlan updatePlan = new UpdatePlan(fingerprint, false, postProcessing);
+        addPlannedScripts(scriptRepository.getPreProcessingScripts(), updatePlan.getPreProcessingScripts());
+        addPlannedScripts(getScripts(scriptUpdates.getRegularlyAddedPatchScripts()), updatePlan.getScripts());
+        addPlannedScripts(getScripts(scriptUpdates.getRegularlyAddedOrModifiedScripts()), updatePlan.getScripts());
+        if (postProcessing) {
+            addPlannedScripts(scriptRepository.getPostProcessingScripts(), updatePlan.getPostProcessingScripts());
+        }
+        for (ScriptUpdate scriptUpdate : scriptUpdates.getRegularlyDeletedRepeatableScripts()) {
+            updatePlan.getDeletedRepeatableScripts().add(new PlannedScript(scriptUpdate.getScript().getFileName(), null, null));
+        }
+        for (ScriptUpdate scriptUpdate : scriptUpdates.getRegularlyRenamedScripts()) {
+            updatePlan.getRenamedScripts().add(new PlannedScript(scriptUpdate.getScript().getFileName(), null, scriptUpdate.getRenamedToScript().getFileName()));
+        }
+        return updatePlan;
+    }
+
+    protected void addPlannedScripts(Collection<Script> scripts, List<PlannedScript> plannedScripts) {
+        for (Script script : scripts) {
+            plannedScripts.add(new PlannedScript(script.getFileName(), script.getCheckSum(), null));
+        }
+    }
+
+    /**
+     * @param plannedScripts     The scripts of the plan, not null
+     * @param scriptsPerFileName The available scripts, not null
+     * @return The scripts of the plan, in the same order, not null
+     */
+    protected List<Script> getPlannedScripts(List<PlannedScript> plannedScripts, Map<String, Script> scriptsPerFileName) {
+        List<Script> scripts = new ArrayList<>();
+        for (PlannedScript plannedScript : plannedScripts) {
+            Script script = getPlannedScript(plannedScript.getFileName(), scriptsPerFileName);
+            if (!script.getCheckSum().equals(plannedScript.getCheckSum())) {
+                throw new DbMaintainException("Unable to apply update plan: script " + plannedScript.getFileName() + " was changed since the plan was made. Please make a new plan.");
+            }
+            scripts.add(script);
+        }
+        return scripts;
+    }
+
+    protected Script getPlannedScript(String fileName, Map<String, Script> scriptsPerFileName) {
+        Script script = scriptsPerFileName.get(fileName);
+        if (script == null) {
+            throw new DbMaintainException("Unable to apply update plan: script " + fileName + " of the plan was not found in the script locations.");
+        }
+        return script;
+    }
+
+    protected void applyPlannedDeletionsAndRenames(UpdatePlan updatePlan, Collection<ExecutedScript> executedScripts, Map<String, Script> scriptsPerFileName) {
+        Map<String, ExecutedScript> executedScriptsPerFileName = new HashMap<>();
+        for (ExecutedScript executedScript : executedScripts) {
+            executedScriptsPerFileName.put(executedScript.getScript().getFileName(), executedScript);
+        }
+        for (PlannedScript deletedRepeatableScript : updatePlan.getDeletedRepeatableScripts()) {
+            executedScriptInfoSource.deleteExecutedScript(executedScriptsPerFileName.get(deletedRepeatableScript.getFileName()));
+        }
+        for (PlannedScript renamedScript : updatePlan.getRenamedScripts()) {
+            Script renamedToScript = getPlannedScript(renamedScript.getRenamedToFileName(), scriptsPerFileName);
+            executedScriptInfoSource.renameExecutedScript(executedScriptsPerFileName.get(renamedScript.getFileName()), renamedToScript);
+        }
+    }
+
+    protected void writeUpdatePlan(UpdatePlan updatePlan, File planFile) {
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(planFile))) {
+            updatePlan.writeTo(outputStream);
+        } catch (IOException e) {
+            throw new DbMaintainException("Unable to write update plan to " + planFile, e);
+        }
+    }
+
+    protected UpdatePlan readUpdatePlan(File planFile) {
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(planFile))) {
+            return UpdatePlan.readFrom(inputStream);
+        } catch (IOException e) {
+            throw new DbMaintainException("Unable to read update plan from " + planFile, e);
+        }
+    }
+
+
     /**
      * This operation calcutes and logs which script updates have been performed since the last database update.
      *
      * @return the scripts that have been updated since the last database update
      */
     public ScriptUpdates getScriptUpdates() {
-        return new ScriptUpdatesAnalyzer(scriptRepository, executedScriptInfoSource, useScriptFileLastModificationDates,
-                allowOutOfSequenceExecutionOfPatchScripts, ignoreDeletions).calculateScriptUpdates();
+        long startTime = System.nanoTime();
+        try {
+            return new ScriptUpdatesAnalyzer(scriptRepository, executedScriptInfoSource, useScriptFileLastModificationDates,
+                    allowOutOfSequenceExecutionOfPatchScripts, ignoreDeletions).calculateScriptUpdates();
+        } finally {
+            metrics.recordTime("scriptUpdatesAnalyzer.calculateScriptUpdates", System.nanoTime() - startTime);
+        }
+    }
+
+
+    /**
+     * Registers the nr of scripts for which a check sum was calculated, together with the total nr of bytes and
+     * time that was needed to do so. Check sums are calculated lazily, so these are only known at the end.
+     */
+    protected void recordCheckSumMetrics() {
+        if (!metrics.isEnabled()) {
+            return;
+        }
+        long nrOfScripts = 0, nrOfBytes = 0, timeNanos = 0;
+        for (Script script : scriptRepository.getAllScripts()) {
+            ScriptContentHandle scriptContentHandle = script.getScriptContentHandle();
+            if (scriptContentHandle == null || scriptContentHandle.getCheckSumNrOfBytes() == 0) {
+                continue;
+            }
+            nrOfScripts++;
+            nrOfBytes += scriptContentHandle.getCheckSumNrOfBytes();
+            timeNanos += scriptContentHandle.getCheckSumTimeNanos();
+        }
+        metrics.setGauge("checkSum.scripts", nrOfScripts);
+        metrics.setGauge("checkSum.bytes", nrOfBytes);
+        metrics.setGauge("checkSum.timeMs", NANOSECONDS.toMillis(timeNanos));
     }
 
 
@@ -377,16 +877,24 @@ public class DefaultDbMaintainer implements DbMaintainer {
      * Executes all preprocessing scripts
      */
     protected void executePreprocessingScripts() {
-        executedScriptInfoSource.deleteAllExecutedPreprocessingScripts();
-        executeScripts(scriptRepository.getPreProcessingScripts());
+        executePreprocessingScripts(scriptRepository.getPreProcessingScripts());
 	}
 
+    protected void executePreprocessingScripts(Collection<Script> preProcessingScripts) {
+        executedScriptInfoSource.deleteAllExecutedPreprocessingScripts();
+        executeScripts(preProcessingScripts);
+    }
+
     /**
      * Executes all postprocessing scripts
      */
     protected void executePostprocessingScripts() {
+        executePostprocessingScripts(scriptRepository.getPostProcessingScripts());
+    }
+
+    protected void executePostprocessingScripts(Collection<Script> postProcessingScripts) {
         executedScriptInfoSource.deleteAllExecutedPostprocessingScripts();
-        executeScripts(scriptRepository.getPostProcessingScripts());
+        executeScripts(postProcessingScripts);
     }
 
 
@@ -457,12 +965,13 @@ public class DefaultDbMaintainer implements DbMaintainer {
     protected void executeScriptUpdates(SortedSet<ScriptUpdate> scriptUpdates) {
         scriptRunner.initialize();
         try {
-            for (ScriptUpdate scriptUpdate : scriptUpdates) {
+            executeInGroupedTransactions(scriptUpdates, ScriptUpdate::getScript, scriptUpdate -> {
                 long startTimeMs = currentTimeMillis();
                 executeScript(scriptUpdate.getScript());
                 long durationMs = currentTimeMillis() - startTimeMs;
                 logger.info("Executed " + scriptUpdatesFormatter.formatScriptUpdate(scriptUpdate) + " (" + durationMs + " ms)");
-            }
+                reportProgress(scriptUpdate.getScript(), durationMs);
+            });
         } finally {
             scriptRunner.close();
         }
@@ -475,15 +984,141 @@ public class DefaultDbMaintainer implements DbMaintainer {
      * as successful. If a script execution fails, the script execution is registered in the database
      * and marked as unsuccessful.
      *
-     * @param scripts the scripts to be executed on the database
+     * @param scripts the scripts to be executed on the database, in execution order
      */
-    protected void executeScripts(SortedSet<Script> scripts) {
+    protected void executeScripts(Collection<Script> scripts) {
         scriptRunner.initialize();
         try {
-            for (Script script : scripts) {
+            executeInGroupedTransactions(scripts, script -> script, script -> {
                 logger.info("Executing script " + script.getFileName());
+                long startTimeMs = currentTimeMillis();
                 executeScript(script);
+                long durationMs = currentTimeMillis() - startTimeMs;
+                logger.info("Executed script " + script.getFileName() + " (" + durationMs + " ms)");
+                reportProgress(script, durationMs);
+            });
+        } finally {
+            scriptRunner.close();
+        }
+    }
+
+
+    /**
+     * Executes the given scripts. Consecutive small scripts that can be rolled back are executed together with their
+     * updates of the executed scripts table in one grouped transaction, to avoid a commit per script. All other
+     * scripts are executed using the given action, in a transaction per script.
+     *
+     * @param items               The items to execute, in execution order, not null
+     * @param scriptOfItem        Gives the script of an item, not null
+     * @param executeSeparately   Executes an item in its own transaction, not null
+     */
+    protected <T> void executeInGroupedTransactions(Collection<T> items, Function<T, Script> scriptOfItem, Consumer<T> executeSeparately) {
+        List<T> group = new ArrayList<>();
+        for (T item : items) {
+            if (!canBeExecutedInGroupedTransaction(scriptOfItem.apply(item))) {
+                executeGroupedTransaction(group, scriptOfItem, executeSeparately);
+                executeSeparately.accept(item);
+                continue;
+            }
+            group.add(item);
+            if (group.size() >= maxNrOfScriptsPerGroupedTransaction) {
+                executeGroupedTransaction(group, scriptOfItem, executeSeparately);
             }
+        }
+        executeGroupedTransaction(group, scriptOfItem, executeSeparately);
+    }
+
+    /**
+     * Executes the scripts of the given group in one transaction and clears the group. If one of the scripts
+     * fails, everything is rolled back and the scripts are executed again, each in its own transaction. This way,
+     * the scripts before the failing one are still executed and the failing script is reported as usual.
+     */
+    protected <T> void executeGroupedTransaction(List<T> group, Function<T, Script> scriptOfItem, Consumer<T> executeSeparately) {
+        if (group.size() == 1) {
+            executeSeparately.accept(group.get(0));
+        } else if (group.size() > 1) {
+            Map<Script, Long> executionTimes = new LinkedHashMap<>();
+            // make sure the executed scripts table is checked (and created if needed) outside the grouped transaction
+            executedScriptInfoSource.getExecutedScripts();
+            sqlHandler.startGroupedTransaction();
+            try {
+                for (T item : group) {
+                    Script script = scriptOfItem.apply(item);
+                    executionTimes.put(script, executeScriptInGroupedTransaction(script));
+                }
+                sqlHandler.endGroupedTransactionAndCommit();
+
+            } catch (DbMaintainException e) {
+                sqlHandler.endGroupedTransactionAndRollback();
+                executedScriptInfoSource.resetCachedState();
+                logger.info("Unable to execute " + group.size() + " scripts in one transaction, executing them again using a transaction per script: " + e.getMessage());
+                for (T item : group) {
+                    executeSeparately.accept(item);
+                }
+                group.clear();
+                return;
+
+            } catch (RuntimeException e) {
+                sqlHandler.endGroupedTransactionAndRollback();
+                executedScriptInfoSource.resetCachedState();
+                throw e;
+            }
+            logger.info("Executed " + group.size() + " scripts in one transaction");
+            for (Map.Entry<Script, Long> executionTime : executionTimes.entrySet()) {
+                logger.info("Executed script " + executionTime.getKey().getFileName() + " (" + executionTime.getValue() + " ms)");
+                reportProgress(executionTime.getKey(), executionTime.getValue());
+            }
+        }
+        group.clear();
+    }
+
+    /**
+     * Executes the given script as part of a grouped transaction and registers it as successful.
+     * Errors are not reported since the script will be executed again separately.
+     *
+     * @param script The script to execute, not null
+     * @return The execution time in ms
+     */
+    protected long executeScriptInGroupedTransaction(Script script) {
+        ExecutedScript executedScript = new ExecutedScript(script, new Date(), false);
+        executedScriptInfoSource.registerExecutedScript(executedScript);
+
+        long startTimeMs = currentTimeMillis();
+        scriptRunner.execute(script);
+        long executionTime = currentTimeMillis() - startTimeMs;
+
+        executedScript.setSuccessful(true);
+        executedScript.setExecutionStatistics(executionTime, getExecutedStatementCount(), getScriptSize(script));
+        executedScriptInfoSource.updateExecutedScript(executedScript);
+        return executionTime;
+    }
+
+    protected boolean canBeExecutedInGroupedTransaction(Script script) {
+        if (maxNrOfScriptsPerGroupedTransaction <= 1 || script.getScriptContentHandle() == null) {
+            return false;
+        }
+        // the size is known once the check sum is calculated, which is needed anyway to register the script
+        script.getCheckSum();
+        return script.getScriptContentHandle().getCheckSumNrOfBytes() <= maxScriptSizeForGroupedTransaction
+                && scriptRunner.supportsGroupedTransaction(script);
+    }
+
+
+    /**
+     * Resumes the given failed script after its checkpoint and registers it as successful.
+     *
+     * @param scriptToResume The failed script with its checkpoint, not null
+     */
+    protected void resumeFailedScript(ExecutedScript scriptToResume) {
+        Script script = scriptToResume.getScript();
+        scriptRunner.initialize();
+        try {
+            logger.info("Resuming script " + script.getFileName() + " after " + scriptToResume.getStatementCheckpoint());
+            long startTimeMs = currentTimeMillis();
+            executeScript(script, scriptToResume.getStatementCheckpoint());
+            long durationMs = currentTimeMillis() - startTimeMs;
+            logger.info("Executed script " + script.getFileName() + " (" + durationMs + " ms)");
+            reportProgress(script, durationMs);
         } finally {
             scriptRunner.close();
         }
@@ -499,23 +1134,105 @@ public class DefaultDbMaintainer implements DbMaintainer {
      * @param script The script to execute, not null
      */
     protected void executeScript(Script script) {
+        executeScript(script, null);
+    }
+
+    /**
+     * Executes the given script, starting after the given checkpoint. If the script fails and resuming failed
+     * scripts is enabled, the checkpoint up to which the statements were committed is registered.
+     *
+     * @param script              The script to execute, not null
+     * @param statementCheckpoint The position up to which a previous execution was committed, null to execute the whole script
+     */
+    protected void executeScript(Script script, StatementCheckpoint statementCheckpoint) {
+        // We register the script execution, but we indicate it to be unsuccessful. If anything goes wrong or if the update is
+        // interrupted before being completed, this will be the final state and the DbMaintainer will do a from-scratch update the next time
+        ExecutedScript executedScript = new ExecutedScript(script, new Date(), false);
+        executedScript.setStatementCheckpoint(statementCheckpoint);
+        boolean executionStarted = false;
         try {
-            // We register the script execution, but we indicate it to be unsuccessful. If anything goes wrong or if the update is
-            // interrupted before being completed, this will be the final state and the DbMaintainer will do a from-scratch update the next time
-            ExecutedScript executedScript = new ExecutedScript(script, new Date(), false);
             executedScriptInfoSource.registerExecutedScript(executedScript);
 
-            scriptRunner.execute(script);
-            // We now register the previously registered script execution as being successful
+            long startTimeMs = currentTimeMillis();
+            executionStarted = true;
+            if (statementCheckpoint == null) {
+                scriptRunner.execute(script);
+            } else {
+                scriptRunner.execute(script, statementCheckpoint);
+            }
+            long executionTime = currentTimeMillis() - startTimeMs;
+            // We now register the previously registered script execution as being successful, together with
+            // the statistics that are used to estimate the duration of the next updates
             executedScript.setSuccessful(true);
+            executedScript.setExecutionStatistics(executionTime, getExecutedStatementCount(), getScriptSize(script));
+            executedScript.setStatementCheckpoint(null);
             executedScriptInfoSource.updateExecutedScript(executedScript);
 
         } catch (DbMaintainException e) {
+            boolean checkpointRegistered = executionStarted && registerStatementCheckpoint(executedScript);
             String message = getErrorMessage(script, e);
+            if (checkpointRegistered) {
+                message += "Statements up to " + executedScript.getStatementCheckpoint() + " were committed. If the cause of the error is fixed " +
+                        "without changing the script, the next update will resume the script after this statement.\n";
+            }
             throw new DbMaintainException(message, e.getCause());
         }
     }
 
+    /**
+     * Registers the position up to which the failed script was committed, so that the script can be resumed.
+     *
+     * @param executedScript The failed script, not null
+     * @return True if a checkpoint was registered
+     */
+    protected boolean registerStatementCheckpoint(ExecutedScript executedScript) {
+        StatementCheckpoint statementCheckpoint = scriptRunner.getLastStatementCheckpoint();
+        if (!resumeFailedScripts || statementCheckpoint == null || !executedScript.getScript().isIncremental()) {
+            return false;
+        }
+        executedScript.setStatementCheckpoint(statementCheckpoint);
+        try {
+            executedScriptInfoSource.updateExecutedScript(executedScript);
+            return true;
+        } catch (DbMaintainException e) {
+            logger.warn("Unable to register the checkpoint of failed script " + executedScript.getScript().getFileName() + ".", e);
+            return false;
+        }
+    }
+
+
+    protected Long getExecutedStatementCount() {
+        int statementCount = scriptRunner.getLastExecutedStatementCount();
+        return statementCount < 0 ? null : (long) statementCount;
+    }
+
+    protected Long getScriptSize(Script script) {
+        ScriptContentHandle scriptContentHandle = script.getScriptContentHandle();
+        if (scriptContentHandle == null || scriptContentHandle.getCheckSumNrOfBytes() == 0) {
+            return null;
+        }
+        return scriptContentHandle.getCheckSumNrOfBytes();
+    }
+
+    protected void reportProgress(Script script, long durationMs) {
+        if (progressReporter != null) {
+            progressReporter.scriptExecuted(script, durationMs);
+        }
+    }
+
+    protected SortedSet<Script> getScripts(SortedSet<ScriptUpdate> scriptUpdates) {
+        SortedSet<Script> scripts = new TreeSet<>();
+        for (ScriptUpdate scriptUpdate : scriptUpdates) {
+            scripts.add(scriptUpdate.getScript());
+        }
+        return scripts;
+    }
+
+
+    public void addProgressListener(ProgressListener progressListener) {
+        progressListeners.add(progressListener);
+    }
+
 
     protected String getErrorMessage(Script script, DbMaintainException e) {
         String exceptionMessage = e.getMessage();
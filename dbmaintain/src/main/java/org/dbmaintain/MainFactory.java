@@ -24,20 +24,33 @@ import org.dbmaintain.database.impl.DefaultDatabaseConnectionManager;
 import org.dbmaintain.database.impl.DefaultSQLHandler;
 import org.dbmaintain.datasource.DataSourceFactory;
 import org.dbmaintain.datasource.impl.SimpleDataSourceFactory;
+import org.dbmaintain.metrics.Metrics;
+import org.dbmaintain.metrics.impl.DefaultMetrics;
+import org.dbmaintain.metrics.impl.MetricsMBean;
+import org.dbmaintain.metrics.impl.NoOpMetrics;
 import org.dbmaintain.script.archive.ScriptArchiveCreator;
 import org.dbmaintain.script.executedscriptinfo.ExecutedScriptInfoSource;
+import org.dbmaintain.script.repository.ScriptRepositoryCache;
 import org.dbmaintain.script.runner.ScriptRunner;
+import org.dbmaintain.script.squash.ScriptSquasher;
 import org.dbmaintain.structure.clean.DBCleaner;
 import org.dbmaintain.structure.clear.DBClearer;
 import org.dbmaintain.structure.constraint.ConstraintsDisabler;
 import org.dbmaintain.structure.sequence.SequenceUpdater;
+import org.dbmaintain.structure.snapshot.DBSnapshotter;
 
 import javax.sql.DataSource;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
 
+import static org.apache.commons.lang3.StringUtils.uncapitalize;
 import static org.dbmaintain.config.ConfigUtils.getFactoryClass;
+import static org.dbmaintain.config.DbMaintainProperties.*;
+import static org.dbmaintain.config.PropertyUtils.getBoolean;
+import static org.dbmaintain.config.PropertyUtils.getInt;
+import static org.dbmaintain.config.PropertyUtils.getString;
+import static org.dbmaintain.metrics.impl.MetricsProxy.createMetricsProxy;
 import static org.dbmaintain.util.ReflectionUtils.createInstanceOfType;
 
 /**
@@ -51,6 +64,9 @@ public class MainFactory {
     protected DatabaseConnectionManager databaseConnectionManager;
     protected Map<String, DataSource> dataSourcesPerDatabaseName;
     protected Databases databases;
+    protected Metrics metrics;
+    /* Keeps the scanned scripts between operations, null if the scripts are scanned for each operation */
+    protected ScriptRepositoryCache scriptRepositoryCache;
 
     protected FactoryContext factoryContext;
     protected FactoryWithDatabaseContext factoryWithDatabaseContext;
@@ -74,6 +90,13 @@ public class MainFactory {
     }
 
 
+    /**
+     * @return The SQL handler that is shared by all components created by this factory, not null
+     */
+    public SQLHandler getSQLHandler() {
+        return sqlHandler;
+    }
+
     public DbMaintainer createDbMaintainer() {
         return createInstance(DbMaintainer.class);
     }
@@ -86,6 +109,10 @@ public class MainFactory {
         return createInstance(DBClearer.class);
     }
 
+    public DBSnapshotter createDBSnapshotter() {
+        return createInstance(DBSnapshotter.class);
+    }
+
     public ConstraintsDisabler createConstraintsDisabler() {
         return createInstance(ConstraintsDisabler.class);
     }
@@ -106,6 +133,10 @@ public class MainFactory {
         return createInstance(ScriptArchiveCreator.class);
     }
 
+    public ScriptSquasher createScriptSquasher() {
+        return createInstance(ScriptSquasher.class);
+    }
+
 
     @SuppressWarnings({"unchecked"})
     protected <S> S createInstance(Class<S> type) {
@@ -117,7 +148,8 @@ public class MainFactory {
         } else if (factory instanceof FactoryWithDatabase) {
             ((FactoryWithDatabase<?>) factory).init(createFactoryWithDatabaseContext());
         }
-        return (S) factory.createInstance();
+        S instance = (S) factory.createInstance();
+        return createMetricsProxy(type, instance, uncapitalize(type.getSimpleName()), getMetrics());
     }
 
     protected synchronized FactoryContext getFactoryContext() {
@@ -155,12 +187,46 @@ public class MainFactory {
     protected DatabaseConnectionManager getDatabaseConnectionManager() {
         if (databaseConnectionManager == null) {
             DataSourceFactory dataSourceFactory = new SimpleDataSourceFactory();
-            databaseConnectionManager = new DefaultDatabaseConnectionManager(configuration, sqlHandler, dataSourceFactory, dataSourcesPerDatabaseName);
+            databaseConnectionManager = new DefaultDatabaseConnectionManager(configuration, sqlHandler, dataSourceFactory, dataSourcesPerDatabaseName, getMetrics());
         }
         return databaseConnectionManager;
     }
 
+    public ScriptRepositoryCache getScriptRepositoryCache() {
+        return scriptRepositoryCache;
+    }
+
+    /**
+     * @param scriptRepositoryCache Keeps the scanned scripts between operations, null to scan the scripts for each operation
+     */
+    public void setScriptRepositoryCache(ScriptRepositoryCache scriptRepositoryCache) {
+        this.scriptRepositoryCache = scriptRepositoryCache;
+    }
+
+    /**
+     * @return The metrics that are collected for all components created by this factory, not null
+     */
+    public synchronized Metrics getMetrics() {
+        if (metrics == null) {
+            metrics = createMetrics();
+        }
+        return metrics;
+    }
+
+    protected Metrics createMetrics() {
+        if (!getBoolean(PROPERTY_METRICS_ENABLED, false, configuration)) {
+            return new NoOpMetrics();
+        }
+        Metrics metrics = new DefaultMetrics();
+        String jmxObjectName = getString(PROPERTY_METRICS_JMX_OBJECT_NAME, null, configuration);
+        if (jmxObjectName != null) {
+            new MetricsMBean(metrics).register(jmxObjectName);
+        }
+        return metrics;
+    }
+
     protected SQLHandler createSqlHandler() {
-        return new DefaultSQLHandler();
+        int fetchSize = getInt(PROPERTY_FETCH_SIZE, 0, configuration);
+        return new DefaultSQLHandler(true, fetchSize);
     }
 }
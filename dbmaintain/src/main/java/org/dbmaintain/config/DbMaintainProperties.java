@@ -78,6 +78,11 @@ public class DbMaintainProperties {
     public static final String PROPERTY_SCHEMANAMES_END = "schemaNames";
     public static final String PROPERTY_SCHEMANAMES = PROPERTY_DATABASE_START + '.' + PROPERTY_SCHEMANAMES_END;
 
+    /**
+     * Property key for the nr of rows that are fetched per round trip when querying the database, 0 to use the default of the driver
+     */
+    public static final String PROPERTY_FETCH_SIZE = "database.fetchSize";
+
     /**
      * Property key for the default identifier casing (lower_case, upper_case,
      * mixed_case, auto)
@@ -95,11 +100,38 @@ public class DbMaintainProperties {
      */
     public static final String PROPERTY_CLEANDB = "dbMaintainer.cleanDb";
 
+    /**
+     * Property indicating if the tables are truncated instead of deleting their records when cleaning the database
+     */
+    public static final String PROPERTY_CLEANDB_TRUNCATE_ENABLED = "dbMaintainer.cleanDb.truncate.enabled";
+
+    /**
+     * Property key for the nr of schemas that are cleaned at the same time when truncating the tables
+     */
+    public static final String PROPERTY_CLEANDB_PARALLELISM = "dbMaintainer.cleanDb.parallelism";
+
     /**
      * Property indicating if updating the database from scratch is enabled
      */
     public static final String PROPERTY_FROM_SCRATCH_ENABLED = "dbMaintainer.fromScratch.enabled";
 
+    /**
+     * Properties for saving a snapshot after updating the database from scratch and restoring it on later from scratch updates
+     */
+    public static final String PROPERTY_FROM_SCRATCH_SNAPSHOT_ENABLED = "dbMaintainer.fromScratch.snapshot.enabled";
+    public static final String PROPERTY_FROM_SCRATCH_SNAPSHOT_DIR = "dbMaintainer.fromScratch.snapshot.dir";
+
+    /**
+     * Property indicating if failed incremental scripts are resumed after the last committed statement
+     */
+    public static final String PROPERTY_RESUME_FAILED_SCRIPTS = "dbMaintainer.resumeFailedScripts.enabled";
+
+    /**
+     * Properties for executing consecutive small scripts in one grouped transaction
+     */
+    public static final String PROPERTY_GROUPED_TRANSACTION_MAX_NR_OF_SCRIPTS = "dbMaintainer.groupedTransaction.maxNrOfScripts";
+    public static final String PROPERTY_GROUPED_TRANSACTION_MAX_SCRIPT_SIZE = "dbMaintainer.groupedTransaction.maxScriptSize";
+
     /**
      * Property indicating if the database constraints should org disabled after updating the database
      */
@@ -246,6 +278,21 @@ public class DbMaintainProperties {
     */
     public static final String PROPERTY_PURGE_TYPES = "dbMaintainer.purge.types";    
 
+    /**
+    * Property key indicating whether database items are dropped in the order of their dependencies when clearing the database
+    */
+    public static final String PROPERTY_CLEAR_DEPENDENCY_ORDERED_ENABLED = "dbMaintainer.clearDatabase.dependencyOrdered.enabled";
+
+    /**
+    * Property key indicating whether schemas without items to preserve are dropped and recreated when clearing the database
+    */
+    public static final String PROPERTY_CLEAR_RECREATE_SCHEMAS_ENABLED = "dbMaintainer.clearDatabase.recreateSchemas.enabled";
+
+    /**
+    * Property key for the nr of schemas that are cleared at the same time when clearing the database
+    */
+    public static final String PROPERTY_CLEAR_PARALLELISM = "dbMaintainer.clearDatabase.parallelism";
+
     /* The key of the property that specifies the database table in which the DB version is stored */
     public static final String PROPERTY_EXECUTED_SCRIPTS_TABLE_NAME = "dbMaintainer.executedScriptsTableName";
 
@@ -267,6 +314,16 @@ public class DbMaintainProperties {
     /* The key of the property that specifies the column in which is stored whether the last update succeeded. */
     public static final String PROPERTY_SUCCEEDED_COLUMN_NAME = "dbMaintainer.succeededColumnName";
 
+    public static final String PROPERTY_EXECUTION_TIME_COLUMN_NAME = "dbMaintainer.executionTimeColumnName";
+
+    public static final String PROPERTY_STATEMENT_COUNT_COLUMN_NAME = "dbMaintainer.statementCountColumnName";
+
+    public static final String PROPERTY_SCRIPT_SIZE_COLUMN_NAME = "dbMaintainer.scriptSizeColumnName";
+
+    public static final String PROPERTY_CHECKPOINT_STATEMENT_NR_COLUMN_NAME = "dbMaintainer.checkpointStatementNrColumnName";
+
+    public static final String PROPERTY_CHECKPOINT_OFFSET_COLUMN_NAME = "dbMaintainer.checkpointOffsetColumnName";
+
     /* The key of the property that specifies whether the executed scripts table should be created automatically. */
     public static final String PROPERTY_AUTO_CREATE_DBMAINTAIN_SCRIPTS_TABLE = "dbMaintainer.autoCreateDbMaintainScriptsTable";
 
@@ -322,8 +379,18 @@ public class DbMaintainProperties {
     public static final String PROPERTY_CHMOD_COMMAND = "dbMaintainer.shellScriptRunner.chmodCommand";
 
     public static final String PROPERTY_DB2_COMMAND = "dbMaintainer.db2ScriptRunner.db2Command";
+    public static final String PROPERTY_DB2_BATCH_ENABLED = "dbMaintainer.db2ScriptRunner.batch.enabled";
+
+    public static final String PROPERTY_SLOW_STATEMENT_THRESHOLD_MS = "dbMaintainer.jdbcScriptRunner.slowStatementThresholdMs";
+    public static final String PROPERTY_SLOW_STATEMENT_JOURNAL_FILE = "dbMaintainer.jdbcScriptRunner.slowStatementJournalFile";
+
+    public static final String PROPERTY_METRICS_ENABLED = "dbMaintainer.metrics.enabled";
+    public static final String PROPERTY_METRICS_JMX_OBJECT_NAME = "dbMaintainer.metrics.jmx.objectName";
 
     public static final String PROPERTY_BASELINE_REVISION = "dbMaintainer.baseline.revision";
+    public static final String PROPERTY_BASELINE_SCRIPT = "dbMaintainer.baseline.script";
+
+    public static final String PROPERTY_DAEMON_PORT = "dbMaintainer.daemon.port";
 
     public static final String PROPERTY_SCRIPT_PARAMETER_FILE = "dbMaintainer.scriptParameterFile";
 
@@ -331,6 +398,7 @@ public class DbMaintainProperties {
 
     public static final String PROPERTY_SQL_PLUS_PRE_SCRIPT_FILE_PATH = "dbMaintainer.sqlPlusScriptRunner.preScriptFilePath";
     public static final String PROPERTY_SQL_PLUS_POST_SCRIPT_FILE_PATH = "dbMaintainer.sqlPlusScriptRunner.postScriptFilePath";
+    public static final String PROPERTY_SQL_PLUS_PERSISTENT_SESSION = "dbMaintainer.sqlPlusScriptRunner.persistentSession.enabled";
 
     /* Preprocessing scripts */
     public static final String PROPERTY_PREPROCESSINGSCRIPT_DIRNAME = "dbMaintainer.preProcessingScript.directoryName";
@@ -16,17 +16,24 @@
 package org.dbmaintain.config;
 
 import org.dbmaintain.MainFactory;
+import org.dbmaintain.metrics.FlightRecorderEvent;
+import org.dbmaintain.metrics.Metrics;
+import org.dbmaintain.script.Script;
+import org.dbmaintain.script.ScriptContentHandle;
 import org.dbmaintain.script.executedscriptinfo.ScriptIndexes;
 import org.dbmaintain.script.qualifier.Qualifier;
 import org.dbmaintain.script.qualifier.QualifierEvaluator;
 import org.dbmaintain.script.qualifier.impl.IncludeExcludeQualifierEvaluator;
 import org.dbmaintain.script.repository.ScriptLocation;
 import org.dbmaintain.script.repository.ScriptRepository;
+import org.dbmaintain.script.repository.ScriptRepositoryCache;
 import org.dbmaintain.script.repository.impl.ArchiveScriptLocation;
 import org.dbmaintain.script.repository.impl.FileSystemScriptLocation;
 import org.dbmaintain.util.DbMaintainException;
+import org.dbmaintain.util.FileUtils;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
@@ -35,6 +42,7 @@ import java.util.Set;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.dbmaintain.config.DbMaintainProperties.*;
 import static org.dbmaintain.config.PropertyUtils.*;
+import static org.dbmaintain.metrics.FlightRecorderEvents.beginScriptLoad;
 
 /**
  * @author Tim Ducheyne
@@ -68,14 +76,64 @@ public class FactoryContext {
         return new ScriptIndexes(baseLineRevisionString);
     }
 
+    /**
+     * @return The script that recreates the database state of the baseline revision, null if not configured
+     */
+    public Script getBaselineScript() {
+        String baselineScriptFileName = PropertyUtils.getString(PROPERTY_BASELINE_SCRIPT, null, configuration);
+        if (isBlank(baselineScriptFileName)) {
+            return null;
+        }
+        File baselineScriptFile = new File(baselineScriptFileName);
+        if (!baselineScriptFile.isFile()) {
+            throw new DbMaintainException("Baseline script " + baselineScriptFile + " does not exist.");
+        }
+        String scriptEncoding = getString(PROPERTY_SCRIPT_ENCODING, configuration);
+        boolean ignoreCarriageReturnsWhenCalculatingCheckSum = getBoolean(PROPERTY_IGNORE_CARRIAGE_RETURN_WHEN_CALCULATING_CHECK_SUM, configuration);
+        ScriptContentHandle scriptContentHandle = new ScriptContentHandle.UrlScriptContentHandle(FileUtils.getUrl(baselineScriptFile), scriptEncoding, ignoreCarriageReturnsWhenCalculatingCheckSum);
+        return new Script(baselineScriptFile.getName(), new ScriptIndexes((String) null), null, baselineScriptFile.lastModified(), null,
+                scriptContentHandle, false, false, false, false, new HashSet<>());
+    }
+
+    /**
+     * Creates the repository containing the scripts of the configured script locations. If the main factory has a
+     * script repository cache, the cached repository for this configuration is returned instead, unless a file in one
+     * of the script locations was added, removed or modified since the repository was cached.
+     *
+     * @return The script repository, not null
+     */
     public ScriptRepository createScriptRepository() {
+        ScriptRepositoryCache scriptRepositoryCache = mainFactory == null ? null : mainFactory.getScriptRepositoryCache();
+        if (scriptRepositoryCache == null) {
+            return scanScriptRepository();
+        }
+        List<File> scriptLocationFiles = new ArrayList<>();
+        for (String scriptLocationIndicator : getStringList(PROPERTY_SCRIPT_LOCATIONS, configuration)) {
+            scriptLocationFiles.add(new File(scriptLocationIndicator).getAbsoluteFile());
+        }
+        return scriptRepositoryCache.getScriptRepository(configuration, scriptLocationFiles, this::scanScriptRepository);
+    }
+
+    protected ScriptRepository scanScriptRepository() {
         Set<String> scriptLocationIndicators = new HashSet<>(getStringList(PROPERTY_SCRIPT_LOCATIONS, configuration));
         if (scriptLocationIndicators.isEmpty()) {
             throw new DbMaintainException("Unable to find scripts. No script locations specified.");
         }
+        Metrics metrics = getMetrics();
         Set<ScriptLocation> scriptLocations = new HashSet<>();
         for (String scriptLocationIndicator : scriptLocationIndicators) {
-            scriptLocations.add(createScriptLocation(scriptLocationIndicator));
+            // the scripts are loaded when the location is created
+            long startTime = System.nanoTime();
+            FlightRecorderEvent event = beginScriptLoad(scriptLocationIndicator);
+            ScriptLocation scriptLocation = null;
+            try {
+                scriptLocation = createScriptLocation(scriptLocationIndicator);
+            } finally {
+                event.end(scriptLocation == null ? 0 : scriptLocation.getScripts().size());
+                metrics.recordTime("scriptLocation.loadScripts", System.nanoTime() - startTime);
+            }
+            metrics.incrementCounter("scriptLocation.scripts", scriptLocation.getScripts().size());
+            scriptLocations.add(scriptLocation);
         }
         QualifierEvaluator qualifierEvaluator = createQualifierEvaluator(scriptLocations);
         return new ScriptRepository(scriptLocations, qualifierEvaluator);
@@ -127,4 +185,8 @@ public class FactoryContext {
     public MainFactory getMainFactory() {
         return mainFactory;
     }
+
+    public Metrics getMetrics() {
+        return mainFactory.getMetrics();
+    }
 }
@@ -20,9 +20,11 @@ import org.dbmaintain.database.Database;
 import org.dbmaintain.database.Databases;
 import org.dbmaintain.database.SQLHandler;
 import org.dbmaintain.script.parser.ScriptParserFactory;
+import org.dbmaintain.script.runner.impl.StatementTimingJournal;
 import org.dbmaintain.structure.model.DbItemIdentifier;
 import org.dbmaintain.structure.model.DbItemType;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -104,6 +106,13 @@ public class FactoryWithDatabaseContext extends FactoryContext {
         return databaseDialectScriptParserClassMap;
     }
 
+    public StatementTimingJournal createStatementTimingJournal() {
+        long slowStatementThresholdMs = PropertyUtils.getLong(PROPERTY_SLOW_STATEMENT_THRESHOLD_MS, -1, getConfiguration());
+        String journalFileName = getString(PROPERTY_SLOW_STATEMENT_JOURNAL_FILE, null, getConfiguration());
+        File journalFile = journalFileName == null ? null : new File(journalFileName);
+        return new StatementTimingJournal(slowStatementThresholdMs, journalFile);
+    }
+
     protected Properties getScriptParameters() {
         String scriptParameterFile = PropertyUtils.getString(PROPERTY_SCRIPT_PARAMETER_FILE, null, getConfiguration());
 
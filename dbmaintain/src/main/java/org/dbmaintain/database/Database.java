@@ -15,18 +15,35 @@
  */
 package org.dbmaintain.database;
 
+import static org.apache.commons.dbutils.DbUtils.closeQuietly;
+import static org.dbmaintain.structure.model.DbItemIdentifier.getItemIdentifier;
 import static org.dbmaintain.structure.model.DbItemType.SCHEMA;
-
+import static org.dbmaintain.util.ReflectionUtils.createInstanceOfType;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import javax.sql.DataSource;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dbmaintain.structure.model.DbItemIdentifier;
 import org.dbmaintain.structure.model.DbItemType;
+import org.dbmaintain.util.DbMaintainException;
 
 /**
  * Helper class that implements a number of common operations on a database schema. Operations that can be implemented
@@ -39,10 +56,18 @@ import org.dbmaintain.structure.model.DbItemType;
  */
 abstract public class Database {
 
+    /* The logger instance for this class */
+    private static Log logger = LogFactory.getLog(Database.class);
+
     protected DatabaseConnection databaseConnection;
     protected Set<String> schemaNames;
     protected IdentifierProcessor identifierProcessor;
 
+    /* The names of the items per schema and type while a catalog snapshot is active, null if no snapshot is active */
+    private Map<String, Map<DbItemType, Set<String>>> catalogSnapshot;
+    /* The nr of times a catalog snapshot was started and not yet ended */
+    private int catalogSnapshotDepth;
+
     protected Database(DatabaseConnection databaseConnection, IdentifierProcessor identifierProcessor) {
         this.databaseConnection = databaseConnection;
         this.identifierProcessor = identifierProcessor;
@@ -57,6 +82,22 @@ abstract public class Database {
     }
 
 
+    /**
+     * Creates a new instance for the same database that executes its statements using the given SQL handler. This
+     * can be used to work on the database from another thread using a separate connection.
+     *
+     * @param sqlHandler The SQL handler to use, not null
+     * @return The new database instance, not null
+     */
+    public Database copyWithSQLHandler(SQLHandler sqlHandler) {
+        DatabaseConnection copiedDatabaseConnection = new DatabaseConnection(getDatabaseInfo(), sqlHandler, getDataSource());
+        return createInstanceOfType(getClass(), false,
+                new Class<?>[]{DatabaseConnection.class, IdentifierProcessor.class},
+                new Object[]{copiedDatabaseConnection, identifierProcessor}
+        );
+    }
+
+
     /**
      * @return the database dialect supported by this db support class, not null
      */
@@ -123,52 +164,212 @@ abstract public class Database {
     public abstract Set<String> getTableNames(String schemaName);
     
     /**
-     * Return the names of all tables in the given schema sorted according to the foreign key constraints.
+     * Return the names of all tables in the given schema sorted according to the foreign key constraints. A table that
+     * references another table comes before the referenced table, so that the records of the tables can be deleted
+     * in the returned order.
      * 
-     * For example: If TabA has a Parent TabB and TabA is parent of TabC the returned order would be TabB, TabA, TabC
+     * For example: If TabA references TabB and TabC references TabA the returned order would be TabC, TabA, TabB
      * 
-     * Warning: Cycles like TabA refers to TabB which refers to TabA are not guaranteed to be handled correctly or to be detected
+     * Tables that are part of a cycle of foreign keys, or that are referenced by such a table, cannot be sorted. These
+     * tables are put at the end of the list and a warning is logged.
      * 
      * @param schemaName The schema, not null
      * @return The names of all tables in the database - sorted
      */
     public List<String> getTableNamesSortedAccordingToConstraints(String schemaName) {
-    	return new ArrayList<>(getTableNames(schemaName));
+        List<String> tableNames = new ArrayList<>(getTableNames(schemaName));
+        Map<String, Set<String>> referencingTableNames = getReferencingTableNames(schemaName);
+        if (referencingTableNames.isEmpty()) {
+            return tableNames;
+        }
+        return sortAccordingToConstraints(tableNames, referencingTableNames);
+    }
+
+    /**
+     * Gets the foreign key relations between the tables of the given schema. Foreign keys to tables in other schemas
+     * are ignored. By default no relations are returned, which leaves the tables unsorted.
+     *
+     * @param schemaName The schema, not null
+     * @return For each table that is referenced by a foreign key, the names of the tables that reference it, not null
+     */
+    public Map<String, Set<String>> getReferencingTableNames(String schemaName) {
+        return new HashMap<>();
+    }
+
+    /**
+     * Executes the given foreign key query. The query should return the columns TABLE_NAME and
+     * REFERENCED_TABLE_NAME. Foreign keys of tables that reference themselves are ignored.
+     *
+     * @param sql        The query, not null
+     * @param schemaName The schema of the tables, not null
+     * @param parameters The parameters of the query
+     * @return For each table that is referenced by a foreign key, the names of the tables that reference it, not null
+     */
+    protected Map<String, Set<String>> getReferencingTableNames(String sql, String schemaName, Object... parameters) {
+        Map<String, Set<String>> referencingTableNames = new HashMap<>();
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = getDataSource().getConnection();
+            statement = connection.prepareStatement(sql);
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                String tableName = resultSet.getString("TABLE_NAME");
+                String referencedTableName = resultSet.getString("REFERENCED_TABLE_NAME");
+                if (tableName.equals(referencedTableName)) {
+                    continue;
+                }
+                referencingTableNames.computeIfAbsent(referencedTableName, key -> new HashSet<>()).add(tableName);
+            }
+            return referencingTableNames;
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to resolve referential constraints for schema " + schemaName, e);
+        } finally {
+            closeQuietly(connection, statement, resultSet);
+        }
     }
 
     
     /**
-     * Sorts the given tables according to parent child relations passed as 2nd parameter.
+     * Sorts the given tables according to parent child relations passed as 2nd parameter. A table comes after all
+     * tables that are listed for it in the relations. Tables without relations keep their relative order. Tables
+     * that are part of a cycle, or that have to come after such a table, are put at the end in their original order.
+     * The tables are sorted in linear time using Kahn's algorithm.
+     *
      * @param tableNames Tables to be sorted
-     * @param childParentRelations Parent child relations
+     * @param childParentRelations For each table, the tables that have to come before it
      * @return The passed tables sorted
      */
     public static List<String> sortAccordingToConstraints(List<String> tableNames, final Map<String, Set<String>> childParentRelations) {
-    	// Using Collections.sort doesn't work since the sort order isn't associative
-    	for (int i = 0; i < tableNames.size(); i++) {
-    		for (int j = i + 1; j < tableNames.size(); j++) {
-        		if (compareTables(tableNames.get(i), tableNames.get(j), childParentRelations) > 0) {
-        			Collections.swap(tableNames, i, j);
-        		}
-        	}	
-    	}
-    	return tableNames;
+        Map<String, Integer> nrOfPredecessors = new HashMap<>();
+        Map<String, List<String>> successors = new HashMap<>();
+        for (String tableName : tableNames) {
+            nrOfPredecessors.put(tableName, 0);
+        }
+        for (String tableName : tableNames) {
+            for (String predecessor : childParentRelations.getOrDefault(tableName, Collections.emptySet())) {
+                if (!predecessor.equals(tableName) && nrOfPredecessors.containsKey(predecessor)) {
+                    nrOfPredecessors.merge(tableName, 1, Integer::sum);
+                    successors.computeIfAbsent(predecessor, key -> new ArrayList<>()).add(tableName);
+                }
+            }
+        }
+
+        Deque<String> tablesToAdd = new ArrayDeque<>();
+        for (String tableName : tableNames) {
+            if (nrOfPredecessors.get(tableName) == 0) {
+                tablesToAdd.add(tableName);
+            }
+        }
+        List<String> sortedTableNames = new ArrayList<>(tableNames.size());
+        while (!tablesToAdd.isEmpty()) {
+            String tableName = tablesToAdd.poll();
+            sortedTableNames.add(tableName);
+            for (String successor : successors.getOrDefault(tableName, Collections.emptyList())) {
+                if (nrOfPredecessors.merge(successor, -1, Integer::sum) == 0) {
+                    tablesToAdd.add(successor);
+                }
+            }
+        }
+
+        if (sortedTableNames.size() < tableNames.size()) {
+            List<String> unsortedTableNames = new ArrayList<>();
+            for (String tableName : tableNames) {
+                if (nrOfPredecessors.get(tableName) > 0) {
+                    unsortedTableNames.add(tableName);
+                }
+            }
+            logger.warn("Unable to sort tables " + unsortedTableNames + " according to their constraints. These tables are part of, or depend on, a cycle of foreign keys.");
+            sortedTableNames.addAll(unsortedTableNames);
+        }
+        return sortedTableNames;
     }
-    
-    private static int compareTables(String t1, String t2, Map<String, Set<String>> childParentRelations) {
-		if (childParentRelations.containsKey(t1) 
-				&& childParentRelations.get(t1).contains(t2)) {
-			return 1;
-		}
-		else if (childParentRelations.containsKey(t2) 
-				&& childParentRelations.get(t2).contains(t1)) {
-			return -1;
-		}
-		else {
-			return 0;
-		}
+
+    /**
+     * Drops the given schema together with all items it contains, and creates it again as an empty schema with the
+     * same owner. Privileges that were granted on the schema itself are granted again. This is a lot faster than
+     * dropping the items of the schema one by one.
+     *
+     * @param schemaName The schema, not null
+     */
+    public void recreateSchema(String schemaName) {
+        throw new UnsupportedOperationException("Recreating schemas not supported for " + getSupportedDatabaseDialect());
+    }
+
+    /**
+     * Gets the dependencies between the database items of the given schema, as recorded in the database catalog,
+     * e.g. foreign keys between tables, views on tables and triggers on tables. Only dependencies between items of
+     * the given schema are returned.
+     *
+     * @param schemaName The schema, not null
+     * @return For each item that depends on other items, the items it depends on, not null
+     */
+    public Map<DbItemIdentifier, Set<DbItemIdentifier>> getDbItemDependencies(String schemaName) {
+        throw new UnsupportedOperationException("Retrieving database item dependencies not supported for " + getSupportedDatabaseDialect());
+    }
+
+    /**
+     * Executes the given dependencies query. The query should return the columns ITEM_TYPE, ITEM_NAME,
+     * REFERENCED_TYPE and REFERENCED_NAME, in which the types are names of {@link DbItemType} values.
+     * Rows with other types and dependencies of items on themselves are ignored.
+     *
+     * @param sql        The query, not null
+     * @param schemaName The schema of the items, not null
+     * @param parameters The parameters of the query
+     * @return For each item that depends on other items, the items it depends on, not null
+     */
+    protected Map<DbItemIdentifier, Set<DbItemIdentifier>> getDbItemDependencies(String sql, String schemaName, Object... parameters) {
+        Map<DbItemIdentifier, Set<DbItemIdentifier>> dependencies = new HashMap<>();
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = getDataSource().getConnection();
+            statement = connection.prepareStatement(sql);
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                DbItemType itemType = getDbItemType(resultSet.getString("ITEM_TYPE"));
+                DbItemType referencedType = getDbItemType(resultSet.getString("REFERENCED_TYPE"));
+                if (itemType == null || referencedType == null) {
+                    continue;
+                }
+                DbItemIdentifier item = getItemIdentifier(itemType, schemaName, resultSet.getString("ITEM_NAME"), this);
+                DbItemIdentifier referencedItem = getItemIdentifier(referencedType, schemaName, resultSet.getString("REFERENCED_NAME"), this);
+                if (item.equals(referencedItem)) {
+                    continue;
+                }
+                dependencies.computeIfAbsent(item, key -> new HashSet<>()).add(referencedItem);
+            }
+            return dependencies;
+        } catch (SQLException e) {
+            throw new DatabaseException("Unable to retrieve database item dependencies for schema " + schemaName, e);
+        } finally {
+            closeQuietly(connection, statement, resultSet);
+        }
     }
 
+    private DbItemType getDbItemType(String typeName) {
+        if (typeName == null) {
+            return null;
+        }
+        // literals of different lengths in a union can be padded with spaces
+        typeName = typeName.trim();
+        for (DbItemType type : DbItemType.values()) {
+            if (type.name().equals(typeName)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+
     /**
      * Gets the names of all columns of the given table in the default schema.
      *
@@ -406,11 +607,29 @@ abstract public class Database {
     
     /**
      * Retrieves the names of all DB items for the given type and schema.
+     * If a catalog snapshot is active, the names are taken from the snapshot.
      * @param type Determines which item type shall be returned
      * @param schema The schema, not null
      * @return The names of all DB items for the given type, not null
      */
     final public Set<String> getDbItemsOfType(DbItemType type, String schema) {
+        if (catalogSnapshot == null) {
+            return getDbItemsOfTypeFromCatalog(type, schema);
+        }
+        Map<DbItemType, Set<String>> schemaSnapshot = catalogSnapshot.get(schema);
+        if (schemaSnapshot == null) {
+            schemaSnapshot = new HashMap<>(loadCatalogSnapshot(schema));
+            catalogSnapshot.put(schema, schemaSnapshot);
+        }
+        Set<String> itemNames = schemaSnapshot.get(type);
+        if (itemNames == null) {
+            itemNames = new HashSet<>(getDbItemsOfTypeFromCatalog(type, schema));
+            schemaSnapshot.put(type, itemNames);
+        }
+        return new HashSet<>(itemNames);
+    }
+
+    private Set<String> getDbItemsOfTypeFromCatalog(DbItemType type, String schema) {
     	switch (type) {
     		case DATABASE_LINK:
     			return getDatabaseLinkNames(schema);
@@ -463,6 +682,89 @@ abstract public class Database {
         getSQLHandler().execute("drop table " + qualified(schemaName, tableName) + (supportsCascade() ? " cascade" : ""), getDataSource());
     }
 
+    /**
+     * Removes all data from the given tables of the given schema using truncate statements. Truncating a table does
+     * not log the individual rows and is therefore a lot faster than deleting them. Most databases do not allow to
+     * truncate a table that is referenced by a foreign key. Such tables are not truncated but returned, so that they
+     * can be cleaned by deleting their records instead.
+     * Note: the table names are surrounded with quotes, making them case-sensitive.
+     *
+     * @param schemaName The schema, not null
+     * @param tableNames The tables to truncate (case-sensitive), not null
+     * @return The tables that could not be truncated, in the same order as given, not null
+     */
+    public List<String> truncateTables(String schemaName, List<String> tableNames) {
+        List<String> notTruncatedTableNames = new ArrayList<>();
+        for (String tableName : tableNames) {
+            try {
+                truncateTable(schemaName, tableName);
+            } catch (DatabaseException e) {
+                logger.debug("Unable to truncate table " + tableName + " in database schema " + schemaName + ". Records will be deleted instead.", e);
+                notTruncatedTableNames.add(tableName);
+            }
+        }
+        return notTruncatedTableNames;
+    }
+
+    /**
+     * Removes all data from the given tables of the given schema using truncate statements, see
+     * {@link #truncateTables(String, List)}. The given cleaner is invoked for every table that could not be truncated,
+     * e.g. to delete its records instead. Databases that change the foreign keys to truncate the tables, invoke the
+     * cleaner before the foreign keys are restored.
+     *
+     * @param schemaName               The schema, not null
+     * @param tableNames               The tables to truncate (case-sensitive), not null
+     * @param notTruncatedTableCleaner Cleans a table that could not be truncated, not null
+     * @return The tables that could not be truncated, in the same order as given, not null
+     */
+    public List<String> truncateTables(String schemaName, List<String> tableNames, Consumer<String> notTruncatedTableCleaner) {
+        List<String> notTruncatedTableNames = truncateTables(schemaName, tableNames);
+        notTruncatedTableNames.forEach(notTruncatedTableCleaner);
+        return notTruncatedTableNames;
+    }
+
+    /**
+     * Removes all data from the table with the given name using a truncate statement.
+     * Note: the table name is surrounded with quotes, making it case-sensitive.
+     *
+     * @param schemaName The schema, not null
+     * @param tableName  The table to truncate (case-sensitive), not null
+     */
+    public void truncateTable(String schemaName, String tableName) {
+        getSQLHandler().execute("truncate table " + qualified(schemaName, tableName), getDataSource());
+    }
+
+
+    /**
+     * Writes a snapshot of the complete database, structure and data, to the given file.
+     *
+     * @param snapshotFile The file to write the snapshot to, should not exist yet, not null
+     */
+    public void saveSnapshot(File snapshotFile) {
+        throw new UnsupportedOperationException("Snapshots not supported for " + getSupportedDatabaseDialect());
+    }
+
+    /**
+     * Replaces the complete database, structure and data, by the snapshot in the given file.
+     *
+     * @param snapshotFile The file containing the snapshot, see {@link #saveSnapshot}, not null
+     */
+    public void restoreSnapshot(File snapshotFile) {
+        throw new UnsupportedOperationException("Snapshots not supported for " + getSupportedDatabaseDialect());
+    }
+
+    /**
+     * Writes a script that recreates the structure and data of the schemas of this database. The script does not
+     * create the schemas themselves and can be executed as a regular database script on a cleared database.
+     * This is supported for the databases that support snapshots, see {@link #supportsSnapshots}.
+     *
+     * @param scriptFile The file to write the script to, not null
+     * @param encoding   The encoding of the script, not null
+     */
+    public void exportScript(File scriptFile, String encoding) {
+        throw new UnsupportedOperationException("Exporting a script not supported for " + getSupportedDatabaseDialect());
+    }
+
 
     /**
      * Removes the view with the given name from the default schema
@@ -745,8 +1047,128 @@ abstract public class Database {
     			break;
     		default:
     			throw new IllegalArgumentException(type+" is not a valid argument for drop");
-    	}    
+    	}
+    	updateCatalogSnapshotAfterDrop(type, schemaName, itemName);
     }    
+
+    /**
+     * Starts a catalog snapshot. Until the snapshot is ended, the names of the items of a schema are read from the
+     * database only once and {@link #getDbItemsOfType} is answered from memory. Items dropped using {@link #drop} are
+     * removed from the snapshot. Other changes to the database structure, e.g. executing scripts, are not seen while
+     * the snapshot is active, so it should only be used during an operation that does not make such changes. Starting
+     * a snapshot while one is active has no effect, the snapshot then ends when it was ended as often as it was started.
+     */
+    public void startCatalogSnapshot() {
+        if (catalogSnapshotDepth++ == 0) {
+            catalogSnapshot = new HashMap<>();
+        }
+    }
+
+    /**
+     * Ends the catalog snapshot that was started with {@link #startCatalogSnapshot}.
+     */
+    public void endCatalogSnapshot() {
+        if (catalogSnapshotDepth > 0 && --catalogSnapshotDepth == 0) {
+            catalogSnapshot = null;
+        }
+    }
+
+    /**
+     * Discards the snapshot of the given schema, if a catalog snapshot is active. The names of the items will be
+     * read from the database again when they are needed.
+     *
+     * @param schemaName The schema, not null
+     */
+    public void invalidateCatalogSnapshot(String schemaName) {
+        if (catalogSnapshot != null) {
+            catalogSnapshot.remove(schemaName);
+        }
+    }
+
+    /**
+     * Discards the snapshots of all schemas, if a catalog snapshot is active.
+     */
+    public void invalidateCatalogSnapshot() {
+        if (catalogSnapshot != null) {
+            catalogSnapshot.clear();
+        }
+    }
+
+    /**
+     * Loads the names of the items of the given schema when the schema is first used during a catalog snapshot.
+     * Subclasses can override this to load the items of multiple types using a single query. The names of the types
+     * that are not returned are loaded separately when they are needed. By default nothing is loaded in advance.
+     *
+     * @param schemaName The schema, not null
+     * @return The names of the items per type, not null
+     */
+    protected Map<DbItemType, Set<String>> loadCatalogSnapshot(String schemaName) {
+        return new HashMap<>();
+    }
+
+    /**
+     * Executes the given catalog query. The query should return the columns ITEM_TYPE and ITEM_NAME, in which the
+     * types are names of {@link DbItemType} values. Rows with other types are ignored.
+     *
+     * @param types      The types that are loaded by the query, types without items get an empty set, not null
+     * @param sql        The query, not null
+     * @param parameters The parameters of the query
+     * @return The names of the items per type, not null
+     */
+    protected Map<DbItemType, Set<String>> loadCatalogSnapshot(Set<DbItemType> types, String sql, Object... parameters) {
+        Map<DbItemType, Set<String>> itemNames = new HashMap<>();
+        for (DbItemType type : types) {
+            itemNames.put(type, new HashSet<>());
+        }
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = getDataSource().getConnection();
+            statement = connection.prepareStatement(sql);
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                Set<String> names = itemNames.get(getDbItemType(resultSet.getString("ITEM_TYPE")));
+                if (names != null) {
+                    names.add(resultSet.getString("ITEM_NAME"));
+                }
+            }
+            return itemNames;
+        } catch (SQLException e) {
+            throw new DatabaseException("Unable to load the database items of schema " + parameters[0], e);
+        } finally {
+            closeQuietly(connection, statement, resultSet);
+        }
+    }
+
+    /**
+     * Removes the dropped item from the catalog snapshot. Dropping a table, view, type or stored code can also drop
+     * other items, e.g. the triggers of a table or, when using cascade, depending views. The other types of the
+     * schema are therefore loaded again when they are needed.
+     */
+    private void updateCatalogSnapshotAfterDrop(DbItemType type, String schemaName, String itemName) {
+        Map<DbItemType, Set<String>> schemaSnapshot = catalogSnapshot == null ? null : catalogSnapshot.get(schemaName);
+        if (schemaSnapshot == null) {
+            return;
+        }
+        Set<String> itemNames = schemaSnapshot.get(type);
+        if (itemNames != null) {
+            itemNames.remove(itemName);
+        }
+        switch (type) {
+            case DATABASE_LINK:
+            case RULE:
+            case SEQUENCE:
+            case SYNONYM:
+            case TRIGGER:
+                return;
+            default:
+                schemaSnapshot.keySet().removeIf(otherType -> otherType != type || supportsCascade());
+        }
+    }
     
     /**
      * Disables all referential constraints (e.g. foreign keys) on all table in the default schema
@@ -777,6 +1199,77 @@ abstract public class Database {
      */
     public abstract void disableValueConstraints(String schemaName);
 
+    /**
+     * Executes the given catalog query and groups the resulting rows per table. The first column of the query should
+     * contain the table name, the values of the other columns are returned for that table. This makes it possible to
+     * retrieve e.g. the constraints of all tables of a schema using a single query.
+     *
+     * @param sql        The query, not null
+     * @param parameters The parameters of the query
+     * @return The values of the other columns of the rows, per table name, not null
+     */
+    protected Map<String, List<String[]>> getRowsPerTable(String sql, Object... parameters) {
+        Map<String, List<String[]>> rowsPerTable = new HashMap<>();
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = getDataSource().getConnection();
+            statement = connection.prepareStatement(sql);
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            resultSet = statement.executeQuery();
+            int nrOfColumns = resultSet.getMetaData().getColumnCount();
+            while (resultSet.next()) {
+                String[] values = new String[nrOfColumns - 1];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = resultSet.getString(i + 2);
+                }
+                rowsPerTable.computeIfAbsent(resultSet.getString(1), key -> new ArrayList<>()).add(values);
+            }
+            return rowsPerTable;
+        } catch (SQLException e) {
+            throw new DatabaseException("Error while executing statement: " + sql, e);
+        } finally {
+            closeQuietly(connection, statement, resultSet);
+        }
+    }
+
+    /**
+     * Adds an alter table clause for every row to the clauses of the table of that row.
+     *
+     * @param alterClausesPerTable The clauses per table name to add to, not null
+     * @param rowsPerTable         The rows per table name, as returned by {@link #getRowsPerTable}, not null
+     * @param alterClause          Creates the clause for a row, not null
+     */
+    protected static void addAlterClauses(Map<String, List<String>> alterClausesPerTable, Map<String, List<String[]>> rowsPerTable, Function<String[], String> alterClause) {
+        for (Map.Entry<String, List<String[]>> entry : rowsPerTable.entrySet()) {
+            List<String> alterClauses = alterClausesPerTable.computeIfAbsent(entry.getKey(), key -> new ArrayList<>());
+            for (String[] row : entry.getValue()) {
+                alterClauses.add(alterClause.apply(row));
+            }
+        }
+    }
+
+    /**
+     * Alters the given tables using a single alter table statement per table that contains all the given clauses,
+     * separated by commas, e.g. alter table A drop constraint X, drop constraint Y. The statements are executed as a
+     * single batch.
+     *
+     * @param schemaName           The schema, not null
+     * @param alterClausesPerTable The clauses of the alter table statement per table name, not null
+     */
+    protected void alterTablesInBatch(String schemaName, Map<String, List<String>> alterClausesPerTable) {
+        List<String> statements = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : alterClausesPerTable.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                statements.add("alter table " + qualified(schemaName, entry.getKey()) + " " + String.join(", ", entry.getValue()));
+            }
+        }
+        getSQLHandler().executeBatch(statements, getDataSource());
+    }
+
 
     /**
      * Returns the value of the sequence with the given name from the default schema.
@@ -873,6 +1366,159 @@ abstract public class Database {
         throw new UnsupportedOperationException("Identity columns not supported for " + getSupportedDatabaseDialect());
     }
 
+
+    /**
+     * Returns the values of all sequences of the given schema. The default implementation retrieves the value of each
+     * sequence separately, dialects override this with a single catalog query.
+     * <p>
+     * Note: this can have the side-effect of increasing the sequence values.
+     *
+     * @param schemaName The schema, not null
+     * @return The values per sequence name, not null
+     */
+    public Map<String, Long> getSequenceValues(String schemaName) {
+        Map<String, Long> sequenceValues = new HashMap<>();
+        for (String sequenceName : getDbItemsOfType(DbItemType.SEQUENCE, schemaName)) {
+            sequenceValues.put(sequenceName, getSequenceValue(schemaName, sequenceName));
+        }
+        return sequenceValues;
+    }
+
+    /**
+     * Sets the next value of all given sequences of the given schema to the given value. If the dialect provides an
+     * increment statement, all statements are executed as a single batch. Otherwise each sequence is incremented
+     * separately.
+     *
+     * @param schemaName       The schema, not null
+     * @param sequenceNames    The sequences, not null
+     * @param newSequenceValue The value to set
+     */
+    public void incrementSequencesToValue(String schemaName, Set<String> sequenceNames, long newSequenceValue) {
+        List<String> statements = new ArrayList<>();
+        for (String sequenceName : sequenceNames) {
+            String statement = getIncrementSequenceToValueStatement(schemaName, sequenceName, newSequenceValue);
+            if (statement == null) {
+                incrementSequenceToValue(schemaName, sequenceName, newSequenceValue);
+            } else {
+                statements.add(statement);
+            }
+        }
+        if (!statements.isEmpty()) {
+            getSQLHandler().executeBatch(statements, getDataSource());
+        }
+    }
+
+    /**
+     * Gets the statement that sets the next value of the given sequence, so that it can be executed in a batch.
+     *
+     * @param schemaName       The schema, not null
+     * @param sequenceName     The sequence, not null
+     * @param newSequenceValue The value to set
+     * @return The statement, null if the sequence cannot be incremented using a single statement
+     */
+    protected String getIncrementSequenceToValueStatement(String schemaName, String sequenceName, long newSequenceValue) {
+        return null;
+    }
+
+    /**
+     * Gets the names of the identity columns of all tables of the given schema. Tables without identity columns are
+     * not included. The default implementation retrieves the columns of each table separately, dialects override this
+     * with a single catalog query.
+     *
+     * @param schemaName The schema, not null
+     * @return The names of the identity columns per table name, not null
+     */
+    public Map<String, Set<String>> getIdentityColumnNamesPerTable(String schemaName) {
+        Map<String, Set<String>> identityColumnNamesPerTable = new HashMap<>();
+        for (String tableName : getDbItemsOfType(DbItemType.TABLE, schemaName)) {
+            Set<String> identityColumnNames = getIdentityColumnNames(schemaName, tableName);
+            if (!identityColumnNames.isEmpty()) {
+                identityColumnNamesPerTable.put(tableName, identityColumnNames);
+            }
+        }
+        return identityColumnNamesPerTable;
+    }
+
+    /**
+     * Increments the identity value of all given identity columns to the given value. If the dialect provides an
+     * increment statement, all statements are executed as a single batch. Otherwise each column is incremented
+     * separately and the columns that turn out not to be identity columns are skipped.
+     *
+     * @param schemaName                  The schema, not null
+     * @param identityColumnNamesPerTable The identity columns per table name, not null
+     * @param identityValue               The new value
+     */
+    public void incrementIdentityColumnsToValue(String schemaName, Map<String, Set<String>> identityColumnNamesPerTable, long identityValue) {
+        List<String> statements = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> entry : identityColumnNamesPerTable.entrySet()) {
+            for (String identityColumnName : entry.getValue()) {
+                String statement = getIncrementIdentityColumnToValueStatement(schemaName, entry.getKey(), identityColumnName, identityValue);
+                if (statement != null) {
+                    statements.add(statement);
+                    continue;
+                }
+                try {
+                    incrementIdentityColumnToValue(schemaName, entry.getKey(), identityColumnName, identityValue);
+                } catch (DbMaintainException e) {
+                    // primary key is not an identity column
+                    logger.debug("Unable to increment value of column " + identityColumnName + " of table " + entry.getKey() + ". Column is not an identity column.");
+                }
+            }
+        }
+        if (!statements.isEmpty()) {
+            getSQLHandler().executeBatch(statements, getDataSource());
+        }
+    }
+
+    /**
+     * Gets the statement that increments the identity value of the given column, so that it can be executed in a batch.
+     * Only return a statement if the identity columns of the dialect are retrieved accurately, a failing statement
+     * fails the complete batch.
+     *
+     * @param schemaName         The schema, not null
+     * @param tableName          The table with the identity column, not null
+     * @param identityColumnName The column, not null
+     * @param identityValue      The new value
+     * @return The statement, null if the column should be incremented separately
+     */
+    protected String getIncrementIdentityColumnToValueStatement(String schemaName, String tableName, String identityColumnName, long identityValue) {
+        return null;
+    }
+
+    /**
+     * Executes the given catalog query that returns a name and a numeric value per row.
+     *
+     * @param sql        The query, not null
+     * @param parameters The parameters of the query
+     * @return The values per name, not null
+     */
+    protected Map<String, Long> getValuesPerName(String sql, Object... parameters) {
+        Map<String, Long> valuesPerName = new HashMap<>();
+        for (Map.Entry<String, List<String[]>> entry : getRowsPerTable(sql, parameters).entrySet()) {
+            valuesPerName.put(entry.getKey(), Long.valueOf(entry.getValue().get(0)[0]));
+        }
+        return valuesPerName;
+    }
+
+    /**
+     * Executes the given catalog query that returns a table name and a column name per row.
+     *
+     * @param sql        The query, not null
+     * @param parameters The parameters of the query
+     * @return The column names per table name, not null
+     */
+    protected Map<String, Set<String>> getColumnNamesPerTable(String sql, Object... parameters) {
+        Map<String, Set<String>> columnNamesPerTable = new HashMap<>();
+        for (Map.Entry<String, List<String[]>> entry : getRowsPerTable(sql, parameters).entrySet()) {
+            Set<String> columnNames = new HashSet<>();
+            for (String[] row : entry.getValue()) {
+                columnNames.add(row[0]);
+            }
+            columnNamesPerTable.put(entry.getKey(), columnNames);
+        }
+        return columnNamesPerTable;
+    }
+
     /**
      * Sets the current schema of the database. If a current schema is set, it does not need to be specified
      * explicitly in the scripts.
@@ -1004,6 +1650,25 @@ abstract public class Database {
         throw new UnsupportedOperationException("Enabling/disabling setting values for identity columns not supported for " + getSupportedDatabaseDialect());
     }
 
+    /**
+     * Indicates whether the underlying DBMS supports dropping and recreating a schema, see {@link #recreateSchema(String)}
+     *
+     * @return True if recreating schemas is supported, false otherwise
+     */
+    public boolean supportsRecreateSchema() {
+        return false;
+    }
+
+    /**
+     * Indicates whether the dependencies between database items can be retrieved from the catalog of the
+     * underlying DBMS, see {@link #getDbItemDependencies(String)}
+     *
+     * @return True if retrieving dependencies is supported, false otherwise
+     */
+    public boolean supportsDbItemDependencies() {
+        return false;
+    }
+
     /**
      * Indicates whether the underlying DBMS supports synonyms
      *
@@ -1158,4 +1823,23 @@ abstract public class Database {
         return false;
     }
 
+    /**
+     * Indicates whether DDL statements of the underlying DBMS take part in the transaction, i.e. they do not
+     * implicitly commit the transaction and can be rolled back.
+     *
+     * @return True if DDL is transactional, false otherwise
+     */
+    public boolean supportsTransactionalDdl() {
+        return false;
+    }
+
+    /**
+     * Indicates whether the underlying DBMS supports saving and restoring a snapshot of the database
+     *
+     * @return True if snapshots are supported, false otherwise
+     */
+    public boolean supportsSnapshots() {
+        return false;
+    }
+
 }
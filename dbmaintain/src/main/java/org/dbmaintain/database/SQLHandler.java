@@ -18,6 +18,7 @@ package org.dbmaintain.database;
 import org.dbmaintain.util.DbMaintainException;
 
 import javax.sql.DataSource;
+import java.util.List;
 import java.util.Set;
 
 public interface SQLHandler {
@@ -30,6 +31,33 @@ public interface SQLHandler {
      */
     void execute(String sql, DataSource dataSource);
 
+    /**
+     * Executes the given statement and returns the nr of rows that were affected by it.
+     *
+     * @param sql        The sql string for the statement
+     * @param dataSource The dataSource, not null
+     * @return The nr of rows affected, -1 if the statement is not an update (e.g. a query or DDL statement)
+     */
+    int executeAndGetUpdateCount(String sql, DataSource dataSource);
+
+    /**
+     * Executes the given parameterized statement. The parameters are bound to the ? placeholders of the statement,
+     * in the order they are given.
+     *
+     * @param sql        The sql string with ? placeholders, not null
+     * @param dataSource The dataSource, not null
+     * @param parameters The values for the placeholders, not null
+     */
+    void execute(String sql, DataSource dataSource, Object... parameters);
+
+    /**
+     * Executes the given statements as a single JDBC batch, avoiding a round trip to the database per statement.
+     *
+     * @param statements The sql strings of the statements, not null
+     * @param dataSource The dataSource, not null
+     */
+    void executeBatch(List<String> statements, DataSource dataSource);
+
     /**
      * Executes the given statement and commits the changes to the database
      *
@@ -49,6 +77,17 @@ public interface SQLHandler {
      */
     long getItemAsLong(String sql, DataSource dataSource);
 
+    /**
+     * Returns the long extracted from the result of the given parameterized query. If no value is found, a
+     * {@link DbMaintainException} is thrown.
+     *
+     * @param sql        The sql string with ? placeholders, not null
+     * @param dataSource The dataSource, not null
+     * @param parameters The values for the placeholders, not null
+     * @return The long item value
+     */
+    long getItemAsLong(String sql, DataSource dataSource, Object... parameters);
+
     /**
      * Returns the value extracted from the result of the given query. If no value is found, a {@link DbMaintainException}
      * is thrown.
@@ -59,6 +98,17 @@ public interface SQLHandler {
      */
     String getItemAsString(String sql, DataSource dataSource);
 
+    /**
+     * Returns the value extracted from the result of the given parameterized query. If no value is found, a
+     * {@link DbMaintainException} is thrown.
+     *
+     * @param sql        The sql string with ? placeholders, not null
+     * @param dataSource The dataSource, not null
+     * @param parameters The values for the placeholders, not null
+     * @return The string item value
+     */
+    String getItemAsString(String sql, DataSource dataSource, Object... parameters);
+
     /**
      * Returns the items extracted from the result of the given query.
      *
@@ -68,6 +118,16 @@ public interface SQLHandler {
      */
     Set<String> getItemsAsStringSet(String sql, DataSource dataSource);
 
+    /**
+     * Returns the items extracted from the result of the given parameterized query.
+     *
+     * @param sql        The sql string with ? placeholders, not null
+     * @param dataSource The dataSource, not null
+     * @param parameters The values for the placeholders, not null
+     * @return The items, not null
+     */
+    Set<String> getItemsAsStringSet(String sql, DataSource dataSource, Object... parameters);
+
     /**
      * Returns true if the query returned a record.
      *
@@ -77,6 +137,16 @@ public interface SQLHandler {
      */
     boolean exists(String sql, DataSource dataSource);
 
+    /**
+     * Returns true if the given parameterized query returned a record.
+     *
+     * @param sql        The sql string with ? placeholders, not null
+     * @param dataSource The dataSource, not null
+     * @param parameters The values for the placeholders, not null
+     * @return True if a record was returned
+     */
+    boolean exists(String sql, DataSource dataSource, Object... parameters);
+
 
     /**
      * Starts a transaction by turning of auto commit.
@@ -102,11 +172,38 @@ public interface SQLHandler {
      */
     void endTransactionAndRollback(DataSource dataSource);
 
+    /**
+     * Starts a grouped transaction: until the grouped transaction is ended, the commits of all transactions and
+     * updates on all data sources are deferred. This allows executing several scripts, together with the updates
+     * of the executed scripts table, in one transaction.
+     */
+    void startGroupedTransaction();
 
     /**
-     * Closes all connections that were created and cached by this SQLHandler. This method must always be invoked before
+     * Ends the grouped transaction by committing all connections that were used during the grouped transaction
+     * and turning auto commit back on.
+     */
+    void endGroupedTransactionAndCommit();
+
+    /**
+     * Ends the grouped transaction by rolling back all connections that were used during the grouped transaction
+     * and turning auto commit back on.
+     */
+    void endGroupedTransactionAndRollback();
+
+
+    /**
+     * Closes all statements and connections that were created and cached by this SQLHandler. This method must always be invoked before
      * disposing this object.
      */
     void closeAllConnections();
 
+    /**
+     * Creates a new SQLHandler with the same settings as this SQLHandler. The new SQLHandler does not share any
+     * connections or transactions with this SQLHandler, so that it can be used by another thread.
+     *
+     * @return The new SQLHandler, not null
+     */
+    SQLHandler copy();
+
 }
\ No newline at end of file
@@ -20,6 +20,7 @@ import org.dbmaintain.database.DatabaseConnection;
 import org.dbmaintain.database.IdentifierProcessor;
 import org.dbmaintain.database.SQLHandler;
 
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -55,7 +56,19 @@ public class Db2Database extends Database {
      */
     @Override
     public Set<String> getTableNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select TABNAME from SYSCAT.TABLES where TABSCHEMA = '" + schemaName + "' and TYPE = 'T'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select TABNAME from SYSCAT.TABLES where TABSCHEMA = ? and TYPE = 'T'", getDataSource(), schemaName);
+    }
+
+    /**
+     * Gets the foreign key relations between the tables of the given schema.
+     *
+     * @param schemaName The schema, not null
+     * @return For each table that is referenced by a foreign key, the names of the tables that reference it, not null
+     */
+    @Override
+    public Map<String, Set<String>> getReferencingTableNames(String schemaName) {
+        return getReferencingTableNames("select TABNAME TABLE_NAME, REFTABNAME REFERENCED_TABLE_NAME from SYSCAT.REFERENCES " +
+                "where TABSCHEMA = ? and REFTABSCHEMA = ?", schemaName, schemaName, schemaName);
     }
 
     /**
@@ -66,7 +79,7 @@ public class Db2Database extends Database {
      */
     @Override
     public Set<String> getColumnNames(String schemaName, String tableName) {
-        return getSQLHandler().getItemsAsStringSet("select COLNAME from SYSCAT.COLUMNS where TABNAME = '" + tableName + "' and TABSCHEMA = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select COLNAME from SYSCAT.COLUMNS where TABNAME = ? and TABSCHEMA = ?", getDataSource(), tableName, schemaName);
     }
 
     /**
@@ -77,7 +90,7 @@ public class Db2Database extends Database {
      */
     @Override
     public Set<String> getViewNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select TABNAME from SYSCAT.TABLES where TABSCHEMA = '" + schemaName + "' and TYPE = 'V'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select TABNAME from SYSCAT.TABLES where TABSCHEMA = ? and TYPE = 'V'", getDataSource(), schemaName);
     }
 
     /**
@@ -87,7 +100,7 @@ public class Db2Database extends Database {
      */
     @Override
     public Set<String> getSequenceNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select SEQNAME from SYSCAT.SEQUENCES where SEQTYPE = 'S' AND SEQSCHEMA = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select SEQNAME from SYSCAT.SEQUENCES where SEQTYPE = 'S' AND SEQSCHEMA = ?", getDataSource(), schemaName);
     }
 
     /**
@@ -97,7 +110,7 @@ public class Db2Database extends Database {
      */
     @Override
     public Set<String> getTriggerNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select TRIGNAME from SYSCAT.TRIGGERS where TRIGSCHEMA = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select TRIGNAME from SYSCAT.TRIGGERS where TRIGSCHEMA = ?", getDataSource(), schemaName);
     }
 
     /**
@@ -107,7 +120,7 @@ public class Db2Database extends Database {
      */
     @Override
     public Set<String> getTypeNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select TYPENAME from SYSCAT.DATATYPES where TYPESCHEMA = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select TYPENAME from SYSCAT.DATATYPES where TYPESCHEMA = ?", getDataSource(), schemaName);
     }
 
 
@@ -128,7 +141,7 @@ public class Db2Database extends Database {
 
     protected void disableReferentialConstraints(String schemaName, String tableName) {
         SQLHandler sqlHandler = getSQLHandler();
-        Set<String> constraintNames = sqlHandler.getItemsAsStringSet("select CONSTNAME from SYSCAT.TABCONST where TYPE = 'F' and TABNAME = '" + tableName + "' and TABSCHEMA = '" + schemaName + "'", getDataSource());
+        Set<String> constraintNames = sqlHandler.getItemsAsStringSet("select CONSTNAME from SYSCAT.TABCONST where TYPE = 'F' and TABNAME = ? and TABSCHEMA = ?", getDataSource(), tableName, schemaName);
         for (String constraintName : constraintNames) {
             sqlHandler.execute("alter table " + qualified(schemaName, tableName) + " drop constraint " + quoted(constraintName), getDataSource());
         }
@@ -153,16 +166,16 @@ public class Db2Database extends Database {
         SQLHandler sqlHandler = getSQLHandler();
 
         // disable all check and unique constraints
-        Set<String> constraintNames = sqlHandler.getItemsAsStringSet("select CONSTNAME from SYSCAT.TABCONST where TYPE in ('K', 'U') and TABNAME = '" + tableName + "' and TABSCHEMA = '" + schemaName + "'", getDataSource());
+        Set<String> constraintNames = sqlHandler.getItemsAsStringSet("select CONSTNAME from SYSCAT.TABCONST where TYPE in ('K', 'U') and TABNAME = ? and TABSCHEMA = ?", getDataSource(), tableName, schemaName);
         for (String constraintName : constraintNames) {
             sqlHandler.execute("alter table " + qualified(schemaName, tableName) + " drop constraint " + quoted(constraintName), getDataSource());
         }
 
         // Retrieve the name of the primary key columns, since we cannot remove the not-null constraint on these columns
-        Set<String> primaryKeyColumnNames = sqlHandler.getItemsAsStringSet("select COLNAME from SYSCAT.COLUMNS where KEYSEQ is not null and TABNAME = '" + tableName + "' and TABSCHEMA = '" + schemaName + "'", getDataSource());
+        Set<String> primaryKeyColumnNames = sqlHandler.getItemsAsStringSet("select COLNAME from SYSCAT.COLUMNS where KEYSEQ is not null and TABNAME = ? and TABSCHEMA = ?", getDataSource(), tableName, schemaName);
 
         // disable all not null constraints
-        Set<String> notNullColumnNames = sqlHandler.getItemsAsStringSet("select COLNAME from SYSCAT.COLUMNS where NULLS = 'N' and TABNAME = '" + tableName + "' and TABSCHEMA = '" + schemaName + "'", getDataSource());
+        Set<String> notNullColumnNames = sqlHandler.getItemsAsStringSet("select COLNAME from SYSCAT.COLUMNS where NULLS = 'N' and TABNAME = ? and TABSCHEMA = ?", getDataSource(), tableName, schemaName);
         for (String notNullColumnName : notNullColumnNames) {
             if (primaryKeyColumnNames.contains(notNullColumnName)) {
                 // Do not remove PK constraints
@@ -186,6 +199,17 @@ public class Db2Database extends Database {
         return getSQLHandler().getItemAsLong("select next value for " + qualified(schemaName, sequenceName) + " from SYSIBM.SYSDUMMY1", getDataSource());
     }
 
+    /**
+     * Removes all data from the table with the given name. DB2 requires the immediate option for truncate statements.
+     *
+     * @param schemaName The schema, not null
+     * @param tableName  The table to truncate (case-sensitive), not null
+     */
+    @Override
+    public void truncateTable(String schemaName, String tableName) {
+        getSQLHandler().execute("truncate table " + qualified(schemaName, tableName) + " immediate", getDataSource());
+    }
+
     /**
      * Sets the next value of the sequence with the given sequence name to the given sequence value.
      *
@@ -194,7 +218,12 @@ public class Db2Database extends Database {
      */
     @Override
     public void incrementSequenceToValue(String schemaName, String sequenceName, long newSequenceValue) {
-        getSQLHandler().execute("alter sequence " + qualified(schemaName, sequenceName) + " restart with " + newSequenceValue, getDataSource());
+        getSQLHandler().execute(getIncrementSequenceToValueStatement(schemaName, sequenceName, newSequenceValue), getDataSource());
+    }
+
+    @Override
+    protected String getIncrementSequenceToValueStatement(String schemaName, String sequenceName, long newSequenceValue) {
+        return "alter sequence " + qualified(schemaName, sequenceName) + " restart with " + newSequenceValue;
     }
 
     /**
@@ -207,7 +236,7 @@ public class Db2Database extends Database {
      */
     @Override
     public Set<String> getIdentityColumnNames(String schemaName, String tableName) {
-        return getSQLHandler().getItemsAsStringSet("select COLNAME from SYSCAT.COLUMNS where KEYSEQ is not null and TABNAME = '" + tableName + "' and TABSCHEMA = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select COLNAME from SYSCAT.COLUMNS where KEYSEQ is not null and TABNAME = ? and TABSCHEMA = ?", getDataSource(), tableName, schemaName);
     }
 
     /**
@@ -220,7 +249,24 @@ public class Db2Database extends Database {
      */
     @Override
     public void incrementIdentityColumnToValue(String schemaName, String tableName, String identityColumnName, long identityValue) {
-        getSQLHandler().execute("alter table " + qualified(schemaName, tableName) + " alter column " + quoted(identityColumnName) + " restart with " + identityValue, getDataSource());
+        getSQLHandler().execute(getIncrementIdentityColumnToValueStatement(schemaName, tableName, identityColumnName, identityValue), getDataSource());
+    }
+
+    /**
+     * Gets the names of the identity columns of all tables of the given schema using a single query. Unlike for a
+     * single table, only the real identity columns are returned.
+     *
+     * @param schemaName The schema, not null
+     * @return The names of the identity columns per table name, not null
+     */
+    @Override
+    public Map<String, Set<String>> getIdentityColumnNamesPerTable(String schemaName) {
+        return getColumnNamesPerTable("select TABNAME, COLNAME from SYSCAT.COLUMNS where IDENTITY = 'Y' and TABSCHEMA = ?", schemaName);
+    }
+
+    @Override
+    protected String getIncrementIdentityColumnToValueStatement(String schemaName, String tableName, String identityColumnName, long identityValue) {
+        return "alter table " + qualified(schemaName, tableName) + " alter column " + quoted(identityColumnName) + " restart with " + identityValue;
     }
 
 
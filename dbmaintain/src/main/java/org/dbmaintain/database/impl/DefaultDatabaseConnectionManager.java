@@ -17,11 +17,15 @@ package org.dbmaintain.database.impl;
 
 import org.dbmaintain.database.*;
 import org.dbmaintain.datasource.DataSourceFactory;
+import org.dbmaintain.metrics.Metrics;
+import org.dbmaintain.metrics.impl.NoOpMetrics;
 import org.dbmaintain.util.DbMaintainException;
 
 import javax.sql.DataSource;
 import java.util.*;
 
+import static org.dbmaintain.metrics.impl.MetricsProxy.createMetricsProxy;
+
 /**
  * @author Tim Ducheyne
  * @author Filip Neven
@@ -33,6 +37,7 @@ public class DefaultDatabaseConnectionManager implements DatabaseConnectionManag
     protected DatabaseInfoFactory databaseInfoFactory;
     protected DataSourceFactory dataSourceFactory;
     protected Map<String, DataSource> dataSourcesPerDatabaseName;
+    protected Metrics metrics;
 
     protected Map<String, DatabaseConnection> databaseConnectionsPerDatabaseName = new HashMap<>();
 
@@ -42,10 +47,15 @@ public class DefaultDatabaseConnectionManager implements DatabaseConnectionManag
     }
 
     public DefaultDatabaseConnectionManager(Properties configuration, SQLHandler sqlHandler, DataSourceFactory dataSourceFactory, Map<String, DataSource> dataSourcesPerDatabaseName) {
+        this(configuration, sqlHandler, dataSourceFactory, dataSourcesPerDatabaseName, new NoOpMetrics());
+    }
+
+    public DefaultDatabaseConnectionManager(Properties configuration, SQLHandler sqlHandler, DataSourceFactory dataSourceFactory, Map<String, DataSource> dataSourcesPerDatabaseName, Metrics metrics) {
         this.sqlHandler = sqlHandler;
         this.databaseInfoFactory = createDatabaseInfoFactory(configuration);
         this.dataSourceFactory = dataSourceFactory;
         this.dataSourcesPerDatabaseName = dataSourcesPerDatabaseName;
+        this.metrics = metrics;
     }
 
 
@@ -88,6 +98,8 @@ public class DefaultDatabaseConnectionManager implements DatabaseConnectionManag
             if (dataSource == null) {
                 dataSource = dataSourceFactory.createDataSource(databaseInfo);
             }
+            // measure the time needed to acquire connections
+            dataSource = createMetricsProxy(DataSource.class, dataSource, "dataSource", metrics);
         }
         return new DatabaseConnection(databaseInfo, sqlHandler, dataSource);
     }
@@ -19,18 +19,24 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.dbmaintain.database.DatabaseException;
 import org.dbmaintain.database.SQLHandler;
+import org.dbmaintain.metrics.FlightRecorderEvent;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import static org.apache.commons.dbutils.DbUtils.closeQuietly;
+import static org.dbmaintain.metrics.FlightRecorderEvents.beginQuery;
 
 /**
  * Class to which database updates and queries are passed. Is in fact a utility class, but is a concrete instance to
@@ -45,6 +51,11 @@ public class DefaultSQLHandler implements SQLHandler {
     /* The logger instance for this class */
     private static Log logger = LogFactory.getLog(DefaultSQLHandler.class);
 
+    private static final Object[] NO_PARAMETERS = new Object[0];
+
+
+    /* The maximum nr of prepared statements that are kept open per connection */
+    private static final int MAX_CACHED_PREPARED_STATEMENTS = 50;
 
     /* 
      * Boolean that indicates whether database updates have to executed on the database or not. Setting this value
@@ -52,9 +63,24 @@ public class DefaultSQLHandler implements SQLHandler {
      */
     private boolean doExecuteUpdates;
 
+    /* The nr of rows to fetch per round trip when executing queries, 0 to use the default of the driver */
+    private int fetchSize;
+
 
     private Map<DataSource, Connection> cachedConnections = new HashMap<>();
 
+    /* True if a grouped transaction is started, the commits are then deferred until the grouped transaction is ended */
+    private boolean groupedTransaction;
+
+    /* The connections that were used during the current grouped transaction */
+    private Set<Connection> groupedTransactionConnections = new HashSet<>();
+
+    /* The statements that are reused for all non-parameterized statements, per connection */
+    private Map<Connection, Statement> cachedStatements = new HashMap<>();
+
+    /* The prepared statements that are reused for the parameterized statements, per connection and sql */
+    private Map<Connection, Map<String, PreparedStatement>> cachedPreparedStatements = new HashMap<>();
+
     /**
      * Constructs a new instance that connects to the given DataSource
      */
@@ -70,19 +96,96 @@ public class DefaultSQLHandler implements SQLHandler {
      *                         database
      */
     public DefaultSQLHandler(boolean doExecuteUpdates) {
+        this(doExecuteUpdates, 0);
+    }
+
+    /**
+     * Constructs a new instance that connects to the given DataSource
+     *
+     * @param doExecuteUpdates Boolean indicating whether updates should effectively be executed on the underlying
+     *                         database
+     * @param fetchSize        The nr of rows to fetch per round trip when executing queries, 0 to use the default of the driver
+     */
+    public DefaultSQLHandler(boolean doExecuteUpdates, int fetchSize) {
         this.doExecuteUpdates = doExecuteUpdates;
+        this.fetchSize = fetchSize;
     }
 
 
     public void execute(String sql, DataSource dataSource) {
-        logger.debug(sql);
+        execute(sql, dataSource, NO_PARAMETERS);
+    }
+
+    public void execute(String sql, DataSource dataSource, Object... parameters) {
+        logStatement(sql, parameters);
+
+        if (!doExecuteUpdates) {
+            // skip update
+            return;
+        }
+        try {
+            if (parameters.length == 0) {
+                getStatement(dataSource).execute(sql);
+            } else {
+                getPreparedStatement(sql, dataSource, parameters).execute();
+            }
+        } catch (Exception e) {
+            throw new DatabaseException("Could not perform database statement: " + sql, e);
+        }
+    }
 
+
+    public void executeBatch(List<String> statements, DataSource dataSource) {
+        if (statements.isEmpty()) {
+            return;
+        }
+        for (String statement : statements) {
+            logger.debug(statement);
+        }
         if (!doExecuteUpdates) {
             // skip update
             return;
         }
-        try (Statement statement = getConnection(dataSource).createStatement()) {
-            statement.execute(sql);
+        Statement statement = null;
+        try {
+            statement = getStatement(dataSource);
+            for (String sql : statements) {
+                statement.addBatch(sql);
+            }
+            statement.executeBatch();
+        } catch (Exception e) {
+            throw new DatabaseException("Could not perform batch of " + statements.size() + " database statements, starting with: " + statements.get(0), e);
+        } finally {
+            clearBatchQuietly(statement);
+        }
+    }
+
+    private void clearBatchQuietly(Statement statement) {
+        if (statement == null) {
+            return;
+        }
+        try {
+            statement.clearBatch();
+        } catch (SQLException e) {
+            logger.debug("Unable to clear statement batch.", e);
+        }
+    }
+
+
+    public int executeAndGetUpdateCount(String sql, DataSource dataSource) {
+        logger.debug(sql);
+
+        if (!doExecuteUpdates) {
+            // skip update
+            return -1;
+        }
+        try {
+            Statement statement = getStatement(dataSource);
+            if (statement.execute(sql)) {
+                // the statement returned a result set instead of an update count
+                return -1;
+            }
+            return statement.getUpdateCount();
         } catch (Exception e) {
             throw new DatabaseException("Could not perform database statement: " + sql, e);
         }
@@ -96,39 +199,39 @@ public class DefaultSQLHandler implements SQLHandler {
             // skip update
             return 0;
         }
-        Statement statement = null;
         try {
             Connection connection = getConnection(dataSource);
-            statement = connection.createStatement();
-            int nbChanges = statement.executeUpdate(sql);
-            if (!connection.getAutoCommit()) {
+            if (groupedTransaction) {
+                joinGroupedTransaction(connection);
+            }
+            int nbChanges = getStatement(dataSource).executeUpdate(sql);
+            if (!groupedTransaction && !connection.getAutoCommit()) {
                 connection.commit();
             }
             return nbChanges;
 
         } catch (Exception e) {
             throw new DatabaseException("Error while performing database update:\n" + sql, e);
-        } finally {
-            closeQuietly(statement);
         }
     }
 
 
     public long getItemAsLong(String sql, DataSource dataSource) {
-        logger.debug(sql);
+        return getItemAsLong(sql, dataSource, NO_PARAMETERS);
+    }
 
-        Statement statement = null;
-        ResultSet resultSet = null;
-        try {
-            statement = getConnection(dataSource).createStatement();
-            resultSet = statement.executeQuery(sql);
+    public long getItemAsLong(String sql, DataSource dataSource, Object... parameters) {
+        logStatement(sql, parameters);
+        FlightRecorderEvent event = beginQuery(sql);
+
+        try (ResultSet resultSet = executeQuery(sql, dataSource, parameters)) {
             if (resultSet.next()) {
                 return resultSet.getLong(1);
             }
         } catch (Exception e) {
             throw new DatabaseException("Error while executing statement: " + sql, e);
         } finally {
-            closeQuietly(null, statement, resultSet);
+            event.end();
         }
 
         // in case no value was found, throw an exception
@@ -136,20 +239,21 @@ public class DefaultSQLHandler implements SQLHandler {
     }
 
     public String getItemAsString(String sql, DataSource dataSource) {
-        logger.debug(sql);
+        return getItemAsString(sql, dataSource, NO_PARAMETERS);
+    }
 
-        Statement statement = null;
-        ResultSet resultSet = null;
-        try {
-            statement = getConnection(dataSource).createStatement();
-            resultSet = statement.executeQuery(sql);
+    public String getItemAsString(String sql, DataSource dataSource, Object... parameters) {
+        logStatement(sql, parameters);
+        FlightRecorderEvent event = beginQuery(sql);
+
+        try (ResultSet resultSet = executeQuery(sql, dataSource, parameters)) {
             if (resultSet.next()) {
                 return resultSet.getString(1);
             }
         } catch (Exception e) {
             throw new DatabaseException("Error while executing statement: " + sql, e);
         } finally {
-            closeQuietly(null, statement, resultSet);
+            event.end();
         }
 
         // in case no value was found, throw an exception
@@ -157,13 +261,14 @@ public class DefaultSQLHandler implements SQLHandler {
     }
 
     public Set<String> getItemsAsStringSet(String sql, DataSource dataSource) {
-        logger.debug(sql);
+        return getItemsAsStringSet(sql, dataSource, NO_PARAMETERS);
+    }
 
-        Statement statement = null;
-        ResultSet resultSet = null;
-        try {
-            statement = getConnection(dataSource).createStatement();
-            resultSet = statement.executeQuery(sql);
+    public Set<String> getItemsAsStringSet(String sql, DataSource dataSource, Object... parameters) {
+        logStatement(sql, parameters);
+        FlightRecorderEvent event = beginQuery(sql);
+
+        try (ResultSet resultSet = executeQuery(sql, dataSource, parameters)) {
             Set<String> result = new HashSet<>();
             while (resultSet.next()) {
                 result.add(resultSet.getString(1));
@@ -173,25 +278,26 @@ public class DefaultSQLHandler implements SQLHandler {
         } catch (Exception e) {
             throw new DatabaseException("Error while executing statement: " + sql, e);
         } finally {
-            closeQuietly(null, statement, resultSet);
+            event.end();
         }
     }
 
 
     public boolean exists(String sql, DataSource dataSource) {
-        logger.debug(sql);
+        return exists(sql, dataSource, NO_PARAMETERS);
+    }
 
-        Statement statement = null;
-        ResultSet resultSet = null;
-        try {
-            statement = getConnection(dataSource).createStatement();
-            resultSet = statement.executeQuery(sql);
+    public boolean exists(String sql, DataSource dataSource, Object... parameters) {
+        logStatement(sql, parameters);
+        FlightRecorderEvent event = beginQuery(sql);
+
+        try (ResultSet resultSet = executeQuery(sql, dataSource, parameters)) {
             return resultSet.next();
 
         } catch (Exception e) {
             throw new DatabaseException("Error while executing statement: " + sql, e);
         } finally {
-            closeQuietly(null, statement, resultSet);
+            event.end();
         }
     }
 
@@ -205,7 +311,9 @@ public class DefaultSQLHandler implements SQLHandler {
     public void startTransaction(DataSource dataSource) {
         Connection connection = getConnection(dataSource);
         try {
-            if (connection.getAutoCommit()) {
+            if (groupedTransaction) {
+                joinGroupedTransaction(connection);
+            } else if (connection.getAutoCommit()) {
                 connection.setAutoCommit(false);
             }
         } catch (Exception e) {
@@ -220,6 +328,10 @@ public class DefaultSQLHandler implements SQLHandler {
      * @param dataSource The data source, not null
      */
     public void endTransactionAndCommit(DataSource dataSource) {
+        if (groupedTransaction) {
+            // committed when the grouped transaction ends
+            return;
+        }
         Connection connection = getConnection(dataSource);
         try {
             connection.commit();
@@ -250,8 +362,57 @@ public class DefaultSQLHandler implements SQLHandler {
         } catch (Exception e) {
             throw new DatabaseException("Unable to perform database rollback.", e);
         } finally {
+            if (!groupedTransaction) {
+                reenableAutoCommit(connection);
+            }
+        }
+    }
+
+
+    public void startGroupedTransaction() {
+        if (groupedTransaction) {
+            throw new DatabaseException("Unable to start grouped transaction: a grouped transaction is already started.");
+        }
+        groupedTransaction = true;
+    }
+
+    public void endGroupedTransactionAndCommit() {
+        groupedTransaction = false;
+        try {
+            for (Connection connection : groupedTransactionConnections) {
+                connection.commit();
+            }
+        } catch (Exception e) {
+            rollbackGroupedTransactionConnections();
+            throw new DatabaseException("Error while performing database commit of grouped transaction.", e);
+        }
+        for (Connection connection : groupedTransactionConnections) {
             reenableAutoCommit(connection);
         }
+        groupedTransactionConnections.clear();
+    }
+
+    public void endGroupedTransactionAndRollback() {
+        groupedTransaction = false;
+        rollbackGroupedTransactionConnections();
+    }
+
+    private void rollbackGroupedTransactionConnections() {
+        for (Connection connection : groupedTransactionConnections) {
+            try {
+                connection.rollback();
+            } catch (Exception e) {
+                logger.warn("Unable to perform database rollback of grouped transaction.", e);
+            }
+            reenableAutoCommit(connection);
+        }
+        groupedTransactionConnections.clear();
+    }
+
+    private void joinGroupedTransaction(Connection connection) throws SQLException {
+        if (groupedTransactionConnections.add(connection) && connection.getAutoCommit()) {
+            connection.setAutoCommit(false);
+        }
     }
 
     private void reenableAutoCommit(Connection connection) {
@@ -263,11 +424,26 @@ public class DefaultSQLHandler implements SQLHandler {
         }
     }
 
+    public SQLHandler copy() {
+        return new DefaultSQLHandler(doExecuteUpdates, fetchSize);
+    }
+
+
     /**
-     * Closes all connections that were created and cached by this SQLHandler. This method must always be invoked before
+     * Closes all statements and connections that were created and cached by this SQLHandler. This method must always be invoked before
      * disposing this object.
      */
     public void closeAllConnections() {
+        for (Map<String, PreparedStatement> preparedStatements : cachedPreparedStatements.values()) {
+            for (PreparedStatement preparedStatement : preparedStatements.values()) {
+                closeQuietly(preparedStatement);
+            }
+        }
+        cachedPreparedStatements.clear();
+        for (Statement statement : cachedStatements.values()) {
+            closeQuietly(statement);
+        }
+        cachedStatements.clear();
         for (Connection connection : cachedConnections.values()) {
             closeQuietly(connection);
         }
@@ -295,4 +471,96 @@ public class DefaultSQLHandler implements SQLHandler {
         }
         return connection;
     }
+
+    /**
+     * Executes the given query. If there are no parameters, the query is executed as a regular statement, otherwise
+     * a prepared statement is used with the parameters bound to its placeholders.
+     * The returned result set should be closed by the caller.
+     *
+     * @param sql        The query, not null
+     * @param dataSource The data source, not null
+     * @param parameters The values for the placeholders, not null
+     * @return The result set, not null
+     */
+    protected ResultSet executeQuery(String sql, DataSource dataSource, Object[] parameters) throws SQLException {
+        if (parameters.length == 0) {
+            return getStatement(dataSource).executeQuery(sql);
+        }
+        return getPreparedStatement(sql, dataSource, parameters).executeQuery();
+    }
+
+    /**
+     * Returns the statement that is reused for all non-parameterized statements on the connection of the given
+     * DataSource. The statement is created the first time it is requested and closed when the connections are closed.
+     *
+     * @param dataSource provides access to the database
+     * @return the statement, not null
+     */
+    protected Statement getStatement(DataSource dataSource) throws SQLException {
+        Connection connection = getConnection(dataSource);
+        Statement statement = cachedStatements.get(connection);
+        if (statement == null) {
+            statement = connection.createStatement();
+            setFetchSize(statement);
+            cachedStatements.put(connection, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * Returns a prepared statement for the given sql on the connection of the given DataSource with the given
+     * parameters bound to it. Prepared statements are kept open per connection, so that the database can reuse its
+     * parsed version of the statement. Only the most recently used statements are kept open.
+     *
+     * @param sql        The sql with ? placeholders, not null
+     * @param dataSource provides access to the database
+     * @param parameters The values for the placeholders, not null
+     * @return the prepared statement, not null
+     */
+    protected PreparedStatement getPreparedStatement(String sql, DataSource dataSource, Object[] parameters) throws SQLException {
+        Connection connection = getConnection(dataSource);
+        Map<String, PreparedStatement> preparedStatements = cachedPreparedStatements.computeIfAbsent(connection, c -> createPreparedStatementCache());
+
+        PreparedStatement preparedStatement = preparedStatements.get(sql);
+        if (preparedStatement == null) {
+            preparedStatement = connection.prepareStatement(sql);
+            setFetchSize(preparedStatement);
+            preparedStatements.put(sql, preparedStatement);
+        }
+        preparedStatement.clearParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            preparedStatement.setObject(i + 1, parameters[i]);
+        }
+        return preparedStatement;
+    }
+
+    private Map<String, PreparedStatement> createPreparedStatementCache() {
+        return new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > MAX_CACHED_PREPARED_STATEMENTS) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    private void setFetchSize(Statement statement) throws SQLException {
+        if (fetchSize > 0) {
+            statement.setFetchSize(fetchSize);
+        }
+    }
+
+    private void logStatement(String sql, Object[] parameters) {
+        if (!logger.isDebugEnabled()) {
+            return;
+        }
+        if (parameters.length == 0) {
+            logger.debug(sql);
+        } else {
+            logger.debug(sql + " " + Arrays.toString(parameters));
+        }
+    }
 }
@@ -22,6 +22,7 @@ import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import static org.apache.commons.dbutils.DbUtils.closeQuietly;
@@ -60,7 +61,21 @@ public class DerbyDatabase extends Database {
      */
     @Override
     public Set<String> getTableNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select t.TABLENAME from SYS.SYSTABLES t, SYS.SYSSCHEMAS  s where t.TABLETYPE = 'T' AND t.SCHEMAID = s.SCHEMAID AND s.SCHEMANAME = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select t.TABLENAME from SYS.SYSTABLES t, SYS.SYSSCHEMAS  s where t.TABLETYPE = 'T' AND t.SCHEMAID = s.SCHEMAID AND s.SCHEMANAME = ?", getDataSource(), schemaName);
+    }
+
+    /**
+     * Gets the foreign key relations between the tables of the given schema.
+     *
+     * @param schemaName The schema, not null
+     * @return For each table that is referenced by a foreign key, the names of the tables that reference it, not null
+     */
+    @Override
+    public Map<String, Set<String>> getReferencingTableNames(String schemaName) {
+        return getReferencingTableNames("select t.TABLENAME TABLE_NAME, rt.TABLENAME REFERENCED_TABLE_NAME from SYS.SYSFOREIGNKEYS fk " +
+                "join SYS.SYSCONSTRAINTS c on c.CONSTRAINTID = fk.CONSTRAINTID join SYS.SYSTABLES t on t.TABLEID = c.TABLEID join SYS.SYSSCHEMAS s on s.SCHEMAID = t.SCHEMAID " +
+                "join SYS.SYSCONSTRAINTS rc on rc.CONSTRAINTID = fk.KEYCONSTRAINTID join SYS.SYSTABLES rt on rt.TABLEID = rc.TABLEID join SYS.SYSSCHEMAS rs on rs.SCHEMAID = rt.SCHEMAID " +
+                "where s.SCHEMANAME = ? and rs.SCHEMANAME = ?", schemaName, schemaName, schemaName);
     }
 
     /**
@@ -71,7 +86,7 @@ public class DerbyDatabase extends Database {
      */
     @Override
     public Set<String> getColumnNames(String schemaName, String tableName) {
-        return getSQLHandler().getItemsAsStringSet("select c.COLUMNNAME from SYS.SYSCOLUMNS c, SYS.SYSTABLES t, SYS.SYSSCHEMAS s where c.REFERENCEID = t.TABLEID and t.TABLENAME = '" + tableName + "' AND t.SCHEMAID = s.SCHEMAID AND s.SCHEMANAME = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select c.COLUMNNAME from SYS.SYSCOLUMNS c, SYS.SYSTABLES t, SYS.SYSSCHEMAS s where c.REFERENCEID = t.TABLEID and t.TABLENAME = ? AND t.SCHEMAID = s.SCHEMAID AND s.SCHEMANAME = ?", getDataSource(), tableName, schemaName);
     }
 
     /**
@@ -81,7 +96,7 @@ public class DerbyDatabase extends Database {
      */
     @Override
     public Set<String> getViewNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select t.TABLENAME from SYS.SYSTABLES t, SYS.SYSSCHEMAS s where t.TABLETYPE = 'V' AND t.SCHEMAID = s.SCHEMAID AND s.SCHEMANAME = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select t.TABLENAME from SYS.SYSTABLES t, SYS.SYSSCHEMAS s where t.TABLETYPE = 'V' AND t.SCHEMAID = s.SCHEMAID AND s.SCHEMANAME = ?", getDataSource(), schemaName);
     }
 
     /**
@@ -90,7 +105,7 @@ public class DerbyDatabase extends Database {
      * @return The names of all synonyms in the database
      */
     public Set<String> getSynonymNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select t.TABLENAME from SYS.SYSTABLES t, SYS.SYSSCHEMAS s where t.TABLETYPE = 'A' AND t.SCHEMAID = s.SCHEMAID AND s.SCHEMANAME = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select t.TABLENAME from SYS.SYSTABLES t, SYS.SYSSCHEMAS s where t.TABLETYPE = 'A' AND t.SCHEMAID = s.SCHEMAID AND s.SCHEMANAME = ?", getDataSource(), schemaName);
     }
 
     /**
@@ -100,7 +115,7 @@ public class DerbyDatabase extends Database {
      */
     @Override
     public Set<String> getTriggerNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select t.TRIGGERNAME from SYS.SYSTRIGGERS t, SYS.SYSSCHEMAS s where t.SCHEMAID = s.SCHEMAID AND s.SCHEMANAME = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select t.TRIGGERNAME from SYS.SYSTRIGGERS t, SYS.SYSSCHEMAS s where t.SCHEMAID = s.SCHEMAID AND s.SCHEMANAME = ?", getDataSource(), schemaName);
     }
 
 
@@ -126,7 +141,25 @@ public class DerbyDatabase extends Database {
      */
     @Override
     public void incrementIdentityColumnToValue(String schemaName, String tableName, String identityColumnName, long identityValue) {
-        getSQLHandler().execute("alter table " + qualified(schemaName, tableName) + " alter column " + quoted(identityColumnName) + " RESTART WITH " + identityValue, getDataSource());
+        getSQLHandler().execute(getIncrementIdentityColumnToValueStatement(schemaName, tableName, identityColumnName, identityValue), getDataSource());
+    }
+
+    /**
+     * Gets the names of the identity columns of all tables of the given schema using a single query. Unlike for a
+     * single table, only the real identity (auto increment) columns are returned.
+     *
+     * @param schemaName The schema, not null
+     * @return The names of the identity columns per table name, not null
+     */
+    @Override
+    public Map<String, Set<String>> getIdentityColumnNamesPerTable(String schemaName) {
+        return getColumnNamesPerTable("select t.TABLENAME, c.COLUMNNAME from SYS.SYSCOLUMNS c, SYS.SYSTABLES t, SYS.SYSSCHEMAS s " +
+                "where c.REFERENCEID = t.TABLEID and t.SCHEMAID = s.SCHEMAID and c.AUTOINCREMENTINC is not null and s.SCHEMANAME = ?", schemaName);
+    }
+
+    @Override
+    protected String getIncrementIdentityColumnToValueStatement(String schemaName, String tableName, String identityColumnName, long identityValue) {
+        return "alter table " + qualified(schemaName, tableName) + " alter column " + quoted(identityColumnName) + " RESTART WITH " + identityValue;
     }
 
 
@@ -147,7 +180,7 @@ public class DerbyDatabase extends Database {
 
     protected void disableReferentialConstraints(String schemaName, String tableName) {
         SQLHandler sqlHandler = getSQLHandler();
-        Set<String> constraintNames = sqlHandler.getItemsAsStringSet("select c.CONSTRAINTNAME from SYS.SYSCONSTRAINTS c, SYS.SYSTABLES t, SYS.SYSSCHEMAS s where c.TYPE = 'F' AND c.TABLEID = t.TABLEID  AND t.TABLENAME = '" + tableName + "' AND t.SCHEMAID = s.SCHEMAID AND s.SCHEMANAME = '" + schemaName + "'", getDataSource());
+        Set<String> constraintNames = sqlHandler.getItemsAsStringSet("select c.CONSTRAINTNAME from SYS.SYSCONSTRAINTS c, SYS.SYSTABLES t, SYS.SYSSCHEMAS s where c.TYPE = 'F' AND c.TABLEID = t.TABLEID  AND t.TABLENAME = ? AND t.SCHEMAID = s.SCHEMAID AND s.SCHEMANAME = ?", getDataSource(), tableName, schemaName);
         for (String constraintName : constraintNames) {
             sqlHandler.execute("alter table " + qualified(schemaName, tableName) + " drop constraint " + quoted(constraintName), getDataSource());
         }
@@ -172,7 +205,7 @@ public class DerbyDatabase extends Database {
         SQLHandler sqlHandler = getSQLHandler();
 
         // disable all check and unique constraints
-        Set<String> constraintNames = sqlHandler.getItemsAsStringSet("select c.CONSTRAINTNAME from SYS.SYSCONSTRAINTS c, SYS.SYSTABLES t, SYS.SYSSCHEMAS s where c.TYPE in ('U', 'C') AND c.TABLEID = t.TABLEID  AND t.TABLENAME = '" + tableName + "' AND t.SCHEMAID = s.SCHEMAID AND s.SCHEMANAME = '" + schemaName + "'", getDataSource());
+        Set<String> constraintNames = sqlHandler.getItemsAsStringSet("select c.CONSTRAINTNAME from SYS.SYSCONSTRAINTS c, SYS.SYSTABLES t, SYS.SYSSCHEMAS s where c.TYPE in ('U', 'C') AND c.TABLEID = t.TABLEID  AND t.TABLENAME = ? AND t.SCHEMAID = s.SCHEMAID AND s.SCHEMANAME = ?", getDataSource(), tableName, schemaName);
         for (String constraintName : constraintNames) {
             sqlHandler.execute("alter table " + qualified(schemaName, tableName) + " drop constraint " + quoted(constraintName), getDataSource());
         }
@@ -247,6 +280,16 @@ public class DerbyDatabase extends Database {
         return true;
     }
 
+    /**
+     * DDL statements are transactional.
+     *
+     * @return True
+     */
+    @Override
+    public boolean supportsTransactionalDdl() {
+        return true;
+    }
+
     /**
      * Setting the default schema is supported.
      *
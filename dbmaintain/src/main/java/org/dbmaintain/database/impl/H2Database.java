@@ -20,7 +20,9 @@ import org.dbmaintain.database.DatabaseConnection;
 import org.dbmaintain.database.DatabaseException;
 import org.dbmaintain.database.IdentifierProcessor;
 
+import java.io.File;
 import java.sql.*;
+import java.util.Map;
 import java.util.Set;
 
 import static org.apache.commons.dbutils.DbUtils.closeQuietly;
@@ -42,44 +44,51 @@ public class H2Database extends Database {
     @Override
     public Set<String> getTableNames(final String schemaName) {
         return getSQLHandler().getItemsAsStringSet("select TABLE_NAME from INFORMATION_SCHEMA.TABLES where " +
-                "TABLE_TYPE = 'TABLE' AND TABLE_SCHEMA = '" +
-                schemaName + "'", getDataSource());
+                "TABLE_TYPE = 'TABLE' AND TABLE_SCHEMA = ?", getDataSource(), schemaName);
+    }
+
+    /**
+     * Gets the foreign key relations between the tables of the given schema.
+     *
+     * @param schemaName The schema, not null
+     * @return For each table that is referenced by a foreign key, the names of the tables that reference it, not null
+     */
+    @Override
+    public Map<String, Set<String>> getReferencingTableNames(String schemaName) {
+        return getReferencingTableNames("select FKTABLE_NAME TABLE_NAME, PKTABLE_NAME REFERENCED_TABLE_NAME from INFORMATION_SCHEMA.CROSS_REFERENCES " +
+                "where FKTABLE_SCHEMA = ? and PKTABLE_SCHEMA = ?", schemaName, schemaName, schemaName);
     }
  
     @Override
     public Set<String> getColumnNames(final String schemaName, final String tableName) {
         return getSQLHandler().getItemsAsStringSet("select COLUMN_NAME from INFORMATION_SCHEMA.COLUMNS " +
-                "where TABLE_NAME = '" + tableName +
-                "' AND TABLE_SCHEMA = '" + schemaName + "'", getDataSource());
+                "where TABLE_NAME = ? AND TABLE_SCHEMA = ?", getDataSource(), tableName, schemaName);
     }
  
     @Override
     public Set<String> getViewNames(final String schemaName) {
         return getSQLHandler().getItemsAsStringSet("select TABLE_NAME from " +
-                "INFORMATION_SCHEMA.VIEWS WHERE TABLE_SCHEMA = '" + schemaName + "'", getDataSource());
+                "INFORMATION_SCHEMA.VIEWS WHERE TABLE_SCHEMA = ?", getDataSource(), schemaName);
     }
  
     @Override
     public Set<String> getSequenceNames(final String schemaName) {
         return getSQLHandler().getItemsAsStringSet("select SEQUENCE_NAME from " +
-                "INFORMATION_SCHEMA.SEQUENCES where SEQUENCE_SCHEMA = '" +
-                schemaName + "'", getDataSource());
+                "INFORMATION_SCHEMA.SEQUENCES where SEQUENCE_SCHEMA = ?", getDataSource(), schemaName);
     }
  
     @Override
     public Set<String> getIdentityColumnNames(final String schemaName, final String tableName) {
         return getSQLHandler().getItemsAsStringSet("select COLUMN_NAME from " +
                 "INFORMATION_SCHEMA.INDEXES where PRIMARY_KEY = 'TRUE' AND " +
-                "TABLE_NAME = '" + tableName + "' AND TABLE_SCHEMA = '" +
-                schemaName + "'", getDataSource());
+                "TABLE_NAME = ? AND TABLE_SCHEMA = ?", getDataSource(), tableName, schemaName);
     }
  
     @Override
     public Set<String> getTriggerNames(final String schemaName) {
         // to be sure no recycled items are handled, all items with a name that starts with BIN$ will be filtered out.
         return getSQLHandler().getItemsAsStringSet("select TRIGGER_NAME from " +
-                "INFORMATION_SCHEMA.TRIGGERS where TRIGGER_SCHEMA = '" + schemaName +
-                "'", getDataSource());
+                "INFORMATION_SCHEMA.TRIGGERS where TRIGGER_SCHEMA = ?", getDataSource(), schemaName);
     }
  
     @Override
@@ -102,6 +111,19 @@ public class H2Database extends Database {
     public void setDatabaseDefaultSchema() {
         getSQLHandler().execute("SET SCHEMA " + getDefaultSchemaName(), getDataSource());
     }
+
+    /**
+     * Drops the schema using drop schema cascade and creates it again with the same owner. Note that the main
+     * schema PUBLIC cannot be dropped in H2.
+     *
+     * @param schemaName The schema, not null
+     */
+    @Override
+    public void recreateSchema(String schemaName) {
+        String owner = getSQLHandler().getItemAsString("select SCHEMA_OWNER from INFORMATION_SCHEMA.SCHEMATA where SCHEMA_NAME = ?", getDataSource(), schemaName);
+        getSQLHandler().execute("drop schema " + quoted(schemaName) + " cascade", getDataSource());
+        getSQLHandler().execute("create schema " + quoted(schemaName) + " authorization " + quoted(owner), getDataSource());
+    }
  
     protected void disableCheckAndUniqueConstraints(final String schemaName) {
         Connection connection = null;
@@ -172,8 +194,7 @@ public class H2Database extends Database {
     @Override
     public long getSequenceValue(final String schemaName, final String sequenceName) {
         return getSQLHandler().getItemAsLong("select CURRENT_VALUE from " + 
-                "INFORMATION_SCHEMA.SEQUENCES where SEQUENCE_SCHEMA = '" + schemaName +
-                "' and SEQUENCE_NAME = '" + sequenceName + "'", getDataSource());
+                "INFORMATION_SCHEMA.SEQUENCES where SEQUENCE_SCHEMA = ? and SEQUENCE_NAME = ?", getDataSource(), schemaName, sequenceName);
     }
  
     @Override
@@ -188,6 +209,62 @@ public class H2Database extends Database {
                 quoted(identityColumnName) + " RESTART WITH " + identityValue, getDataSource());
     }
  
+    /**
+     * Writes a snapshot of the schemas of this database using the H2 SCRIPT TO statement.
+     */
+    @Override
+    public void saveSnapshot(final File snapshotFile) {
+        getSQLHandler().execute("SCRIPT TO '" + snapshotFile.getAbsolutePath().replace("'", "''") + "' SCHEMA " + getQuotedSchemaNames(), getDataSource());
+    }
+
+    /**
+     * Empties the schemas of this database and runs the snapshot script using the H2 RUNSCRIPT statement. Other
+     * schemas are left untouched. The schemas are recreated, except for the main schema PUBLIC that cannot be
+     * dropped: its tables, views and sequences are dropped instead.
+     */
+    @Override
+    public void restoreSnapshot(final File snapshotFile) {
+        for (String schemaName : getSchemaNames()) {
+            if (!"PUBLIC".equals(schemaName)) {
+                recreateSchema(schemaName);
+                continue;
+            }
+            for (String viewName : getViewNames(schemaName)) {
+                dropView(schemaName, viewName);
+            }
+            for (String tableName : getTableNames(schemaName)) {
+                dropTable(schemaName, tableName);
+            }
+            for (String sequenceName : getSequenceNames(schemaName)) {
+                dropSequence(schemaName, sequenceName);
+            }
+        }
+        getSQLHandler().execute("RUNSCRIPT FROM '" + snapshotFile.getAbsolutePath().replace("'", "''") + "'", getDataSource());
+        setDatabaseDefaultSchema();
+    }
+
+    /**
+     * Writes a script for the schemas of this database using the H2 SCRIPT TO statement. The schemas are created
+     * using IF NOT EXISTS, so that the script can be executed on a cleared database.
+     */
+    @Override
+    public void exportScript(final File scriptFile, final String encoding) {
+        getSQLHandler().execute("SCRIPT TO '" + scriptFile.getAbsolutePath().replace("'", "''") + "' CHARSET '" + encoding + "' SCHEMA " + getQuotedSchemaNames(), getDataSource());
+    }
+
+    private String getQuotedSchemaNames() {
+        StringBuilder schemaNames = new StringBuilder();
+        for (String schemaName : getSchemaNames()) {
+            schemaNames.append(schemaNames.length() == 0 ? "" : ", ").append(quoted(schemaName));
+        }
+        return schemaNames.toString();
+    }
+
+    @Override
+    public boolean supportsSnapshots() {
+        return true;
+    }
+
     @Override
     public boolean supportsSequences() {
         return true;
@@ -203,6 +280,11 @@ public class H2Database extends Database {
         return true;
     }
  
+    @Override
+    public boolean supportsRecreateSchema() {
+        return true;
+    }
+
     @Override
     public boolean supportsCascade() {
         return true;
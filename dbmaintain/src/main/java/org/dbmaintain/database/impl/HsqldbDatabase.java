@@ -19,11 +19,29 @@ import org.dbmaintain.database.Database;
 import org.dbmaintain.database.DatabaseConnection;
 import org.dbmaintain.database.DatabaseException;
 import org.dbmaintain.database.IdentifierProcessor;
+import org.dbmaintain.structure.model.DbItemIdentifier;
+import org.dbmaintain.structure.model.DbItemType;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static org.apache.commons.dbutils.DbUtils.closeQuietly;
+import static org.dbmaintain.structure.model.DbItemType.SEQUENCE;
+import static org.dbmaintain.structure.model.DbItemType.TABLE;
+import static org.dbmaintain.structure.model.DbItemType.TRIGGER;
+import static org.dbmaintain.structure.model.DbItemType.VIEW;
 
 /**
  * Implementation of {@link org.dbmaintain.database.Database} for a hsqldb database
@@ -34,6 +52,9 @@ import static org.apache.commons.dbutils.DbUtils.closeQuietly;
  */
 public class HsqldbDatabase extends Database {
 
+    /* Matches the schema of the first qualified name in a statement of the SCRIPT statement */
+    private static final Pattern QUALIFIED_NAME_PATTERN = Pattern.compile("(\"(?:[^\"]|\"\")+\"|[A-Za-z_][A-Za-z0-9_$]*)\\.[A-Za-z_\"]");
+
     /* The major version number of the hsql database */
     private Integer hsqlMajorVersionNumber;
 
@@ -59,9 +80,46 @@ public class HsqldbDatabase extends Database {
     @Override
     public Set<String> getTableNames(String schemaName) {
         if (getHsqldbMajorVersionNumber() < 2) {
-            return getSQLHandler().getItemsAsStringSet("select TABLE_NAME from INFORMATION_SCHEMA.SYSTEM_TABLES where TABLE_TYPE = 'TABLE' AND TABLE_SCHEM = '" + schemaName + "'", getDataSource());
+            return getSQLHandler().getItemsAsStringSet("select TABLE_NAME from INFORMATION_SCHEMA.SYSTEM_TABLES where TABLE_TYPE = 'TABLE' AND TABLE_SCHEM = ?", getDataSource(), schemaName);
+        }
+        return getSQLHandler().getItemsAsStringSet("select TABLE_NAME from INFORMATION_SCHEMA.TABLES where TABLE_TYPE = 'BASE TABLE' AND TABLE_SCHEMA = ?", getDataSource(), schemaName);
+    }
+
+    /**
+     * Gets the foreign key relations between the tables of the given schema.
+     *
+     * @param schemaName The schema, not null
+     * @return For each table that is referenced by a foreign key, the names of the tables that reference it, not null
+     */
+    @Override
+    public Map<String, Set<String>> getReferencingTableNames(String schemaName) {
+        if (getHsqldbMajorVersionNumber() < 2) {
+            return getReferencingTableNames("select FKTABLE_NAME TABLE_NAME, PKTABLE_NAME REFERENCED_TABLE_NAME from INFORMATION_SCHEMA.SYSTEM_CROSSREFERENCE " +
+                    "where FKTABLE_SCHEM = ? and PKTABLE_SCHEM = ?", schemaName, schemaName, schemaName);
         }
-        return getSQLHandler().getItemsAsStringSet("select TABLE_NAME from INFORMATION_SCHEMA.TABLES where TABLE_TYPE = 'BASE TABLE' AND TABLE_SCHEMA = '" + schemaName + "'", getDataSource());
+        return getReferencingTableNames("select fk.TABLE_NAME TABLE_NAME, pk.TABLE_NAME REFERENCED_TABLE_NAME " +
+                "from INFORMATION_SCHEMA.REFERENTIAL_CONSTRAINTS r " +
+                "join INFORMATION_SCHEMA.TABLE_CONSTRAINTS fk on fk.CONSTRAINT_SCHEMA = r.CONSTRAINT_SCHEMA and fk.CONSTRAINT_NAME = r.CONSTRAINT_NAME " +
+                "join INFORMATION_SCHEMA.TABLE_CONSTRAINTS pk on pk.CONSTRAINT_SCHEMA = r.UNIQUE_CONSTRAINT_SCHEMA and pk.CONSTRAINT_NAME = r.UNIQUE_CONSTRAINT_NAME " +
+                "where fk.TABLE_SCHEMA = ? and pk.TABLE_SCHEMA = ?", schemaName, schemaName, schemaName);
+    }
+
+    /**
+     * Loads the names of all tables, views, sequences and triggers of the schema using a single query.
+     *
+     * @param schemaName The schema, not null
+     * @return The names of the items per type, not null
+     */
+    @Override
+    protected Map<DbItemType, Set<String>> loadCatalogSnapshot(String schemaName) {
+        if (getHsqldbMajorVersionNumber() < 2) {
+            return super.loadCatalogSnapshot(schemaName);
+        }
+        return loadCatalogSnapshot(EnumSet.of(TABLE, VIEW, SEQUENCE, TRIGGER),
+                "select case TABLE_TYPE when 'VIEW' then 'VIEW' else 'TABLE' end ITEM_TYPE, TABLE_NAME ITEM_NAME from INFORMATION_SCHEMA.TABLES where TABLE_TYPE in ('BASE TABLE', 'VIEW') and TABLE_SCHEMA = ? " +
+                "union all select 'SEQUENCE', SEQUENCE_NAME from INFORMATION_SCHEMA.SEQUENCES where SEQUENCE_SCHEMA = ? " +
+                "union all select 'TRIGGER', TRIGGER_NAME from INFORMATION_SCHEMA.TRIGGERS where TRIGGER_SCHEMA = ?",
+                schemaName, schemaName, schemaName);
     }
 
     /**
@@ -73,9 +131,9 @@ public class HsqldbDatabase extends Database {
     @Override
     public Set<String> getColumnNames(String schemaName, String tableName) {
         if (getHsqldbMajorVersionNumber() < 2) {
-            return getSQLHandler().getItemsAsStringSet("select COLUMN_NAME from INFORMATION_SCHEMA.SYSTEM_COLUMNS where TABLE_NAME = '" + tableName + "' AND TABLE_SCHEM = '" + schemaName + "'", getDataSource());
+            return getSQLHandler().getItemsAsStringSet("select COLUMN_NAME from INFORMATION_SCHEMA.SYSTEM_COLUMNS where TABLE_NAME = ? AND TABLE_SCHEM = ?", getDataSource(), tableName, schemaName);
         }
-        return getSQLHandler().getItemsAsStringSet("select COLUMN_NAME from INFORMATION_SCHEMA.COLUMNS where TABLE_NAME = '" + tableName + "' AND TABLE_SCHEMA = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select COLUMN_NAME from INFORMATION_SCHEMA.COLUMNS where TABLE_NAME = ? AND TABLE_SCHEMA = ?", getDataSource(), tableName, schemaName);
     }
 
     /**
@@ -86,9 +144,9 @@ public class HsqldbDatabase extends Database {
     @Override
     public Set<String> getViewNames(String schemaName) {
         if (getHsqldbMajorVersionNumber() < 2) {
-            return getSQLHandler().getItemsAsStringSet("select TABLE_NAME from INFORMATION_SCHEMA.SYSTEM_TABLES where TABLE_TYPE = 'VIEW' AND TABLE_SCHEM = '" + schemaName + "'", getDataSource());
+            return getSQLHandler().getItemsAsStringSet("select TABLE_NAME from INFORMATION_SCHEMA.SYSTEM_TABLES where TABLE_TYPE = 'VIEW' AND TABLE_SCHEM = ?", getDataSource(), schemaName);
         }
-        return getSQLHandler().getItemsAsStringSet("select TABLE_NAME from INFORMATION_SCHEMA.TABLES where TABLE_TYPE = 'VIEW' AND TABLE_SCHEMA = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select TABLE_NAME from INFORMATION_SCHEMA.TABLES where TABLE_TYPE = 'VIEW' AND TABLE_SCHEMA = ?", getDataSource(), schemaName);
     }
 
     /**
@@ -99,9 +157,9 @@ public class HsqldbDatabase extends Database {
     @Override
     public Set<String> getSequenceNames(String schemaName) {
         if (getHsqldbMajorVersionNumber() < 2) {
-            return getSQLHandler().getItemsAsStringSet("select SEQUENCE_NAME from INFORMATION_SCHEMA.SYSTEM_SEQUENCES where SEQUENCE_SCHEMA = '" + schemaName + "'", getDataSource());
+            return getSQLHandler().getItemsAsStringSet("select SEQUENCE_NAME from INFORMATION_SCHEMA.SYSTEM_SEQUENCES where SEQUENCE_SCHEMA = ?", getDataSource(), schemaName);
         }
-        return getSQLHandler().getItemsAsStringSet("select SEQUENCE_NAME from INFORMATION_SCHEMA.SEQUENCES where SEQUENCE_SCHEMA = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select SEQUENCE_NAME from INFORMATION_SCHEMA.SEQUENCES where SEQUENCE_SCHEMA = ?", getDataSource(), schemaName);
     }
 
     /**
@@ -112,9 +170,9 @@ public class HsqldbDatabase extends Database {
     @Override
     public Set<String> getTriggerNames(String schemaName) {
         if (getHsqldbMajorVersionNumber() < 2) {
-            return getSQLHandler().getItemsAsStringSet("select TRIGGER_NAME from INFORMATION_SCHEMA.SYSTEM_TRIGGERS where TRIGGER_SCHEM = '" + schemaName + "'", getDataSource());
+            return getSQLHandler().getItemsAsStringSet("select TRIGGER_NAME from INFORMATION_SCHEMA.SYSTEM_TRIGGERS where TRIGGER_SCHEM = ?", getDataSource(), schemaName);
         }
-        return getSQLHandler().getItemsAsStringSet("select TRIGGER_NAME from INFORMATION_SCHEMA.TRIGGERS where TRIGGER_SCHEMA = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select TRIGGER_NAME from INFORMATION_SCHEMA.TRIGGERS where TRIGGER_SCHEMA = ?", getDataSource(), schemaName);
     }
 
 
@@ -157,6 +215,46 @@ public class HsqldbDatabase extends Database {
         }
     }
 
+    /**
+     * Drops the schema using drop schema cascade and creates it again with the same owner. The PUBLIC schema is
+     * not removed by HSQLDB, it is only emptied.
+     *
+     * @param schemaName The schema, not null
+     */
+    @Override
+    public void recreateSchema(String schemaName) {
+        String owner = getSQLHandler().getItemAsString("select SCHEMA_OWNER from INFORMATION_SCHEMA.SCHEMATA where SCHEMA_NAME = ?", getDataSource(), schemaName);
+        getSQLHandler().execute("drop schema " + quoted(schemaName) + " cascade", getDataSource());
+        if (getSQLHandler().getItemsAsStringSet("select SCHEMA_NAME from INFORMATION_SCHEMA.SCHEMATA where SCHEMA_NAME = ?", getDataSource(), schemaName).isEmpty()) {
+            getSQLHandler().execute("create schema " + quoted(schemaName) + " authorization " + quoted(owner), getDataSource());
+        }
+    }
+
+    /**
+     * Gets the foreign key, view and trigger dependencies between the items of the given schema.
+     *
+     * @param schemaName The schema, not null
+     * @return For each item that depends on other items, the items it depends on, not null
+     */
+    @Override
+    public Map<DbItemIdentifier, Set<DbItemIdentifier>> getDbItemDependencies(String schemaName) {
+        return getDbItemDependencies("select 'TABLE' ITEM_TYPE, fk.TABLE_NAME ITEM_NAME, 'TABLE' REFERENCED_TYPE, pk.TABLE_NAME REFERENCED_NAME " +
+                "from INFORMATION_SCHEMA.REFERENTIAL_CONSTRAINTS r " +
+                "join INFORMATION_SCHEMA.TABLE_CONSTRAINTS fk on fk.CONSTRAINT_SCHEMA = r.CONSTRAINT_SCHEMA and fk.CONSTRAINT_NAME = r.CONSTRAINT_NAME " +
+                "join INFORMATION_SCHEMA.TABLE_CONSTRAINTS pk on pk.CONSTRAINT_SCHEMA = r.UNIQUE_CONSTRAINT_SCHEMA and pk.CONSTRAINT_NAME = r.UNIQUE_CONSTRAINT_NAME " +
+                "where fk.TABLE_SCHEMA = ? and pk.TABLE_SCHEMA = ? " +
+                "union all " +
+                "select 'VIEW', u.VIEW_NAME, case when t.TABLE_TYPE = 'VIEW' then 'VIEW' else 'TABLE' end, u.TABLE_NAME " +
+                "from INFORMATION_SCHEMA.VIEW_TABLE_USAGE u " +
+                "join INFORMATION_SCHEMA.TABLES t on t.TABLE_SCHEMA = u.TABLE_SCHEMA and t.TABLE_NAME = u.TABLE_NAME " +
+                "where u.VIEW_SCHEMA = ? and u.TABLE_SCHEMA = ? " +
+                "union all " +
+                "select 'TRIGGER', tr.TRIGGER_NAME, case when t.TABLE_TYPE = 'VIEW' then 'VIEW' else 'TABLE' end, tr.EVENT_OBJECT_TABLE " +
+                "from INFORMATION_SCHEMA.TRIGGERS tr " +
+                "join INFORMATION_SCHEMA.TABLES t on t.TABLE_SCHEMA = tr.EVENT_OBJECT_SCHEMA and t.TABLE_NAME = tr.EVENT_OBJECT_TABLE " +
+                "where tr.TRIGGER_SCHEMA = ? and tr.EVENT_OBJECT_SCHEMA = ?", schemaName, schemaName, schemaName, schemaName, schemaName, schemaName, schemaName);
+    }
+
     /**
      * Disables all value constraints (e.g. not null) on all tables in the schema
      *
@@ -260,9 +358,9 @@ public class HsqldbDatabase extends Database {
     @Override
     public long getSequenceValue(String schemaName, String sequenceName) {
         if (getHsqldbMajorVersionNumber() < 2) {
-            return getSQLHandler().getItemAsLong("select START_WITH from INFORMATION_SCHEMA.SYSTEM_SEQUENCES where SEQUENCE_SCHEMA = '" + schemaName + "' and SEQUENCE_NAME = '" + sequenceName + "'", getDataSource());
+            return getSQLHandler().getItemAsLong("select START_WITH from INFORMATION_SCHEMA.SYSTEM_SEQUENCES where SEQUENCE_SCHEMA = ? and SEQUENCE_NAME = ?", getDataSource(), schemaName, sequenceName);
         }
-        return getSQLHandler().getItemAsLong("select NEXT_VALUE from INFORMATION_SCHEMA.SEQUENCES where SEQUENCE_SCHEMA = '" + schemaName + "' and SEQUENCE_NAME = '" + sequenceName + "'", getDataSource());
+        return getSQLHandler().getItemAsLong("select NEXT_VALUE from INFORMATION_SCHEMA.SEQUENCES where SEQUENCE_SCHEMA = ? and SEQUENCE_NAME = ?", getDataSource(), schemaName, sequenceName);
     }
 
     /**
@@ -273,7 +371,26 @@ public class HsqldbDatabase extends Database {
      */
     @Override
     public void incrementSequenceToValue(String schemaName, String sequenceName, long newSequenceValue) {
-        getSQLHandler().execute("alter sequence " + qualified(schemaName, sequenceName) + " restart with " + newSequenceValue, getDataSource());
+        getSQLHandler().execute(getIncrementSequenceToValueStatement(schemaName, sequenceName, newSequenceValue), getDataSource());
+    }
+
+    /**
+     * Returns the values of all sequences of the given schema using a single query.
+     *
+     * @param schemaName The schema, not null
+     * @return The values per sequence name, not null
+     */
+    @Override
+    public Map<String, Long> getSequenceValues(String schemaName) {
+        if (getHsqldbMajorVersionNumber() < 2) {
+            return getValuesPerName("select SEQUENCE_NAME, START_WITH from INFORMATION_SCHEMA.SYSTEM_SEQUENCES where SEQUENCE_SCHEMA = ?", schemaName);
+        }
+        return getValuesPerName("select SEQUENCE_NAME, NEXT_VALUE from INFORMATION_SCHEMA.SEQUENCES where SEQUENCE_SCHEMA = ?", schemaName);
+    }
+
+    @Override
+    protected String getIncrementSequenceToValueStatement(String schemaName, String sequenceName, long newSequenceValue) {
+        return "alter sequence " + qualified(schemaName, sequenceName) + " restart with " + newSequenceValue;
     }
 
     /**
@@ -286,7 +403,7 @@ public class HsqldbDatabase extends Database {
      */
     @Override
     public Set<String> getIdentityColumnNames(String schemaName, String tableName) {
-        return getSQLHandler().getItemsAsStringSet("select COLUMN_NAME from INFORMATION_SCHEMA.SYSTEM_PRIMARYKEYS where TABLE_NAME = '" + tableName + "' AND TABLE_SCHEM = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select COLUMN_NAME from INFORMATION_SCHEMA.SYSTEM_PRIMARYKEYS where TABLE_NAME = ? AND TABLE_SCHEM = ?", getDataSource(), tableName, schemaName);
     }
 
     /**
@@ -298,7 +415,218 @@ public class HsqldbDatabase extends Database {
      */
     @Override
     public void incrementIdentityColumnToValue(String schemaName, String tableName, String identityColumnName, long identityValue) {
-        getSQLHandler().execute("alter table " + qualified(schemaName, tableName) + " alter column " + quoted(identityColumnName) + " RESTART WITH " + identityValue, getDataSource());
+        getSQLHandler().execute(getIncrementIdentityColumnStatement(schemaName, tableName, identityColumnName, identityValue), getDataSource());
+    }
+
+    /**
+     * Gets the names of the identity columns of all tables of the given schema using a single query. For hsqldb 1.8
+     * the primary key columns are returned, as is done for a single table.
+     *
+     * @param schemaName The schema, not null
+     * @return The names of the identity columns per table name, not null
+     */
+    @Override
+    public Map<String, Set<String>> getIdentityColumnNamesPerTable(String schemaName) {
+        if (getHsqldbMajorVersionNumber() < 2) {
+            return getColumnNamesPerTable("select TABLE_NAME, COLUMN_NAME from INFORMATION_SCHEMA.SYSTEM_PRIMARYKEYS where TABLE_SCHEM = ?", schemaName);
+        }
+        return getColumnNamesPerTable("select TABLE_NAME, COLUMN_NAME from INFORMATION_SCHEMA.COLUMNS where IS_IDENTITY = 'YES' and TABLE_SCHEMA = ?", schemaName);
+    }
+
+    /**
+     * Hsqldb 1.8 returns the primary key columns as identity columns, these are therefore incremented separately.
+     */
+    @Override
+    protected String getIncrementIdentityColumnToValueStatement(String schemaName, String tableName, String identityColumnName, long identityValue) {
+        if (getHsqldbMajorVersionNumber() < 2) {
+            return null;
+        }
+        return getIncrementIdentityColumnStatement(schemaName, tableName, identityColumnName, identityValue);
+    }
+
+    private String getIncrementIdentityColumnStatement(String schemaName, String tableName, String identityColumnName, long identityValue) {
+        return "alter table " + qualified(schemaName, tableName) + " alter column " + quoted(identityColumnName) + " RESTART WITH " + identityValue;
+    }
+
+
+    /**
+     * Writes a snapshot of the complete database to the given file using the hsqldb SCRIPT statement.
+     *
+     * @param snapshotFile The file to write the snapshot to, should not exist yet, not null
+     */
+    @Override
+    public void saveSnapshot(File snapshotFile) {
+        getSQLHandler().execute("SCRIPT '" + snapshotFile.getAbsolutePath().replace("'", "''") + "'", getDataSource());
+    }
+
+    /**
+     * Replaces the configured schemas by the snapshot in the given file. The configured schemas are dropped and
+     * the statements of the snapshot for these schemas are executed again as a single batch, with the referential
+     * integrity checks disabled. Other schemas, the settings, users, grants and lob storage of the database are left
+     * untouched: these statements of the snapshot are skipped.
+     * <p>
+     * The SCRIPT statement writes one statement per line, with all special characters escaped as unicode.
+     *
+     * @param snapshotFile The file containing the snapshot, see {@link #saveSnapshot}, not null
+     */
+    @Override
+    public void restoreSnapshot(File snapshotFile) {
+        List<String> statements = readSnapshotStatements(snapshotFile);
+        Set<String> snapshotSchemaNames = new HashSet<>();
+        for (String statement : statements) {
+            if (statement.startsWith("CREATE SCHEMA ")) {
+                snapshotSchemaNames.add(unquoted(getCreatedSchemaName(statement)));
+            }
+        }
+        if (!snapshotSchemaNames.containsAll(getSchemaNames())) {
+            throw new DatabaseException("Unable to restore snapshot " + snapshotFile + ": it does not contain all configured schemas " + getSchemaNames());
+        }
+        for (Iterator<String> iterator = statements.iterator(); iterator.hasNext(); ) {
+            String statement = iterator.next();
+            if (statement.startsWith("CREATE SCHEMA ")) {
+                String schemaName = getCreatedSchemaName(statement);
+                getSQLHandler().execute("drop schema " + schemaName + " cascade", getDataSource());
+                if (getSQLHandler().exists("select 1 from INFORMATION_SCHEMA.SCHEMATA where SCHEMA_NAME = ?", getDataSource(), unquoted(schemaName))) {
+                    // the PUBLIC schema is not removed, only emptied
+                    iterator.remove();
+                }
+            }
+        }
+        // the data of the tables is not written in foreign key order
+        getSQLHandler().execute("SET DATABASE REFERENTIAL INTEGRITY FALSE", getDataSource());
+        try {
+            getSQLHandler().executeBatch(statements, getDataSource());
+        } finally {
+            getSQLHandler().execute("SET DATABASE REFERENTIAL INTEGRITY TRUE", getDataSource());
+            setDatabaseDefaultSchema();
+        }
+    }
+
+    /**
+     * Writes a script that recreates the structure and data of the schemas of this database. A snapshot is taken
+     * using the SCRIPT statement and its statements for the schemas that are managed by dbmaintain, except the
+     * creation of these schemas, are written as a regular script. The referential integrity checks are disabled while
+     * the script is executed, since the data of the tables is not written in foreign key order.
+     *
+     * @param scriptFile The file to write the script to, not null
+     * @param encoding   The encoding of the script, not null
+     */
+    @Override
+    public void exportScript(File scriptFile, String encoding) {
+        File snapshotFile = null;
+        try {
+            snapshotFile = File.createTempFile("dbmaintain-export", ".script", scriptFile.getAbsoluteFile().getParentFile());
+            // the SCRIPT statement refuses to overwrite an existing file
+            Files.delete(snapshotFile.toPath());
+            saveSnapshot(snapshotFile);
+
+            StringBuilder script = new StringBuilder("SET DATABASE REFERENTIAL INTEGRITY FALSE;\n");
+            for (String statement : readSnapshotStatements(snapshotFile)) {
+                if (statement.startsWith("CREATE SCHEMA ")) {
+                    continue;
+                }
+                script.append(statement).append(";\n");
+            }
+            script.append("SET DATABASE REFERENTIAL INTEGRITY TRUE;\n");
+            script.append("SET SCHEMA ").append(getDefaultSchemaName()).append(";\n");
+            Files.write(scriptFile.toPath(), script.toString().getBytes(encoding));
+        } catch (IOException e) {
+            throw new DatabaseException("Unable to export script to file " + scriptFile, e);
+        } finally {
+            if (snapshotFile != null) {
+                snapshotFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Reads the statements of a snapshot that was written by the SCRIPT statement. Only the statements for the
+     * configured schemas are returned: the settings, users, grants, lob storage and other schemas are skipped.
+     *
+     * @param snapshotFile The file containing the snapshot, not null
+     * @return The statements, not null
+     */
+    private List<String> readSnapshotStatements(File snapshotFile) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(snapshotFile.toPath(), ISO_8859_1);
+        } catch (IOException e) {
+            throw new DatabaseException("Unable to read snapshot file " + snapshotFile, e);
+        }
+        List<String> statements = new ArrayList<>();
+        String currentSchemaName = null;
+        for (String line : lines) {
+            String statement = unescapeUnicode(line);
+            if (statement.startsWith("SET SCHEMA ")) {
+                currentSchemaName = statement.substring("SET SCHEMA ".length());
+            }
+            if (!isSnapshotStatementToSkip(statement, currentSchemaName) && getSchemaNames().contains(unquoted(getStatementSchemaName(statement, currentSchemaName)))) {
+                statements.add(statement);
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * The SCRIPT statement qualifies all created and altered items with their schema, the data is inserted using
+     * unqualified table names after setting the current schema.
+     *
+     * @param statement         The snapshot statement, not null
+     * @param currentSchemaName The current schema of the snapshot, null if not set yet
+     * @return The schema of the item the statement applies to, null if unknown
+     */
+    private String getStatementSchemaName(String statement, String currentSchemaName) {
+        if (statement.startsWith("CREATE SCHEMA ")) {
+            return getCreatedSchemaName(statement);
+        }
+        if (statement.startsWith("SET SCHEMA ") || statement.startsWith("INSERT INTO ")) {
+            return currentSchemaName;
+        }
+        Matcher matcher = QUALIFIED_NAME_PATTERN.matcher(statement);
+        return matcher.find() ? matcher.group(1) : currentSchemaName;
+    }
+
+    private String getCreatedSchemaName(String createSchemaStatement) {
+        return createSchemaStatement.substring("CREATE SCHEMA ".length(), createSchemaStatement.indexOf(" AUTHORIZATION "));
+    }
+
+    private boolean isSnapshotStatementToSkip(String statement, String currentSchemaName) {
+        if ("SYSTEM_LOBS".equals(currentSchemaName) || statement.startsWith("ALTER SEQUENCE SYSTEM_LOBS.")) {
+            return true;
+        }
+        for (String prefix : new String[]{"SET DATABASE ", "SET FILES ", "CREATE USER ", "ALTER USER ", "CREATE ROLE ", "GRANT "}) {
+            if (statement.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String unescapeUnicode(String line) {
+        if (line.indexOf("\\u") < 0) {
+            return line;
+        }
+        StringBuilder result = new StringBuilder(line.length());
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 5 < line.length() && line.charAt(i + 1) == 'u') {
+                result.append((char) Integer.parseInt(line.substring(i + 2, i + 6), 16));
+                i += 5;
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private String unquoted(String identifier) {
+        if (identifier == null) {
+            return null;
+        }
+        if (identifier.startsWith("\"") && identifier.endsWith("\"")) {
+            return identifier.substring(1, identifier.length() - 1).replace("\"\"", "\"");
+        }
+        return identifier;
     }
 
 
@@ -325,6 +653,16 @@ public class HsqldbDatabase extends Database {
         // nothing to do, hsqldb allows setting values for identity columns
     }
 
+    /**
+     * Snapshots are supported, starting from hsqldb 2.
+     *
+     * @return True if hsqldb 2 or higher is used
+     */
+    @Override
+    public boolean supportsSnapshots() {
+        return getHsqldbMajorVersionNumber() >= 2;
+    }
+
     /**
      * Sequences are supported.
      *
@@ -355,6 +693,26 @@ public class HsqldbDatabase extends Database {
         return true;
     }
 
+    /**
+     * Recreating schemas is supported as of HSQLDB 2.
+     *
+     * @return True if the version is 2 or higher
+     */
+    @Override
+    public boolean supportsRecreateSchema() {
+        return getHsqldbMajorVersionNumber() >= 2;
+    }
+
+    /**
+     * Retrieving item dependencies is supported as of HSQLDB 2.
+     *
+     * @return True if the version is 2 or higher
+     */
+    @Override
+    public boolean supportsDbItemDependencies() {
+        return getHsqldbMajorVersionNumber() >= 2;
+    }
+
     /**
      * Cascade are supported.
      *
@@ -45,18 +45,18 @@ public class InformixDatabase extends Database {
 
     @Override
     public Set<String> getTableNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select tabname from systables where owner = '" + schemaName + "' and tabid > 99 and tabtype = 'T'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select tabname from systables where owner = ? and tabid > 99 and tabtype = 'T'", getDataSource(), schemaName);
     }
 
     @Override
     public Set<String> getColumnNames(String schemaName, String tableName) {
-        return getSQLHandler().getItemsAsStringSet("select sc.colname from syscolumns sc join systables st on sc.tabid = st.tabid and st.tabname = '" +
-                tableName + "' and st.owner = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select sc.colname from syscolumns sc join systables st on sc.tabid = st.tabid and st.tabname = ? " +
+                "and st.owner = ?", getDataSource(), tableName, schemaName);
     }
 
     @Override
     public Set<String> getViewNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select tabname from systables where owner = '" + schemaName + "' and tabid > 99 and tabtype = 'V'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select tabname from systables where owner = ? and tabid > 99 and tabtype = 'V'", getDataSource(), schemaName);
     }
 
     @Override
@@ -16,14 +16,23 @@
 package org.dbmaintain.database.impl;
 
 import org.dbmaintain.database.*;
+import org.dbmaintain.structure.model.DbItemType;
 
 import java.sql.*;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 import static org.apache.commons.dbutils.DbUtils.closeQuietly;
+import static org.dbmaintain.structure.model.DbItemType.RULE;
+import static org.dbmaintain.structure.model.DbItemType.STORED_PROC;
+import static org.dbmaintain.structure.model.DbItemType.SYNONYM;
+import static org.dbmaintain.structure.model.DbItemType.TABLE;
+import static org.dbmaintain.structure.model.DbItemType.TRIGGER;
+import static org.dbmaintain.structure.model.DbItemType.TYPE;
+import static org.dbmaintain.structure.model.DbItemType.VIEW;
 
 /**
  * Implementation of {@link org.dbmaintain.database.Database} for a MsSQL database.
@@ -58,7 +67,38 @@ public class MsSqlDatabase extends Database {
      */
     @Override
     public Set<String> getTableNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select t.name from sys.tables t, sys.schemas s where t.schema_id = s.schema_id and s.name = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select t.name from sys.tables t, sys.schemas s where t.schema_id = s.schema_id and s.name = ?", getDataSource(), schemaName);
+    }
+
+    /**
+     * Gets the foreign key relations between the tables of the given schema.
+     *
+     * @param schemaName The schema, not null
+     * @return For each table that is referenced by a foreign key, the names of the tables that reference it, not null
+     */
+    @Override
+    public Map<String, Set<String>> getReferencingTableNames(String schemaName) {
+        return getReferencingTableNames("select object_name(fk.parent_object_id) TABLE_NAME, object_name(fk.referenced_object_id) REFERENCED_TABLE_NAME " +
+                "from sys.foreign_keys fk where object_schema_name(fk.parent_object_id) = ? and object_schema_name(fk.referenced_object_id) = ?", schemaName, schemaName, schemaName);
+    }
+
+    /**
+     * Loads the names of all tables, views, synonyms, triggers, stored procedures, types and rules of the schema using a single query.
+     *
+     * @param schemaName The schema, not null
+     * @return The names of the items per type, not null
+     */
+    @Override
+    protected Map<DbItemType, Set<String>> loadCatalogSnapshot(String schemaName) {
+        return loadCatalogSnapshot(EnumSet.of(TABLE, VIEW, SYNONYM, TRIGGER, STORED_PROC, TYPE, RULE),
+                "select 'TABLE' ITEM_TYPE, t.name ITEM_NAME from sys.tables t, sys.schemas s where t.schema_id = s.schema_id and s.name = ? " +
+                "union all select 'VIEW', v.name from sys.views v, sys.schemas s where v.schema_id = s.schema_id and s.name = ? " +
+                "union all select 'SYNONYM', o.name from sys.synonyms o, sys.schemas s where o.schema_id = s.schema_id and s.name = ? " +
+                "union all select 'TRIGGER', t.name from sys.triggers t, sys.all_objects o, sys.schemas s where t.parent_id = o.object_id and o.schema_id = s.schema_id and s.name = ? " +
+                "union all select 'STORED_PROC', p.name from sys.procedures p, sys.schemas s where p.schema_id = s.schema_id and s.name = ? " +
+                "union all select 'TYPE', t.name from sys.types t, sys.schemas s where t.schema_id = s.schema_id and s.name = ? " +
+                "union all select 'RULE', ao.name from sys.all_objects ao, sys.schemas s where ao.schema_id = s.schema_id and ao.type = 'R' and s.name = ?",
+                schemaName, schemaName, schemaName, schemaName, schemaName, schemaName, schemaName);
     }
 
     /**
@@ -69,7 +109,7 @@ public class MsSqlDatabase extends Database {
      */
     @Override
     public Set<String> getColumnNames(String schemaName, String tableName) {
-        return getSQLHandler().getItemsAsStringSet("select c.name from sys.columns c, sys.tables t, sys.schemas s where c.object_id = t.object_id and t.name = '" + tableName + "' and t.schema_id = s.schema_id and s.name = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select c.name from sys.columns c, sys.tables t, sys.schemas s where c.object_id = t.object_id and t.name = ? and t.schema_id = s.schema_id and s.name = ?", getDataSource(), tableName, schemaName);
     }
 
     /**
@@ -79,7 +119,7 @@ public class MsSqlDatabase extends Database {
      */
     @Override
     public Set<String> getViewNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select v.name from sys.views v, sys.schemas s where v.schema_id = s.schema_id and s.name = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select v.name from sys.views v, sys.schemas s where v.schema_id = s.schema_id and s.name = ?", getDataSource(), schemaName);
     }
 
     /**
@@ -89,7 +129,7 @@ public class MsSqlDatabase extends Database {
      */
     @Override
     public Set<String> getSynonymNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select o.name from sys.synonyms o, sys.schemas s where o.schema_id = s.schema_id and s.name = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select o.name from sys.synonyms o, sys.schemas s where o.schema_id = s.schema_id and s.name = ?", getDataSource(), schemaName);
     }
 
     /**
@@ -99,7 +139,7 @@ public class MsSqlDatabase extends Database {
      */
     @Override
     public Set<String> getTriggerNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select t.name from sys.triggers t, sys.all_objects o, sys.schemas s where t.parent_id = o.object_id and o.schema_id = s.schema_id and s.name = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select t.name from sys.triggers t, sys.all_objects o, sys.schemas s where t.parent_id = o.object_id and o.schema_id = s.schema_id and s.name = ?", getDataSource(), schemaName);
     }
 
     /**
@@ -109,7 +149,7 @@ public class MsSqlDatabase extends Database {
      */
     @Override
     public Set<String> getStoredProcedureNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("SELECT sys.procedures.name FROM sys.procedures INNER JOIN sys.schemas ON sys.procedures.schema_id = sys.schemas.schema_id where sys.schemas.name = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("SELECT sys.procedures.name FROM sys.procedures INNER JOIN sys.schemas ON sys.procedures.schema_id = sys.schemas.schema_id where sys.schemas.name = ?", getDataSource(), schemaName);
     }
 
 
@@ -120,7 +160,7 @@ public class MsSqlDatabase extends Database {
      */
     @Override
     public Set<String> getTypeNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select t.name from sys.types t, sys.schemas s where t.schema_id = s.schema_id and s.name = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select t.name from sys.types t, sys.schemas s where t.schema_id = s.schema_id and s.name = ?", getDataSource(), schemaName);
     }
 
 	/**
@@ -130,7 +170,7 @@ public class MsSqlDatabase extends Database {
      */
     @Override
     public Set<String> getRuleNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("SELECT ao.name FROM sys.all_objects ao INNER JOIN sys.schemas s ON s.schema_id = ao.schema_id WHERE type = 'R' and s.name = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("SELECT ao.name FROM sys.all_objects ao INNER JOIN sys.schemas s ON s.schema_id = ao.schema_id WHERE type = 'R' and s.name = ?", getDataSource(), schemaName);
     }
 
     /**
@@ -141,7 +181,7 @@ public class MsSqlDatabase extends Database {
      */
     @Override
     public Set<String> getIdentityColumnNames(String schemaName, String tableName) {
-        return getSQLHandler().getItemsAsStringSet("select i.name from sys.identity_columns i, sys.tables t, sys.schemas s where i.object_id = t.object_id and t.name = '" + tableName + "' and t.schema_id = s.schema_id and s.name = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select i.name from sys.identity_columns i, sys.tables t, sys.schemas s where i.object_id = t.object_id and t.name = ? and t.schema_id = s.schema_id and s.name = ?", getDataSource(), tableName, schemaName);
     }
 
     /**
@@ -154,8 +194,24 @@ public class MsSqlDatabase extends Database {
      */
     @Override
     public void incrementIdentityColumnToValue(String schemaName, String tableName, String identityColumnName, long identityValue) {
+        getSQLHandler().execute(getIncrementIdentityColumnToValueStatement(schemaName, tableName, identityColumnName, identityValue), getDataSource());
+    }
+
+    /**
+     * Gets the names of the identity columns of all tables of the given schema using a single query.
+     *
+     * @param schemaName The schema, not null
+     * @return The names of the identity columns per table name, not null
+     */
+    @Override
+    public Map<String, Set<String>> getIdentityColumnNamesPerTable(String schemaName) {
+        return getColumnNamesPerTable("select t.name, i.name from sys.identity_columns i, sys.tables t, sys.schemas s where i.object_id = t.object_id and t.schema_id = s.schema_id and s.name = ?", schemaName);
+    }
+
+    @Override
+    protected String getIncrementIdentityColumnToValueStatement(String schemaName, String tableName, String identityColumnName, long identityValue) {
         // there can only be 1 identity column per table
-        getSQLHandler().execute("DBCC CHECKIDENT ('" + qualified(schemaName, tableName) + "', reseed, " + identityValue + ")", getDataSource());
+        return "DBCC CHECKIDENT ('" + qualified(schemaName, tableName) + "', reseed, " + identityValue + ")";
     }
 
     /**
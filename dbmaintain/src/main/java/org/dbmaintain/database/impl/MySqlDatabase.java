@@ -17,6 +17,9 @@ package org.dbmaintain.database.impl;
 
 import org.dbmaintain.database.*;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -57,7 +60,19 @@ public class MySqlDatabase extends Database {
      */
     @Override
     public Set<String> getTableNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select table_name from information_schema.tables where table_schema = '" + schemaName + "' and table_type = 'BASE TABLE'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select table_name from information_schema.tables where table_schema = ? and table_type = 'BASE TABLE'", getDataSource(), schemaName);
+    }
+
+    /**
+     * Gets the foreign key relations between the tables of the given schema.
+     *
+     * @param schemaName The schema, not null
+     * @return For each table that is referenced by a foreign key, the names of the tables that reference it, not null
+     */
+    @Override
+    public Map<String, Set<String>> getReferencingTableNames(String schemaName) {
+        return getReferencingTableNames("select TABLE_NAME, REFERENCED_TABLE_NAME from information_schema.referential_constraints " +
+                "where constraint_schema = ? and unique_constraint_schema = ?", schemaName, schemaName, schemaName);
     }
 
     /**
@@ -68,7 +83,7 @@ public class MySqlDatabase extends Database {
      */
     @Override
     public Set<String> getColumnNames(String schemaName, String tableName) {
-        return getSQLHandler().getItemsAsStringSet("select column_name from information_schema.columns where table_name = '" + tableName + "' and table_schema = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select column_name from information_schema.columns where table_name = ? and table_schema = ?", getDataSource(), tableName, schemaName);
     }
 
     /**
@@ -78,7 +93,7 @@ public class MySqlDatabase extends Database {
      */
     @Override
     public Set<String> getViewNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select table_name from information_schema.tables where table_schema = '" + schemaName + "' and table_type = 'VIEW'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select table_name from information_schema.tables where table_schema = ? and table_type = 'VIEW'", getDataSource(), schemaName);
     }
 
     /**
@@ -88,7 +103,7 @@ public class MySqlDatabase extends Database {
      */
     @Override
     public Set<String> getTriggerNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select trigger_name from information_schema.triggers where trigger_schema = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select trigger_name from information_schema.triggers where trigger_schema = ?", getDataSource(), schemaName);
     }
 
 
@@ -99,20 +114,10 @@ public class MySqlDatabase extends Database {
      */
     @Override
     public void disableReferentialConstraints(String schemaName) {
-        Set<String> tableNames = getTableNames(schemaName);
-        for (String tableName : tableNames) {
-            disableReferentialConstraints(schemaName, tableName);
-        }
-    }
-
-    // todo refactor (see oracle)
-
-    protected void disableReferentialConstraints(String schemaName, String tableName) {
-        SQLHandler sqlHandler = getSQLHandler();
-        Set<String> constraintNames = sqlHandler.getItemsAsStringSet("select constraint_name from information_schema.table_constraints where constraint_type = 'FOREIGN KEY' AND table_name = '" + tableName + "' and constraint_schema = '" + schemaName + "'", getDataSource());
-        for (String constraintName : constraintNames) {
-            sqlHandler.execute("alter table " + qualified(schemaName, tableName) + " drop foreign key " + quoted(constraintName), getDataSource());
-        }
+        Map<String, List<String>> alterClausesPerTable = new HashMap<>();
+        addAlterClauses(alterClausesPerTable, getRowsPerTable("select table_name, constraint_name from information_schema.table_constraints where constraint_type = 'FOREIGN KEY' and constraint_schema = ?", schemaName),
+                row -> "drop foreign key " + quoted(row[0]));
+        alterTablesInBatch(schemaName, alterClausesPerTable);
     }
 
     /**
@@ -122,33 +127,37 @@ public class MySqlDatabase extends Database {
      */
     @Override
     public void disableValueConstraints(String schemaName) {
-        Set<String> tableNames = getTableNames(schemaName);
-        for (String tableName : tableNames) {
-            disableValueConstraints(schemaName, tableName);
-        }
+        Map<String, List<String>> alterClausesPerTable = new HashMap<>();
+        // disable all unique constraints (check constraints are not implemented)
+        addAlterClauses(alterClausesPerTable, getRowsPerTable("select table_name, constraint_name from information_schema.table_constraints where constraint_type in ('UNIQUE') and constraint_schema = ?", schemaName),
+                row -> "drop key " + quoted(row[0]));
+        // disable all not null constraints
+        addAlterClauses(alterClausesPerTable, getRowsPerTable("select c.table_name, c.column_name, c.column_type from information_schema.columns c join information_schema.tables t on t.table_schema = c.table_schema and t.table_name = c.table_name " +
+                        "where t.table_type = 'BASE TABLE' and c.is_nullable = 'NO' and c.column_key <> 'PRI' and c.table_schema = ?", schemaName),
+                row -> "change column " + quoted(row[0]) + " " + quoted(row[0]) + " " + row[1] + " NULL");
+        alterTablesInBatch(schemaName, alterClausesPerTable);
     }
 
-    // todo refactor (see oracle)
 
-    protected void disableValueConstraints(String schemaName, String tableName) {
+    /**
+     * Truncates the given tables while the foreign key checks are switched off for the current connection. This way,
+     * tables that are referenced by a foreign key can also be truncated. The checks are switched on again afterwards.
+     *
+     * @param schemaName The schema, not null
+     * @param tableNames The tables to truncate (case-sensitive), not null
+     * @return The tables that could not be truncated, not null
+     */
+    @Override
+    public List<String> truncateTables(String schemaName, List<String> tableNames) {
         SQLHandler sqlHandler = getSQLHandler();
-
-        // disable all unique constraints (check constraints are not implemented)
-        Set<String> constraintNames = sqlHandler.getItemsAsStringSet("select constraint_name from information_schema.table_constraints where constraint_type in ('UNIQUE') AND table_name = '" + tableName + "' and constraint_schema = '" + schemaName + "'", getDataSource());
-        for (String constraintName : constraintNames) {
-            sqlHandler.execute("alter table " + qualified(schemaName, tableName) + " drop key " + quoted(constraintName), getDataSource());
-        }
-
-        // disable all not null constraints
-        Set<String> notNullColumnNames = sqlHandler.getItemsAsStringSet("select column_name from information_schema.columns where is_nullable = 'NO' and column_key <> 'PRI' and table_name = '" + tableName + "' and table_schema = '" + schemaName + "'", getDataSource());
-        for (String notNullColumnName : notNullColumnNames) {
-            // todo test length etc
-            String columnType = sqlHandler.getItemAsString("select column_type from information_schema.columns where table_schema = '" + schemaName + "' and table_name = '" + tableName + "' and column_name = '" + notNullColumnName + "'", getDataSource());
-            sqlHandler.execute("alter table " + qualified(schemaName, tableName) + " change column " + quoted(notNullColumnName) + " " + quoted(notNullColumnName) + " " + columnType + " NULL ", getDataSource());
+        sqlHandler.execute("set foreign_key_checks = 0", getDataSource());
+        try {
+            return super.truncateTables(schemaName, tableNames);
+        } finally {
+            sqlHandler.execute("set foreign_key_checks = 1", getDataSource());
         }
     }
 
-
     /**
      * Gets the names of all identity columns of the given table.
      *
@@ -158,7 +167,7 @@ public class MySqlDatabase extends Database {
     @Override
     public Set<String> getIdentityColumnNames(String schemaName, String tableName) {
         //  todo check, at this moment the PK columns are returned
-        return getSQLHandler().getItemsAsStringSet("select column_name from information_schema.columns where table_name = '" + tableName + "' and column_key = 'PRI' and table_schema = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select column_name from information_schema.columns where table_name = ? and column_key = 'PRI' and table_schema = ?", getDataSource(), tableName, schemaName);
     }
 
     /**
@@ -170,7 +179,24 @@ public class MySqlDatabase extends Database {
      */
     @Override
     public void incrementIdentityColumnToValue(String schemaName, String tableName, String primaryKeyColumnName, long identityValue) {
-        getSQLHandler().execute("alter table " + qualified(schemaName, tableName) + " AUTO_INCREMENT = " + identityValue, getDataSource());
+        getSQLHandler().execute(getIncrementIdentityColumnToValueStatement(schemaName, tableName, primaryKeyColumnName, identityValue), getDataSource());
+    }
+
+    /**
+     * Gets the names of the identity columns of all tables of the given schema using a single query. Unlike for a
+     * single table, only the real auto increment columns are returned.
+     *
+     * @param schemaName The schema, not null
+     * @return The names of the identity columns per table name, not null
+     */
+    @Override
+    public Map<String, Set<String>> getIdentityColumnNamesPerTable(String schemaName) {
+        return getColumnNamesPerTable("select table_name, column_name from information_schema.columns where extra like '%auto_increment%' and table_schema = ?", schemaName);
+    }
+
+    @Override
+    protected String getIncrementIdentityColumnToValueStatement(String schemaName, String tableName, String primaryKeyColumnName, long identityValue) {
+        return "alter table " + qualified(schemaName, tableName) + " AUTO_INCREMENT = " + identityValue;
     }
 
 
@@ -15,16 +15,32 @@
  */
 package org.dbmaintain.database.impl;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.dbmaintain.database.Database;
 import org.dbmaintain.database.DatabaseConnection;
 import org.dbmaintain.database.DatabaseException;
 import org.dbmaintain.database.IdentifierProcessor;
+import org.dbmaintain.structure.model.DbItemIdentifier;
+import org.dbmaintain.structure.model.DbItemType;
 
 import java.sql.*;
 import java.util.*;
+import java.util.function.Consumer;
 import org.dbmaintain.util.DbMaintainException;
 
 import static org.apache.commons.dbutils.DbUtils.closeQuietly;
+import static org.dbmaintain.structure.model.DbItemType.DATABASE_LINK;
+import static org.dbmaintain.structure.model.DbItemType.FUNCTION;
+import static org.dbmaintain.structure.model.DbItemType.MATERIALIZED_VIEW;
+import static org.dbmaintain.structure.model.DbItemType.PACKAGE;
+import static org.dbmaintain.structure.model.DbItemType.SEQUENCE;
+import static org.dbmaintain.structure.model.DbItemType.STORED_PROC;
+import static org.dbmaintain.structure.model.DbItemType.SYNONYM;
+import static org.dbmaintain.structure.model.DbItemType.TABLE;
+import static org.dbmaintain.structure.model.DbItemType.TRIGGER;
+import static org.dbmaintain.structure.model.DbItemType.TYPE;
+import static org.dbmaintain.structure.model.DbItemType.VIEW;
 
 /**
  * Implementation of {@link org.dbmaintain.database.Database} for an Oracle database.
@@ -34,6 +50,9 @@ import static org.apache.commons.dbutils.DbUtils.closeQuietly;
  */
 public class OracleDatabase extends Database {
 
+    /* The logger instance for this class */
+    private static Log logger = LogFactory.getLog(OracleDatabase.class);
+
     /* The major version number of the Oracle database */
     private Integer oracleMajorVersionNumber;
     
@@ -64,55 +83,167 @@ public class OracleDatabase extends Database {
     public Set<String> getTableNames(String schemaName) {
         // all_tables also contains the materialized views: don't return these
         // to be sure no recycled items are handled, all items with a name that starts with BIN$ will be filtered out.
-        return getSQLHandler().getItemsAsStringSet("select TABLE_NAME from ALL_TABLES where OWNER = '" + schemaName + "' and TABLE_NAME not like 'BIN$%' minus select MVIEW_NAME from ALL_MVIEWS where OWNER = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select TABLE_NAME from ALL_TABLES where OWNER = ? and TABLE_NAME not like 'BIN$%' minus select MVIEW_NAME from ALL_MVIEWS where OWNER = ?", getDataSource(), schemaName, schemaName);
     }
     
+    /**
+     * Gets the foreign key relations between the tables of the given schema. Foreign keys with a cascade or "set null"
+     * delete rule are ignored, since they are handled correctly by the DBMS independent of the delete order.
+     *
+     * @param schemaName The schema, not null
+     * @return For each table that is referenced by a foreign key, the names of the tables that reference it, not null
+     */
     @Override
-    public List<String> getTableNamesSortedAccordingToConstraints(String schemaName) {
-    	try {
-	    	List<String> tableNames = new ArrayList<>(getTableNames(schemaName));
-	    	Map<String, Set<String>> childParentRelations = getTableChildParentRelations(schemaName);
-	    	return sortAccordingToConstraints(tableNames, childParentRelations);
-    	} 
-    	catch (SQLException e) {
-    		throw new DatabaseException("Failed to resolve referential constraints", e);
-    	}
+    public Map<String, Set<String>> getReferencingTableNames(String schemaName) {
+        return getReferencingTableNames("select c.TABLE_NAME TABLE_NAME, p.TABLE_NAME REFERENCED_TABLE_NAME " +
+                "from ALL_CONSTRAINTS c join ALL_CONSTRAINTS p on p.OWNER = c.R_OWNER and p.CONSTRAINT_NAME = c.R_CONSTRAINT_NAME " +
+                "where c.CONSTRAINT_TYPE = 'R' and c.OWNER = ? and p.OWNER = ? and c.DELETE_RULE = 'NO ACTION' and c.CONSTRAINT_NAME not like 'BIN$%' and c.STATUS <> 'DISABLED'", schemaName, schemaName, schemaName);
+    }
+
+    /**
+     * Loads the names of all tables, views, materialized views, synonyms, database links, sequences, triggers, types and stored code of the schema using a single query.
+     *
+     * @param schemaName The schema, not null
+     * @return The names of the items per type, not null
+     */
+    @Override
+    protected Map<DbItemType, Set<String>> loadCatalogSnapshot(String schemaName) {
+        return loadCatalogSnapshot(EnumSet.of(TABLE, VIEW, MATERIALIZED_VIEW, SYNONYM, DATABASE_LINK, SEQUENCE, TRIGGER, TYPE, FUNCTION, PACKAGE, STORED_PROC),
+                "select 'TABLE' ITEM_TYPE, TABLE_NAME ITEM_NAME from (select TABLE_NAME from ALL_TABLES where OWNER = ? and TABLE_NAME not like 'BIN$%' minus select MVIEW_NAME from ALL_MVIEWS where OWNER = ?) " +
+                "union all select 'VIEW', VIEW_NAME from ALL_VIEWS where OWNER = ? " +
+                "union all select 'MATERIALIZED_VIEW', MVIEW_NAME from ALL_MVIEWS where OWNER = ? " +
+                "union all select 'SYNONYM', SYNONYM_NAME from ALL_SYNONYMS where OWNER = ? " +
+                "union all select 'DATABASE_LINK', DB_LINK from ALL_DB_LINKS where OWNER = ? " +
+                "union all select 'SEQUENCE', SEQUENCE_NAME from ALL_SEQUENCES where SEQUENCE_OWNER = ? " +
+                "union all select 'TRIGGER', TRIGGER_NAME from ALL_TRIGGERS where OWNER = ? and TRIGGER_NAME not like 'BIN$%' " +
+                "union all select 'TYPE', TYPE_NAME from ALL_TYPES where OWNER = ? " +
+                "union all select distinct decode(OBJECT_TYPE, 'PROCEDURE', 'STORED_PROC', OBJECT_TYPE), OBJECT_NAME from ALL_PROCEDURES where OWNER = ? and OBJECT_TYPE in ('FUNCTION', 'PACKAGE', 'PROCEDURE')",
+                schemaName, schemaName, schemaName, schemaName, schemaName, schemaName, schemaName, schemaName, schemaName, schemaName);
+    }
+
+    /**
+     * Truncates the given tables. Oracle does not allow to truncate a table that is referenced by an enabled foreign
+     * key, even if the referencing table is empty. The enabled foreign keys of the tables that are truncated are
+     * therefore disabled first and enabled again afterwards. Tables that are referenced by a foreign key of a table
+     * that is not truncated are not truncated.
+     * <p>
+     * A foreign key can only be enabled again if the referencing table is empty. Use
+     * {@link #truncateTables(String, List, Consumer)} to clean the tables that were not truncated before the foreign
+     * keys are enabled again.
+     *
+     * @param schemaName The schema, not null
+     * @param tableNames The tables to truncate (case-sensitive), not null
+     * @return The tables that could not be truncated, not null
+     */
+    @Override
+    public List<String> truncateTables(String schemaName, List<String> tableNames) {
+        return truncateTables(schemaName, tableNames, tableName -> {
+        });
+    }
+
+    /**
+     * Truncates the given tables, see {@link #truncateTables(String, List)}. The tables that could not be truncated
+     * are cleaned by the given cleaner while the foreign keys are still disabled. Every foreign key is enabled again,
+     * also if enabling another foreign key fails. An exception listing all foreign keys that could not be enabled is
+     * thrown afterwards.
+     *
+     * @param schemaName               The schema, not null
+     * @param tableNames               The tables to truncate (case-sensitive), not null
+     * @param notTruncatedTableCleaner Cleans a table that could not be truncated, not null
+     * @return The tables that could not be truncated, not null
+     */
+    @Override
+    public List<String> truncateTables(String schemaName, List<String> tableNames, Consumer<String> notTruncatedTableCleaner) {
+        Map<String, Set<String>> foreignKeys = getEnabledForeignKeys(schemaName);
+        foreignKeys.keySet().retainAll(tableNames);
+
+        Map<String, Set<String>> disabledForeignKeys = new HashMap<>();
+        try {
+            for (Map.Entry<String, Set<String>> entry : foreignKeys.entrySet()) {
+                for (String constraintName : entry.getValue()) {
+                    getSQLHandler().execute("alter table " + qualified(schemaName, entry.getKey()) + " disable constraint " + quoted(constraintName), getDataSource());
+                    disabledForeignKeys.computeIfAbsent(entry.getKey(), key -> new HashSet<>()).add(constraintName);
+                }
+            }
+            List<String> notTruncatedTableNames = super.truncateTables(schemaName, tableNames);
+            notTruncatedTableNames.forEach(notTruncatedTableCleaner);
+            return notTruncatedTableNames;
+        } finally {
+            enableForeignKeys(schemaName, disabledForeignKeys);
+        }
+    }
+
+    private void enableForeignKeys(String schemaName, Map<String, Set<String>> foreignKeys) {
+        List<String> failedConstraintNames = new ArrayList<>();
+        DatabaseException firstException = null;
+        for (Map.Entry<String, Set<String>> entry : foreignKeys.entrySet()) {
+            for (String constraintName : entry.getValue()) {
+                try {
+                    getSQLHandler().execute("alter table " + qualified(schemaName, entry.getKey()) + " enable constraint " + quoted(constraintName), getDataSource());
+                } catch (DatabaseException e) {
+                    logger.error("Unable to enable foreign key " + constraintName + " of table " + entry.getKey() + " in database schema " + schemaName, e);
+                    failedConstraintNames.add(entry.getKey() + "." + constraintName);
+                    if (firstException == null) {
+                        firstException = e;
+                    }
+                }
+            }
+        }
+        if (firstException != null) {
+            throw new DatabaseException("Unable to enable foreign keys " + failedConstraintNames + " in database schema " + schemaName + ". These foreign keys are still disabled.", firstException);
+        }
     }
-       
-    private Map<String, Set<String>> getTableChildParentRelations(String schemaName) throws SQLException {
-    	Map<String, Set<String>> childParentRelations = new HashMap<>();
+
+    private Map<String, Set<String>> getEnabledForeignKeys(String schemaName) {
+        Map<String, Set<String>> foreignKeys = new HashMap<>();
         Connection connection = null;
         PreparedStatement queryStatement = null;
-        Statement alterStatement = null;
         ResultSet resultSet = null;
         try {
-	        connection = getDataSource().getConnection();
-	        alterStatement = connection.createStatement();
-	
-	        // cascade or "set null" constraints can be ignored since they are handled correctly by the DBMS independent of the delete order
-	        queryStatement = connection.prepareStatement("select p.table_name AS parent, c.table_name AS child from ALL_CONSTRAINTS p join ALL_CONSTRAINTS c on p.r_constraint_name = c.constraint_name and p.r_owner = c.owner where p.CONSTRAINT_TYPE = 'R' and c.OWNER = ? and p.DELETE_RULE = 'NO ACTION' and p.CONSTRAINT_NAME not like 'BIN$%' and p.STATUS <> 'DISABLED'");
-	        queryStatement.setString(1, schemaName);
-
-	        resultSet = queryStatement.executeQuery();
-	        while (resultSet.next()) {
-	        	String child = resultSet.getString("CHILD");
-	            String parent = resultSet.getString("PARENT");
-	            if (childParentRelations.containsKey(child)) {
-	            	Set<String> parents = childParentRelations.get(child);
-	            	parents.add(parent);
-	            } else {
-	            	Set<String> parents = new HashSet<>();
-	            	parents.add(parent);
-	            	childParentRelations.put(child, parents);
-	            }
-	        }
-	        return childParentRelations;
+            connection = getDataSource().getConnection();
+            queryStatement = connection.prepareStatement("select TABLE_NAME, CONSTRAINT_NAME from ALL_CONSTRAINTS where CONSTRAINT_TYPE = 'R' and OWNER = ? and CONSTRAINT_NAME not like 'BIN$%' and STATUS = 'ENABLED'");
+            queryStatement.setString(1, schemaName);
+
+            resultSet = queryStatement.executeQuery();
+            while (resultSet.next()) {
+                String tableName = resultSet.getString("TABLE_NAME");
+                String constraintName = resultSet.getString("CONSTRAINT_NAME");
+                foreignKeys.computeIfAbsent(tableName, key -> new HashSet<>()).add(constraintName);
+            }
+            return foreignKeys;
+        } catch (SQLException e) {
+            throw new DatabaseException("Unable to retrieve the foreign keys for schema name: " + schemaName, e);
         } finally {
             closeQuietly(queryStatement);
-            closeQuietly(connection, alterStatement, resultSet);
+            closeQuietly(connection, null, resultSet);
         }
     }
 
+    /**
+     * Gets the dependencies between the items of the given schema. Dependencies of views, synonyms, triggers, types
+     * and stored code are read from ALL_DEPENDENCIES, foreign keys between tables from ALL_CONSTRAINTS.
+     *
+     * @param schemaName The schema, not null
+     * @return For each item that depends on other items, the items it depends on, not null
+     */
+    @Override
+    public Map<DbItemIdentifier, Set<DbItemIdentifier>> getDbItemDependencies(String schemaName) {
+        return getDbItemDependencies("select " + getDbItemTypeExpression("d.TYPE") + " ITEM_TYPE, d.NAME ITEM_NAME, " + getDbItemTypeExpression("d.REFERENCED_TYPE") + " REFERENCED_TYPE, d.REFERENCED_NAME REFERENCED_NAME " +
+                "from ALL_DEPENDENCIES d where d.OWNER = ? and d.REFERENCED_OWNER = ? and d.NAME not like 'BIN$%' and d.REFERENCED_NAME not like 'BIN$%' " +
+                "union all " +
+                "select 'TABLE', c.TABLE_NAME, 'TABLE', p.TABLE_NAME " +
+                "from ALL_CONSTRAINTS c join ALL_CONSTRAINTS p on p.OWNER = c.R_OWNER and p.CONSTRAINT_NAME = c.R_CONSTRAINT_NAME " +
+                "where c.CONSTRAINT_TYPE = 'R' and c.OWNER = ? and p.OWNER = ? and c.TABLE_NAME not like 'BIN$%'", schemaName, schemaName, schemaName, schemaName, schemaName);
+    }
+
+    /**
+     * @param column The column containing an Oracle object type, not null
+     * @return The SQL expression that converts the object type to the name of the corresponding DbItemType
+     */
+    private String getDbItemTypeExpression(String column) {
+        return "decode(" + column + ", 'PROCEDURE', 'STORED_PROC', 'PACKAGE BODY', 'PACKAGE', 'TYPE BODY', 'TYPE', 'MATERIALIZED VIEW', 'MATERIALIZED_VIEW', 'DATABASE LINK', 'DATABASE_LINK', " + column + ")";
+    }
+
     /**
      * Gets the names of all columns of the given table.
      *
@@ -121,7 +252,7 @@ public class OracleDatabase extends Database {
      */
     @Override
     public Set<String> getColumnNames(String schemaName, String tableName) {
-        return getSQLHandler().getItemsAsStringSet("select COLUMN_NAME from ALL_TAB_COLUMNS where TABLE_NAME = '" + tableName + "' and OWNER = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select COLUMN_NAME from ALL_TAB_COLUMNS where TABLE_NAME = ? and OWNER = ?", getDataSource(), tableName, schemaName);
     }
 
     /**
@@ -131,7 +262,7 @@ public class OracleDatabase extends Database {
      */
     @Override
     public Set<String> getViewNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select VIEW_NAME from ALL_VIEWS where OWNER = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select VIEW_NAME from ALL_VIEWS where OWNER = ?", getDataSource(), schemaName);
     }
 
     /**
@@ -141,7 +272,7 @@ public class OracleDatabase extends Database {
      */
     @Override
     public Set<String> getMaterializedViewNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select MVIEW_NAME from ALL_MVIEWS where OWNER = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select MVIEW_NAME from ALL_MVIEWS where OWNER = ?", getDataSource(), schemaName);
     }
 
     /**
@@ -151,7 +282,7 @@ public class OracleDatabase extends Database {
      */
     @Override
     public Set<String> getSynonymNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select SYNONYM_NAME from ALL_SYNONYMS where OWNER = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select SYNONYM_NAME from ALL_SYNONYMS where OWNER = ?", getDataSource(), schemaName);
     }
     
     /**
@@ -161,7 +292,7 @@ public class OracleDatabase extends Database {
     */
     @Override
     public Set<String> getDatabaseLinkNames(String schemaName) {
-    	return getSQLHandler().getItemsAsStringSet("select DB_LINK from ALL_DB_LINKS where OWNER = '" + schemaName + "'", getDataSource());
+    	return getSQLHandler().getItemsAsStringSet("select DB_LINK from ALL_DB_LINKS where OWNER = ?", getDataSource(), schemaName);
     }
     
     /**
@@ -171,7 +302,7 @@ public class OracleDatabase extends Database {
      */
     @Override
     public Set<String> getSequenceNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select SEQUENCE_NAME from ALL_SEQUENCES where SEQUENCE_OWNER = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select SEQUENCE_NAME from ALL_SEQUENCES where SEQUENCE_OWNER = ?", getDataSource(), schemaName);
     }
 
     /**
@@ -182,7 +313,7 @@ public class OracleDatabase extends Database {
     @Override
     public Set<String> getTriggerNames(String schemaName) {
         // to be sure no recycled items are handled, all items with a name that starts with BIN$ will be filtered out.
-        return getSQLHandler().getItemsAsStringSet("select TRIGGER_NAME from ALL_TRIGGERS where OWNER = '" + schemaName + "' and TRIGGER_NAME not like 'BIN$%'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select TRIGGER_NAME from ALL_TRIGGERS where OWNER = ? and TRIGGER_NAME not like 'BIN$%'", getDataSource(), schemaName);
     }
 
     /**
@@ -192,7 +323,7 @@ public class OracleDatabase extends Database {
      */
     @Override
     public Set<String> getTypeNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select TYPE_NAME from ALL_TYPES where OWNER = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select TYPE_NAME from ALL_TYPES where OWNER = ?", getDataSource(), schemaName);
     }
     /**
     * Retrieves the names of all functions in the given schema.
@@ -202,7 +333,7 @@ public class OracleDatabase extends Database {
     */
     @Override
     public Set<String> getFunctionNames(String schemaName) {
-    	return getSQLHandler().getItemsAsStringSet("select distinct OBJECT_NAME from ALL_PROCEDURES where OWNER = '" + schemaName + "' and OBJECT_TYPE = 'FUNCTION'", getDataSource());
+    	return getSQLHandler().getItemsAsStringSet("select distinct OBJECT_NAME from ALL_PROCEDURES where OWNER = ? and OBJECT_TYPE = 'FUNCTION'", getDataSource(), schemaName);
     }
         
     /**
@@ -213,7 +344,7 @@ public class OracleDatabase extends Database {
     */
     @Override
     public Set<String> getPackageNames(String schemaName) {
-    	return getSQLHandler().getItemsAsStringSet("select distinct OBJECT_NAME from ALL_PROCEDURES where OWNER = '" + schemaName + "' and OBJECT_TYPE = 'PACKAGE'", getDataSource());
+    	return getSQLHandler().getItemsAsStringSet("select distinct OBJECT_NAME from ALL_PROCEDURES where OWNER = ? and OBJECT_TYPE = 'PACKAGE'", getDataSource(), schemaName);
     }
         
     /**
@@ -224,7 +355,7 @@ public class OracleDatabase extends Database {
     */
     @Override
     public Set<String> getStoredProcedureNames(String schemaName) {
-    	return getSQLHandler().getItemsAsStringSet("select distinct OBJECT_NAME from ALL_PROCEDURES where OWNER = '" + schemaName + "' and OBJECT_TYPE = 'PROCEDURE'", getDataSource());
+    	return getSQLHandler().getItemsAsStringSet("select distinct OBJECT_NAME from ALL_PROCEDURES where OWNER = ? and OBJECT_TYPE = 'PROCEDURE'", getDataSource(), schemaName);
 	}  
 
     /**
@@ -397,7 +528,7 @@ public class OracleDatabase extends Database {
      */
     @Override
     public long getSequenceValue(String schemaName, String sequenceName) {
-        return getSQLHandler().getItemAsLong("select LAST_NUMBER from ALL_SEQUENCES where SEQUENCE_NAME = '" + sequenceName + "' and SEQUENCE_OWNER = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemAsLong("select LAST_NUMBER from ALL_SEQUENCES where SEQUENCE_NAME = ? and SEQUENCE_OWNER = ?", getDataSource(), sequenceName, schemaName);
     }
 
     /**
@@ -408,30 +539,49 @@ public class OracleDatabase extends Database {
      */
     @Override
     public void incrementSequenceToValue(String schemaName, String sequenceName, long newSequenceValue) {
-        Connection connection = null;
-        ResultSet resultSet = null;
-        PreparedStatement statement = null;
-        try {
-            connection = getDataSource().getConnection();
-            statement = connection.prepareStatement("select LAST_NUMBER, INCREMENT_BY from ALL_SEQUENCES where SEQUENCE_NAME = ? and SEQUENCE_OWNER = ?");
-            statement.setString(1, sequenceName);
-            statement.setString(2, schemaName);
+        incrementSequencesToValue(schemaName, Collections.singleton(sequenceName), newSequenceValue);
+    }
 
-            resultSet = statement.executeQuery();
-            while (resultSet.next()) {
-                long lastNumber = resultSet.getLong("LAST_NUMBER");
-                long incrementBy = resultSet.getLong("INCREMENT_BY");
-                // change the increment
-                getSQLHandler().execute("alter sequence " + qualified(schemaName, sequenceName) + " increment by " + (newSequenceValue - lastNumber), getDataSource());
-                // select the increment
-                getSQLHandler().execute("select " + qualified(schemaName, sequenceName) + ".NEXTVAL from DUAL", getDataSource());
-                // set back old increment
-                getSQLHandler().execute("alter sequence " + qualified(schemaName, sequenceName) + " increment by " + incrementBy, getDataSource());
+    /**
+     * Returns the values of all sequences of the given schema using a single query.
+     *
+     * @param schemaName The schema, not null
+     * @return The values per sequence name, not null
+     */
+    @Override
+    public Map<String, Long> getSequenceValues(String schemaName) {
+        return getValuesPerName("select SEQUENCE_NAME, LAST_NUMBER from ALL_SEQUENCES where SEQUENCE_OWNER = ?", schemaName);
+    }
+
+    /**
+     * Sets the next value of all given sequences using a single PL/SQL block. Oracle does not support restarting a
+     * sequence, so the increment of each sequence is temporarily changed to reach the new value with a single
+     * next value call.
+     *
+     * @param schemaName       The schema, not null
+     * @param sequenceNames    The sequences, not null
+     * @param newSequenceValue The value to set
+     */
+    @Override
+    public void incrementSequencesToValue(String schemaName, Set<String> sequenceNames, long newSequenceValue) {
+        Map<String, List<String[]>> sequenceInfos = getRowsPerTable("select SEQUENCE_NAME, LAST_NUMBER, INCREMENT_BY from ALL_SEQUENCES where SEQUENCE_OWNER = ?", schemaName);
+
+        StringBuilder block = new StringBuilder();
+        for (String sequenceName : sequenceNames) {
+            List<String[]> sequenceInfo = sequenceInfos.get(sequenceName);
+            if (sequenceInfo == null) {
+                continue;
             }
-        } catch (SQLException e) {
-            throw new DatabaseException("Unable to increment sequence to value " + newSequenceValue + " for schema name: " + schemaName + ", sequence name: " + sequenceName, e);
-        } finally {
-            closeQuietly(connection, statement, resultSet);
+            long lastNumber = Long.parseLong(sequenceInfo.get(0)[0]);
+            long incrementBy = Long.parseLong(sequenceInfo.get(0)[1]);
+            String qualifiedSequenceName = qualified(schemaName, sequenceName);
+            // change the increment, select the increment and set back old increment
+            block.append("execute immediate 'alter sequence ").append(qualifiedSequenceName).append(" increment by ").append(newSequenceValue - lastNumber).append("'; ");
+            block.append("execute immediate 'select ").append(qualifiedSequenceName).append(".NEXTVAL from DUAL' into next_value; ");
+            block.append("execute immediate 'alter sequence ").append(qualifiedSequenceName).append(" increment by ").append(incrementBy).append("'; ");
+        }
+        if (block.length() > 0) {
+            getSQLHandler().execute("declare next_value number; begin " + block + "end;", getDataSource());
         }
     }
 
@@ -468,6 +618,16 @@ public class OracleDatabase extends Database {
     }
 
 
+    /**
+     * Retrieving item dependencies is supported
+     *
+     * @return True
+     */
+    @Override
+    public boolean supportsDbItemDependencies() {
+        return true;
+    }
+
     /**
      * Synonyms are supported
      *
@@ -15,14 +15,32 @@
  */
 package org.dbmaintain.database.impl;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.dbmaintain.database.Database;
 import org.dbmaintain.database.DatabaseConnection;
+import org.dbmaintain.database.DatabaseException;
 import org.dbmaintain.database.IdentifierProcessor;
 import org.dbmaintain.database.SQLHandler;
-
+import org.dbmaintain.structure.model.DbItemType;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import static org.apache.commons.dbutils.DbUtils.closeQuietly;
+import static org.dbmaintain.structure.model.DbItemType.SEQUENCE;
+import static org.dbmaintain.structure.model.DbItemType.TABLE;
+import static org.dbmaintain.structure.model.DbItemType.TYPE;
+import static org.dbmaintain.structure.model.DbItemType.VIEW;
+
 /**
  * Implementation of {@link org.dbmaintain.database.Database} for a PostgreSql database.
  *
@@ -32,6 +50,11 @@ import java.util.Set;
  */
 public class PostgreSqlDatabase extends Database {
 
+    /* The logger instance for this class */
+    private static Log logger = LogFactory.getLog(PostgreSqlDatabase.class);
+
+    /* The major version of the PostgreSql database server, null if not yet retrieved */
+    private Integer postgreSqlMajorVersionNumber;
 
     public PostgreSqlDatabase(DatabaseConnection databaseConnection, IdentifierProcessor identifierProcessor) {
         super(databaseConnection, identifierProcessor);
@@ -54,7 +77,36 @@ public class PostgreSqlDatabase extends Database {
      */
     @Override
     public Set<String> getTableNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select table_name from information_schema.tables where table_type = 'BASE TABLE' and table_schema = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select table_name from information_schema.tables where table_type = 'BASE TABLE' and table_schema = ?", getDataSource(), schemaName);
+    }
+
+    /**
+     * Gets the foreign key relations between the tables of the given schema.
+     *
+     * @param schemaName The schema, not null
+     * @return For each table that is referenced by a foreign key, the names of the tables that reference it, not null
+     */
+    @Override
+    public Map<String, Set<String>> getReferencingTableNames(String schemaName) {
+        return getReferencingTableNames("select c.relname TABLE_NAME, r.relname REFERENCED_TABLE_NAME from pg_constraint con " +
+                "join pg_class c on c.oid = con.conrelid join pg_namespace n on n.oid = c.relnamespace " +
+                "join pg_class r on r.oid = con.confrelid join pg_namespace rn on rn.oid = r.relnamespace " +
+                "where con.contype = 'f' and n.nspname = ? and rn.nspname = ?", schemaName, schemaName, schemaName);
+    }
+
+    /**
+     * Loads the names of all tables, views, sequences and types of the schema using a single query.
+     *
+     * @param schemaName The schema, not null
+     * @return The names of the items per type, not null
+     */
+    @Override
+    protected Map<DbItemType, Set<String>> loadCatalogSnapshot(String schemaName) {
+        return loadCatalogSnapshot(EnumSet.of(TABLE, VIEW, SEQUENCE, TYPE),
+                "select case table_type when 'VIEW' then 'VIEW' else 'TABLE' end ITEM_TYPE, table_name ITEM_NAME from information_schema.tables where table_type in ('BASE TABLE', 'VIEW') and table_schema = ? " +
+                "union all select 'SEQUENCE', c.relname from pg_class c join pg_namespace n on (c.relnamespace = n.oid) where c.relkind = 'S' and n.nspname = ? " +
+                "union all select 'TYPE', object_name from information_schema.data_type_privileges where object_type = 'USER-DEFINED TYPE' and object_schema = ?",
+                schemaName, schemaName, schemaName);
     }
 
     /**
@@ -65,7 +117,7 @@ public class PostgreSqlDatabase extends Database {
      */
     @Override
     public Set<String> getColumnNames(String schemaName, String tableName) {
-        return getSQLHandler().getItemsAsStringSet("select column_name from information_schema.columns where table_name = '" + tableName + "' and table_schema = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select column_name from information_schema.columns where table_name = ? and table_schema = ?", getDataSource(), tableName, schemaName);
     }
 
     /**
@@ -75,7 +127,7 @@ public class PostgreSqlDatabase extends Database {
      */
     @Override
     public Set<String> getViewNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select table_name from information_schema.tables where table_type = 'VIEW' and table_schema = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select table_name from information_schema.tables where table_type = 'VIEW' and table_schema = ?", getDataSource(), schemaName);
     }
 
     /**
@@ -89,7 +141,7 @@ public class PostgreSqlDatabase extends Database {
         // http://sourceforge.net/forum/forum.php?thread_id=1708520&forum_id=570578
         // Should be replaced by the original query on information_schema.sequences in future, since this is a more elegant solution
         // This is the original query: getItemsAsStringSet("select sequence_name from information_schema.sequences where sequence_schema = '" + schemaName + "'", getDataSource());
-        return getSQLHandler().getItemsAsStringSet("select c.relname from pg_class c join pg_namespace n on (c.relnamespace = n.oid) where c.relkind = 'S' and n.nspname = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select c.relname from pg_class c join pg_namespace n on (c.relnamespace = n.oid) where c.relkind = 'S' and n.nspname = ?", getDataSource(), schemaName);
     }
 
     /**
@@ -107,7 +159,7 @@ public class PostgreSqlDatabase extends Database {
     public Set<String> getTriggerNames(String schemaName) {
         Set<String> result = new HashSet<>();
 
-        Set<String> triggerAndTableNames = getSQLHandler().getItemsAsStringSet("select trigger_name || ',' || event_object_table from information_schema.triggers where trigger_schema = '" + schemaName + "'", getDataSource());
+        Set<String> triggerAndTableNames = getSQLHandler().getItemsAsStringSet("select trigger_name || ',' || event_object_table from information_schema.triggers where trigger_schema = ?", getDataSource(), schemaName);
         for (String triggerAndTableName : triggerAndTableNames) {
             String[] parts = triggerAndTableName.split(",");
             String triggerName = quoted(parts[0]);
@@ -154,7 +206,7 @@ public class PostgreSqlDatabase extends Database {
      */
     @Override
     public Set<String> getTypeNames(String schemaName) {
-        return getSQLHandler().getItemsAsStringSet("select object_name from information_schema.data_type_privileges where object_type = 'USER-DEFINED TYPE' and object_schema = '" + schemaName + "'", getDataSource());
+        return getSQLHandler().getItemsAsStringSet("select object_name from information_schema.data_type_privileges where object_type = 'USER-DEFINED TYPE' and object_schema = ?", getDataSource(), schemaName);
     }
 
 
@@ -165,20 +217,10 @@ public class PostgreSqlDatabase extends Database {
      */
     @Override
     public void disableReferentialConstraints(String schemaName) {
-        Set<String> tableNames = getTableNames(schemaName);
-        for (String tableName : tableNames) {
-            disableReferentialConstraints(schemaName, tableName);
-        }
-    }
-
-    // todo refactor (see oracle)
-
-    protected void disableReferentialConstraints(String schemaName, String tableName) {
-        SQLHandler sqlHandler = getSQLHandler();
-        Set<String> constraintNames = sqlHandler.getItemsAsStringSet("select constraint_name from information_schema.table_constraints con where con.table_name = '" + tableName + "' and constraint_type = 'FOREIGN KEY' and constraint_schema = '" + schemaName + "'", getDataSource());
-        for (String constraintName : constraintNames) {
-            sqlHandler.execute("alter table " + qualified(schemaName, tableName) + " drop constraint " + quoted(constraintName), getDataSource());
-        }
+        Map<String, List<String>> alterClausesPerTable = new HashMap<>();
+        addAlterClauses(alterClausesPerTable, getRowsPerTable("select table_name, constraint_name from information_schema.table_constraints where constraint_type = 'FOREIGN KEY' and constraint_schema = ?", schemaName),
+                row -> "drop constraint " + quoted(row[0]));
+        alterTablesInBatch(schemaName, alterClausesPerTable);
     }
 
     /**
@@ -188,36 +230,17 @@ public class PostgreSqlDatabase extends Database {
      */
     @Override
     public void disableValueConstraints(String schemaName) {
-        Set<String> tableNames = getTableNames(schemaName);
-        for (String tableName : tableNames) {
-            disableValueConstraints(schemaName, tableName);
-        }
-    }
-
-    // todo refactor (see oracle)
-
-    protected void disableValueConstraints(String schemaName, String tableName) {
-        SQLHandler sqlHandler = getSQLHandler();
-
+        Map<String, List<String>> alterClausesPerTable = new HashMap<>();
         // disable all check and unique constraints
-        // The join wiht pg_constraints is used to filter out not null check-constraints that are implicitly created by Postgresql
-        Set<String> constraintNames = sqlHandler.getItemsAsStringSet("select constraint_name from information_schema.table_constraints con, pg_constraint pg_con where pg_con.conname = con.constraint_name and con.table_name = '" + tableName + "' and constraint_type in ('CHECK', 'UNIQUE') and constraint_schema = '" + schemaName + "'", getDataSource());
-        for (String constraintName : constraintNames) {
-            sqlHandler.execute("alter table " + qualified(schemaName, tableName) + " drop constraint " + quoted(constraintName), getDataSource());
-        }
-
-        // retrieve the name of the primary key, since we cannot remove the not-null constraint on this column
-        Set<String> primaryKeyColumnNames = sqlHandler.getItemsAsStringSet("select column_name from information_schema.table_constraints con, information_schema.key_column_usage key where con.table_name = '" + tableName + "' and con.table_schema = '" + schemaName + "' and key.table_name = con.table_name and key.table_schema = con.table_schema and key.constraint_name = con.constraint_name and con.constraint_type = 'PRIMARY KEY'", getDataSource());
-
-        // disable all not null constraints
-        Set<String> notNullColumnNames = sqlHandler.getItemsAsStringSet("select column_name from information_schema.columns where is_nullable = 'NO' and table_name = '" + tableName + "' and table_schema = '" + schemaName + "'", getDataSource());
-        for (String notNullColumnName : notNullColumnNames) {
-            if (primaryKeyColumnNames.contains(notNullColumnName)) {
-                // Do not remove PK constraints
-                continue;
-            }
-            sqlHandler.execute("alter table " + qualified(schemaName, tableName) + " alter column " + notNullColumnName + " drop not null", getDataSource());
-        }
+        // The join with pg_constraints is used to filter out not null check-constraints that are implicitly created by Postgresql
+        addAlterClauses(alterClausesPerTable, getRowsPerTable("select distinct con.table_name, con.constraint_name from information_schema.table_constraints con, pg_constraint pg_con where pg_con.conname = con.constraint_name and constraint_type in ('CHECK', 'UNIQUE') and constraint_schema = ?", schemaName),
+                row -> "drop constraint " + quoted(row[0]));
+        // disable all not null constraints, except for the primary key columns
+        addAlterClauses(alterClausesPerTable, getRowsPerTable("select c.table_name, c.column_name from information_schema.columns c join information_schema.tables t on t.table_schema = c.table_schema and t.table_name = c.table_name " +
+                        "where t.table_type = 'BASE TABLE' and c.is_nullable = 'NO' and c.table_schema = ? and not exists (select 1 from information_schema.table_constraints con, information_schema.key_column_usage key " +
+                        "where con.table_name = c.table_name and con.table_schema = c.table_schema and key.table_name = con.table_name and key.table_schema = con.table_schema and key.constraint_name = con.constraint_name and con.constraint_type = 'PRIMARY KEY' and key.column_name = c.column_name)", schemaName),
+                row -> "alter column " + quoted(row[0]) + " drop not null");
+        alterTablesInBatch(schemaName, alterClausesPerTable);
     }
 
 
@@ -244,6 +267,107 @@ public class PostgreSqlDatabase extends Database {
         getSQLHandler().getItemAsLong("select setval('" + qualified(schemaName, sequenceName) + "', " + newSequenceValue + ")", getDataSource());
     }
 
+    /**
+     * Returns the values of all sequences of the given schema using a single query on the pg_sequences view.
+     * <p>
+     * The pg_sequences view requires PostgreSql 10 or higher. For older versions, or if the view cannot be queried,
+     * the value of each sequence is retrieved separately. The view has no last value for a sequence that was not yet
+     * used or on which the user has no privileges, the value of these sequences is also retrieved separately.
+     *
+     * @param schemaName The schema, not null
+     * @return The values per sequence name, not null
+     */
+    @Override
+    public Map<String, Long> getSequenceValues(String schemaName) {
+        if (getPostgreSqlMajorVersionNumber() < 10) {
+            return super.getSequenceValues(schemaName);
+        }
+        Map<String, List<String[]>> lastValuesPerSequence;
+        try {
+            lastValuesPerSequence = getRowsPerTable("select sequencename, last_value from pg_sequences where schemaname = ?", schemaName);
+        } catch (DatabaseException e) {
+            logger.warn("Unable to retrieve the sequence values from pg_sequences, retrieving the value of each sequence separately.", e);
+            return super.getSequenceValues(schemaName);
+        }
+        Map<String, Long> sequenceValues = new HashMap<>();
+        for (Map.Entry<String, List<String[]>> entry : lastValuesPerSequence.entrySet()) {
+            String sequenceName = entry.getKey();
+            String lastValue = entry.getValue().get(0)[0];
+            sequenceValues.put(sequenceName, lastValue == null ? getSequenceValue(schemaName, sequenceName) : Long.valueOf(lastValue));
+        }
+        return sequenceValues;
+    }
+
+    /**
+     * Sets the next value of all given sequences using a single anonymous code block.
+     *
+     * @param schemaName       The schema, not null
+     * @param sequenceNames    The sequences, not null
+     * @param newSequenceValue The value to set
+     */
+    @Override
+    public void incrementSequencesToValue(String schemaName, Set<String> sequenceNames, long newSequenceValue) {
+        if (sequenceNames.isEmpty()) {
+            return;
+        }
+        StringBuilder block = new StringBuilder("do $$ begin ");
+        for (String sequenceName : sequenceNames) {
+            block.append("perform setval('").append(qualified(schemaName, sequenceName)).append("', ").append(newSequenceValue).append("); ");
+        }
+        block.append("end $$");
+        getSQLHandler().execute(block.toString(), getDataSource());
+    }
+
+
+    /**
+     * Truncates all given tables using a single truncate statement. Foreign keys between the truncated tables then do
+     * not prevent the tables from being truncated. If this fails, e.g. because one of the tables is referenced by a
+     * table that is not truncated, the tables are truncated one by one.
+     *
+     * @param schemaName The schema, not null
+     * @param tableNames The tables to truncate (case-sensitive), not null
+     * @return The tables that could not be truncated, not null
+     */
+    @Override
+    public List<String> truncateTables(String schemaName, List<String> tableNames) {
+        if (tableNames.isEmpty()) {
+            return new ArrayList<>();
+        }
+        StringBuilder qualifiedTableNames = new StringBuilder();
+        for (String tableName : tableNames) {
+            if (qualifiedTableNames.length() > 0) {
+                qualifiedTableNames.append(", ");
+            }
+            qualifiedTableNames.append(qualified(schemaName, tableName));
+        }
+        try {
+            getSQLHandler().execute("truncate table " + qualifiedTableNames, getDataSource());
+            return new ArrayList<>();
+        } catch (DatabaseException e) {
+            return super.truncateTables(schemaName, tableNames);
+        }
+    }
+
+    /**
+     * Drops the schema using drop schema cascade and creates it again with the same owner. The privileges that were
+     * granted on the schema are granted again.
+     *
+     * @param schemaName The schema, not null
+     */
+    @Override
+    public void recreateSchema(String schemaName) {
+        SQLHandler sqlHandler = getSQLHandler();
+        String owner = sqlHandler.getItemAsString("select quote_ident(pg_get_userbyid(nspowner)) from pg_namespace where nspname = ?", getDataSource(), schemaName);
+        Set<String> grantStatements = sqlHandler.getItemsAsStringSet("select 'grant ' || a.privilege_type || ' on schema ' || quote_ident(n.nspname) || ' to ' || " +
+                "case when a.grantee = 0 then 'public' else quote_ident(pg_get_userbyid(a.grantee)) end || case when a.is_grantable then ' with grant option' else '' end " +
+                "from pg_namespace n, aclexplode(n.nspacl) a where n.nspname = ? and a.grantee <> n.nspowner", getDataSource(), schemaName);
+
+        sqlHandler.execute("drop schema " + quoted(schemaName) + " cascade", getDataSource());
+        sqlHandler.execute("create schema " + quoted(schemaName) + " authorization " + owner, getDataSource());
+        for (String grantStatement : grantStatements) {
+            sqlHandler.execute(grantStatement, getDataSource());
+        }
+    }
 
     /**
      * Sets the current schema of the database. If a current schema is set, it does not need to be specified
@@ -285,6 +409,26 @@ public class PostgreSqlDatabase extends Database {
         return true;
     }
 
+    /**
+     * DDL statements are transactional.
+     *
+     * @return True
+     */
+    @Override
+    public boolean supportsTransactionalDdl() {
+        return true;
+    }
+
+    /**
+     * Recreating schemas is supported.
+     *
+     * @return True
+     */
+    @Override
+    public boolean supportsRecreateSchema() {
+        return true;
+    }
+
     /**
      * Cascade are supported.
      *
@@ -304,4 +448,24 @@ public class PostgreSqlDatabase extends Database {
     public boolean supportsSetDatabaseDefaultSchema() {
         return true;
     }
+
+
+    /**
+     * @return The major version number of the PostgreSql database server that is used (e.g. for PostgreSql version 9.6.2, 9 is returned)
+     */
+    protected Integer getPostgreSqlMajorVersionNumber() {
+        if (postgreSqlMajorVersionNumber == null) {
+            Connection connection = null;
+            try {
+                connection = getDataSource().getConnection();
+                DatabaseMetaData metaData = connection.getMetaData();
+                postgreSqlMajorVersionNumber = metaData.getDatabaseMajorVersion();
+            } catch (SQLException e) {
+                throw new DatabaseException("Unable to determine database major version", e);
+            } finally {
+                closeQuietly(connection);
+            }
+        }
+        return postgreSqlMajorVersionNumber;
+    }
 }
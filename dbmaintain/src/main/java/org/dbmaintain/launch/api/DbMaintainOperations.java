@@ -19,12 +19,15 @@ import org.dbmaintain.DbMaintainer;
 import org.dbmaintain.MainFactory;
 import org.dbmaintain.config.DbMaintainConfigurationLoader;
 import org.dbmaintain.script.archive.ScriptArchiveCreator;
+import org.dbmaintain.script.executedscriptinfo.ScriptIndexes;
+import org.dbmaintain.script.squash.ScriptSquasher;
 import org.dbmaintain.structure.clean.DBCleaner;
 import org.dbmaintain.structure.clear.DBClearer;
 import org.dbmaintain.structure.constraint.ConstraintsDisabler;
 import org.dbmaintain.structure.sequence.SequenceUpdater;
 import org.dbmaintain.util.DbMaintainException;
 
+import java.io.File;
 import java.net.URL;
 import java.util.Properties;
 
@@ -57,6 +60,38 @@ public class DbMaintainOperations {
         dbMaintainer.updateDatabase(false);
     }
 
+    /**
+     * Writes the updates that {@link #updateDatabase} would perform to a plan file, without executing any script.
+     *
+     * @param planFileName The name of the plan file to create
+     */
+    public static void planUpdate(String planFileName) {
+        DbMaintainer dbMaintainer = getMainFactory().createDbMaintainer();
+        dbMaintainer.planUpdate(new File(planFileName));
+    }
+
+    /**
+     * Performs the updates of a plan file that was created using {@link #planUpdate}.
+     *
+     * @param planFileName The name of the plan file
+     */
+    public static void applyPlan(String planFileName) {
+        DbMaintainer dbMaintainer = getMainFactory().createDbMaintainer();
+        dbMaintainer.applyPlan(new File(planFileName));
+    }
+
+    /**
+     * Executes all incremental scripts with a revision lower than the given revision on the configured database and
+     * writes the resulting database structure and data to one consolidated script. The database is cleared first.
+     *
+     * @param revision               The revision up to which the scripts are squashed (exclusive)
+     * @param squashedScriptFileName The name of the consolidated script file to create
+     */
+    public static void squashScripts(String revision, String squashedScriptFileName) {
+        ScriptSquasher scriptSquasher = getMainFactory().createScriptSquasher();
+        scriptSquasher.squashScripts(new ScriptIndexes(revision), new File(squashedScriptFileName));
+    }
+
     /**
      * Marks the database as up-to-date, without executing any script. You can use this operation to prepare
      * an existing database to be managed by DbMaintain, or after having manually fixed a problem.
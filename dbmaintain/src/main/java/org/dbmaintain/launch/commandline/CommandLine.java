@@ -20,12 +20,20 @@ import org.apache.commons.logging.LogFactory;
 import org.dbmaintain.MainFactory;
 import org.dbmaintain.config.DbMaintainConfigurationLoader;
 import org.dbmaintain.config.DbMaintainProperties;
+import org.dbmaintain.config.PropertyUtils;
+import org.dbmaintain.launch.daemon.DbMaintainDaemon;
+import org.dbmaintain.launch.daemon.DbMaintainDaemonClient;
+import org.dbmaintain.script.executedscriptinfo.ScriptIndexes;
+import org.dbmaintain.script.repository.ScriptRepositoryCache;
 import org.dbmaintain.util.DbMaintainException;
 import org.dbmaintain.util.FileUtils;
 
 import java.io.File;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.function.Function;
 
 /**
  * Class that exposes a set of DbMaintain operations for command line execution.
@@ -45,21 +53,33 @@ public class CommandLine {
      */
     public enum DbMaintainOperation {
 
-        CREATE_SCRIPT_ARCHIVE("createScriptArchive"),
+        CREATE_SCRIPT_ARCHIVE("createScriptArchive", true),
         CHECK_SCRIPT_UPDATES("checkScriptUpdates"),
         UPDATE_DATABASE("updateDatabase"),
+        PLAN_UPDATE("planUpdate", true),
+        APPLY_PLAN("applyPlan", true),
+        SQUASH_SCRIPTS("squashScripts", true),
         MARK_ERROR_SCRIPT_PERFORMED("markErrorScriptPerformed"),
         MARK_ERROR_SCRIPT_REVERTED("markErrorScriptReverted"),
         MARK_DATABASE_AS_UPTODATE("markDatabaseAsUpToDate"),
         CLEAR_DATABASE("clearDatabase"),
         CLEAN_DATABASE("cleanDatabase"),
         DISABLE_CONSTRAINTS("disableConstraints"),
-        UPDATE_SEQUENCES("updateSequences");
+        UPDATE_SEQUENCES("updateSequences"),
+        RUN("run"),
+        START_DAEMON("startDaemon"),
+        STOP_DAEMON(DbMaintainDaemon.STOP_REQUEST);
 
         private String operationName;
+        private boolean extraArgumentRequired;
 
         DbMaintainOperation(String operationName) {
+            this(operationName, false);
+        }
+
+        DbMaintainOperation(String operationName, boolean extraArgumentRequired) {
             this.operationName = operationName;
+            this.extraArgumentRequired = extraArgumentRequired;
         }
 
         /**
@@ -69,6 +89,13 @@ public class CommandLine {
             return operationName;
         }
 
+        /**
+         * @return True if the operation cannot be invoked without an extra command line argument
+         */
+        public boolean isExtraArgumentRequired() {
+            return extraArgumentRequired;
+        }
+
         /**
          * @param operationName The name of the operation, that can be used as first command line argument to invoke an operation
          * @return The operation identified by the given operation name
@@ -94,8 +121,12 @@ public class CommandLine {
     public static void main(String[] args) {
         try {
             CommandLineArguments commandLineArguments = parseCommandLineArguments(args);
-            Properties configuration = loadConfiguration(commandLineArguments);
             DbMaintainOperation operation = getDbMaintainOperation(commandLineArguments);
+            if (commandLineArguments.getDaemonPort() != null && operation != DbMaintainOperation.START_DAEMON) {
+                executeOperationUsingDaemon(operation, commandLineArguments);
+                return;
+            }
+            Properties configuration = loadConfiguration(commandLineArguments);
 
             executeOperation(operation, configuration, commandLineArguments);
         } catch (Exception e) {
@@ -104,6 +135,32 @@ public class CommandLine {
         }
     }
 
+    /**
+     * Lets the daemon that is listening on the port of the -daemon option execute the operation. File names are made
+     * absolute, since the daemon can have another working directory.
+     *
+     * @param operation            The operation that must be executed
+     * @param commandLineArguments The command line arguments
+     */
+    protected static void executeOperationUsingDaemon(DbMaintainOperation operation, CommandLineArguments commandLineArguments) {
+        String configFileName = commandLineArguments.getConfigFile();
+        if (configFileName == null && new File(DBMAINTAIN_PROPERTIES).exists()) {
+            configFileName = DBMAINTAIN_PROPERTIES;
+        }
+        List<String> arguments = new ArrayList<>();
+        arguments.add(operation.getOperationName());
+        if (commandLineArguments.getFirstExtraArgument() != null) {
+            // the first argument of run is the list of operations
+            arguments.add(operation == DbMaintainOperation.RUN ? commandLineArguments.getFirstExtraArgument() : new File(commandLineArguments.getFirstExtraArgument()).getAbsolutePath());
+        }
+        if (commandLineArguments.getSecondExtraArgument() != null) {
+            // the second argument of squashScripts is a revision
+            arguments.add(operation == DbMaintainOperation.SQUASH_SCRIPTS ? commandLineArguments.getSecondExtraArgument() : new File(commandLineArguments.getSecondExtraArgument()).getAbsolutePath());
+        }
+        DbMaintainDaemonClient dbMaintainDaemonClient = new DbMaintainDaemonClient(commandLineArguments.getDaemonPort());
+        dbMaintainDaemonClient.executeOperation(configFileName == null ? null : new File(configFileName).getAbsolutePath(), arguments);
+    }
+
     /**
      * Parses the command line arguments and gives back a {@link CommandLineArguments} instance that represents
      * these arguments in a more convenient way.
@@ -172,57 +229,159 @@ public class CommandLine {
      * @param commandLineArguments The command line arguments
      */
     public static void executeOperation(DbMaintainOperation operation, Properties configuration, CommandLineArguments commandLineArguments) {
+        executeOperation(operation, configuration, commandLineArguments, CommandLine::getMainFactory);
+    }
+
+    /**
+     * Executes the given operation using the given configuration. The components are created by the main factory
+     * that is provided for the configuration, so that a main factory can be reused between operations.
+     *
+     * @param operation            The operation that must be executed
+     * @param configuration        The dbMaintain configuration
+     * @param commandLineArguments The command line arguments
+     * @param mainFactoryProvider  Provides the main factory for a configuration
+     */
+    public static void executeOperation(DbMaintainOperation operation, Properties configuration, CommandLineArguments commandLineArguments,
+                                        Function<Properties, MainFactory> mainFactoryProvider) {
         switch (operation) {
             case CREATE_SCRIPT_ARCHIVE:
                 if (commandLineArguments.getFirstExtraArgument() == null) {
-                    System.err.println("Archive file name must be specified as extra argument");
-                    System.exit(1);
+                    throw new DbMaintainException("Archive file name must be specified as extra argument");
                 }
                 if (commandLineArguments.getSecondExtraArgument() != null) {
                     configuration.put(DbMaintainProperties.PROPERTY_SCRIPT_LOCATIONS, commandLineArguments.getSecondExtraArgument());
                 }
                 String jarFileName = commandLineArguments.getFirstExtraArgument();
-                getMainFactory(configuration).createScriptArchiveCreator().createScriptArchive(jarFileName);
+                mainFactoryProvider.apply(configuration).createScriptArchiveCreator().createScriptArchive(jarFileName);
                 break;
             case CHECK_SCRIPT_UPDATES:
                 if (commandLineArguments.getFirstExtraArgument() != null) {
                     configuration.put(DbMaintainProperties.PROPERTY_SCRIPT_LOCATIONS, commandLineArguments.getFirstExtraArgument());
                 }
-                getMainFactory(configuration).createDbMaintainer().updateDatabase(true);
+                mainFactoryProvider.apply(configuration).createDbMaintainer().updateDatabase(true);
                 break;
             case UPDATE_DATABASE:
                 if (commandLineArguments.getFirstExtraArgument() != null) {
                     configuration.put(DbMaintainProperties.PROPERTY_SCRIPT_LOCATIONS, commandLineArguments.getFirstExtraArgument());
                 }
-                getMainFactory(configuration).createDbMaintainer().updateDatabase(false);
+                mainFactoryProvider.apply(configuration).createDbMaintainer().updateDatabase(false);
+                break;
+            case PLAN_UPDATE:
+                if (commandLineArguments.getFirstExtraArgument() == null) {
+                    throw new DbMaintainException("Plan file name must be specified as extra argument");
+                }
+                if (commandLineArguments.getSecondExtraArgument() != null) {
+                    configuration.put(DbMaintainProperties.PROPERTY_SCRIPT_LOCATIONS, commandLineArguments.getSecondExtraArgument());
+                }
+                mainFactoryProvider.apply(configuration).createDbMaintainer().planUpdate(new File(commandLineArguments.getFirstExtraArgument()));
+                break;
+            case APPLY_PLAN:
+                if (commandLineArguments.getFirstExtraArgument() == null) {
+                    throw new DbMaintainException("Plan file name must be specified as extra argument");
+                }
+                if (commandLineArguments.getSecondExtraArgument() != null) {
+                    configuration.put(DbMaintainProperties.PROPERTY_SCRIPT_LOCATIONS, commandLineArguments.getSecondExtraArgument());
+                }
+                mainFactoryProvider.apply(configuration).createDbMaintainer().applyPlan(new File(commandLineArguments.getFirstExtraArgument()));
+                break;
+            case SQUASH_SCRIPTS:
+                if (commandLineArguments.getFirstExtraArgument() == null) {
+                    throw new DbMaintainException("Squashed script file name must be specified as extra argument");
+                }
+                String revision = commandLineArguments.getSecondExtraArgument();
+                if (revision == null) {
+                    revision = PropertyUtils.getString(DbMaintainProperties.PROPERTY_BASELINE_REVISION, null, configuration);
+                }
+                if (revision == null) {
+                    throw new DbMaintainException("Revision must be specified as extra argument or using the property " + DbMaintainProperties.PROPERTY_BASELINE_REVISION);
+                }
+                mainFactoryProvider.apply(configuration).createScriptSquasher().squashScripts(new ScriptIndexes(revision), new File(commandLineArguments.getFirstExtraArgument()));
                 break;
             case MARK_DATABASE_AS_UPTODATE:
                 if (commandLineArguments.getFirstExtraArgument() != null) {
                     configuration.put(DbMaintainProperties.PROPERTY_SCRIPT_LOCATIONS, commandLineArguments.getFirstExtraArgument());
                 }
-                getMainFactory(configuration).createDbMaintainer().markDatabaseAsUpToDate();
+                mainFactoryProvider.apply(configuration).createDbMaintainer().markDatabaseAsUpToDate();
                 break;
             case MARK_ERROR_SCRIPT_PERFORMED:
-                getMainFactory(configuration).createExecutedScriptInfoSource().markErrorScriptsAsSuccessful();
+                mainFactoryProvider.apply(configuration).createExecutedScriptInfoSource().markErrorScriptsAsSuccessful();
                 break;
             case MARK_ERROR_SCRIPT_REVERTED:
-                getMainFactory(configuration).createExecutedScriptInfoSource().removeErrorScripts();
+                mainFactoryProvider.apply(configuration).createExecutedScriptInfoSource().removeErrorScripts();
                 break;
             case CLEAR_DATABASE:
-                getMainFactory(configuration).createDBClearer().clearDatabase();
+                mainFactoryProvider.apply(configuration).createDBClearer().clearDatabase();
                 break;
             case CLEAN_DATABASE:
-                getMainFactory(configuration).createDBCleaner().cleanDatabase();
+                mainFactoryProvider.apply(configuration).createDBCleaner().cleanDatabase();
                 break;
             case DISABLE_CONSTRAINTS:
-                getMainFactory(configuration).createConstraintsDisabler().disableConstraints();
+                mainFactoryProvider.apply(configuration).createConstraintsDisabler().disableConstraints();
                 break;
             case UPDATE_SEQUENCES:
-                getMainFactory(configuration).createSequenceUpdater().updateSequences();
+                mainFactoryProvider.apply(configuration).createSequenceUpdater().updateSequences();
+                break;
+            case RUN:
+                if (commandLineArguments.getFirstExtraArgument() == null) {
+                    throw new DbMaintainException("Comma-separated list of operations must be specified as extra argument");
+                }
+                executeOperations(getBatchOperations(commandLineArguments.getFirstExtraArgument()), configuration, mainFactoryProvider.apply(configuration));
+                break;
+            case START_DAEMON:
+                int port = commandLineArguments.getFirstExtraArgument() == null ? PropertyUtils.getInt(DbMaintainProperties.PROPERTY_DAEMON_PORT, configuration)
+                        : Integer.parseInt(commandLineArguments.getFirstExtraArgument());
+                DbMaintainDaemon dbMaintainDaemon = new DbMaintainDaemon(port);
+                dbMaintainDaemon.start();
+                dbMaintainDaemon.run();
                 break;
+            case STOP_DAEMON:
+                throw new DbMaintainException("The " + DbMaintainOperation.STOP_DAEMON.getOperationName() + " operation requires the -daemon option");
+        }
+    }
+
+    /**
+     * Executes the given operations in order, sharing the given main factory. The main factory, and thereby the
+     * databases and the scanned scripts, are reused by all operations. The database connections are closed after
+     * each operation.
+     *
+     * @param operations    The operations to execute, not null
+     * @param configuration The dbMaintain configuration
+     * @param mainFactory   The main factory for the configuration, not null
+     */
+    protected static void executeOperations(List<DbMaintainOperation> operations, Properties configuration, MainFactory mainFactory) {
+        if (mainFactory.getScriptRepositoryCache() == null) {
+            mainFactory.setScriptRepositoryCache(new ScriptRepositoryCache());
+        }
+        for (DbMaintainOperation operation : operations) {
+            logger.info("Executing operation " + operation.getOperationName());
+            CommandLineArguments operationArguments = new CommandLineArguments(new String[]{operation.getOperationName()});
+            try {
+                executeOperation(operation, configuration, operationArguments, properties -> mainFactory);
+            } finally {
+                mainFactory.getSQLHandler().closeAllConnections();
+            }
         }
     }
 
+    /**
+     * @param operationNames Comma-separated list of operation names, not null
+     * @return The operations, not null
+     */
+    protected static List<DbMaintainOperation> getBatchOperations(String operationNames) {
+        List<DbMaintainOperation> operations = new ArrayList<>();
+        for (String operationName : operationNames.split(",")) {
+            DbMaintainOperation operation = DbMaintainOperation.getByOperationName(operationName.trim());
+            if (operation == null || operation == DbMaintainOperation.RUN || operation == DbMaintainOperation.START_DAEMON || operation == DbMaintainOperation.STOP_DAEMON) {
+                throw new DbMaintainException("Invalid operation " + operationName.trim() + " in list of operations " + operationNames);
+            }
+            if (operation.isExtraArgumentRequired()) {
+                throw new DbMaintainException("Operation " + operationName.trim() + " in list of operations " + operationNames + " requires an extra argument and can only be executed on its own");
+            }
+            operations.add(operation);
+        }
+        return operations;
+    }
+
     protected static MainFactory getMainFactory(Properties configuration) {
         return new MainFactory(configuration);
     }
@@ -248,9 +407,10 @@ public class CommandLine {
         System.out.println();
         System.out.println("Usage:");
         System.out.println();
-        System.out.println("java org.dbmaintain.launch.DbMaintain <operation> [extra operation arguments] [-config propertiesFile]");
+        System.out.println("java org.dbmaintain.launch.DbMaintain <operation> [extra operation arguments] [-config propertiesFile] [-daemon port]");
         System.out.println();
         System.out.println("The -config argument is optional. If omitted, the file " + DBMAINTAIN_PROPERTIES + " is expected to be available in the execution directory.");
+        System.out.println("The -daemon argument is optional. If set, the operation is executed by the daemon listening on the given local port, see " + DbMaintainOperation.START_DAEMON.getOperationName() + ".");
         System.out.println("The archive file/script folder argument is also optional, and only applicable to the operations " +
                 DbMaintainOperation.CREATE_SCRIPT_ARCHIVE.getOperationName() + ", " + DbMaintainOperation.UPDATE_DATABASE.getOperationName() + " and " + DbMaintainOperation.MARK_DATABASE_AS_UPTODATE.getOperationName());
         System.out.println();
@@ -267,6 +427,27 @@ public class CommandLine {
         System.out.println("     Optionally, an extra argument may be added indicating the scripts archive file or root folder.");
         System.out.println("     This argument overrides the value of the property " + DbMaintainProperties.PROPERTY_SCRIPT_LOCATIONS + ".");
         System.out.println();
+        System.out.println("- " + DbMaintainOperation.PLAN_UPDATE.getOperationName());
+        System.out.println("     Determines the updates that " + DbMaintainOperation.UPDATE_DATABASE.getOperationName() + " would perform and writes them to a plan file, without executing any script.");
+        System.out.println("     Expects a second argument indicating the plan file name.");
+        System.out.println("     Optionally, a third argument may be added indicating the scripts archive file or root folder.");
+        System.out.println("     This argument overrides the value of the property " + DbMaintainProperties.PROPERTY_SCRIPT_LOCATIONS + ".");
+        System.out.println();
+        System.out.println("- " + DbMaintainOperation.APPLY_PLAN.getOperationName());
+        System.out.println("     Performs the updates of a plan file created by " + DbMaintainOperation.PLAN_UPDATE.getOperationName() + ".");
+        System.out.println("     The plan is refused if the database or one of the planned scripts was changed in the meantime.");
+        System.out.println("     Expects a second argument indicating the plan file name.");
+        System.out.println("     Optionally, a third argument may be added indicating the scripts archive file or root folder.");
+        System.out.println("     This argument overrides the value of the property " + DbMaintainProperties.PROPERTY_SCRIPT_LOCATIONS + ".");
+        System.out.println();
+        System.out.println("- " + DbMaintainOperation.SQUASH_SCRIPTS.getOperationName());
+        System.out.println("     Executes all incremental scripts below a revision on the configured (scratch) database and writes");
+        System.out.println("     the resulting database structure and data to one consolidated script.");
+        System.out.println("     The database is cleared first! This script can then be configured using the property " + DbMaintainProperties.PROPERTY_BASELINE_SCRIPT + ".");
+        System.out.println("     Expects a second argument indicating the file name of the consolidated script.");
+        System.out.println("     Optionally, a third argument may be added indicating the revision up to which the scripts are squashed.");
+        System.out.println("     If omitted, the value of the property " + DbMaintainProperties.PROPERTY_BASELINE_REVISION + " is used.");
+        System.out.println();
         System.out.println("- " + DbMaintainOperation.MARK_ERROR_SCRIPT_PERFORMED.getOperationName());
         System.out.println("     Task that indicates that the failed script was manually performed.");
         System.out.println("     The script will NOT be run again in the next update.");
@@ -287,6 +468,24 @@ public class CommandLine {
         System.out.println("- " + DbMaintainOperation.CHECK_SCRIPT_UPDATES.getOperationName());
         System.out.println("     Checks if there are any script updates and prints them out, without executing any script.");
         System.out.println();
+        System.out.println("- " + DbMaintainOperation.RUN.getOperationName());
+        System.out.println("     Executes several operations in order, e.g. " + DbMaintainOperation.RUN.getOperationName() + " " + DbMaintainOperation.CLEAR_DATABASE.getOperationName() + "," + DbMaintainOperation.UPDATE_DATABASE.getOperationName() + "," + DbMaintainOperation.UPDATE_SEQUENCES.getOperationName() + ".");
+        System.out.println("     The operations share the configuration, the database connection settings and the scanned scripts.");
+        System.out.println("     Expects a second argument containing the comma-separated list of operations.");
+        System.out.println("     The operations cannot have extra arguments, so operations that require one cannot be part of the list.");
+        System.out.println();
+        System.out.println("- " + DbMaintainOperation.START_DAEMON.getOperationName());
+        System.out.println("     Starts a daemon that executes the operations that are invoked with the -daemon option.");
+        System.out.println("     The daemon keeps the configuration, the database connection settings and the scanned scripts between operations.");
+        System.out.println("     The scripts are scanned again as soon as one of the script locations changes.");
+        System.out.println("     Optionally, an extra argument may be added indicating the local port to listen on.");
+        System.out.println("     This argument overrides the value of the property " + DbMaintainProperties.PROPERTY_DAEMON_PORT + ".");
+        System.out.println("     Only the current user can use the daemon: the daemon writes a token to " + DbMaintainDaemon.getTokenFile(DbMaintainDaemon.getDefaultTokenDir(), 0).getParent() + ",");
+        System.out.println("     which can only be read by its owner and is sent along with every operation.");
+        System.out.println();
+        System.out.println("- " + DbMaintainOperation.STOP_DAEMON.getOperationName());
+        System.out.println("     Stops the daemon listening on the port of the -daemon option.");
+        System.out.println();
         System.out.println("- " + DbMaintainOperation.CLEAR_DATABASE.getOperationName());
         System.out.println("     Removes all database items, and empties the DBMAINTAIN_SCRIPTS table.");
         System.out.println();
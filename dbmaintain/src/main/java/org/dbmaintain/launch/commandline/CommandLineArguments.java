@@ -29,6 +29,7 @@ public class CommandLineArguments {
     private String dbMaintainOperation;
     private String firstExtraArgument, secondExtraArgument;
     private String configFile;
+    private Integer daemonPort;
 
     public CommandLineArguments(String[] commandLineArgs) {
         parseArguments(commandLineArgs);
@@ -36,15 +37,26 @@ public class CommandLineArguments {
 
     protected void parseArguments(String[] commandLineArgs) {
         boolean nextArgumentIsConfigFile = false;
+        boolean nextArgumentIsDaemonPort = false;
         for (String commandLineArg : commandLineArgs) {
             if (nextArgumentIsConfigFile) {
                 configFile = commandLineArg;
+                nextArgumentIsConfigFile = false;
+                continue;
+            }
+            if (nextArgumentIsDaemonPort) {
+                daemonPort = parseDaemonPort(commandLineArg);
+                nextArgumentIsDaemonPort = false;
                 continue;
             }
             if ("-config".equals(commandLineArg)) {
                 nextArgumentIsConfigFile = true;
                 continue;
             }
+            if ("-daemon".equals(commandLineArg)) {
+                nextArgumentIsDaemonPort = true;
+                continue;
+            }
             if (commandLineArg.startsWith("-")) {
                 throw new DbMaintainException("Invalid command line option " + commandLineArg);
             }
@@ -66,6 +78,14 @@ public class CommandLineArguments {
         }
     }
 
+    protected Integer parseDaemonPort(String commandLineArg) {
+        try {
+            return Integer.valueOf(commandLineArg);
+        } catch (NumberFormatException e) {
+            throw new DbMaintainException("Invalid daemon port " + commandLineArg);
+        }
+    }
+
     public String getDbMaintainOperation() {
         return dbMaintainOperation;
     }
@@ -82,4 +102,11 @@ public class CommandLineArguments {
         return configFile;
     }
 
+    /**
+     * @return The port of the daemon that should execute the operation, null to execute the operation in this process
+     */
+    public Integer getDaemonPort() {
+        return daemonPort;
+    }
+
 }
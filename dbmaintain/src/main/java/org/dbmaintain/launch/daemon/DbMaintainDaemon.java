@@ -0,0 +1,345 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.launch.daemon;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dbmaintain.MainFactory;
+import org.dbmaintain.config.DbMaintainConfigurationLoader;
+import org.dbmaintain.launch.commandline.CommandLine;
+import org.dbmaintain.launch.commandline.CommandLine.DbMaintainOperation;
+import org.dbmaintain.launch.commandline.CommandLineArguments;
+import org.dbmaintain.script.repository.ScriptRepositoryCache;
+import org.dbmaintain.util.DbMaintainException;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.dbmaintain.config.DbMaintainProperties.PROPERTY_SCRIPT_LOCATIONS;
+import static org.dbmaintain.config.PropertyUtils.getStringList;
+import static org.dbmaintain.util.FileUtils.createFileReadableByOwnerOnly;
+
+/**
+ * Long-running process that executes DbMaintain operations on behalf of the command line, see
+ * {@link DbMaintainDaemonClient}. The daemon only listens on the loopback address.
+ * <p>
+ * Only the user that started the daemon can use it. At start up, the daemon writes a random token to a file that
+ * only the owner can read, see {@link #getTokenFile}. Every request should start with a line containing this token,
+ * other requests are refused.
+ * <p>
+ * The configurations, the main factories (and thereby the databases) and the scanned scripts including their check
+ * sums are kept between operations. A configuration is loaded again when its file is modified, the scripts are
+ * scanned again when one of the script locations changes. The main factories of a configuration are released when
+ * its file is loaded again. The database connections are closed after every operation. The operations are executed
+ * one at a time.
+ * <p>
+ * Each request is one line containing the config file name followed by the command line arguments, separated by
+ * tabs. The response is one line: {@link #RESPONSE_OK} or {@link #RESPONSE_ERROR} followed by a tab and the error
+ * message.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class DbMaintainDaemon {
+
+    /* The logger instance for this class */
+    private static Log logger = LogFactory.getLog(DbMaintainDaemon.class);
+
+    public static final String RESPONSE_OK = "OK";
+    public static final String RESPONSE_ERROR = "ERROR";
+    /* Operation that stops the daemon */
+    public static final String STOP_REQUEST = "stopDaemon";
+    /* The default max time in milliseconds to wait for a client to send its request */
+    public static final int DEFAULT_SOCKET_READ_TIMEOUT = 30 * 1000;
+
+    /* The local port to listen on, 0 for any free port */
+    protected int port;
+    protected ServerSocket serverSocket;
+    /* The directory containing the token files */
+    protected File tokenDir;
+    /* The token that the clients should send */
+    protected String token;
+    /* The max time in milliseconds to wait for a client to send its request, so that a silent client cannot block the daemon */
+    protected int socketReadTimeout = DEFAULT_SOCKET_READ_TIMEOUT;
+
+    protected ScriptRepositoryCache scriptRepositoryCache = new ScriptRepositoryCache();
+    protected ScriptLocationWatcher scriptLocationWatcher;
+
+    /* The loaded configurations per config file name */
+    protected Map<String, Properties> configurations = new HashMap<>();
+    /* The last modification time of the config files when they were loaded */
+    protected Map<String, Long> configurationLastModifiedAts = new HashMap<>();
+    /* The main factories per configuration key */
+    protected Map<String, MainFactory> mainFactories = new HashMap<>();
+    /* The keys of the main factories per config file name */
+    protected Map<String, Set<String>> mainFactoryKeys = new HashMap<>();
+
+
+    /**
+     * @param port The local port to listen on, 0 for any free port
+     */
+    public DbMaintainDaemon(int port) {
+        this(port, getDefaultTokenDir());
+    }
+
+    /**
+     * @param port     The local port to listen on, 0 for any free port
+     * @param tokenDir The directory to write the token file to, not null
+     */
+    public DbMaintainDaemon(int port, File tokenDir) {
+        this.port = port;
+        this.tokenDir = tokenDir;
+    }
+
+
+    /**
+     * @return The directory containing the token files of the daemons of the current user, not null
+     */
+    public static File getDefaultTokenDir() {
+        return new File(System.getProperty("user.home"), ".dbmaintain");
+    }
+
+    /**
+     * @param tokenDir The directory containing the token files, not null
+     * @param port     The local port the daemon is listening on
+     * @return The file containing the token of the daemon listening on the given port, not null
+     */
+    public static File getTokenFile(File tokenDir, int port) {
+        return new File(tokenDir, "daemon-" + port + ".token");
+    }
+
+
+    /**
+     * Starts listening on the port and starts watching the script locations. Requests are only handled
+     * when {@link #run} is invoked.
+     */
+    public void start() {
+        try {
+            serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            throw new DbMaintainException("Unable to start daemon on port " + port, e);
+        }
+        writeTokenFile();
+        scriptLocationWatcher = new ScriptLocationWatcher(scriptRepositoryCache);
+        Thread watcherThread = new Thread(scriptLocationWatcher, "dbmaintain-script-location-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+        logger.info("DbMaintain daemon listening on port " + getPort());
+    }
+
+    /**
+     * Handles the requests until the daemon is stopped.
+     */
+    public void run() {
+        while (!serverSocket.isClosed()) {
+            try (Socket socket = serverSocket.accept()) {
+                socket.setSoTimeout(socketReadTimeout);
+                handleRequest(socket);
+            } catch (SocketException e) {
+                // the daemon was stopped
+            } catch (IOException e) {
+                logger.warn("Unable to handle request.", e);
+            }
+        }
+    }
+
+    /**
+     * Stops listening and watching the script locations. The connections of the main factories are closed.
+     */
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            logger.warn("Unable to close daemon socket.", e);
+        }
+        scriptLocationWatcher.close();
+        closeAllConnections();
+        getTokenFile(tokenDir, getPort()).delete();
+        logger.info("DbMaintain daemon stopped");
+    }
+
+    /**
+     * @return The port the daemon is listening on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+
+    protected void writeTokenFile() {
+        byte[] tokenBytes = new byte[32];
+        new SecureRandom().nextBytes(tokenBytes);
+        StringBuilder tokenBuilder = new StringBuilder();
+        for (byte b : tokenBytes) {
+            tokenBuilder.append(Integer.toString((b & 0xff) + 0x100, 16).substring(1));
+        }
+        token = tokenBuilder.toString();
+
+        File tokenFile = getTokenFile(tokenDir, getPort());
+        try {
+            Files.createDirectories(tokenDir.toPath());
+            Files.deleteIfExists(tokenFile.toPath());
+            createFileReadableByOwnerOnly(tokenFile);
+            Files.write(tokenFile.toPath(), token.getBytes(UTF_8));
+        } catch (IOException e) {
+            throw new DbMaintainException("Unable to write daemon token file " + tokenFile, e);
+        }
+    }
+
+    protected void handleRequest(Socket socket) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+        Writer writer = new OutputStreamWriter(socket.getOutputStream(), UTF_8);
+        String requestToken = reader.readLine();
+        if (requestToken == null) {
+            return;
+        }
+        if (!MessageDigest.isEqual(token.getBytes(UTF_8), requestToken.getBytes(UTF_8))) {
+            logger.warn("Refused request with an invalid token.");
+            writer.write(RESPONSE_ERROR + "\tInvalid daemon token\n");
+            writer.flush();
+            return;
+        }
+        String request = reader.readLine();
+        if (request == null) {
+            return;
+        }
+        List<String> requestParts = Arrays.asList(request.split("\t", -1));
+        String response = RESPONSE_OK;
+        try {
+            if (requestParts.size() > 1 && STOP_REQUEST.equals(requestParts.get(1))) {
+                // stop before responding, so that the token file is removed when the client returns
+                stop();
+                writer.write(response + "\n");
+                writer.flush();
+                return;
+            }
+            executeRequest(requestParts.get(0), requestParts.subList(1, requestParts.size()));
+        } catch (Exception e) {
+            logger.error("Exception was thrown", e);
+            response = RESPONSE_ERROR + "\t" + String.valueOf(e.getMessage()).replace('\n', ' ').replace('\r', ' ');
+        }
+        writer.write(response + "\n");
+        writer.flush();
+    }
+
+    /**
+     * @param configFileName The absolute name of the config file, empty to only use the default configuration
+     * @param arguments      The command line arguments, without the config file, not null
+     */
+    protected void executeRequest(String configFileName, List<String> arguments) {
+        List<String> commandLineArgs = new ArrayList<>(arguments);
+        if (!configFileName.isEmpty()) {
+            commandLineArgs.add("-config");
+            commandLineArgs.add(configFileName);
+        }
+        CommandLineArguments commandLineArguments = new CommandLineArguments(commandLineArgs.toArray(new String[0]));
+        DbMaintainOperation operation = DbMaintainOperation.getByOperationName(commandLineArguments.getDbMaintainOperation());
+        if (operation == null || operation == DbMaintainOperation.START_DAEMON) {
+            throw new DbMaintainException("Invalid operation " + commandLineArguments.getDbMaintainOperation());
+        }
+        // the operation may override properties, these should not end up in the cached configuration
+        Properties configuration = new Properties();
+        configuration.putAll(getConfiguration(configFileName));
+        logger.info("Executing operation " + operation.getOperationName());
+        Set<MainFactory> usedMainFactories = new HashSet<>();
+        try {
+            CommandLine.executeOperation(operation, configuration, commandLineArguments, operationConfiguration -> {
+                MainFactory mainFactory = getMainFactory(configFileName, operationConfiguration);
+                usedMainFactories.add(mainFactory);
+                return mainFactory;
+            });
+        } finally {
+            // connections are not kept between operations, they could be closed by the database in the meantime
+            for (MainFactory mainFactory : usedMainFactories) {
+                closeConnections(mainFactory);
+            }
+        }
+    }
+
+    protected synchronized Properties getConfiguration(String configFileName) {
+        File configFile = new File(configFileName);
+        long lastModifiedAt = configFile.lastModified();
+        Properties configuration = configurations.get(configFileName);
+        if (configuration == null || configurationLastModifiedAts.get(configFileName) != lastModifiedAt) {
+            DbMaintainConfigurationLoader configurationLoader = new DbMaintainConfigurationLoader();
+            configuration = configFileName.isEmpty() ? configurationLoader.loadConfiguration() : configurationLoader.loadConfiguration(configFile);
+            configurations.put(configFileName, configuration);
+            configurationLastModifiedAts.put(configFileName, lastModifiedAt);
+            releaseMainFactories(configFileName);
+            logger.info("Loaded configuration from file " + (configFileName.isEmpty() ? "<default>" : configFileName));
+        }
+        return configuration;
+    }
+
+    protected synchronized MainFactory getMainFactory(String configFileName, Properties configuration) {
+        String mainFactoryKey = ScriptRepositoryCache.getConfigurationKey(configuration);
+        mainFactoryKeys.computeIfAbsent(configFileName, fileName -> new HashSet<>()).add(mainFactoryKey);
+        return mainFactories.computeIfAbsent(mainFactoryKey, key -> {
+            MainFactory mainFactory = new MainFactory(configuration);
+            mainFactory.setScriptRepositoryCache(scriptRepositoryCache);
+            scriptLocationWatcher.watch(getStringList(PROPERTY_SCRIPT_LOCATIONS, configuration));
+            return mainFactory;
+        });
+    }
+
+    /**
+     * Releases the main factories that were created for the previous version of the given config file. Their
+     * connections are closed.
+     *
+     * @param configFileName The config file name, not null
+     */
+    protected synchronized void releaseMainFactories(String configFileName) {
+        Set<String> keys = mainFactoryKeys.remove(configFileName);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            MainFactory mainFactory = mainFactories.remove(key);
+            if (mainFactory != null) {
+                closeConnections(mainFactory);
+            }
+        }
+    }
+
+    protected synchronized void closeAllConnections() {
+        for (MainFactory mainFactory : mainFactories.values()) {
+            closeConnections(mainFactory);
+        }
+    }
+
+    protected void closeConnections(MainFactory mainFactory) {
+        try {
+            mainFactory.getSQLHandler().closeAllConnections();
+        } catch (RuntimeException e) {
+            logger.warn("Unable to close database connections.", e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.launch.daemon;
+
+import org.dbmaintain.util.DbMaintainException;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.dbmaintain.launch.daemon.DbMaintainDaemon.RESPONSE_OK;
+
+/**
+ * Sends an operation to a {@link DbMaintainDaemon} that is running on the local machine and waits for it to finish.
+ * The request is authenticated using the token that the daemon wrote to its token file.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class DbMaintainDaemonClient {
+
+    /* The local port the daemon is listening on */
+    protected int port;
+    /* The directory containing the token file of the daemon */
+    protected File tokenDir;
+
+
+    /**
+     * @param port The local port the daemon is listening on
+     */
+    public DbMaintainDaemonClient(int port) {
+        this(port, DbMaintainDaemon.getDefaultTokenDir());
+    }
+
+    /**
+     * @param port     The local port the daemon is listening on
+     * @param tokenDir The directory containing the token file of the daemon, not null
+     */
+    public DbMaintainDaemonClient(int port, File tokenDir) {
+        this.port = port;
+        this.tokenDir = tokenDir;
+    }
+
+
+    /**
+     * Executes an operation using the daemon. The file names in the arguments should be absolute, since the daemon
+     * can have another working directory.
+     *
+     * @param configFileName The absolute name of the config file, null to only use the default configuration
+     * @param arguments      The operation followed by its extra arguments, not null
+     * @throws DbMaintainException If the daemon could not be reached or the operation failed
+     */
+    public void executeOperation(String configFileName, List<String> arguments) {
+        StringBuilder request = new StringBuilder(configFileName == null ? "" : configFileName);
+        for (String argument : arguments) {
+            if (argument.indexOf('\t') >= 0 || argument.indexOf('\n') >= 0) {
+                throw new DbMaintainException("Invalid argument for daemon: " + argument);
+            }
+            request.append('\t').append(argument);
+        }
+        String token = readToken();
+        String response;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(), UTF_8);
+            writer.write(token + "\n");
+            writer.write(request + "\n");
+            writer.flush();
+            response = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8)).readLine();
+        } catch (IOException e) {
+            throw new DbMaintainException("Unable to execute operation using the daemon on port " + port + ". Is the daemon running?", e);
+        }
+        if (response == null) {
+            throw new DbMaintainException("The daemon on port " + port + " closed the connection before the operation finished.");
+        }
+        if (!RESPONSE_OK.equals(response)) {
+            int index = response.indexOf('\t');
+            throw new DbMaintainException("Operation failed: " + (index < 0 ? response : response.substring(index + 1)));
+        }
+    }
+
+
+    protected String readToken() {
+        File tokenFile = DbMaintainDaemon.getTokenFile(tokenDir, port);
+        try {
+            return new String(Files.readAllBytes(tokenFile.toPath()), UTF_8).trim();
+        } catch (IOException e) {
+            throw new DbMaintainException("Unable to read daemon token file " + tokenFile + ". Is the daemon running on port " + port + " for the current user?", e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.launch.daemon;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dbmaintain.script.repository.ScriptRepositoryCache;
+import org.dbmaintain.util.DbMaintainException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the script locations using a {@link WatchService} and invalidates the script repository cache as soon as
+ * a file in one of the locations is created, modified or deleted. For a script archive, the directory containing the
+ * archive is watched.
+ * <p>
+ * The notifications of the watch service can arrive late, the cache therefore also checks the script locations
+ * itself before reusing a repository. The watcher only releases outdated repositories early.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class ScriptLocationWatcher implements Runnable {
+
+    /* The logger instance for this class */
+    private static Log logger = LogFactory.getLog(ScriptLocationWatcher.class);
+
+    protected ScriptRepositoryCache scriptRepositoryCache;
+    protected WatchService watchService;
+    /* The directories that are already being watched */
+    protected Set<Path> watchedDirs = new HashSet<>();
+
+
+    /**
+     * @param scriptRepositoryCache The cache to invalidate when a script changes, not null
+     */
+    public ScriptLocationWatcher(ScriptRepositoryCache scriptRepositoryCache) {
+        this.scriptRepositoryCache = scriptRepositoryCache;
+        try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            throw new DbMaintainException("Unable to create watch service for the script locations.", e);
+        }
+    }
+
+
+    /**
+     * Starts watching the given script locations, if they are not watched yet.
+     *
+     * @param scriptLocations The script directories or archive files, not null
+     */
+    public synchronized void watch(List<String> scriptLocations) {
+        for (String scriptLocation : scriptLocations) {
+            File scriptLocationFile = new File(scriptLocation).getAbsoluteFile();
+            if (scriptLocationFile.isDirectory()) {
+                watchRecursively(scriptLocationFile.toPath());
+            } else if (scriptLocationFile.getParentFile() != null && scriptLocationFile.getParentFile().isDirectory()) {
+                watchDir(scriptLocationFile.getParentFile().toPath());
+            }
+        }
+    }
+
+    /**
+     * Invalidates the cache for every change in a watched directory, until the watcher is closed.
+     */
+    public void run() {
+        try {
+            while (true) {
+                WatchKey watchKey = watchService.take();
+                Path dir = (Path) watchKey.watchable();
+                for (WatchEvent<?> watchEvent : watchKey.pollEvents()) {
+                    if (watchEvent.kind() == ENTRY_CREATE) {
+                        Path createdPath = dir.resolve((Path) watchEvent.context());
+                        if (Files.isDirectory(createdPath)) {
+                            watchRecursively(createdPath);
+                        }
+                    }
+                }
+                logger.debug("Script location " + dir + " changed, the scripts will be scanned again.");
+                scriptRepositoryCache.invalidate();
+                watchKey.reset();
+            }
+        } catch (ClosedWatchServiceException e) {
+            // the watcher was closed
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops watching the script locations.
+     */
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.warn("Unable to close watch service for the script locations.", e);
+        }
+    }
+
+
+    protected synchronized void watchRecursively(Path rootDir) {
+        try {
+            Files.walkFileTree(rootDir, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+                    watchDir(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new DbMaintainException("Unable to watch script location " + rootDir, e);
+        }
+    }
+
+    protected synchronized void watchDir(Path dir) {
+        if (!watchedDirs.add(dir)) {
+            return;
+        }
+        try {
+            dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        } catch (IOException e) {
+            throw new DbMaintainException("Unable to watch script location " + dir, e);
+        }
+    }
+}
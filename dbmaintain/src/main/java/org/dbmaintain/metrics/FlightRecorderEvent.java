@@ -0,0 +1,46 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.metrics;
+
+/**
+ * Handle for a Java Flight Recorder event that was started by {@link FlightRecorderEvents}. Call one of the end
+ * methods when the measured operation is finished.
+ * <p>
+ * This base implementation does nothing. It is returned when flight recording is not supported (Java 8) or when
+ * the event is not enabled in the running recording.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class FlightRecorderEvent {
+
+
+    /**
+     * Ends and commits the event.
+     */
+    public void end() {
+        end(0);
+    }
+
+    /**
+     * Ends and commits the event.
+     *
+     * @param amount The result of the operation, see the begin methods of {@link FlightRecorderEvents} for its meaning
+     */
+    public void end(long amount) {
+        // nothing to record
+    }
+}
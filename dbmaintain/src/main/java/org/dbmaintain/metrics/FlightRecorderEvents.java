@@ -0,0 +1,97 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.metrics;
+
+/**
+ * Emits Java Flight Recorder events for the operations of DbMaintain, so that a recording shows which script or
+ * catalog query is taking the time.
+ * <p>
+ * This is the Java 8 version, in which all events are no-ops. The DbMaintain jar is a multi-release jar that contains
+ * a Java 11 version of this class that emits real JFR events (category DbMaintain). Both versions must have the
+ * same public methods.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class FlightRecorderEvents {
+
+    private static final FlightRecorderEvent NO_EVENT = new FlightRecorderEvent();
+
+
+    /**
+     * Starts the loading of the scripts of a script location. End with the nr of loaded scripts.
+     *
+     * @param scriptLocation The location, not null
+     * @return The event, not null
+     */
+    public static FlightRecorderEvent beginScriptLoad(String scriptLocation) {
+        return NO_EVENT;
+    }
+
+    /**
+     * Starts the calculation of the check sum of a script. End with the nr of bytes that were read.
+     *
+     * @param scriptName The name of the script, not null
+     * @return The event, not null
+     */
+    public static FlightRecorderEvent beginCheckSum(String scriptName) {
+        return NO_EVENT;
+    }
+
+    /**
+     * Starts the parsing of a statement. End with the nr of characters of the parsed statement, 0 if the
+     * end of the script was reached.
+     *
+     * @param scriptName The name of the script, not null
+     * @return The event, not null
+     */
+    public static FlightRecorderEvent beginParseStatement(String scriptName) {
+        return NO_EVENT;
+    }
+
+    /**
+     * Starts the execution of a statement. End with the update count of the statement, -1 if not applicable.
+     *
+     * @param scriptName  The name of the script, not null
+     * @param statementNr The index of the statement in the script (1-based)
+     * @param nrOfChars   The nr of characters of the statement
+     * @return The event, not null
+     */
+    public static FlightRecorderEvent beginExecuteStatement(String scriptName, int statementNr, long nrOfChars) {
+        return NO_EVENT;
+    }
+
+    /**
+     * Starts a write to the executed scripts table.
+     *
+     * @param operation  The kind of write, e.g. insert or delete, not null
+     * @param scriptName The name of the script, null if the write concerns multiple scripts
+     * @return The event, not null
+     */
+    public static FlightRecorderEvent beginRegistryWrite(String operation, String scriptName) {
+        return NO_EVENT;
+    }
+
+    /**
+     * Starts a query, e.g. a query on the database catalog.
+     *
+     * @param sql The query, not null
+     * @return The event, not null
+     */
+    public static FlightRecorderEvent beginQuery(String sql) {
+        return NO_EVENT;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.metrics;
+
+import java.util.SortedMap;
+
+/**
+ * Collects counters, timers and gauges for the different phases of DbMaintain (script scanning, check sum calculation,
+ * analysis, script parsing and execution, clearing, cleaning...).
+ * <p>
+ * Metric names are dot-separated, e.g. dbClearer.clearDatabase or jdbcScriptRunner.executeStatement.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public interface Metrics {
+
+
+    /**
+     * @return True if metrics are collected, false if all calls are ignored
+     */
+    boolean isEnabled();
+
+    /**
+     * Adds the given amount to the counter with the given name.
+     *
+     * @param name   The name of the counter, not null
+     * @param amount The amount to add
+     */
+    void incrementCounter(String name, long amount);
+
+    /**
+     * Registers a timing for the timer with the given name.
+     *
+     * @param name          The name of the timer, not null
+     * @param durationNanos The measured duration in nano seconds
+     */
+    void recordTime(String name, long durationNanos);
+
+    /**
+     * Sets the current value of the gauge with the given name.
+     *
+     * @param name  The name of the gauge, not null
+     * @param value The value
+     */
+    void setGauge(String name, long value);
+
+    /**
+     * Gets all current values, sorted by name. Timers are exposed as 3 values: name.count, name.totalMs and name.maxMs.
+     *
+     * @return The values per name, not null
+     */
+    SortedMap<String, Long> getValues();
+
+    /**
+     * Removes all collected values.
+     */
+    void reset();
+
+}
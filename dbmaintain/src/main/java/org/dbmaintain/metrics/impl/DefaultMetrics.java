@@ -0,0 +1,97 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.metrics.impl;
+
+import org.dbmaintain.metrics.Metrics;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Thread-safe metrics implementation that keeps all values in memory.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class DefaultMetrics implements Metrics {
+
+    protected ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    protected ConcurrentMap<String, AtomicLong> gauges = new ConcurrentHashMap<>();
+    protected ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+
+    public boolean isEnabled() {
+        return true;
+    }
+
+    public void incrementCounter(String name, long amount) {
+        counters.computeIfAbsent(name, key -> new AtomicLong()).addAndGet(amount);
+    }
+
+    public void recordTime(String name, long durationNanos) {
+        timers.computeIfAbsent(name, key -> new Timer()).record(durationNanos);
+    }
+
+    public void setGauge(String name, long value) {
+        gauges.computeIfAbsent(name, key -> new AtomicLong()).set(value);
+    }
+
+    public SortedMap<String, Long> getValues() {
+        SortedMap<String, Long> result = new TreeMap<>();
+        for (Map.Entry<String, AtomicLong> counter : counters.entrySet()) {
+            result.put(counter.getKey(), counter.getValue().get());
+        }
+        for (Map.Entry<String, AtomicLong> gauge : gauges.entrySet()) {
+            result.put(gauge.getKey(), gauge.getValue().get());
+        }
+        for (Map.Entry<String, Timer> timer : timers.entrySet()) {
+            timer.getValue().addValues(timer.getKey(), result);
+        }
+        return result;
+    }
+
+    public void reset() {
+        counters.clear();
+        gauges.clear();
+        timers.clear();
+    }
+
+
+    protected static class Timer {
+
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+
+        public synchronized void record(long durationNanos) {
+            count++;
+            totalNanos += durationNanos;
+            maxNanos = Math.max(maxNanos, durationNanos);
+        }
+
+        public synchronized void addValues(String name, Map<String, Long> values) {
+            values.put(name + ".count", count);
+            values.put(name + ".totalMs", NANOSECONDS.toMillis(totalNanos));
+            values.put(name + ".maxMs", NANOSECONDS.toMillis(maxNanos));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.metrics.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dbmaintain.metrics.Metrics;
+import org.dbmaintain.util.DbMaintainException;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * JMX MBean that exposes all values of the given metrics as read-only attributes. The set of attributes is dynamic:
+ * a new counter, timer or gauge becomes visible as soon as it is first recorded.
+ * <p>
+ * The values can be reset using the reset operation.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class MetricsMBean implements DynamicMBean {
+
+    /* The logger instance for this class */
+    private static Log logger = LogFactory.getLog(MetricsMBean.class);
+
+    protected Metrics metrics;
+
+
+    public MetricsMBean(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+
+    /**
+     * Registers this MBean in the platform MBean server using the given name. If an MBean with that name was
+     * already registered, e.g. by a previous run in the same JVM, it is replaced.
+     *
+     * @param objectName The JMX object name, e.g. org.dbmaintain:type=Metrics, not null
+     */
+    public void register(String objectName) {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(objectName);
+            if (mBeanServer.isRegistered(name)) {
+                mBeanServer.unregisterMBean(name);
+            }
+            mBeanServer.registerMBean(this, name);
+            logger.debug("Registered DbMaintain metrics MBean " + objectName);
+        } catch (JMException e) {
+            throw new DbMaintainException("Unable to register metrics MBean " + objectName, e);
+        }
+    }
+
+
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Long value = metrics.getValues().get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException("No metric found with name " + attribute);
+        }
+        return value;
+    }
+
+    public AttributeList getAttributes(String[] attributes) {
+        SortedMap<String, Long> values = metrics.getValues();
+        AttributeList result = new AttributeList();
+        for (String attribute : attributes) {
+            Long value = values.get(attribute);
+            if (value != null) {
+                result.add(new Attribute(attribute, value));
+            }
+        }
+        return result;
+    }
+
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metric " + attribute.getName() + " is read-only");
+    }
+
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        if ("reset".equals(actionName)) {
+            metrics.reset();
+            return null;
+        }
+        throw new ReflectionException(new NoSuchMethodException(actionName), "Unknown operation " + actionName);
+    }
+
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributeInfos = new ArrayList<>();
+        for (Map.Entry<String, Long> value : metrics.getValues().entrySet()) {
+            attributeInfos.add(new MBeanAttributeInfo(value.getKey(), Long.class.getName(), value.getKey(), true, false, false));
+        }
+        MBeanOperationInfo resetOperationInfo = new MBeanOperationInfo("reset", "Removes all collected values", new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION);
+        return new MBeanInfo(getClass().getName(), "DbMaintain metrics", attributeInfos.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[]{resetOperationInfo}, null);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.metrics.impl;
+
+import org.dbmaintain.metrics.Metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Proxy that records a timer for every call to a method of an interface. The timers are named after the given
+ * prefix and the name of the method, e.g. dbClearer.clearDatabase.
+ * <p>
+ * This is used to measure all DbMaintain components that are created by the main factory (clearer, cleaner,
+ * constraints disabler, script runner...) without having to instrument each implementation.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class MetricsProxy implements InvocationHandler {
+
+    protected Object target;
+    protected String prefix;
+    protected Metrics metrics;
+
+
+    protected MetricsProxy(Object target, String prefix, Metrics metrics) {
+        this.target = target;
+        this.prefix = prefix;
+        this.metrics = metrics;
+    }
+
+
+    /**
+     * Wraps the given instance in a proxy that records the duration of every call. If metrics are disabled
+     * or the type is not an interface, the instance is returned as is.
+     *
+     * @param type     The interface to proxy, not null
+     * @param instance The instance to wrap, null for null
+     * @param prefix   The prefix for the timer names, not null
+     * @param metrics  The metrics to record the timings in, not null
+     * @return The proxy, null if the instance was null
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T createMetricsProxy(Class<T> type, T instance, String prefix, Metrics metrics) {
+        if (instance == null || !metrics.isEnabled() || !type.isInterface()) {
+            return instance;
+        }
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new MetricsProxy(instance, prefix, metrics));
+    }
+
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return invokeObjectMethod(proxy, method, args);
+        }
+        long startTime = System.nanoTime();
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        } finally {
+            metrics.recordTime(prefix + "." + method.getName(), System.nanoTime() - startTime);
+        }
+    }
+
+    protected Object invokeObjectMethod(Object proxy, Method method, Object[] args) throws Throwable {
+        // the proxy is used as key in maps (e.g. data sources), so make sure it has identity semantics
+        if ("equals".equals(method.getName())) {
+            return proxy == args[0];
+        }
+        if ("hashCode".equals(method.getName())) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.metrics.impl;
+
+import org.dbmaintain.metrics.Metrics;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Metrics implementation that ignores all calls. This is used when metrics are disabled.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class NoOpMetrics implements Metrics {
+
+
+    public boolean isEnabled() {
+        return false;
+    }
+
+    public void incrementCounter(String name, long amount) {
+        // ignored
+    }
+
+    public void recordTime(String name, long durationNanos) {
+        // ignored
+    }
+
+    public void setGauge(String name, long value) {
+        // ignored
+    }
+
+    public SortedMap<String, Long> getValues() {
+        return new TreeMap<>();
+    }
+
+    public void reset() {
+        // ignored
+    }
+}
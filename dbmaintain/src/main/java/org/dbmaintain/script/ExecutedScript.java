@@ -26,6 +26,12 @@ public class ExecutedScript implements Comparable<ExecutedScript> {
     private Script script;
     private Date executedAt;
     private Boolean successful;
+    /* The execution time in ms, the nr of executed statements and the size in bytes of the script, null if unknown */
+    private Long executionTime;
+    private Long statementCount;
+    private Long scriptSize;
+    /* The position up to which a failed execution was committed, null if unknown */
+    private StatementCheckpoint statementCheckpoint;
 
 
     public ExecutedScript(Script script, Date executedAt, Boolean successful) {
@@ -51,6 +57,40 @@ public class ExecutedScript implements Comparable<ExecutedScript> {
         this.successful = successful;
     }
 
+    public Long getExecutionTime() {
+        return executionTime;
+    }
+
+    public Long getStatementCount() {
+        return statementCount;
+    }
+
+    public Long getScriptSize() {
+        return scriptSize;
+    }
+
+    /**
+     * @param executionTime  The execution time in ms, null if unknown
+     * @param statementCount The nr of executed statements, null if unknown
+     * @param scriptSize     The size of the script in bytes, null if unknown
+     */
+    public void setExecutionStatistics(Long executionTime, Long statementCount, Long scriptSize) {
+        this.executionTime = executionTime;
+        this.statementCount = statementCount;
+        this.scriptSize = scriptSize;
+    }
+
+    public StatementCheckpoint getStatementCheckpoint() {
+        return statementCheckpoint;
+    }
+
+    /**
+     * @param statementCheckpoint The position up to which a failed execution was committed, null if unknown
+     */
+    public void setStatementCheckpoint(StatementCheckpoint statementCheckpoint) {
+        this.statementCheckpoint = statementCheckpoint;
+    }
+
 
     /**
      * Registers the fact that the script that was originally executed has been renamed. This means the script is replaced
@@ -15,11 +15,14 @@
  */
 package org.dbmaintain.script;
 
+import org.dbmaintain.metrics.FlightRecorderEvent;
 import org.dbmaintain.script.executedscriptinfo.ScriptIndexes;
 import org.dbmaintain.script.qualifier.Qualifier;
 
 import java.util.Set;
 
+import static org.dbmaintain.metrics.FlightRecorderEvents.beginCheckSum;
+
 /**
  * A class representing a script file and it's content.
  *
@@ -140,7 +143,12 @@ public class Script implements Comparable<Script> {
      */
     public String getCheckSum() {
         if (checkSum == null) {
-            checkSum = scriptContentHandle.getCheckSum();
+            FlightRecorderEvent event = beginCheckSum(fileName);
+            try {
+                checkSum = scriptContentHandle.getCheckSum();
+            } finally {
+                event.end(scriptContentHandle.getCheckSumNrOfBytes());
+            }
         }
         return checkSum;
     }
@@ -19,6 +19,8 @@ import org.dbmaintain.util.DbMaintainException;
 import org.dbmaintain.util.ReaderInputStream;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -29,6 +31,8 @@ import java.io.UnsupportedEncodingException;
 import java.net.URL;
 import java.security.MessageDigest;
 
+import static org.apache.commons.io.FileUtils.toFile;
+
 /**
  * A handle for getting the script content as a stream.
  *
@@ -43,6 +47,9 @@ public abstract class ScriptContentHandle {
     protected String encoding;
     /* If true, carriage return chars will be ignored when calculating check sums */
     protected boolean ignoreCarriageReturnsWhenCalculatingCheckSum;
+    /* The nr of bytes read and the time it took to calculate the check sum, 0 if not yet calculated */
+    protected long checkSumNrOfBytes;
+    protected long checkSumTimeNanos;
 
 
     /**
@@ -71,6 +78,24 @@ public abstract class ScriptContentHandle {
         return scriptReader;
     }
 
+    /**
+     * Opens a stream to the bytes of the script, in the encoding of the script.
+     * <p>
+     * NOTE: do not forget to close the stream after usage.
+     *
+     * @return The content stream, not null
+     */
+    public InputStream openScriptContentInputStream() {
+        return getScriptInputStream();
+    }
+
+    /**
+     * @return The file on the local file system that contains the script, null if the script is not stored in a file
+     */
+    public File getFile() {
+        return null;
+    }
+
 
     public String getCheckSum() {
         MessageDigest scriptDigest = getScriptDigest();
@@ -82,16 +107,19 @@ public abstract class ScriptContentHandle {
             return scriptDigest;
         }
 
+        long startTime = System.nanoTime();
         try (InputStream scriptInputStream = getScriptInputStream()) {
             scriptDigest = MessageDigest.getInstance("MD5");
 
             int b;
             while ((b = scriptInputStream.read()) != -1) {
+                checkSumNrOfBytes++;
                 if (ignoreCarriageReturnsWhenCalculatingCheckSum && b == '\r') {
                     continue;
                 }
                 scriptDigest.update((byte) b);
             }
+            checkSumTimeNanos = System.nanoTime() - startTime;
             return scriptDigest;
         } catch (Exception e) {
             throw new DbMaintainException("Unable to calculate digest for script.", e);
@@ -171,6 +199,14 @@ public abstract class ScriptContentHandle {
                 throw new DbMaintainException("Error while trying to create reader for url " + url, e);
             }
         }
+
+        /**
+         * @return The file if the url is a file url, null otherwise
+         */
+        @Override
+        public File getFile() {
+            return toFile(url);
+        }
     }
 
 
@@ -204,10 +240,36 @@ public abstract class ScriptContentHandle {
         protected InputStream getScriptInputStream() {
             return new ReaderInputStream(new StringReader(scriptContent));
         }
+
+        /**
+         * @return A stream to the content encoded in the encoding of the script, not null
+         */
+        @Override
+        public InputStream openScriptContentInputStream() {
+            try {
+                return new ByteArrayInputStream(scriptContent.getBytes(encoding));
+            } catch (UnsupportedEncodingException e) {
+                throw new DbMaintainException("Unsupported encoding " + encoding, e);
+            }
+        }
     }
 
 	public String getEncoding() {
 		return this.encoding;
 	}
 
+    /**
+     * @return The nr of bytes that were read to calculate the check sum, 0 if the check sum was not yet calculated
+     */
+    public long getCheckSumNrOfBytes() {
+        return checkSumNrOfBytes;
+    }
+
+    /**
+     * @return The time in nanoseconds it took to calculate the check sum, 0 if the check sum was not yet calculated
+     */
+    public long getCheckSumTimeNanos() {
+        return checkSumTimeNanos;
+    }
+
 }
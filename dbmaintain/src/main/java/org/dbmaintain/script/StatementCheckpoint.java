@@ -0,0 +1,56 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.script;
+
+/**
+ * The position in a script up to which all statements were executed and committed. A failed script can be resumed
+ * from its checkpoint, skipping the statements that were already committed.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class StatementCheckpoint {
+
+    /* The nr of statements that were executed and committed */
+    private long statementNr;
+    /* The character offset in the script right after the last committed statement */
+    private long offset;
+
+
+    /**
+     * @param statementNr The nr of statements that were executed and committed
+     * @param offset      The character offset in the script right after the last committed statement
+     */
+    public StatementCheckpoint(long statementNr, long offset) {
+        this.statementNr = statementNr;
+        this.offset = offset;
+    }
+
+
+    public long getStatementNr() {
+        return statementNr;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+
+    @Override
+    public String toString() {
+        return "statement " + statementNr + " (offset " + offset + ")";
+    }
+}
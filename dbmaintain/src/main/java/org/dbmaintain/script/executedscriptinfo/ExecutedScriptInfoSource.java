@@ -91,8 +91,8 @@ public interface ExecutedScriptInfoSource {
     void removeErrorScripts();
 
     /**
-     * Resets the cached state, for example when the scripts table was modified by another process.
-     * The scripts will be reloaded the next time.
+     * Resets the cached state, for example when the scripts table was modified or dropped by another process.
+     * The scripts table will be checked again and the scripts will be reloaded the next time.
      */
     void resetCachedState();
 }
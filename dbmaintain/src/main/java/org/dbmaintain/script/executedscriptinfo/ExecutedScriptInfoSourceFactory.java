@@ -50,6 +50,11 @@ public class ExecutedScriptInfoSourceFactory extends FactoryWithDatabase<Execute
         String executedAtColumnName = defaultDatabase.toCorrectCaseIdentifier(getString(PROPERTY_EXECUTED_AT_COLUMN_NAME, getConfiguration()));
         int executedAtColumnSize = PropertyUtils.getInt(PROPERTY_EXECUTED_AT_COLUMN_SIZE, getConfiguration());
         String succeededColumnName = defaultDatabase.toCorrectCaseIdentifier(getString(PROPERTY_SUCCEEDED_COLUMN_NAME, getConfiguration()));
+        String executionTimeColumnName = getString(PROPERTY_EXECUTION_TIME_COLUMN_NAME, null, getConfiguration());
+        String statementCountColumnName = getString(PROPERTY_STATEMENT_COUNT_COLUMN_NAME, null, getConfiguration());
+        String scriptSizeColumnName = getString(PROPERTY_SCRIPT_SIZE_COLUMN_NAME, null, getConfiguration());
+        String checkpointStatementNrColumnName = getString(PROPERTY_CHECKPOINT_STATEMENT_NR_COLUMN_NAME, null, getConfiguration());
+        String checkpointOffsetColumnName = getString(PROPERTY_CHECKPOINT_OFFSET_COLUMN_NAME, null, getConfiguration());
         DateFormat timestampFormat = new SimpleDateFormat(getString(PROPERTY_TIMESTAMP_FORMAT, getConfiguration()));
         String scriptIndexRegexp = getString(PROPERTY_SCRIPT_INDEX_REGEXP, getConfiguration());
         String targetDatabaseRegexp = getString(PROPERTY_SCRIPT_TARGETDATABASE_REGEXP, getConfiguration());
@@ -63,7 +68,8 @@ public class ExecutedScriptInfoSourceFactory extends FactoryWithDatabase<Execute
         ScriptFactory scriptFactory = new ScriptFactory(scriptIndexRegexp, targetDatabaseRegexp, qualifierRegexp, registeredQualifiers, patchQualifiers, preProcessingScriptsDirName, postProcessingScriptsDirName, baselineRevision);
         return new DefaultExecutedScriptInfoSource(autoCreateExecutedScriptsTable, executedScriptsTableName, fileNameColumnName, fileNameColumnSize,
                 fileLastModifiedAtColumnName, checksumColumnName, checksumColumnSize,
-                executedAtColumnName, executedAtColumnSize, succeededColumnName, timestampFormat, defaultDatabase,
+                executedAtColumnName, executedAtColumnSize, succeededColumnName, executionTimeColumnName, statementCountColumnName,
+                scriptSizeColumnName, checkpointStatementNrColumnName, checkpointOffsetColumnName, timestampFormat, defaultDatabase,
                 getSqlHandler(), scriptFactory);
     }
 
@@ -19,9 +19,11 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.dbmaintain.database.Database;
 import org.dbmaintain.database.SQLHandler;
+import org.dbmaintain.metrics.FlightRecorderEvent;
 import org.dbmaintain.script.ExecutedScript;
 import org.dbmaintain.script.Script;
 import org.dbmaintain.script.ScriptFactory;
+import org.dbmaintain.script.StatementCheckpoint;
 import org.dbmaintain.script.executedscriptinfo.ExecutedScriptInfoSource;
 import org.dbmaintain.util.DbMaintainException;
 
@@ -33,7 +35,9 @@ import java.text.DateFormat;
 import java.text.ParseException;
 import java.util.*;
 
+import static java.util.Arrays.asList;
 import static org.apache.commons.dbutils.DbUtils.closeQuietly;
+import static org.dbmaintain.metrics.FlightRecorderEvents.beginRegistryWrite;
 
 /**
  * Implementation of <code>VersionSource</code> that stores the version in the database.
@@ -65,6 +69,17 @@ public class DefaultExecutedScriptInfoSource implements ExecutedScriptInfoSource
     protected int executedAtColumnSize;
     /* The name of the database column in which the script name is stored */
     protected String succeededColumnName;
+    /* The names of the database columns in which the execution time, statement count and script size are stored, null if not recorded */
+    protected String executionTimeColumnName;
+    protected String statementCountColumnName;
+    protected String scriptSizeColumnName;
+    /* True if the execution statistics columns are available in the scripts table */
+    protected boolean executionStatisticsColumnsAvailable = false;
+    /* The names of the database columns in which the statement checkpoint of a failed script is stored, null if not recorded */
+    protected String checkpointStatementNrColumnName;
+    protected String checkpointOffsetColumnName;
+    /* True if the statement checkpoint columns are available in the scripts table */
+    protected boolean checkpointColumnsAvailable = false;
     /* True if the scripts table should be created automatically if it does not exist yet */
     protected boolean autoCreateExecutedScriptsTable;
     /* Format of the contents of the executed_at column */
@@ -78,6 +93,17 @@ public class DefaultExecutedScriptInfoSource implements ExecutedScriptInfoSource
                                            int fileNameColumnSize, String fileLastModifiedAtColumnName, String checksumColumnName, int checksumColumnSize,
                                            String executedAtColumnName, int executedAtColumnSize, String succeededColumnName, DateFormat timestampFormat,
                                            Database defaultSupport, SQLHandler sqlHandler, ScriptFactory scriptFactory) {
+        this(autoCreateExecutedScriptsTable, executedScriptsTableName, fileNameColumnName, fileNameColumnSize, fileLastModifiedAtColumnName,
+                checksumColumnName, checksumColumnSize, executedAtColumnName, executedAtColumnSize, succeededColumnName, null, null, null,
+                null, null, timestampFormat, defaultSupport, sqlHandler, scriptFactory);
+    }
+
+    public DefaultExecutedScriptInfoSource(boolean autoCreateExecutedScriptsTable, String executedScriptsTableName, String fileNameColumnName,
+                                           int fileNameColumnSize, String fileLastModifiedAtColumnName, String checksumColumnName, int checksumColumnSize,
+                                           String executedAtColumnName, int executedAtColumnSize, String succeededColumnName,
+                                           String executionTimeColumnName, String statementCountColumnName, String scriptSizeColumnName,
+                                           String checkpointStatementNrColumnName, String checkpointOffsetColumnName, DateFormat timestampFormat,
+                                           Database defaultSupport, SQLHandler sqlHandler, ScriptFactory scriptFactory) {
 
         this.defaultDatabase = defaultSupport;
         this.sqlHandler = sqlHandler;
@@ -91,6 +117,15 @@ public class DefaultExecutedScriptInfoSource implements ExecutedScriptInfoSource
         this.executedAtColumnName = defaultDatabase.toCorrectCaseIdentifier(executedAtColumnName);
         this.executedAtColumnSize = executedAtColumnSize;
         this.succeededColumnName = defaultDatabase.toCorrectCaseIdentifier(succeededColumnName);
+        if (executionTimeColumnName != null && statementCountColumnName != null && scriptSizeColumnName != null) {
+            this.executionTimeColumnName = defaultDatabase.toCorrectCaseIdentifier(executionTimeColumnName);
+            this.statementCountColumnName = defaultDatabase.toCorrectCaseIdentifier(statementCountColumnName);
+            this.scriptSizeColumnName = defaultDatabase.toCorrectCaseIdentifier(scriptSizeColumnName);
+        }
+        if (checkpointStatementNrColumnName != null && checkpointOffsetColumnName != null) {
+            this.checkpointStatementNrColumnName = defaultDatabase.toCorrectCaseIdentifier(checkpointStatementNrColumnName);
+            this.checkpointOffsetColumnName = defaultDatabase.toCorrectCaseIdentifier(checkpointOffsetColumnName);
+        }
         this.timestampFormat = timestampFormat;
         this.scriptFactory = scriptFactory;
     }
@@ -127,6 +162,8 @@ public class DefaultExecutedScriptInfoSource implements ExecutedScriptInfoSource
             statement = connection.createStatement();
             resultSet = statement.executeQuery("select " + fileNameColumnName + ", " + fileLastModifiedAtColumnName + ", " +
                     checksumColumnName + ", " + executedAtColumnName + ", " + succeededColumnName +
+                    (executionStatisticsColumnsAvailable ? ", " + executionTimeColumnName + ", " + statementCountColumnName + ", " + scriptSizeColumnName : "") +
+                    (checkpointColumnsAvailable ? ", " + checkpointStatementNrColumnName + ", " + checkpointOffsetColumnName : "") +
                     " from " + getQualifiedExecutedScriptsTableName());
 
             while (resultSet.next()) {
@@ -145,6 +182,16 @@ public class DefaultExecutedScriptInfoSource implements ExecutedScriptInfoSource
                 Script script = scriptFactory.createScriptWithoutContent(fileName, fileLastModifiedAt, checkSum);
                 if (!script.isIgnored()) {
                     ExecutedScript executedScript = new ExecutedScript(script, executedAt, succeeded);
+                    if (executionStatisticsColumnsAvailable) {
+                        executedScript.setExecutionStatistics(getLongOrNull(resultSet, executionTimeColumnName), getLongOrNull(resultSet, statementCountColumnName), getLongOrNull(resultSet, scriptSizeColumnName));
+                    }
+                    if (checkpointColumnsAvailable) {
+                        Long checkpointStatementNr = getLongOrNull(resultSet, checkpointStatementNrColumnName);
+                        Long checkpointOffset = getLongOrNull(resultSet, checkpointOffsetColumnName);
+                        if (checkpointStatementNr != null && checkpointOffset != null) {
+                            executedScript.setStatementCheckpoint(new StatementCheckpoint(checkpointStatementNr, checkpointOffset));
+                        }
+                    }
                     executedScripts.add(executedScript);
                 }
             }
@@ -156,6 +203,11 @@ public class DefaultExecutedScriptInfoSource implements ExecutedScriptInfoSource
         return executedScripts;
     }
 
+    protected Long getLongOrNull(ResultSet resultSet, String columnName) throws SQLException {
+        long value = resultSet.getLong(columnName);
+        return resultSet.wasNull() ? null : value;
+    }
+
 
     /**
      * Registers the fact that the given script has been executed on the database
@@ -185,10 +237,16 @@ public class DefaultExecutedScriptInfoSource implements ExecutedScriptInfoSource
         String executedAt = timestampFormat.format(executedScript.getExecutedAt());
         String insertSql = "insert into " + getQualifiedExecutedScriptsTableName() +
                 " (" + fileNameColumnName + ", " + fileLastModifiedAtColumnName + ", " + checksumColumnName + ", " +
-                executedAtColumnName + ", " + succeededColumnName + ") values ('" + executedScript.getScript().getFileName() +
+                executedAtColumnName + ", " + succeededColumnName +
+                (executionStatisticsColumnsAvailable ? ", " + executionTimeColumnName + ", " + statementCountColumnName + ", " + scriptSizeColumnName : "") +
+                (checkpointColumnsAvailable ? ", " + checkpointStatementNrColumnName + ", " + checkpointOffsetColumnName : "") +
+                ") values ('" + executedScript.getScript().getFileName() +
                 "', " + executedScript.getScript().getFileLastModifiedAt() + ", '" +
-                executedScript.getScript().getCheckSum() + "', '" + executedAt + "', " + (executedScript.isSuccessful() ? "1" : "0") + ")";
-        sqlHandler.executeUpdateAndCommit(insertSql, defaultDatabase.getDataSource());
+                executedScript.getScript().getCheckSum() + "', '" + executedAt + "', " + (executedScript.isSuccessful() ? "1" : "0") +
+                (executionStatisticsColumnsAvailable ? ", " + executedScript.getExecutionTime() + ", " + executedScript.getStatementCount() + ", " + executedScript.getScriptSize() : "") +
+                (checkpointColumnsAvailable ? ", " + getCheckpointStatementNr(executedScript) + ", " + getCheckpointOffset(executedScript) : "") +
+                ")";
+        executeRegistryUpdate("insert", executedScript.getScript().getFileName(), insertSql);
     }
 
 
@@ -208,8 +266,24 @@ public class DefaultExecutedScriptInfoSource implements ExecutedScriptInfoSource
                 fileLastModifiedAtColumnName + " = " + executedScript.getScript().getFileLastModifiedAt() + ", " +
                 executedAtColumnName + " = '" + executedAt + "', " +
                 succeededColumnName + " = " + (executedScript.isSuccessful() ? "1" : "0") +
+                (executionStatisticsColumnsAvailable ? ", " + executionTimeColumnName + " = " + executedScript.getExecutionTime() +
+                        ", " + statementCountColumnName + " = " + executedScript.getStatementCount() +
+                        ", " + scriptSizeColumnName + " = " + executedScript.getScriptSize() : "") +
+                (checkpointColumnsAvailable ? ", " + checkpointStatementNrColumnName + " = " + getCheckpointStatementNr(executedScript) +
+                        ", " + checkpointOffsetColumnName + " = " + getCheckpointOffset(executedScript) : "") +
                 " where " + fileNameColumnName + " = '" + executedScript.getScript().getFileName() + "'";
-        sqlHandler.executeUpdateAndCommit(updateSql, defaultDatabase.getDataSource());
+        executeRegistryUpdate("update", executedScript.getScript().getFileName(), updateSql);
+    }
+
+
+    protected Long getCheckpointStatementNr(ExecutedScript executedScript) {
+        StatementCheckpoint statementCheckpoint = executedScript.getStatementCheckpoint();
+        return statementCheckpoint == null ? null : statementCheckpoint.getStatementNr();
+    }
+
+    protected Long getCheckpointOffset(ExecutedScript executedScript) {
+        StatementCheckpoint statementCheckpoint = executedScript.getStatementCheckpoint();
+        return statementCheckpoint == null ? null : statementCheckpoint.getOffset();
     }
 
 
@@ -225,7 +299,7 @@ public class DefaultExecutedScriptInfoSource implements ExecutedScriptInfoSource
 
         String deleteSql = "delete from " + getQualifiedExecutedScriptsTableName() +
                 " where " + fileNameColumnName + " = '" + executedScript.getScript().getFileName() + "'";
-        sqlHandler.executeUpdateAndCommit(deleteSql, defaultDatabase.getDataSource());
+        executeRegistryUpdate("delete", executedScript.getScript().getFileName(), deleteSql);
     }
 
 
@@ -243,7 +317,7 @@ public class DefaultExecutedScriptInfoSource implements ExecutedScriptInfoSource
                 checksumColumnName + " = '" + renamedToScript.getCheckSum() + "', " +
                 fileLastModifiedAtColumnName + " = " + renamedToScript.getFileLastModifiedAt() +
                 " where " + fileNameColumnName + " = '" + executedScript.getScript().getFileName() + "'";
-        sqlHandler.executeUpdateAndCommit(renameSql, defaultDatabase.getDataSource());
+        executeRegistryUpdate("rename", executedScript.getScript().getFileName(), renameSql);
         executedScript.renameTo(renamedToScript);
     }
 
@@ -256,7 +330,7 @@ public class DefaultExecutedScriptInfoSource implements ExecutedScriptInfoSource
                 executedScriptsIterator.remove();
                 String deleteSql = "delete from " + getQualifiedExecutedScriptsTableName() +
                         " where " + fileNameColumnName + " = '" + executedScript.getScript().getFileName() + "'";
-                sqlHandler.executeUpdateAndCommit(deleteSql, defaultDatabase.getDataSource());
+                executeRegistryUpdate("delete", executedScript.getScript().getFileName(), deleteSql);
             }
         }
     }
@@ -270,7 +344,7 @@ public class DefaultExecutedScriptInfoSource implements ExecutedScriptInfoSource
                 executedScriptsIterator.remove();
                 String deleteSql = "delete from " + getQualifiedExecutedScriptsTableName() +
                         " where " + fileNameColumnName + " = '" + executedScript.getScript().getFileName() + "'";
-                sqlHandler.executeUpdateAndCommit(deleteSql, defaultDatabase.getDataSource());
+                executeRegistryUpdate("delete", executedScript.getScript().getFileName(), deleteSql);
             }
         }
     }
@@ -283,7 +357,7 @@ public class DefaultExecutedScriptInfoSource implements ExecutedScriptInfoSource
         checkExecutedScriptsTable();
 
         String deleteSql = "delete from " + getQualifiedExecutedScriptsTableName();
-        sqlHandler.executeUpdateAndCommit(deleteSql, defaultDatabase.getDataSource());
+        executeRegistryUpdate("clear", null, deleteSql);
 
         resetCachedState();
     }
@@ -296,7 +370,7 @@ public class DefaultExecutedScriptInfoSource implements ExecutedScriptInfoSource
         checkExecutedScriptsTable();
 
         String deleteSql = "update " + getQualifiedExecutedScriptsTableName() + " set " + succeededColumnName + "=1 where " + succeededColumnName + "=0";
-        sqlHandler.executeUpdateAndCommit(deleteSql, defaultDatabase.getDataSource());
+        executeRegistryUpdate("markErrorScriptsAsSuccessful", null, deleteSql);
 
         resetCachedState();
     }
@@ -308,12 +382,29 @@ public class DefaultExecutedScriptInfoSource implements ExecutedScriptInfoSource
         checkExecutedScriptsTable();
 
         String deleteSql = "delete from " + getQualifiedExecutedScriptsTableName() + " where " + succeededColumnName + "=0";
-        sqlHandler.executeUpdateAndCommit(deleteSql, defaultDatabase.getDataSource());
+        executeRegistryUpdate("removeErrorScripts", null, deleteSql);
 
         resetCachedState();
     }
 
 
+    /**
+     * Executes and commits the given update on the executed scripts table.
+     *
+     * @param operation  The kind of update, used for the flight recorder event, not null
+     * @param scriptName The name of the updated script, null if the update concerns multiple scripts
+     * @param sql        The update statement, not null
+     */
+    protected void executeRegistryUpdate(String operation, String scriptName, String sql) {
+        FlightRecorderEvent event = beginRegistryWrite(operation, scriptName);
+        try {
+            sqlHandler.executeUpdateAndCommit(sql, defaultDatabase.getDataSource());
+        } finally {
+            event.end();
+        }
+    }
+
+
     /**
      * Checks if the version table and columns are available and if a record exists in which the version info is stored.
      * If not, the table, columns and record are created if auto-create is true, else an exception is raised.
@@ -327,6 +418,7 @@ public class DefaultExecutedScriptInfoSource implements ExecutedScriptInfoSource
         // check valid
         if (isExecutedScriptsTableValid()) {
             validExecutedScriptsTable = true;
+            checkOptionalColumns();
             return true;
         }
 
@@ -334,6 +426,8 @@ public class DefaultExecutedScriptInfoSource implements ExecutedScriptInfoSource
         if (autoCreateExecutedScriptsTable) {
             logger.info("Executed scripts table " + getQualifiedExecutedScriptsTableName() + " doesn't exist yet or is invalid. A new one is created automatically.");
             createExecutedScriptsTable();
+            executionStatisticsColumnsAvailable = executionTimeColumnName != null;
+            checkpointColumnsAvailable = checkpointStatementNrColumnName != null;
             return false;
         }
 
@@ -368,6 +462,51 @@ public class DefaultExecutedScriptInfoSource implements ExecutedScriptInfoSource
         return false;
     }
 
+    /**
+     * Checks whether the optional columns for the execution statistics and statement checkpoints are available.
+     * Scripts tables that were created by older versions do not have these columns.
+     */
+    protected void checkOptionalColumns() {
+        executionStatisticsColumnsAvailable = executionTimeColumnName != null && checkOptionalColumns(asList(executionTimeColumnName, statementCountColumnName, scriptSizeColumnName),
+                "Execution statistics are not recorded, so no progress estimates based on previous updates can be made.");
+        checkpointColumnsAvailable = checkpointStatementNrColumnName != null && checkOptionalColumns(asList(checkpointStatementNrColumnName, checkpointOffsetColumnName),
+                "Statement checkpoints are not recorded, so failed scripts cannot be resumed.");
+    }
+
+    /**
+     * If auto-create is true, missing columns are added, otherwise the feature that needs them is not available.
+     *
+     * @param optionalColumnNames The names of the columns, not null
+     * @param unavailableMessage  The message to log when the columns are not available, not null
+     * @return True if the columns are available
+     */
+    protected boolean checkOptionalColumns(List<String> optionalColumnNames, String unavailableMessage) {
+        Set<String> columnNames = defaultDatabase.getColumnNames(defaultDatabase.getDefaultSchemaName(), executedScriptsTableName);
+        List<String> missingColumnNames = new ArrayList<>();
+        for (String columnName : optionalColumnNames) {
+            if (!columnNames.contains(columnName)) {
+                missingColumnNames.add(columnName);
+            }
+        }
+        if (missingColumnNames.isEmpty()) {
+            return true;
+        }
+        if (!autoCreateExecutedScriptsTable) {
+            logger.info("Executed scripts table " + getQualifiedExecutedScriptsTableName() + " has no columns " + missingColumnNames + ". " + unavailableMessage);
+            return false;
+        }
+        try {
+            for (String missingColumnName : missingColumnNames) {
+                sqlHandler.executeUpdateAndCommit("alter table " + getQualifiedExecutedScriptsTableName() + " add " + missingColumnName + " " + defaultDatabase.getLongDataType(), defaultDatabase.getDataSource());
+            }
+            logger.info("Added columns " + missingColumnNames + " to executed scripts table " + getQualifiedExecutedScriptsTableName() + ".");
+            return true;
+        } catch (DbMaintainException e) {
+            logger.warn("Unable to add columns " + missingColumnNames + " to executed scripts table " + getQualifiedExecutedScriptsTableName() + ". " + unavailableMessage, e);
+            return false;
+        }
+    }
+
     /**
      * Creates the version table and inserts a version record.
      */
@@ -393,7 +532,11 @@ public class DefaultExecutedScriptInfoSource implements ExecutedScriptInfoSource
                 fileLastModifiedAtColumnName + " " + defaultDatabase.getLongDataType() + ", " +
                 checksumColumnName + " " + defaultDatabase.getTextDataType(checksumColumnSize) + ", " +
                 executedAtColumnName + " " + defaultDatabase.getTextDataType(executedAtColumnSize) + ", " +
-                succeededColumnName + " " + longDataType + " )";
+                succeededColumnName + " " + longDataType +
+                (executionTimeColumnName == null ? "" : ", " + executionTimeColumnName + " " + longDataType + ", " +
+                        statementCountColumnName + " " + longDataType + ", " + scriptSizeColumnName + " " + longDataType) +
+                (checkpointStatementNrColumnName == null ? "" : ", " + checkpointStatementNrColumnName + " " + longDataType + ", " +
+                        checkpointOffsetColumnName + " " + longDataType) + " )";
     }
 
     protected String getQualifiedExecutedScriptsTableName() {
@@ -401,10 +544,11 @@ public class DefaultExecutedScriptInfoSource implements ExecutedScriptInfoSource
     }
 
     /**
-     * Resets the cached state, for example when the scripts table was modified by another process.
-     * The scripts will be reloaded the next time.
+     * Resets the cached state, for example when the scripts table was modified or dropped by another process.
+     * The scripts table will be checked again and the scripts will be reloaded the next time.
      */
     public void resetCachedState() {
         cachedExecutedScripts = null;
+        validExecutedScriptsTable = false;
     }
 }
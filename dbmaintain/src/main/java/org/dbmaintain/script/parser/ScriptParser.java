@@ -32,4 +32,27 @@ public interface ScriptParser {
      */
     String getNextStatement();
 
+    /**
+     * Gets the position in the script of the statement that was last returned by {@link #getNextStatement()}. This is
+     * the offset of the first character of the statement that is not whitespace or comment.
+     *
+     * @return the offset of the statement (0-based), -1 if no statement was returned yet
+     */
+    long getCurrentStatementOffset();
+
+    /**
+     * Gets the line on which the statement that was last returned by {@link #getNextStatement()} starts.
+     *
+     * @return the line nr of the statement (1-based), -1 if no statement was returned yet
+     */
+    int getCurrentStatementLineNr();
+
+    /**
+     * Gets the position in the script right after the statement that was last returned by {@link #getNextStatement()}.
+     * Parsing can be continued at this position with a new parser, e.g. to resume the execution of a script.
+     *
+     * @return the offset right after the statement (0-based), 0 if no statement was returned yet
+     */
+    long getCurrentOffset();
+
 }
@@ -70,6 +70,18 @@ public class DefaultScriptParser implements ScriptParser {
      */
     protected Character currentChar, nextChar;
 
+    /**
+     * The offset and line nr of the current parsed character
+     */
+    protected long currentCharOffset = 0;
+    protected int currentLineNr = 1;
+
+    /**
+     * The offset and line nr of the last returned statement, -1 if no statement was returned yet
+     */
+    protected long currentStatementOffset = -1;
+    protected int currentStatementLineNr = -1;
+
 
     /**
      * Constructor for DefaultScriptParser.
@@ -111,6 +123,8 @@ public class DefaultScriptParser implements ScriptParser {
      */
     protected String getNextStatementImpl() throws IOException {
         StatementBuilder statementBuilder = createStatementBuilder();
+        long statementOffset = -1;
+        int statementLineNr = -1;
         // Make sure that we read currentChar when we start reading a new script. If not null, currentChar was already
         // set to the first character of the next statement when we read the previous statement.
         if (currentChar == null) {
@@ -122,9 +136,20 @@ public class DefaultScriptParser implements ScriptParser {
             }
             nextChar = readNextCharacter();
             statementBuilder.addCharacter(currentChar, nextChar);
+            if (statementOffset == -1 && statementBuilder.hasExecutableContent()) {
+                // remember where the actual statement starts, leading whitespace and comments are skipped
+                statementOffset = currentCharOffset;
+                statementLineNr = currentLineNr;
+            }
+            if (currentChar != null && currentChar == '\n') {
+                currentLineNr++;
+            }
+            currentCharOffset++;
             currentChar = nextChar;
             if (statementBuilder.isComplete()) {
                 if (statementBuilder.hasExecutableContent()) {
+                    currentStatementOffset = statementOffset;
+                    currentStatementLineNr = statementLineNr;
                     return statementBuilder.buildStatement();
                 }
                 statementBuilder = createStatementBuilder();
@@ -136,6 +161,19 @@ public class DefaultScriptParser implements ScriptParser {
         return null;
     }
 
+    public long getCurrentStatementOffset() {
+        return currentStatementOffset;
+    }
+
+    public int getCurrentStatementLineNr() {
+        return currentStatementLineNr;
+    }
+
+    public long getCurrentOffset() {
+        return currentCharOffset;
+    }
+
+
     protected Character readNextCharacter() throws IOException {
         int charAsInt = scriptReader.read();
         return charAsInt == -1 ? null : (char) charAsInt;
@@ -0,0 +1,266 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.script.plan;
+
+import org.dbmaintain.script.ExecutedScript;
+import org.dbmaintain.util.DbMaintainException;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The actions of a database update that were computed in advance, so that the update can be applied later without
+ * analyzing the scripts again. The plan contains a fingerprint of the executed scripts table at the time the plan
+ * was made: the plan can only be applied if the table is still in that state.
+ * <p>
+ * The plan is stored in a compact binary format, see {@link #writeTo} and {@link #readFrom}.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class UpdatePlan {
+
+    /* Identifies a plan file and the version of its format */
+    private static final int MAGIC_NUMBER = 0x44424D50;
+    private static final int FORMAT_VERSION = 1;
+
+    private String executedScriptsFingerprint;
+    /* True if the database is cleared and all scripts are executed */
+    private boolean recreateFromScratch;
+    /* False if there are only repeatable script deletions or renames, in which case no post processing is done */
+    private boolean postProcessing;
+
+    private List<PlannedScript> preProcessingScripts = new ArrayList<>();
+    private List<PlannedScript> scripts = new ArrayList<>();
+    private List<PlannedScript> postProcessingScripts = new ArrayList<>();
+    private List<PlannedScript> deletedRepeatableScripts = new ArrayList<>();
+    private List<PlannedScript> renamedScripts = new ArrayList<>();
+
+
+    /**
+     * @param executedScriptsFingerprint The fingerprint of the executed scripts, see {@link #getFingerprint}, not null
+     * @param recreateFromScratch        True if the database is cleared and all scripts are executed
+     * @param postProcessing             True if the post processing scripts are executed and the post processing actions are performed
+     */
+    public UpdatePlan(String executedScriptsFingerprint, boolean recreateFromScratch, boolean postProcessing) {
+        this.executedScriptsFingerprint = executedScriptsFingerprint;
+        this.recreateFromScratch = recreateFromScratch;
+        this.postProcessing = postProcessing;
+    }
+
+
+    public String getExecutedScriptsFingerprint() {
+        return executedScriptsFingerprint;
+    }
+
+    public boolean isRecreateFromScratch() {
+        return recreateFromScratch;
+    }
+
+    public boolean isPostProcessing() {
+        return postProcessing;
+    }
+
+    /**
+     * @return True if the plan contains no actions, i.e. the database is up to date
+     */
+    public boolean isEmpty() {
+        return !recreateFromScratch && scripts.isEmpty() && deletedRepeatableScripts.isEmpty() && renamedScripts.isEmpty();
+    }
+
+    /**
+     * @return The preprocessing scripts, in execution order, not null
+     */
+    public List<PlannedScript> getPreProcessingScripts() {
+        return preProcessingScripts;
+    }
+
+    /**
+     * @return The incremental and repeatable scripts to execute, in execution order, not null
+     */
+    public List<PlannedScript> getScripts() {
+        return scripts;
+    }
+
+    /**
+     * @return The postprocessing scripts, in execution order, not null
+     */
+    public List<PlannedScript> getPostProcessingScripts() {
+        return postProcessingScripts;
+    }
+
+    /**
+     * @return The deleted repeatable scripts that are removed from the executed scripts, not null
+     */
+    public List<PlannedScript> getDeletedRepeatableScripts() {
+        return deletedRepeatableScripts;
+    }
+
+    /**
+     * @return The scripts that are renamed in the executed scripts, with the new name as renamed to file name, not null
+     */
+    public List<PlannedScript> getRenamedScripts() {
+        return renamedScripts;
+    }
+
+
+    /**
+     * Computes a fingerprint of the given executed scripts: the file name, check sum and success flag of every
+     * executed script.
+     *
+     * @param executedScripts The executed scripts, not null
+     * @return The fingerprint, not null
+     */
+    public static String getFingerprint(Collection<ExecutedScript> executedScripts) {
+        TreeMap<String, String> sortedEntries = new TreeMap<>();
+        for (ExecutedScript executedScript : executedScripts) {
+            sortedEntries.put(executedScript.getScript().getFileName(), executedScript.getScript().getCheckSum() + "|" + executedScript.isSuccessful());
+        }
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+            for (String fileName : sortedEntries.keySet()) {
+                messageDigest.update((fileName + "|" + sortedEntries.get(fileName) + "\n").getBytes(UTF_8));
+            }
+            StringBuilder result = new StringBuilder();
+            for (byte b : messageDigest.digest()) {
+                result.append(Integer.toString((b & 0xff) + 0x100, 16).substring(1));
+            }
+            return result.toString();
+        } catch (Exception e) {
+            throw new DbMaintainException("Unable to calculate fingerprint of executed scripts.", e);
+        }
+    }
+
+
+    /**
+     * Writes the plan. The stream is not closed.
+     *
+     * @param outputStream The stream to write to, not null
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        dataOutputStream.writeInt(MAGIC_NUMBER);
+        dataOutputStream.writeInt(FORMAT_VERSION);
+        dataOutputStream.writeUTF(executedScriptsFingerprint);
+        dataOutputStream.writeBoolean(recreateFromScratch);
+        dataOutputStream.writeBoolean(postProcessing);
+        writePlannedScripts(preProcessingScripts, dataOutputStream);
+        writePlannedScripts(scripts, dataOutputStream);
+        writePlannedScripts(postProcessingScripts, dataOutputStream);
+        writePlannedScripts(deletedRepeatableScripts, dataOutputStream);
+        writePlannedScripts(renamedScripts, dataOutputStream);
+        dataOutputStream.flush();
+    }
+
+    /**
+     * Reads a plan that was written by {@link #writeTo}. The stream is not closed.
+     *
+     * @param inputStream The stream to read from, not null
+     * @return The plan, not null
+     */
+    public static UpdatePlan readFrom(InputStream inputStream) throws IOException {
+        DataInputStream dataInputStream = new DataInputStream(inputStream);
+        if (dataInputStream.readInt() != MAGIC_NUMBER) {
+            throw new DbMaintainException("Unable to read update plan: this is not an update plan file.");
+        }
+        int formatVersion = dataInputStream.readInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new DbMaintainException("Unable to read update plan: unsupported format version " + formatVersion + ".");
+        }
+        UpdatePlan updatePlan = new UpdatePlan(dataInputStream.readUTF(), dataInputStream.readBoolean(), dataInputStream.readBoolean());
+        readPlannedScripts(updatePlan.preProcessingScripts, dataInputStream);
+        readPlannedScripts(updatePlan.scripts, dataInputStream);
+        readPlannedScripts(updatePlan.postProcessingScripts, dataInputStream);
+        readPlannedScripts(updatePlan.deletedRepeatableScripts, dataInputStream);
+        readPlannedScripts(updatePlan.renamedScripts, dataInputStream);
+        return updatePlan;
+    }
+
+
+    protected void writePlannedScripts(List<PlannedScript> plannedScripts, DataOutputStream dataOutputStream) throws IOException {
+        dataOutputStream.writeInt(plannedScripts.size());
+        for (PlannedScript plannedScript : plannedScripts) {
+            dataOutputStream.writeUTF(plannedScript.getFileName());
+            writeOptionalString(plannedScript.getCheckSum(), dataOutputStream);
+            writeOptionalString(plannedScript.getRenamedToFileName(), dataOutputStream);
+        }
+    }
+
+    protected static void readPlannedScripts(List<PlannedScript> plannedScripts, DataInputStream dataInputStream) throws IOException {
+        int nrOfPlannedScripts = dataInputStream.readInt();
+        for (int i = 0; i < nrOfPlannedScripts; i++) {
+            plannedScripts.add(new PlannedScript(dataInputStream.readUTF(), readOptionalString(dataInputStream), readOptionalString(dataInputStream)));
+        }
+    }
+
+    protected void writeOptionalString(String value, DataOutputStream dataOutputStream) throws IOException {
+        dataOutputStream.writeBoolean(value != null);
+        if (value != null) {
+            dataOutputStream.writeUTF(value);
+        }
+    }
+
+    protected static String readOptionalString(DataInputStream dataInputStream) throws IOException {
+        if (!dataInputStream.readBoolean()) {
+            return null;
+        }
+        return dataInputStream.readUTF();
+    }
+
+
+    /**
+     * A script in the plan, identified by its file name.
+     */
+    public static class PlannedScript {
+
+        private String fileName;
+        private String checkSum;
+        private String renamedToFileName;
+
+        /**
+         * @param fileName          The file name of the script, not null
+         * @param checkSum          The expected check sum of the script, null if the content of the script is not needed
+         * @param renamedToFileName The new name of a renamed script, null if the script is not renamed
+         */
+        public PlannedScript(String fileName, String checkSum, String renamedToFileName) {
+            this.fileName = fileName;
+            this.checkSum = checkSum;
+            this.renamedToFileName = renamedToFileName;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public String getCheckSum() {
+            return checkSum;
+        }
+
+        public String getRenamedToFileName() {
+            return renamedToFileName;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.script.progress;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dbmaintain.script.ExecutedScript;
+import org.dbmaintain.script.Script;
+import org.dbmaintain.script.ScriptContentHandle;
+
+import java.util.*;
+
+/**
+ * Reports the progress of a database update, together with an estimate of the remaining time.
+ * <p>
+ * The time needed for a script is estimated as follows:
+ * <ul>
+ * <li>the execution time of the previous execution of the script, if it was recorded</li>
+ * <li>otherwise, the size of the script multiplied by the average time per byte of the previous executions</li>
+ * <li>if there are no previous executions, the size of the script multiplied by the average time per byte of the
+ * scripts that were already executed during this update</li>
+ * </ul>
+ * The progress is logged and passed to the registered listeners after every script.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class ProgressReporter {
+
+    /* The logger instance for this class */
+    private static Log logger = LogFactory.getLog(ProgressReporter.class);
+
+    /* The recorded execution times in ms of the previous executions per script file name */
+    protected Map<String, Long> previousExecutionTimes = new HashMap<>();
+    /* The average nr of ms per byte of the previous executions, -1 if unknown */
+    protected double previousTimePerByte = -1;
+    protected List<ProgressListener> progressListeners;
+
+    /* The estimated execution time in ms of the scripts that are not executed yet, -1 if it has to be estimated using the size */
+    protected Map<Script, Long> remainingScriptEstimates = new HashMap<>();
+    protected long remainingEstimatedTime;
+    protected long remainingNotEstimatedBytes;
+
+    protected int nrOfScripts;
+    protected int nrOfExecutedScripts;
+    protected long elapsedTime;
+    protected long executedBytes;
+
+
+    /**
+     * @param previouslyExecutedScripts The scripts as registered in the executed scripts table before the update, not null
+     * @param progressListeners         The listeners to notify, not null
+     */
+    public ProgressReporter(Collection<ExecutedScript> previouslyExecutedScripts, List<ProgressListener> progressListeners) {
+        this.progressListeners = progressListeners;
+
+        long totalTime = 0, totalBytes = 0;
+        for (ExecutedScript executedScript : previouslyExecutedScripts) {
+            Long executionTime = executedScript.getExecutionTime();
+            if (executionTime == null || !Boolean.TRUE.equals(executedScript.isSuccessful())) {
+                continue;
+            }
+            previousExecutionTimes.put(executedScript.getScript().getFileName(), executionTime);
+            Long scriptSize = executedScript.getScriptSize();
+            if (scriptSize != null && scriptSize > 0) {
+                totalTime += executionTime;
+                totalBytes += scriptSize;
+            }
+        }
+        if (totalBytes > 0) {
+            previousTimePerByte = (double) totalTime / totalBytes;
+        }
+    }
+
+
+    /**
+     * Registers scripts that will be executed during the update.
+     *
+     * @param scripts The scripts, not null
+     */
+    public void addScripts(Collection<Script> scripts) {
+        for (Script script : scripts) {
+            long estimate = getPreviousExecutionTimeEstimate(script);
+            if (estimate >= 0) {
+                remainingEstimatedTime += estimate;
+            } else {
+                remainingNotEstimatedBytes += getScriptSize(script);
+            }
+            remainingScriptEstimates.put(script, estimate);
+            nrOfScripts++;
+        }
+    }
+
+    /**
+     * Registers the execution of a script, and reports the progress.
+     *
+     * @param script        The executed script, not null
+     * @param executionTime The execution time in ms
+     */
+    public void scriptExecuted(Script script, long executionTime) {
+        nrOfExecutedScripts++;
+        elapsedTime += executionTime;
+        long scriptSize = getScriptSize(script);
+        executedBytes += scriptSize;
+
+        Long estimate = remainingScriptEstimates.remove(script);
+        if (estimate != null && estimate >= 0) {
+            remainingEstimatedTime -= estimate;
+        } else if (estimate != null) {
+            remainingNotEstimatedBytes -= scriptSize;
+        }
+
+        UpdateProgress updateProgress = new UpdateProgress(script, nrOfExecutedScripts, nrOfScripts, elapsedTime, getEstimatedRemainingTime());
+        logProgress(updateProgress);
+        for (ProgressListener progressListener : progressListeners) {
+            progressListener.progress(updateProgress);
+        }
+    }
+
+
+    /**
+     * @return The estimated time in ms for the scripts that are not executed yet, -1 if no estimate can be made
+     */
+    protected long getEstimatedRemainingTime() {
+        if (remainingNotEstimatedBytes <= 0) {
+            return remainingEstimatedTime;
+        }
+        if (executedBytes <= 0) {
+            return -1;
+        }
+        // use the speed of the scripts executed so far for the scripts for which there is no history
+        double currentTimePerByte = (double) elapsedTime / executedBytes;
+        return remainingEstimatedTime + (long) (currentTimePerByte * remainingNotEstimatedBytes);
+    }
+
+    /**
+     * @param script The script, not null
+     * @return The estimated time in ms based on the previous executions, -1 if there is no history
+     */
+    protected long getPreviousExecutionTimeEstimate(Script script) {
+        Long previousExecutionTime = previousExecutionTimes.get(script.getFileName());
+        if (previousExecutionTime != null) {
+            return previousExecutionTime;
+        }
+        if (previousTimePerByte >= 0) {
+            return (long) (previousTimePerByte * getScriptSize(script));
+        }
+        return -1;
+    }
+
+    protected long getScriptSize(Script script) {
+        ScriptContentHandle scriptContentHandle = script.getScriptContentHandle();
+        if (scriptContentHandle == null) {
+            return 0;
+        }
+        // the script size is known once the check sum is calculated, which is needed anyway to register the script
+        script.getCheckSum();
+        return scriptContentHandle.getCheckSumNrOfBytes();
+    }
+
+    protected void logProgress(UpdateProgress updateProgress) {
+        String message = "Progress: " + updateProgress.getNrOfExecutedScripts() + "/" + updateProgress.getNrOfScripts() + " scripts (" +
+                updateProgress.getPercentageComplete() + "%), elapsed " + formatTime(updateProgress.getElapsedTime());
+        if (updateProgress.getEstimatedRemainingTime() >= 0) {
+            message += ", estimated remaining " + formatTime(updateProgress.getEstimatedRemainingTime());
+        }
+        logger.info(message);
+    }
+
+    protected String formatTime(long timeInMs) {
+        long seconds = timeInMs / 1000;
+        if (seconds < 60) {
+            return seconds + "s";
+        }
+        if (seconds < 3600) {
+            return (seconds / 60) + "m " + (seconds % 60) + "s";
+        }
+        return (seconds / 3600) + "h " + (seconds % 3600 / 60) + "m";
+    }
+}
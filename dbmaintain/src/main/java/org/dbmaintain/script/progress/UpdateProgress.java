@@ -0,0 +1,84 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.script.progress;
+
+import org.dbmaintain.script.Script;
+
+/**
+ * The progress of a database update after the execution of a script.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class UpdateProgress {
+
+    private Script lastExecutedScript;
+    private int nrOfExecutedScripts;
+    private int nrOfScripts;
+    private long elapsedTime;
+    private long estimatedRemainingTime;
+
+
+    /**
+     * @param lastExecutedScript     The script that was executed last, not null
+     * @param nrOfExecutedScripts    The nr of scripts that were executed so far
+     * @param nrOfScripts            The total nr of scripts that are executed during the update
+     * @param elapsedTime            The time in ms spent executing scripts so far
+     * @param estimatedRemainingTime The estimated time in ms needed to execute the remaining scripts, -1 if unknown
+     */
+    public UpdateProgress(Script lastExecutedScript, int nrOfExecutedScripts, int nrOfScripts, long elapsedTime, long estimatedRemainingTime) {
+        this.lastExecutedScript = lastExecutedScript;
+        this.nrOfExecutedScripts = nrOfExecutedScripts;
+        this.nrOfScripts = nrOfScripts;
+        this.elapsedTime = elapsedTime;
+        this.estimatedRemainingTime = estimatedRemainingTime;
+    }
+
+
+    public Script getLastExecutedScript() {
+        return lastExecutedScript;
+    }
+
+    public int getNrOfExecutedScripts() {
+        return nrOfExecutedScripts;
+    }
+
+    public int getNrOfScripts() {
+        return nrOfScripts;
+    }
+
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    public long getEstimatedRemainingTime() {
+        return estimatedRemainingTime;
+    }
+
+    /**
+     * @return The percentage of the update that is done, based on the estimated remaining time if known, otherwise
+     *         on the nr of executed scripts
+     */
+    public int getPercentageComplete() {
+        if (estimatedRemainingTime >= 0 && elapsedTime + estimatedRemainingTime > 0) {
+            return (int) (100 * elapsedTime / (elapsedTime + estimatedRemainingTime));
+        }
+        if (nrOfScripts == 0) {
+            return 100;
+        }
+        return 100 * nrOfExecutedScripts / nrOfScripts;
+    }
+}
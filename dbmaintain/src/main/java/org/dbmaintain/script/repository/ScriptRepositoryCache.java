@@ -0,0 +1,149 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.script.repository;
+
+import org.dbmaintain.util.DbMaintainException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
+
+/**
+ * Keeps script repositories between operations, so that the script locations are only scanned, and the check sums of
+ * the scripts only calculated, once. A repository is cached per configuration.
+ * <p>
+ * Every time a cached repository is requested, the names, sizes and last modification times of all files in the
+ * script locations are compared with the ones at the time the repository was created. If a file was added, removed
+ * or modified, the script locations are scanned again. This is a lot cheaper than calculating the check sums, and does
+ * not depend on file system notifications that may arrive too late.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class ScriptRepositoryCache {
+
+    /* The cached repositories per configuration key */
+    private Map<String, ScriptRepository> scriptRepositories = new HashMap<>();
+    /* The fingerprint of the script location files of the cached repositories per configuration key */
+    private Map<String, String> scriptLocationFingerprints = new HashMap<>();
+
+
+    /**
+     * @param configuration            The configuration of the repository, not null
+     * @param scriptRepositorySupplier Creates the repository if it is not cached yet, not null
+     * @return The cached repository for the given configuration, not null
+     */
+    public ScriptRepository getScriptRepository(Properties configuration, Supplier<ScriptRepository> scriptRepositorySupplier) {
+        return getScriptRepository(configuration, emptyList(), scriptRepositorySupplier);
+    }
+
+    /**
+     * @param configuration            The configuration of the repository, not null
+     * @param scriptLocationFiles      The script directories or archive files of the repository, not null
+     * @param scriptRepositorySupplier Creates the repository if it is not cached yet or if the script locations changed, not null
+     * @return The cached repository for the given configuration, not null
+     */
+    public synchronized ScriptRepository getScriptRepository(Properties configuration, Collection<File> scriptLocationFiles, Supplier<ScriptRepository> scriptRepositorySupplier) {
+        String configurationKey = getConfigurationKey(configuration);
+        // the fingerprint is taken before scanning: a file that changes during the scan is detected by the next request
+        String scriptLocationFingerprint = getScriptLocationFingerprint(scriptLocationFiles);
+        ScriptRepository scriptRepository = scriptRepositories.get(configurationKey);
+        if (scriptRepository == null || !scriptLocationFingerprint.equals(scriptLocationFingerprints.get(configurationKey))) {
+            scriptRepository = scriptRepositorySupplier.get();
+            scriptRepositories.put(configurationKey, scriptRepository);
+            scriptLocationFingerprints.put(configurationKey, scriptLocationFingerprint);
+        }
+        return scriptRepository;
+    }
+
+    /**
+     * Removes all cached repositories: the script locations will be scanned again for the next operation.
+     */
+    public synchronized void invalidate() {
+        scriptRepositories.clear();
+        scriptLocationFingerprints.clear();
+    }
+
+
+    /**
+     * @param configuration The configuration, not null
+     * @return A key containing all properties of the configuration, in a fixed order, not null
+     */
+    public static String getConfigurationKey(Properties configuration) {
+        StringBuilder configurationKey = new StringBuilder();
+        for (String propertyName : new TreeSet<>(configuration.stringPropertyNames())) {
+            configurationKey.append(propertyName).append('=').append(configuration.getProperty(propertyName)).append('\n');
+        }
+        return configurationKey.toString();
+    }
+
+    /**
+     * @param scriptLocationFiles The script directories or archive files, not null
+     * @return A fingerprint of the names, sizes and last modification times of all files in the locations, not null
+     */
+    protected String getScriptLocationFingerprint(Collection<File> scriptLocationFiles) {
+        try {
+            // sorted, since the order in which the files of a directory are listed is not fixed
+            TreeSet<String> fileEntries = new TreeSet<>();
+            for (File scriptLocationFile : scriptLocationFiles) {
+                if (!scriptLocationFile.exists()) {
+                    fileEntries.add(scriptLocationFile + "|missing");
+                    continue;
+                }
+                Files.walkFileTree(scriptLocationFile.toPath(), new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                        fileEntries.add(file + "|" + attributes.size() + "|" + attributes.lastModifiedTime().toMillis());
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) {
+                        // the file was removed while walking the location
+                        fileEntries.add(file + "|missing");
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            }
+            MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+            for (String fileEntry : fileEntries) {
+                messageDigest.update((fileEntry + "\n").getBytes(UTF_8));
+            }
+            StringBuilder result = new StringBuilder();
+            for (byte b : messageDigest.digest()) {
+                result.append(Integer.toString((b & 0xff) + 0x100, 16).substring(1));
+            }
+            return result.toString();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new DbMaintainException("Unable to check the script locations " + scriptLocationFiles + " for changes.", e);
+        }
+    }
+}
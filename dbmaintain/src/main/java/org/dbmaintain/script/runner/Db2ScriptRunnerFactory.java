@@ -17,8 +17,10 @@ package org.dbmaintain.script.runner;
 
 import org.dbmaintain.config.FactoryWithDatabase;
 import org.dbmaintain.config.PropertyUtils;
+import org.dbmaintain.script.runner.impl.db2.Db2BatchScriptRunner;
 import org.dbmaintain.script.runner.impl.db2.Db2ScriptRunner;
 
+import static org.dbmaintain.config.DbMaintainProperties.PROPERTY_DB2_BATCH_ENABLED;
 import static org.dbmaintain.config.DbMaintainProperties.PROPERTY_DB2_COMMAND;
 
 /**
@@ -30,6 +32,9 @@ public class Db2ScriptRunnerFactory extends FactoryWithDatabase<ScriptRunner> {
 
     public ScriptRunner createInstance() {
         String db2Command = PropertyUtils.getString(PROPERTY_DB2_COMMAND, getConfiguration());
+        if (PropertyUtils.getBoolean(PROPERTY_DB2_BATCH_ENABLED, false, getConfiguration())) {
+            return new Db2BatchScriptRunner(getDatabases(), db2Command);
+        }
         return new Db2ScriptRunner(getDatabases(), db2Command);
     }
 }
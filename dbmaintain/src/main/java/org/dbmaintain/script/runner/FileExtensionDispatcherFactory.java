@@ -22,9 +22,11 @@ import java.util.Map;
 import org.dbmaintain.config.FactoryWithDatabase;
 import org.dbmaintain.config.PropertyUtils;
 import org.dbmaintain.script.runner.impl.FileExtensionDispatcher;
+import org.dbmaintain.script.runner.impl.StatementTimingJournal;
 import static org.dbmaintain.config.DbMaintainProperties.PROPERTY_SQL_PLUS_COMMAND;
 import static org.dbmaintain.config.DbMaintainProperties.PROPERTY_SQL_LOADER_COMMAND;
 import static org.dbmaintain.config.DbMaintainProperties.PROPERTY_CHMOD_COMMAND;
+import static org.dbmaintain.config.DbMaintainProperties.PROPERTY_RESUME_FAILED_SCRIPTS;
 
 /**
  *
@@ -37,6 +39,8 @@ public class FileExtensionDispatcherFactory extends FactoryWithDatabase<ScriptRu
         String sqlPlusCommand = PropertyUtils.getString(PROPERTY_SQL_PLUS_COMMAND, getConfiguration());
         String chmodCommand = PropertyUtils.getString(PROPERTY_CHMOD_COMMAND, getConfiguration());
         Map<String, ScriptParserFactory> databaseDialectScriptParserFactoryMap = factoryWithDatabaseContext.getDatabaseDialectScriptParserFactoryMap();
-        return new FileExtensionDispatcher(getDatabases(), getSqlHandler(), sqlLoaderCommand, sqlPlusCommand, chmodCommand, databaseDialectScriptParserFactoryMap);
+        StatementTimingJournal statementTimingJournal = factoryWithDatabaseContext.createStatementTimingJournal();
+        boolean resumeFailedScripts = PropertyUtils.getBoolean(PROPERTY_RESUME_FAILED_SCRIPTS, false, getConfiguration());
+        return new FileExtensionDispatcher(getDatabases(), getSqlHandler(), sqlLoaderCommand, sqlPlusCommand, chmodCommand, databaseDialectScriptParserFactoryMap, statementTimingJournal, factoryWithDatabaseContext.getMetrics(), resumeFailedScripts);
     }
 }
\ No newline at end of file
@@ -16,11 +16,15 @@
 package org.dbmaintain.script.runner;
 
 import org.dbmaintain.config.FactoryWithDatabase;
+import org.dbmaintain.config.PropertyUtils;
 import org.dbmaintain.script.parser.ScriptParserFactory;
 import org.dbmaintain.script.runner.impl.JdbcScriptRunner;
+import org.dbmaintain.script.runner.impl.StatementTimingJournal;
 
 import java.util.Map;
 
+import static org.dbmaintain.config.DbMaintainProperties.PROPERTY_RESUME_FAILED_SCRIPTS;
+
 /**
  * @author Tim Ducheyne
  * @author Filip Neven
@@ -30,7 +34,9 @@ public class JdbcScriptRunnerFactory extends FactoryWithDatabase<ScriptRunner> {
 
     public ScriptRunner createInstance() {
         Map<String, ScriptParserFactory> databaseDialectScriptParserFactoryMap = factoryWithDatabaseContext.getDatabaseDialectScriptParserFactoryMap();
-        return new JdbcScriptRunner(databaseDialectScriptParserFactoryMap, getDatabases(), getSqlHandler());
+        StatementTimingJournal statementTimingJournal = factoryWithDatabaseContext.createStatementTimingJournal();
+        boolean resumeFailedScripts = PropertyUtils.getBoolean(PROPERTY_RESUME_FAILED_SCRIPTS, false, getConfiguration());
+        return new JdbcScriptRunner(databaseDialectScriptParserFactoryMap, getDatabases(), getSqlHandler(), statementTimingJournal, factoryWithDatabaseContext.getMetrics(), resumeFailedScripts);
     }
 
 }
@@ -16,6 +16,8 @@
 package org.dbmaintain.script.runner;
 
 import org.dbmaintain.script.Script;
+import org.dbmaintain.script.StatementCheckpoint;
+import org.dbmaintain.util.DbMaintainException;
 
 
 /**
@@ -35,6 +37,46 @@ public interface ScriptRunner {
      */
     void execute(Script script);
 
+    /**
+     * Executes the given script, skipping the statements that were already committed by a previous execution
+     * that failed.
+     *
+     * @param script              A handle that provides access to the content of the script, not null
+     * @param statementCheckpoint The position up to which the previous execution was committed, null to execute the whole script
+     */
+    default void execute(Script script, StatementCheckpoint statementCheckpoint) {
+        if (statementCheckpoint != null) {
+            throw new DbMaintainException("Unable to resume script " + script.getFileName() + ": resuming a script is not supported by " + getClass().getSimpleName());
+        }
+        execute(script);
+    }
+
+    /**
+     * @return The position up to which the last call to execute committed the statements, null if not known by this runner
+     */
+    default StatementCheckpoint getLastStatementCheckpoint() {
+        return null;
+    }
+
+    /**
+     * @return The nr of statements that were executed by the last call to execute, -1 if not known by this runner
+     */
+    default int getLastExecutedStatementCount() {
+        return -1;
+    }
+
+    /**
+     * Indicates whether the given script can be executed together with other scripts in one grouped transaction,
+     * see {@link org.dbmaintain.database.SQLHandler#startGroupedTransaction()}. This is only possible if all
+     * changes of the script are made through the SQL handler and can be rolled back.
+     *
+     * @param script The script, not null
+     * @return True if the script can be executed in a grouped transaction
+     */
+    default boolean supportsGroupedTransaction(Script script) {
+        return false;
+    }
+
     /**
      * Initializes the script runner.
      */
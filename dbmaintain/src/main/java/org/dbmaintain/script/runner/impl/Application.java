@@ -26,11 +26,15 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import static java.util.Arrays.asList;
-import static org.apache.commons.lang3.StringUtils.isBlank;
 
 /**
+ * A native application that is executed as a separate process. The output is forwarded to the logger while
+ * the process is running. Only the last part of the output is kept, see {@link ProcessOutputBuffer}.
+ * If an error pattern is given, the process is stopped as soon as an error is detected in its output.
+ *
  * @author Tim Ducheyne
  * @author Filip Neven
  */
@@ -39,9 +43,15 @@ public class Application {
     /* The logger instance for this class */
     private static Log logger = LogFactory.getLog(Application.class);
 
+    /* The default max nr of chars of output that is kept for a process */
+    public static final int DEFAULT_MAX_OUTPUT_SIZE = 64 * 1024;
+
     private String name;
     private String command;
     private Map<String, String> environmentVariables;
+    /* The pattern that indicates an error in an output line, null if errors are not detected in the output */
+    private Pattern errorPattern;
+    private int maxOutputSize;
 
 
     public Application(String name, String command) {
@@ -49,9 +59,22 @@ public class Application {
     }
 
     public Application(String name, String command, Map<String, String> environmentVariables) {
+        this(name, command, environmentVariables, null, DEFAULT_MAX_OUTPUT_SIZE);
+    }
+
+    /**
+     * @param name                 The name of the application, used for logging, not null
+     * @param command              The command to execute, not null
+     * @param environmentVariables Extra environment variables for the process, not null
+     * @param errorPattern         The pattern that indicates an error in an output line, null to not detect errors
+     * @param maxOutputSize        The max nr of chars of output that is kept
+     */
+    public Application(String name, String command, Map<String, String> environmentVariables, Pattern errorPattern, int maxOutputSize) {
         this.name = name;
         this.command = command;
         this.environmentVariables = environmentVariables;
+        this.errorPattern = errorPattern;
+        this.maxOutputSize = maxOutputSize;
     }
 
 
@@ -62,25 +85,67 @@ public class Application {
     public ProcessOutput execute(boolean logCommand, String... arguments) {
         try {
             List<String> commandWithArguments = getProcessArguments(arguments);
+            logCommand(commandWithArguments, logCommand);
 
             ProcessBuilder processBuilder = createProcessBuilder(commandWithArguments);
             Process process = processBuilder.start();
-            OutputProcessor outputProcessor = new OutputProcessor(process);
+            OutputProcessor outputProcessor = new OutputProcessor(process, createOutputBuffer());
             outputProcessor.start();
             process.waitFor();
+            // make sure all output is read before it is returned
+            outputProcessor.join();
 
-            String output = outputProcessor.getOutput();
-            int exitValue = process.exitValue();
-
-            logOutput(commandWithArguments, output, logCommand);
-            return new ProcessOutput(output, exitValue);
+            ProcessOutputBuffer outputBuffer = outputProcessor.getOutputBuffer();
+            return new ProcessOutput(outputBuffer.getOutput(), process.exitValue(), outputBuffer.getFirstErrorLine());
 
         } catch (Exception e) {
         	throw new DbMaintainException("Failed to execute command: " + command + " " + e.getMessage(), e);
         }
     }
 
-    protected void logOutput(List<String> commandWithArguments, String output, boolean logCommand) {
+    /**
+     * Starts the application without waiting for it to finish. The error output is merged into the output.
+     * The caller is responsible for handling the streams of the process.
+     *
+     * @param arguments The arguments of the command, not null
+     * @return The started process, not null
+     */
+    public Process start(String... arguments) {
+        try {
+            List<String> commandWithArguments = getProcessArguments(arguments);
+            logger.debug(name + ": starting " + commandWithArguments);
+            return createProcessBuilder(commandWithArguments).start();
+
+        } catch (Exception e) {
+            throw new DbMaintainException("Failed to start command: " + command + " " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Stops the process if an error was detected in its output, so that the remaining commands are not executed.
+     * Nothing happens if no error was detected or if the process already ended.
+     *
+     * @param process      The process, not null
+     * @param outputBuffer The buffer with the output of the process, not null
+     * @return True if the process was stopped
+     */
+    public boolean stopOnError(Process process, ProcessOutputBuffer outputBuffer) {
+        if (outputBuffer.getFirstErrorLine() == null || !process.isAlive()) {
+            return false;
+        }
+        logger.warn(name + " is stopped because an error was detected.");
+        process.destroy();
+        return true;
+    }
+
+    /**
+     * @return A buffer for the output of a process of this application, not null
+     */
+    public ProcessOutputBuffer createOutputBuffer() {
+        return new ProcessOutputBuffer(name, errorPattern, maxOutputSize);
+    }
+
+    protected void logCommand(List<String> commandWithArguments, boolean logCommand) {
         StringBuilder command = new StringBuilder();
         if (logCommand) {
             for (String part : commandWithArguments) {
@@ -88,7 +153,7 @@ public class Application {
                 command.append(" ");
             }
         }
-        logger.debug(name + ": " + command + "\n" + output);
+        logger.debug(name + ": " + command);
     }
 
 
@@ -112,10 +177,16 @@ public class Application {
 
         private String output;
         private int exitValue;
+        private String firstErrorLine;
 
         public ProcessOutput(String output, int exitValue) {
+            this(output, exitValue, null);
+        }
+
+        public ProcessOutput(String output, int exitValue, String firstErrorLine) {
             this.output = output;
             this.exitValue = exitValue;
+            this.firstErrorLine = firstErrorLine;
         }
 
         public String getOutput() {
@@ -125,16 +196,28 @@ public class Application {
         public int getExitValue() {
             return exitValue;
         }
+
+        /**
+         * @return The first output line that matched the error pattern of the application, null if none matched
+         */
+        public String getFirstErrorLine() {
+            return firstErrorLine;
+        }
+
+        public boolean isErrorDetected() {
+            return firstErrorLine != null;
+        }
     }
 
 
     protected class OutputProcessor extends Thread {
 
-        private StringBuilder outputStringBuilder = new StringBuilder();
         private Process process;
+        private ProcessOutputBuffer outputBuffer;
 
-        public OutputProcessor(Process process) {
+        public OutputProcessor(Process process, ProcessOutputBuffer outputBuffer) {
             this.process = process;
+            this.outputBuffer = outputBuffer;
         }
 
         @Override
@@ -147,17 +230,19 @@ public class Application {
             }
         }
 
-        public String getOutput() {
-            return outputStringBuilder.toString();
+        public ProcessOutputBuffer getOutputBuffer() {
+            return outputBuffer;
         }
 
         protected void appendProcessOutput(Process process) throws IOException {
             try (BufferedReader outReader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                boolean stopped = false;
                 String line;
                 while ((line = outReader.readLine()) != null) {
-                    if (!isBlank(line)) {
-                        outputStringBuilder.append(line);
-                        outputStringBuilder.append('\n');
+                    outputBuffer.append(line);
+                    if (!stopped) {
+                        // keep reading the output that was written before the process was stopped
+                        stopped = stopOnError(process, outputBuffer);
                     }
                 }
             }
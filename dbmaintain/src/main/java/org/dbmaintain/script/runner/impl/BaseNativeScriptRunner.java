@@ -25,14 +25,20 @@ import org.dbmaintain.util.DbMaintainException;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.Reader;
+import java.io.InputStream;
+import java.nio.file.Files;
 
 import static java.lang.System.currentTimeMillis;
-import static org.dbmaintain.util.FileUtils.createFile;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.apache.commons.io.FileUtils.deleteQuietly;
 
 /**
  * Implementation of a script runner that uses the db's native
  * command line support, e.g. Oracle's SQL plus.
+ * <p>
+ * Scripts that are stored as a file on the local file system are passed to the command as is. Other scripts,
+ * e.g. scripts in an archive, are copied to a temporary file that is deleted after the script was executed.
+ * The temporary files are created in a workspace directory of the runner that is removed when the runner is closed.
  *
  * @author Tim Ducheyne
  * @author Filip Neven
@@ -43,6 +49,8 @@ public abstract class BaseNativeScriptRunner implements ScriptRunner {
     private static Log logger = LogFactory.getLog(BaseNativeScriptRunner.class);
 
     protected Databases databases;
+    /* The directory for the temporary files of this runner, null if not yet created */
+    protected File temporaryScriptsDir;
 
 
     public BaseNativeScriptRunner(Databases databases) {
@@ -53,8 +61,12 @@ public abstract class BaseNativeScriptRunner implements ScriptRunner {
         // override to perform extra initialization
     }
 
+    /**
+     * Removes the temporary files of this runner. Subclasses that perform extra finalization should also
+     * call {@link #deleteTemporaryScriptsDir()}.
+     */
     public void close() {
-        // override to perform extra finalization
+        deleteTemporaryScriptsDir();
     }
 
     /**
@@ -71,8 +83,17 @@ public abstract class BaseNativeScriptRunner implements ScriptRunner {
                 return;
             }
 
-            File scriptFile = createTemporaryScriptFile(script);
-            executeScript(scriptFile, targetDatabase);
+            File originalScriptFile = getOriginalScriptFile(script);
+            if (originalScriptFile != null) {
+                executeScript(originalScriptFile, targetDatabase);
+                return;
+            }
+            File temporaryScriptFile = createTemporaryScriptFile(script);
+            try {
+                executeScript(temporaryScriptFile, targetDatabase);
+            } finally {
+                deleteQuietly(temporaryScriptFile);
+            }
 
         } catch (Exception e) {
             throw new DbMaintainException("Error executing script " + script.getFileName(), e);
@@ -83,14 +104,41 @@ public abstract class BaseNativeScriptRunner implements ScriptRunner {
     protected abstract void executeScript(File scriptFile, Database targetDatabase) throws Exception;
 
 
-    protected File createTemporaryScriptFile(Script script) throws IOException {
-        File temporaryScriptsDir = createTemporaryScriptsDir();
-        temporaryScriptsDir.deleteOnExit();
-        File temporaryScriptFile = new File(temporaryScriptsDir, getTemporaryScriptName(script));
-        temporaryScriptFile.deleteOnExit();
+    /**
+     * Gets the file of the script if it can be passed to the command as is.
+     *
+     * @param script The script, not null
+     * @return The file, null if the script should be copied to a temporary file
+     */
+    protected File getOriginalScriptFile(Script script) {
+        File file = script.getScriptContentHandle().getFile();
+        if (file == null || !file.isFile() || !canUseOriginalScriptFile(file)) {
+            return null;
+        }
+        return file;
+    }
 
-        try (Reader scriptContentReader = script.getScriptContentHandle().openScriptContentReader()) {
-            createFile(temporaryScriptFile, scriptContentReader, script.getScriptContentHandle().getEncoding());
+    /**
+     * Override to indicate that the command cannot handle the given file, e.g. because of its name.
+     *
+     * @param file The file of the script, not null
+     * @return True if the file can be passed to the command as is
+     */
+    protected boolean canUseOriginalScriptFile(File file) {
+        return true;
+    }
+
+    /**
+     * Copies the content of the script to a file in the workspace directory. The bytes are copied as is,
+     * so the file has the same encoding as the script.
+     *
+     * @param script The script, not null
+     * @return The file, not null
+     */
+    protected File createTemporaryScriptFile(Script script) throws IOException {
+        File temporaryScriptFile = new File(createTemporaryScriptsDir(), getTemporaryScriptName(script));
+        try (InputStream scriptContentInputStream = script.getScriptContentHandle().openScriptContentInputStream()) {
+            Files.copy(scriptContentInputStream, temporaryScriptFile.toPath(), REPLACE_EXISTING);
         }
         return temporaryScriptFile;
     }
@@ -99,13 +147,21 @@ public abstract class BaseNativeScriptRunner implements ScriptRunner {
         return currentTimeMillis() + script.getFileNameWithoutPath();
     }
 
-    protected File createTemporaryScriptsDir() {
-        String tempDir = System.getProperty("java.io.tmpdir");
-        File temporaryScriptsDir = new File(tempDir, "dbmaintain");
-        temporaryScriptsDir.mkdirs();
+    /**
+     * @return The workspace directory of this runner, created in the system temp dir when first used, not null
+     */
+    protected File createTemporaryScriptsDir() throws IOException {
+        if (temporaryScriptsDir == null || !temporaryScriptsDir.isDirectory()) {
+            temporaryScriptsDir = Files.createTempDirectory("dbmaintain").toFile();
+        }
         return temporaryScriptsDir;
     }
 
+    protected void deleteTemporaryScriptsDir() {
+        deleteQuietly(temporaryScriptsDir);
+        temporaryScriptsDir = null;
+    }
+
     protected Database getTargetDatabaseDatabase(Script script) {
         String databaseName = script.getTargetDatabaseName();
         if (databaseName == null) {
@@ -17,15 +17,28 @@
 
 package org.dbmaintain.script.runner.impl;
 
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Set;
 import org.dbmaintain.database.Databases;
 import org.dbmaintain.database.SQLHandler;
+import org.dbmaintain.metrics.Metrics;
+import org.dbmaintain.metrics.impl.NoOpMetrics;
 import org.dbmaintain.script.Script;
+import org.dbmaintain.script.StatementCheckpoint;
 import org.dbmaintain.script.parser.ScriptParserFactory;
 import org.dbmaintain.script.runner.ScriptRunner;
+import org.dbmaintain.util.DbMaintainException;
+
+import static java.util.Collections.newSetFromMap;
 
 /**
- * Implementation of a script runner which calls other script runner depending on the file name suffix
+ * Implementation of a script runner which calls other script runner depending on the file name suffix.
+ * <p>
+ * The runners are created once and registered per file extension: SQL*Loader for ldr and ctl files, JDBC for
+ * sql files and the shell script runner for all other files. Other runners can be registered with
+ * {@link #registerScriptRunner(String, ScriptRunner)}. Initialize and close are forwarded to all runners.
  * 
  * @author Christian Liebhardt
  */
@@ -37,6 +50,16 @@ public class FileExtensionDispatcher implements ScriptRunner {
     protected String sqlPlusCommand;
     protected String chmodCommand;
     protected Map<String, ScriptParserFactory> databaseDialectScriptParserFactoryMap;
+    protected StatementTimingJournal statementTimingJournal;
+    protected Metrics metrics;
+    /* True if the statements of sql scripts are committed separately, so that failed scripts can be resumed */
+    protected boolean commitEachStatement;
+    /* The runners per file extension, the same runner can be registered for several extensions */
+    protected Map<String, ScriptRunner> scriptRunnersPerFileExtension = new HashMap<>();
+    /* The runner for scripts with an extension for which no runner is registered */
+    protected ScriptRunner defaultScriptRunner;
+    /* The runner that executed the last script */
+    protected ScriptRunner lastScriptRunner;
     
     public FileExtensionDispatcher(Databases databases, 
             SQLHandler sqlHandler,
@@ -44,33 +67,150 @@ public class FileExtensionDispatcher implements ScriptRunner {
             String sqlPlusCommand,
             String chmodCommand,
             Map<String, ScriptParserFactory> databaseDialectScriptParserFactoryMap) {
+        this(databases, sqlHandler, sqlLoaderCommand, sqlPlusCommand, chmodCommand, databaseDialectScriptParserFactoryMap, new StatementTimingJournal(-1, null), new NoOpMetrics());
+    }
+
+    public FileExtensionDispatcher(Databases databases, 
+            SQLHandler sqlHandler,
+            String sqlLoaderCommand,
+            String sqlPlusCommand,
+            String chmodCommand,
+            Map<String, ScriptParserFactory> databaseDialectScriptParserFactoryMap,
+            StatementTimingJournal statementTimingJournal,
+            Metrics metrics) {
+        this(databases, sqlHandler, sqlLoaderCommand, sqlPlusCommand, chmodCommand, databaseDialectScriptParserFactoryMap, statementTimingJournal, metrics, false);
+    }
+
+    public FileExtensionDispatcher(Databases databases, 
+            SQLHandler sqlHandler,
+            String sqlLoaderCommand,
+            String sqlPlusCommand,
+            String chmodCommand,
+            Map<String, ScriptParserFactory> databaseDialectScriptParserFactoryMap,
+            StatementTimingJournal statementTimingJournal,
+            Metrics metrics,
+            boolean commitEachStatement) {
         this.databases = databases;
         this.sqlHandler = sqlHandler;
         this.sqlLoaderCommand = sqlLoaderCommand;
         this.sqlPlusCommand = sqlPlusCommand;
         this.chmodCommand = chmodCommand;
         this.databaseDialectScriptParserFactoryMap = databaseDialectScriptParserFactoryMap;
+        this.statementTimingJournal = statementTimingJournal;
+        this.metrics = metrics;
+        this.commitEachStatement = commitEachStatement;
+        registerDefaultScriptRunners();
     }
 
     public void execute(Script script) {
-        if (script.getFileName().matches("^.*\\.(ldr|ctl)$")) {
-            ScriptRunner runner = new SqlLoaderScriptRunner(databases, sqlLoaderCommand);
-            runner.execute(script);
-        }
-        else if (script.getFileName().matches("^.*\\.sql$")) {
-            ScriptRunner runner = new JdbcScriptRunner(databaseDialectScriptParserFactoryMap, databases, sqlHandler);
-            runner.execute(script);
+        execute(script, null);
+    }
+
+    @Override
+    public void execute(Script script, StatementCheckpoint statementCheckpoint) {
+        lastScriptRunner = getScriptRunner(script);
+        lastScriptRunner.execute(script, statementCheckpoint);
+    }
+
+    public int getLastExecutedStatementCount() {
+        return lastScriptRunner == null ? -1 : lastScriptRunner.getLastExecutedStatementCount();
+    }
+
+    @Override
+    public boolean supportsGroupedTransaction(Script script) {
+        return getScriptRunner(script).supportsGroupedTransaction(script);
+    }
+
+    @Override
+    public StatementCheckpoint getLastStatementCheckpoint() {
+        return lastScriptRunner == null ? null : lastScriptRunner.getLastStatementCheckpoint();
+    }
+
+    /**
+     * Registers the runner for the scripts with the given file extension, replacing the runner that was registered
+     * before. The same runner instance can be registered for several extensions. The runner is initialized and
+     * closed together with this dispatcher.
+     *
+     * @param fileExtension The extension without dot, e.g. sql, not null
+     * @param scriptRunner  The runner, not null
+     */
+    public void registerScriptRunner(String fileExtension, ScriptRunner scriptRunner) {
+        scriptRunnersPerFileExtension.put(fileExtension, scriptRunner);
+    }
+
+    /**
+     * @param defaultScriptRunner The runner for the scripts with an extension for which no runner is registered, not null
+     */
+    public void setDefaultScriptRunner(ScriptRunner defaultScriptRunner) {
+        this.defaultScriptRunner = defaultScriptRunner;
+    }
+
+    /**
+     * @param script The script, not null
+     * @return The runner that is registered for the extension of the script, the default runner if there is none
+     */
+    protected ScriptRunner getScriptRunner(Script script) {
+        ScriptRunner scriptRunner = scriptRunnersPerFileExtension.get(getFileExtension(script.getFileName()));
+        if (scriptRunner == null) {
+            return defaultScriptRunner;
         }
-        else {
-            ScriptRunner runner = new ShellScriptRunner(databases, chmodCommand);
-            runner.execute(script);
+        return scriptRunner;
+    }
+
+    protected String getFileExtension(String fileName) {
+        int index = fileName.lastIndexOf('.');
+        if (index == -1) {
+            return "";
         }
+        return fileName.substring(index + 1);
+    }
+
+    protected void registerDefaultScriptRunners() {
+        ScriptRunner sqlLoaderScriptRunner = new SqlLoaderScriptRunner(databases, sqlLoaderCommand);
+        registerScriptRunner("ldr", sqlLoaderScriptRunner);
+        registerScriptRunner("ctl", sqlLoaderScriptRunner);
+        registerScriptRunner("sql", createJdbcScriptRunner());
+        setDefaultScriptRunner(new ShellScriptRunner(databases, chmodCommand));
+    }
+
+    protected JdbcScriptRunner createJdbcScriptRunner() {
+        return new JdbcScriptRunner(databaseDialectScriptParserFactoryMap, databases, sqlHandler, statementTimingJournal, metrics, commitEachStatement);
+    }
+
+    /**
+     * @return The registered runners and the default runner, every instance only once, not null
+     */
+    protected Set<ScriptRunner> getScriptRunners() {
+        Set<ScriptRunner> scriptRunners = newSetFromMap(new IdentityHashMap<>());
+        scriptRunners.addAll(scriptRunnersPerFileExtension.values());
+        scriptRunners.add(defaultScriptRunner);
+        return scriptRunners;
     }
 
     public void initialize() {
+        for (ScriptRunner scriptRunner : getScriptRunners()) {
+            scriptRunner.initialize();
+        }
     }
 
     public void close() {
+        try {
+            DbMaintainException firstException = null;
+            for (ScriptRunner scriptRunner : getScriptRunners()) {
+                try {
+                    scriptRunner.close();
+                } catch (DbMaintainException e) {
+                    if (firstException == null) {
+                        firstException = e;
+                    }
+                }
+            }
+            if (firstException != null) {
+                throw firstException;
+            }
+        } finally {
+            statementTimingJournal.close();
+        }
     }
 
-}
\ No newline at end of file
+}
@@ -20,7 +20,11 @@ import org.apache.commons.logging.LogFactory;
 import org.dbmaintain.database.Database;
 import org.dbmaintain.database.Databases;
 import org.dbmaintain.database.SQLHandler;
+import org.dbmaintain.metrics.FlightRecorderEvent;
+import org.dbmaintain.metrics.Metrics;
+import org.dbmaintain.metrics.impl.NoOpMetrics;
 import org.dbmaintain.script.Script;
+import org.dbmaintain.script.StatementCheckpoint;
 import org.dbmaintain.script.parser.ScriptParser;
 import org.dbmaintain.script.parser.ScriptParserFactory;
 import org.dbmaintain.script.runner.ScriptRunner;
@@ -31,6 +35,9 @@ import java.io.IOException;
 import java.io.Reader;
 import java.util.Map;
 
+import static org.dbmaintain.metrics.FlightRecorderEvents.beginExecuteStatement;
+import static org.dbmaintain.metrics.FlightRecorderEvents.beginParseStatement;
+
 /**
  * Default implementation of a script runner that uses JDBC to execute the script.
  *
@@ -45,12 +52,35 @@ public class JdbcScriptRunner implements ScriptRunner {
     protected Databases databases;
     protected SQLHandler sqlHandler;
     protected Map<String, ScriptParserFactory> databaseDialectScriptParserFactoryMap;
+    protected StatementTimingJournal statementTimingJournal;
+    protected Metrics metrics;
+    /* True if every statement is committed separately instead of executing the script in one transaction */
+    protected boolean commitEachStatement;
+    /* The nr of statements that were executed by the last call to execute */
+    protected int lastExecutedStatementCount = -1;
+    /* The position up to which the last call to execute committed the statements, null if not known */
+    protected StatementCheckpoint lastStatementCheckpoint;
 
 
     public JdbcScriptRunner(Map<String, ScriptParserFactory> databaseDialectScriptParserFactoryMap, Databases databases, SQLHandler sqlHandler) {
+        this(databaseDialectScriptParserFactoryMap, databases, sqlHandler, new StatementTimingJournal(-1, null), new NoOpMetrics());
+    }
+
+    public JdbcScriptRunner(Map<String, ScriptParserFactory> databaseDialectScriptParserFactoryMap, Databases databases, SQLHandler sqlHandler, StatementTimingJournal statementTimingJournal, Metrics metrics) {
+        this(databaseDialectScriptParserFactoryMap, databases, sqlHandler, statementTimingJournal, metrics, false);
+    }
+
+    /**
+     * @param commitEachStatement True to commit every statement separately. This keeps track of a checkpoint that
+     *                            can be used to resume the script if it fails.
+     */
+    public JdbcScriptRunner(Map<String, ScriptParserFactory> databaseDialectScriptParserFactoryMap, Databases databases, SQLHandler sqlHandler, StatementTimingJournal statementTimingJournal, Metrics metrics, boolean commitEachStatement) {
         this.databaseDialectScriptParserFactoryMap = databaseDialectScriptParserFactoryMap;
         this.databases = databases;
         this.sqlHandler = sqlHandler;
+        this.statementTimingJournal = statementTimingJournal;
+        this.metrics = metrics;
+        this.commitEachStatement = commitEachStatement;
     }
 
 
@@ -63,6 +93,20 @@ public class JdbcScriptRunner implements ScriptRunner {
      * @param script The script, not null
      */
     public void execute(Script script) {
+        execute(script, null);
+    }
+
+    /**
+     * Executes the given script, starting right after the given checkpoint. The part of the script before the
+     * checkpoint is skipped without being parsed.
+     *
+     * @param script              The script, not null
+     * @param statementCheckpoint The position up to which a previous execution was committed, null to execute the whole script
+     */
+    @Override
+    public void execute(Script script, StatementCheckpoint statementCheckpoint) {
+        lastExecutedStatementCount = 0;
+        lastStatementCheckpoint = null;
         // Define the target database on which to execute the script
         Database targetDatabase = getTargetDatabaseDatabase(script);
         if (targetDatabase == null) {
@@ -72,39 +116,140 @@ public class JdbcScriptRunner implements ScriptRunner {
 
         // get content stream
         try (Reader scriptContentReader = script.getScriptContentHandle().openScriptContentReader()) {
+            if (statementCheckpoint == null) {
+                statementCheckpoint = new StatementCheckpoint(0, 0);
+            } else {
+                logger.info("Resuming script " + script.getFileName() + " after " + statementCheckpoint + ".");
+            }
+            int nrOfSkippedLines = skipToCheckpoint(script, scriptContentReader, statementCheckpoint);
             // create a script parser for the target database in question
             ScriptParser scriptParser = databaseDialectScriptParserFactoryMap.get(targetDatabase.getSupportedDatabaseDialect()).createScriptParser(scriptContentReader);
             // parse and execute the statements
-            parseAndExecuteScript(targetDatabase, scriptParser);
+            parseAndExecuteScript(script, targetDatabase, scriptParser, statementCheckpoint, nrOfSkippedLines);
 
         } catch (IOException e) {
             throw new DbMaintainException(e);
         }
     }
 
-    private void parseAndExecuteScript(Database targetDatabase, ScriptParser scriptParser) {
+    /**
+     * Skips the content of the script up to the given checkpoint.
+     *
+     * @return The nr of lines that were skipped
+     */
+    private int skipToCheckpoint(Script script, Reader scriptContentReader, StatementCheckpoint statementCheckpoint) throws IOException {
+        int nrOfSkippedLines = 0;
+        long remaining = statementCheckpoint.getOffset();
+        char[] buffer = new char[8192];
+        while (remaining > 0) {
+            int nrOfChars = scriptContentReader.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (nrOfChars == -1) {
+                throw new DbMaintainException("Unable to resume script " + script.getFileName() + " after " + statementCheckpoint + ": the script is shorter than the checkpoint.");
+            }
+            for (int i = 0; i < nrOfChars; i++) {
+                if (buffer[i] == '\n') {
+                    nrOfSkippedLines++;
+                }
+            }
+            remaining -= nrOfChars;
+        }
+        return nrOfSkippedLines;
+    }
+
+    private void parseAndExecuteScript(Script script, Database targetDatabase, ScriptParser scriptParser, StatementCheckpoint statementCheckpoint, int nrOfSkippedLines) {
         DataSource dataSource = targetDatabase.getDataSource();
+        long skippedOffset = statementCheckpoint.getOffset();
         try {
-            sqlHandler.startTransaction(dataSource);
+            if (commitEachStatement) {
+                // every statement is committed automatically
+                lastStatementCheckpoint = statementCheckpoint;
+            } else {
+                sqlHandler.startTransaction(dataSource);
+            }
 
             String statement;
-            while ((statement = scriptParser.getNextStatement()) != null) {
-                sqlHandler.execute(statement, dataSource);
+            int statementNr = (int) statementCheckpoint.getStatementNr();
+            while ((statement = getNextStatement(script, scriptParser)) != null) {
+                statementNr++;
+                long startTime = System.nanoTime();
+                FlightRecorderEvent event = beginExecuteStatement(script.getFileName(), statementNr, statement.length());
+                int updateCount = -1;
+                long elapsedNanos;
+                try {
+                    updateCount = sqlHandler.executeAndGetUpdateCount(statement, dataSource);
+                } finally {
+                    // also record failing statements, these are often the slow ones
+                    event.end(updateCount);
+                    elapsedNanos = System.nanoTime() - startTime;
+                    metrics.recordTime("jdbcScriptRunner.executeStatement", elapsedNanos);
+                }
+                if (updateCount > 0) {
+                    metrics.incrementCounter("jdbcScriptRunner.updateCount", updateCount);
+                }
+                lastExecutedStatementCount = statementNr;
+                if (commitEachStatement) {
+                    lastStatementCheckpoint = new StatementCheckpoint(statementNr, skippedOffset + scriptParser.getCurrentOffset());
+                }
+                statementTimingJournal.statementExecuted(script, statementNr, skippedOffset + scriptParser.getCurrentStatementOffset(), nrOfSkippedLines + scriptParser.getCurrentStatementLineNr(), elapsedNanos / 1000000, updateCount);
+            }
+            if (!commitEachStatement) {
+                sqlHandler.endTransactionAndCommit(dataSource);
             }
-            sqlHandler.endTransactionAndCommit(dataSource);
 
         } catch (DbMaintainException e) {
-            sqlHandler.endTransactionAndRollback(dataSource);
+            if (!commitEachStatement) {
+                sqlHandler.endTransactionAndRollback(dataSource);
+            }
             throw e;
         }
     }
 
+    private String getNextStatement(Script script, ScriptParser scriptParser) {
+        long startTime = System.nanoTime();
+        FlightRecorderEvent event = beginParseStatement(script.getFileName());
+        String statement = null;
+        try {
+            statement = scriptParser.getNextStatement();
+            return statement;
+        } finally {
+            event.end(statement == null ? 0 : statement.length());
+            metrics.recordTime("jdbcScriptRunner.parseStatement", System.nanoTime() - startTime);
+        }
+    }
+
+    @Override
+    public int getLastExecutedStatementCount() {
+        return lastExecutedStatementCount;
+    }
+
+    /**
+     * A script can be executed in a grouped transaction if the DDL of its target database is transactional and
+     * statements are not committed separately.
+     */
+    @Override
+    public boolean supportsGroupedTransaction(Script script) {
+        if (commitEachStatement) {
+            return false;
+        }
+        String databaseName = script.getTargetDatabaseName();
+        if (databaseName != null && !databases.isConfiguredDatabase(databaseName)) {
+            return false;
+        }
+        Database targetDatabase = getTargetDatabaseDatabase(script);
+        return targetDatabase != null && targetDatabase.supportsTransactionalDdl();
+    }
+
+    @Override
+    public StatementCheckpoint getLastStatementCheckpoint() {
+        return lastStatementCheckpoint;
+    }
+
     public void initialize() {
         // nothing to initialize
     }
 
     public void close() {
-        // nothing to close
+        statementTimingJournal.close();
     }
 
     /**
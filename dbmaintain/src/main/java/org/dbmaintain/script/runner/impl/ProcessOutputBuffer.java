@@ -0,0 +1,112 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.script.runner.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.regex.Pattern;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * Collects the output of a native application while it is running. Every line is forwarded to the logger
+ * as soon as it is read, but only the last lines, up to the maximum size, are kept to report in error messages.
+ * If an error pattern is given, the lines are checked for errors while they are read.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class ProcessOutputBuffer {
+
+    /* The logger instance for this class */
+    private static Log logger = LogFactory.getLog(ProcessOutputBuffer.class);
+
+    private String name;
+    private Pattern errorPattern;
+    private int maxSize;
+
+    private Deque<String> lines = new ArrayDeque<>();
+    private long size;
+    private long nrOfOmittedChars;
+    private String firstErrorLine;
+
+
+    /**
+     * @param name         The name of the application, used for logging, not null
+     * @param errorPattern The pattern that indicates an error in an output line, null to not detect errors
+     * @param maxSize      The max nr of chars of output to keep
+     */
+    public ProcessOutputBuffer(String name, Pattern errorPattern, int maxSize) {
+        this.name = name;
+        this.errorPattern = errorPattern;
+        this.maxSize = maxSize;
+    }
+
+
+    /**
+     * Adds a line of output. Blank lines are ignored.
+     *
+     * @param line The line without line break, not null
+     */
+    public void append(String line) {
+        if (isBlank(line)) {
+            return;
+        }
+        logger.debug(name + ": " + line);
+        if (firstErrorLine == null && errorPattern != null && errorPattern.matcher(line).find()) {
+            firstErrorLine = line;
+            logger.warn(name + " reported an error: " + line);
+        }
+        // keep room for the line break
+        int maxLineLength = Math.max(maxSize - 1, 0);
+        if (line.length() > maxLineLength) {
+            nrOfOmittedChars += line.length() - maxLineLength;
+            line = line.substring(line.length() - maxLineLength);
+        }
+        lines.addLast(line);
+        size += line.length() + 1;
+        while (size > maxSize) {
+            String removedLine = lines.removeFirst();
+            size -= removedLine.length() + 1;
+            nrOfOmittedChars += removedLine.length() + 1;
+        }
+    }
+
+    /**
+     * @return The last lines of the output, with a notice if the first part of the output was omitted, not null
+     */
+    public String getOutput() {
+        StringBuilder output = new StringBuilder();
+        if (nrOfOmittedChars > 0) {
+            output.append("<").append(nrOfOmittedChars).append(" chars of output omitted>\n");
+        }
+        for (String line : lines) {
+            output.append(line);
+            output.append('\n');
+        }
+        return output.toString();
+    }
+
+    /**
+     * @return The first line that matched the error pattern, null if no error was detected
+     */
+    public String getFirstErrorLine() {
+        return firstErrorLine;
+    }
+}
@@ -69,6 +69,18 @@ public class ShellScriptRunner extends BaseNativeScriptRunner {
     }
     
     
+    /**
+     * Files that are not yet executable are copied to a temp file before making them executable,
+     * to leave the original file untouched.
+     *
+     * @param file The file of the script, not null
+     * @return True if the file is executable
+     */
+    @Override
+    protected boolean canUseOriginalScriptFile(File file) {
+        return file.canExecute();
+    }
+
     /**
      * Makes the given file executable
      * @param scriptFile File which shall be executable
@@ -16,13 +16,17 @@
 package org.dbmaintain.script.runner.impl;
 
 import static java.lang.System.currentTimeMillis;
+import static org.apache.commons.io.FileUtils.deleteQuietly;
 import static org.apache.commons.lang3.StringUtils.deleteWhitespace;
 import static org.dbmaintain.config.DbMaintainProperties.*;
 import static org.dbmaintain.util.FileUtils.createFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -48,115 +52,224 @@ public class SqlPlusScriptRunner extends BaseNativeScriptRunner {
     /* The logger instance for this class */
     private static Log logger = LogFactory.getLog(SqlPlusScriptRunner.class);
 
+    /* The SQL*Plus messages that indicate an error, also when SQL*Plus continues after the error */
+    protected static final Pattern SQL_PLUS_ERROR_PATTERN = Pattern.compile("([0-9]+/[0-9]+\\s+PLS-[0-9]+:)|(^SP2-[0-9]+:)", Pattern.MULTILINE);
+
     protected Application application;
     protected String sqlPlusCommand;
     private Properties configuration;
+    /* True if scripts are fed to one long-lived SQL*Plus process per database instead of a process per script */
+    protected boolean persistentSession;
+    /* The persistent SQL*Plus sessions per database name */
+    protected Map<String, SqlPlusSession> sessions = new HashMap<>();
 
     public SqlPlusScriptRunner(final Databases databases, final Properties configuration, final String sqlPlusCommand) {
         super(databases);
         this.configuration = configuration;
         this.sqlPlusCommand = sqlPlusCommand;
+        this.persistentSession = PropertyUtils.getBoolean(PROPERTY_SQL_PLUS_PERSISTENT_SESSION, false, configuration);
         application = createApplication(sqlPlusCommand);
     }
 
+    /**
+     * Exits all persistent SQL*Plus sessions.
+     */
+    @Override
+    public void close() {
+        try {
+            for (final SqlPlusSession session : sessions.values()) {
+                session.close();
+            }
+            sessions.clear();
+        } finally {
+            deleteTemporaryScriptsDir();
+        }
+    }
+
     @Override
     protected void executeScript(final File scriptFile, final Database targetDatabase) throws Exception {
-        final File wrapperScriptFile = generateWrapperScriptFile(targetDatabase.getDatabaseInfo(), scriptFile);
-        final String[] arguments = {"/nolog", "@" + wrapperScriptFile.getPath()};
-        final Application.ProcessOutput processOutput = application.execute(arguments);
+        final Application.ProcessOutput processOutput;
+        if (persistentSession) {
+            processOutput = executeScriptInSession(scriptFile, targetDatabase);
+        } else {
+            final File wrapperScriptFile = generateWrapperScriptFile(targetDatabase.getDatabaseInfo(), scriptFile);
+            try {
+                final String[] arguments = {"/nolog", "@" + wrapperScriptFile.getPath()};
+                processOutput = application.execute(arguments);
+            } finally {
+                deleteQuietly(wrapperScriptFile);
+            }
+        }
         final int exitValue = processOutput.getExitValue();
-        boolean error = matchSQLPlusError(processOutput.getOutput());
-        // always write sqlplus output to standard out
+        boolean error = processOutput.isErrorDetected();
+        // always write sqlplus output to standard out, only the last part of the output is kept
         logger.info("SQL*Plus exited with code:" + exitValue + " has error: " + error + " Output: " + processOutput.getOutput());
         if (error ||exitValue != 0) {
             logger.info("Failed to execute command. SQL*Plus returned an error.\n");
-            throw new DbMaintainException("Failed to execute command. SQL*Plus returned an error.\n" + processOutput.getOutput());
+            String firstError = error ? "First error: " + processOutput.getFirstErrorLine() + "\n" : "";
+            throw new DbMaintainException("Failed to execute command. SQL*Plus returned an error.\n" + firstError + processOutput.getOutput());
         }
     }
 
-    public boolean matchSQLPlusError(String log) {
-		Pattern pattern = Pattern.compile(
-				"([0-9]+/[0-9]+\\s+PLS-[0-9]+:)|(^SP2-[0-9]+:)",
-				Pattern.MULTILINE);
+    /**
+     * Executes the script in the SQL*Plus session of the target database. The session is started when it is first
+     * used. If SQL*Plus exited, e.g. because of an error, the session is discarded so that a new session is started
+     * for the next script.
+     *
+     * @param scriptFile     The script to execute, not null
+     * @param targetDatabase The database to execute the script on, not null
+     * @return The output of the script, not null
+     */
+    protected Application.ProcessOutput executeScriptInSession(final File scriptFile, final Database targetDatabase) throws IOException {
+        final DatabaseInfo databaseInfo = targetDatabase.getDatabaseInfo();
+        final String databaseName = databaseInfo.getName();
+        SqlPlusSession session = sessions.get(databaseName);
+        if (session == null || !session.isAlive()) {
+            session = createSession(databaseInfo);
+            sessions.put(databaseName, session);
+        }
+        final List<String> commands = new ArrayList<>(getSessionResetCommands(databaseInfo));
+        commands.addAll(getPreScriptCommands());
+        commands.add("@\"" + scriptFile.getAbsolutePath() + "\"");
+        commands.addAll(getPostScriptCommands());
+        // exiting SQL*Plus commits, so commit explicitly to keep the same behavior
+        commands.add("commit;");
 
-		Matcher match = pattern.matcher(log);
+        final Application.ProcessOutput processOutput = session.execute(commands);
+        if (!session.isAlive()) {
+            session.close();
+            sessions.remove(databaseName);
+        }
+        return processOutput;
+    }
+
+    protected SqlPlusSession createSession(final DatabaseInfo databaseInfo) {
+        return new SqlPlusSession(application, getInitializationCommands(databaseInfo), getScriptEncoding());
+    }
+
+    public boolean matchSQLPlusError(String log) {
+		Matcher match = SQL_PLUS_ERROR_PATTERN.matcher(log);
 		return match.find();
 	}
 
     protected File generateWrapperScriptFile(final DatabaseInfo databaseInfo, final File targetScriptFile) throws IOException {
         final File temporaryScriptsDir = createTemporaryScriptsDir();
         final File temporaryScriptWrapperFile = new File(temporaryScriptsDir, "wrapper-" + currentTimeMillis() + targetScriptFile.getName());
-        temporaryScriptWrapperFile.deleteOnExit();
 
-        final String scriptEncoding = PropertyUtils.getString(PROPERTY_SCRIPT_ENCODING, getConfiguration());
-        final String lineSeparator = System.getProperty("line.separator");
-        final StringBuilder content = new StringBuilder();
+        final List<String> lines = new ArrayList<>();
         // if property set use custom wrapper script
         if (PropertyUtils.containsProperty(PROPERTY_SQL_PLUS_PRE_SCRIPT_FILE_PATH, getConfiguration())) {
-            // connect to DB
-            content.append(lineSeparator);
-            content.append("connect ");
-            content.append(databaseInfo.getUserName());
-            content.append('/');
-            content.append(databaseInfo.getPassword());
-            content.append('@');
-            content.append(getDatabaseConfigFromJdbcUrl(databaseInfo.getUrl()));
-            content.append(lineSeparator);
-            content.append("alter session set current_schema=");
-            content.append(databaseInfo.getDefaultSchemaName());
-            content.append(";");
-            content.append(lineSeparator);
-            content.append("alter session set ddl_lock_timeout=30;");
-            content.append(lineSeparator);
-
-            // read content from custom script file
-            final String preScriptFilePath = PropertyUtils.getString(PROPERTY_SQL_PLUS_PRE_SCRIPT_FILE_PATH, getConfiguration());
-            final List<String> lines = FileUtils.readLines(new File(preScriptFilePath), scriptEncoding);
-            for (final String line : lines) {
-                content.append(line).append(lineSeparator);
-            }
+            lines.add("");
+        }
+        lines.addAll(getInitializationCommands(databaseInfo));
+        lines.addAll(getPreScriptCommands());
+        if (temporaryScriptsDir.equals(targetScriptFile.getParentFile())) {
+            lines.add("@@" + targetScriptFile.getName());
         } else {
-            content.append("set echo off");
-            content.append(lineSeparator);
-            content.append("whenever sqlerror exit sql.sqlcode rollback");
-            content.append(lineSeparator);
-            content.append("whenever oserror exit sql.sqlcode rollback");
-            content.append(lineSeparator);
-            content.append("connect ");
-            content.append(databaseInfo.getUserName());
-            content.append('/');
-            content.append(databaseInfo.getPassword());
-            content.append('@');
-            content.append(getDatabaseConfigFromJdbcUrl(databaseInfo.getUrl()));
-            content.append(lineSeparator);
-            content.append("alter session set current_schema=");
-            content.append(databaseInfo.getDefaultSchemaName());
-            content.append(";");
-            content.append(lineSeparator);
-            content.append("alter session set ddl_lock_timeout=30;");
-            content.append(lineSeparator);
-            content.append("set echo on");
-            content.append(lineSeparator);
+            lines.add("@" + targetScriptFile.getAbsolutePath());
         }
-        content.append("@@");
-        content.append(targetScriptFile.getName());
-        content.append(lineSeparator);
         if (PropertyUtils.containsProperty(PROPERTY_SQL_PLUS_POST_SCRIPT_FILE_PATH, getConfiguration())) {
-            // read content from custom script file
-            final String postScriptFilePath = PropertyUtils.getString(PROPERTY_SQL_PLUS_POST_SCRIPT_FILE_PATH, getConfiguration());
-            final List<String> lines = FileUtils.readLines(new File(postScriptFilePath), scriptEncoding);
-            for (final String line : lines) {
-                content.append(line).append(lineSeparator);
-            }
-            content.append(lineSeparator);
+            lines.addAll(getPostScriptCommands());
+            lines.add("");
         } else {
-            content.append("exit sql.sqlcode");
-            content.append(lineSeparator);
+            lines.add("exit sql.sqlcode");
+        }
+
+        final String lineSeparator = System.getProperty("line.separator");
+        final StringBuilder content = new StringBuilder();
+        for (final String line : lines) {
+            content.append(line).append(lineSeparator);
         }
-        createFile(temporaryScriptWrapperFile, content.toString(), scriptEncoding);
+        createFile(temporaryScriptWrapperFile, content.toString(), getScriptEncoding());
         return temporaryScriptWrapperFile;
     }
 
+    /**
+     * Gets the commands that connect to the database. If no custom pre-script is configured, SQL*Plus is also
+     * instructed to exit when an error occurs.
+     *
+     * @param databaseInfo The database to connect to, not null
+     * @return The commands, not null
+     */
+    protected List<String> getInitializationCommands(final DatabaseInfo databaseInfo) {
+        final boolean customPreScript = PropertyUtils.containsProperty(PROPERTY_SQL_PLUS_PRE_SCRIPT_FILE_PATH, getConfiguration());
+        final List<String> commands = new ArrayList<>();
+        if (!customPreScript) {
+            commands.add("set echo off");
+            commands.add("whenever sqlerror exit sql.sqlcode rollback");
+            commands.add("whenever oserror exit sql.sqlcode rollback");
+        }
+        commands.add("connect " + databaseInfo.getUserName() + '/' + databaseInfo.getPassword() + '@' + getDatabaseConfigFromJdbcUrl(databaseInfo.getUrl()));
+        commands.add("alter session set current_schema=" + databaseInfo.getDefaultSchemaName() + ";");
+        commands.add("alter session set ddl_lock_timeout=30;");
+        if (!customPreScript) {
+            commands.add("set echo on");
+        }
+        return commands;
+    }
+
+    /**
+     * Gets the commands that are executed before every script in a persistent session. A script can change the
+     * error handling or the current schema of the session, e.g. with <code>whenever sqlerror continue</code>. These are
+     * set again, so that they do not leak into the scripts that are executed after it. If no custom pre-script is
+     * configured, SQL*Plus is again instructed to exit when an error occurs.
+     *
+     * @param databaseInfo The database of the session, not null
+     * @return The commands, not null
+     */
+    protected List<String> getSessionResetCommands(final DatabaseInfo databaseInfo) {
+        final boolean customPreScript = PropertyUtils.containsProperty(PROPERTY_SQL_PLUS_PRE_SCRIPT_FILE_PATH, getConfiguration());
+        final List<String> commands = new ArrayList<>();
+        if (!customPreScript) {
+            commands.add("set echo off");
+            commands.add("whenever sqlerror exit sql.sqlcode rollback");
+            commands.add("whenever oserror exit sql.sqlcode rollback");
+        }
+        commands.add("alter session set current_schema=" + databaseInfo.getDefaultSchemaName() + ";");
+        if (!customPreScript) {
+            commands.add("set echo on");
+        }
+        return commands;
+    }
+
+    /**
+     * @return The content of the custom pre-script, empty if no pre-script is configured
+     */
+    protected List<String> getPreScriptCommands() throws IOException {
+        return readCommands(PROPERTY_SQL_PLUS_PRE_SCRIPT_FILE_PATH);
+    }
+
+    /**
+     * @return The content of the custom post-script, empty if no post-script is configured
+     */
+    protected List<String> getPostScriptCommands() throws IOException {
+        return readCommands(PROPERTY_SQL_PLUS_POST_SCRIPT_FILE_PATH);
+    }
+
+    protected List<String> readCommands(final String filePathPropertyName) throws IOException {
+        if (!PropertyUtils.containsProperty(filePathPropertyName, getConfiguration())) {
+            return new ArrayList<>();
+        }
+        // read content from custom script file
+        final String filePath = PropertyUtils.getString(filePathPropertyName, getConfiguration());
+        return FileUtils.readLines(new File(filePath), getScriptEncoding());
+    }
+
+    protected String getScriptEncoding() {
+        return PropertyUtils.getString(PROPERTY_SCRIPT_ENCODING, getConfiguration());
+    }
+
+    /**
+     * Oracle does not support blanks in file names, so scripts with blanks in their path are copied to a temp file.
+     *
+     * @param file The file of the script, not null
+     * @return True if the path does not contain whitespace
+     */
+    @Override
+    protected boolean canUseOriginalScriptFile(final File file) {
+        return file.getAbsolutePath().equals(deleteWhitespace(file.getAbsolutePath()));
+    }
+
     /**
      * Oracle does not support blanks in file names, so remove them from the temp file name.
      *
@@ -170,7 +283,7 @@ public class SqlPlusScriptRunner extends BaseNativeScriptRunner {
     }
 
     protected Application createApplication(final String sqlPlusCommand) {
-        return new Application("SQL*Plus", sqlPlusCommand);
+        return new Application("SQL*Plus", sqlPlusCommand, new HashMap<>(), SQL_PLUS_ERROR_PATTERN, Application.DEFAULT_MAX_OUTPUT_SIZE);
     }
 
     protected String getDatabaseConfigFromJdbcUrl(final String url) {
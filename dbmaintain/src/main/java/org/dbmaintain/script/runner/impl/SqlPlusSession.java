@@ -0,0 +1,174 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.script.runner.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dbmaintain.util.DbMaintainException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.apache.commons.io.IOUtils.closeQuietly;
+
+/**
+ * A long-lived SQL*Plus process to which scripts are fed through its standard input. This avoids starting a
+ * process and logging on to the database for every script.
+ * <p>
+ * After the commands of a script, a marker line is printed to find the end of the output of the script. If the
+ * process exits before the marker is printed, e.g. because of a <code>whenever sqlerror exit</code>, the exit value
+ * of the process is returned and the session can no longer be used. The process is also stopped as soon as an
+ * error is detected in the output, so that the rest of a failing script is not executed.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class SqlPlusSession {
+
+    /* The logger instance for this class */
+    private static Log logger = LogFactory.getLog(SqlPlusSession.class);
+
+    /* The prefix of the line that is printed after the commands of a script */
+    protected static final String END_OF_SCRIPT_MARKER = "DBMAINTAIN_END_OF_SCRIPT_";
+
+    protected Application application;
+    protected Process process;
+    protected Writer processInput;
+    protected BufferedReader processOutput;
+    /* The nr of scripts that were executed, used to make every marker unique */
+    protected int nrOfExecutedScripts;
+
+
+    /**
+     * Starts SQL*Plus in silent mode without logging on, and executes the given commands, e.g. to connect
+     * to the database. The platform encoding is used for the commands and the output.
+     *
+     * @param application            The SQL*Plus application, not null
+     * @param initializationCommands The commands to execute when the process is started, not null
+     */
+    public SqlPlusSession(Application application, List<String> initializationCommands) {
+        this(application, initializationCommands, Charset.defaultCharset().name());
+    }
+
+    /**
+     * Starts SQL*Plus in silent mode without logging on, and executes the given commands, e.g. to connect
+     * to the database.
+     *
+     * @param application            The SQL*Plus application, not null
+     * @param initializationCommands The commands to execute when the process is started, not null
+     * @param encoding               The encoding of the commands and the output of SQL*Plus, not null
+     */
+    public SqlPlusSession(Application application, List<String> initializationCommands, String encoding) {
+        this.application = application;
+        process = application.start("-S", "/nolog");
+        processInput = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), Charset.forName(encoding)));
+        processOutput = new BufferedReader(new InputStreamReader(process.getInputStream(), Charset.forName(encoding)));
+        try {
+            writeCommands(initializationCommands);
+        } catch (IOException e) {
+            close();
+            throw new DbMaintainException("Unable to start SQL*Plus session.", e);
+        }
+    }
+
+
+    /**
+     * Executes the given commands and waits until they are finished.
+     *
+     * @param commands The commands, not null
+     * @return The output of the commands, the exit value is 0 unless the process exited
+     */
+    public Application.ProcessOutput execute(List<String> commands) {
+        String marker = END_OF_SCRIPT_MARKER + (++nrOfExecutedScripts);
+        try {
+            writeCommands(commands);
+            writeCommands(singletonList("prompt " + marker));
+        } catch (IOException e) {
+            // the process has ended, the remaining output explains why
+            logger.debug("Unable to write commands to SQL*Plus session.", e);
+        }
+        try {
+            ProcessOutputBuffer outputBuffer = application.createOutputBuffer();
+            boolean stopped = false;
+            String line;
+            while ((line = processOutput.readLine()) != null) {
+                String trimmedLine = line.trim();
+                if (trimmedLine.endsWith(marker)) {
+                    // the last output line of the script may not end with a line break
+                    outputBuffer.append(trimmedLine.substring(0, trimmedLine.length() - marker.length()));
+                    return new Application.ProcessOutput(outputBuffer.getOutput(), 0, outputBuffer.getFirstErrorLine());
+                }
+                outputBuffer.append(line);
+                if (!stopped) {
+                    stopped = application.stopOnError(process, outputBuffer);
+                }
+            }
+            return new Application.ProcessOutput(outputBuffer.getOutput(), process.waitFor(), outputBuffer.getFirstErrorLine());
+
+        } catch (IOException e) {
+            throw new DbMaintainException("Unable to read output of SQL*Plus session.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DbMaintainException("Interrupted while waiting for SQL*Plus session.", e);
+        }
+    }
+
+    /**
+     * @return True if the process is still running and can execute scripts
+     */
+    public boolean isAlive() {
+        return process.isAlive();
+    }
+
+    /**
+     * Exits SQL*Plus. The process is killed if it does not exit in time.
+     */
+    public void close() {
+        try {
+            if (process.isAlive()) {
+                writeCommands(singletonList("exit"));
+                if (!process.waitFor(30, SECONDS)) {
+                    logger.warn("SQL*Plus session did not exit in time, the process is killed.");
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Unable to exit SQL*Plus session.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeQuietly(processInput);
+            closeQuietly(processOutput);
+            process.destroy();
+        }
+    }
+
+
+    protected void writeCommands(List<String> commands) throws IOException {
+        for (String command : commands) {
+            processInput.write(command);
+            processInput.write('\n');
+        }
+        processInput.flush();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.script.runner.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dbmaintain.script.Script;
+import org.dbmaintain.util.DbMaintainException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import static org.apache.commons.io.IOUtils.closeQuietly;
+
+/**
+ * Keeps track of the execution time of the individual statements of the scripts.
+ * <p>
+ * The execution time and nr of affected rows of every statement is logged on debug level. Statements that take
+ * longer than the slow statement threshold are logged on info level and, if a journal file is configured, are
+ * appended to that file as a JSON object per line, e.g.:
+ * <pre>
+ * {"script":"01_v1/002_data.sql","statement":12,"offset":3456,"line":87,"elapsedMs":4120,"updateCount":15000,"executedAt":"2019-10-12T10:15:03"}
+ * </pre>
+ * Make sure to call close() after usage.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class StatementTimingJournal {
+
+    /* The logger instance for this class */
+    private static Log logger = LogFactory.getLog(StatementTimingJournal.class);
+
+    /* Statements that take at least this nr of ms are considered slow, -1 to not report slow statements */
+    protected long slowStatementThresholdMs;
+    /* The file to which the slow statements are appended, null to not write a journal */
+    protected File journalFile;
+
+    private Writer journalWriter;
+
+
+    /**
+     * Creates a new instance.
+     *
+     * @param slowStatementThresholdMs Statements that take at least this nr of ms are considered slow, -1 to not report slow statements
+     * @param journalFile              The file to which the slow statements are appended, null to not write a journal
+     */
+    public StatementTimingJournal(long slowStatementThresholdMs, File journalFile) {
+        this.slowStatementThresholdMs = slowStatementThresholdMs;
+        this.journalFile = journalFile;
+    }
+
+
+    /**
+     * Registers the execution of a statement.
+     *
+     * @param script      The script of the statement, not null
+     * @param ordinal     The index of the statement in the script (1-based)
+     * @param offset      The offset of the statement in the script
+     * @param lineNr      The line nr on which the statement starts
+     * @param elapsedMs   The execution time of the statement in ms
+     * @param updateCount The nr of affected rows, -1 if not applicable
+     */
+    public void statementExecuted(Script script, int ordinal, long offset, int lineNr, long elapsedMs, int updateCount) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Statement " + ordinal + " (line " + lineNr + ") of script " + script.getFileName() + " executed in " + elapsedMs + " ms" + (updateCount >= 0 ? ", " + updateCount + " rows affected" : ""));
+        }
+        if (slowStatementThresholdMs < 0 || elapsedMs < slowStatementThresholdMs) {
+            return;
+        }
+        logger.info("Slow statement: statement " + ordinal + " (line " + lineNr + ") of script " + script.getFileName() + " took " + elapsedMs + " ms" + (updateCount >= 0 ? ", " + updateCount + " rows affected" : ""));
+        if (journalFile != null) {
+            writeJournalEntry(script, ordinal, offset, lineNr, elapsedMs, updateCount);
+        }
+    }
+
+    /**
+     * Closes the journal file, if it was opened.
+     */
+    public void close() {
+        closeQuietly(journalWriter);
+        journalWriter = null;
+    }
+
+
+    protected void writeJournalEntry(Script script, int ordinal, long offset, int lineNr, long elapsedMs, int updateCount) {
+        String executedAt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss").format(new Date());
+        String entry = "{\"script\":\"" + escapeJson(script.getFileName()) + "\",\"statement\":" + ordinal + ",\"offset\":" + offset +
+                ",\"line\":" + lineNr + ",\"elapsedMs\":" + elapsedMs + ",\"updateCount\":" + updateCount + ",\"executedAt\":\"" + executedAt + "\"}\n";
+        try {
+            if (journalWriter == null) {
+                journalWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(journalFile, true), StandardCharsets.UTF_8));
+            }
+            journalWriter.write(entry);
+            // flush so that the entry is available while the update is still running
+            journalWriter.flush();
+        } catch (IOException e) {
+            throw new DbMaintainException("Unable to write to slow statement journal " + journalFile, e);
+        }
+    }
+
+    protected String escapeJson(String value) {
+        StringBuilder result = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                result.append('\\').append(c);
+            } else if (c < ' ') {
+                result.append(String.format("\\u%04x", (int) c));
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.script.runner.impl.db2;
+
+import org.apache.commons.io.output.FileWriterWithEncoding;
+import org.dbmaintain.database.Database;
+import org.dbmaintain.database.Databases;
+import org.dbmaintain.script.Script;
+import org.dbmaintain.script.runner.impl.Application;
+import org.dbmaintain.util.DbMaintainException;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.lang.System.currentTimeMillis;
+import static org.apache.commons.io.FileUtils.deleteQuietly;
+import static org.dbmaintain.util.FileUtils.createFile;
+import static org.dbmaintain.util.FileUtils.createFileReadableByOwnerOnly;
+
+/**
+ * DB2 script runner that executes all commands that are needed for a script in a single invocation of the CLP,
+ * instead of starting a CLP process for each of the connect, set and commit commands. The commands are written
+ * to a command file together with the content of the script. Registering and unregistering the database aliases
+ * is also done with one invocation.
+ * <p>
+ * An echo marker is written before each step of the command file. An error message of the CLP is attributed to
+ * the step of the last marker that precedes it, so that errors in the script can be told apart from errors when
+ * connecting to the database. The statements in the script must be terminated by a semicolon.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class Db2BatchScriptRunner extends Db2ScriptRunner {
+
+    /* The prefix of the echoed line that marks the start of a step in the command file */
+    protected static final String STEP_MARKER = "DBMAINTAIN_STEP ";
+
+    /* Matches the messages of the CLP that indicate an error, e.g. SQL0204N */
+    protected static final Pattern ERROR_MESSAGE_PATTERN = Pattern.compile("^(SQL|DB2|CLI|DBA)[0-9]{4,5}N\\b");
+
+    protected static final String REGISTER_STEP = "register databases";
+    protected static final String UNREGISTER_STEP = "unregister databases";
+
+
+    public Db2BatchScriptRunner(Databases databases, String db2Command) {
+        super(databases, db2Command);
+    }
+
+
+    @Override
+    public void initialize() {
+        if (!hasRemoteDatabases()) {
+            return;
+        }
+        List<String> commands = new ArrayList<>();
+        // unregistering is done to clean up aliases of a previous run, failures are ignored
+        addStep("clean up database aliases", commands);
+        addUnregisterCommands(commands);
+        addStep(REGISTER_STEP, commands);
+        for (Db2ConnectionInfo db2ConnectionInfo : db2ConnectionInfos.values()) {
+            if (db2ConnectionInfo.isRemote()) {
+                commands.add("catalog tcpip node " + db2ConnectionInfo.getDatabaseAlias() + " remote " + db2ConnectionInfo.getHost() + " server " + db2ConnectionInfo.getPort() + ";");
+                commands.add("catalog database " + db2ConnectionInfo.getDatabaseName() + " as " + db2ConnectionInfo.getDatabaseAlias() + " at node " + db2ConnectionInfo.getDatabaseAlias() + ";");
+            }
+        }
+        executeCommands(commands, REGISTER_STEP);
+    }
+
+    @Override
+    public void close() {
+        List<String> commands = new ArrayList<>();
+        if (hasRemoteDatabases()) {
+            addStep(UNREGISTER_STEP, commands);
+            addUnregisterCommands(commands);
+        }
+        addStep("terminate", commands);
+        commands.add("terminate;");
+        try {
+            executeCommands(commands, UNREGISTER_STEP, "terminate");
+        } finally {
+            deleteTemporaryScriptsDir();
+        }
+    }
+
+
+    /**
+     * The script content is always included in a command file.
+     *
+     * @param script The script, not null
+     * @return Null
+     */
+    @Override
+    protected File getOriginalScriptFile(Script script) {
+        return null;
+    }
+
+
+    /**
+     * Writes the command file that connects to the target database, executes the content of the script
+     * and commits. The file contains the password, so it can only be read by its owner.
+     *
+     * @param script The script, not null
+     * @return The command file, not null
+     */
+    @Override
+    protected File createTemporaryScriptFile(Script script) throws IOException {
+        Database targetDatabase = getTargetDatabaseDatabase(script);
+        Db2ConnectionInfo db2ConnectionInfo = db2ConnectionInfos.get(targetDatabase);
+        File commandFile = new File(createTemporaryScriptsDir(), "db2-" + getTemporaryScriptName(script));
+        deleteQuietly(commandFile);
+        createFileReadableByOwnerOnly(commandFile);
+
+        String lineSeparator = System.getProperty("line.separator");
+        try (Writer writer = new BufferedWriter(new FileWriterWithEncoding(commandFile, script.getScriptContentHandle().getEncoding(), false));
+             Reader scriptContentReader = script.getScriptContentHandle().openScriptContentReader()) {
+            // verbose output is only enabled after connecting, to keep the password out of the output
+            writer.write(getStepCommand("connect") + lineSeparator);
+            writer.write("connect to " + db2ConnectionInfo.getDatabaseAlias() + " user " + db2ConnectionInfo.getUserName() + " using " + db2ConnectionInfo.getPassword() + ";" + lineSeparator);
+            writer.write("update command options using v on;" + lineSeparator);
+            writer.write(getStepCommand("set schema") + lineSeparator);
+            writer.write("set SQLCOMPAT PLSQL;" + lineSeparator);
+            writer.write("set schema " + targetDatabase.getDefaultSchemaName() + ";" + lineSeparator);
+            writer.write(getStepCommand("script " + script.getFileName()) + lineSeparator);
+
+            char[] buffer = new char[8192];
+            int nrOfChars;
+            while ((nrOfChars = scriptContentReader.read(buffer)) != -1) {
+                writer.write(buffer, 0, nrOfChars);
+            }
+            writer.write(lineSeparator);
+            writer.write(getStepCommand("commit") + lineSeparator);
+            writer.write("commit;" + lineSeparator);
+            writer.write("connect reset;" + lineSeparator);
+        }
+        return commandFile;
+    }
+
+    @Override
+    protected void executeScript(File commandFile, Database targetDatabase) {
+        Application.ProcessOutput processOutput = application.execute("-t", "-s", "-c-", "-f" + commandFile.getPath());
+        int exitValue = processOutput.getExitValue();
+        if (exitValue == 4 || exitValue == 8) {
+            Set<String> failedSteps = getFailedSteps(processOutput.getOutput());
+            String failedStep = failedSteps.isEmpty() ? "unknown step" : failedSteps.iterator().next();
+            throw new DbMaintainException("Failed to execute command. DB2 CLP returned an error during " + failedStep + ".\n" + processOutput.getOutput());
+        }
+    }
+
+
+    /**
+     * Executes the given commands in one invocation of the CLP. The execution continues when a command fails.
+     *
+     * @param commands     The commands, not null
+     * @param checkedSteps The steps for which an error should be raised if one of their commands fails, not null
+     */
+    protected void executeCommands(List<String> commands, String... checkedSteps) {
+        File commandFile = null;
+        try {
+            commandFile = new File(createTemporaryScriptsDir(), "db2-" + currentTimeMillis() + ".clp");
+            String lineSeparator = System.getProperty("line.separator");
+            createFile(commandFile, String.join(lineSeparator, commands) + lineSeparator, System.getProperty("file.encoding"));
+            Application.ProcessOutput processOutput = application.execute("-t", "-v", "-f" + commandFile.getPath());
+            Set<String> failedSteps = getFailedSteps(processOutput.getOutput());
+            for (String checkedStep : checkedSteps) {
+                if (failedSteps.contains(checkedStep)) {
+                    throw new DbMaintainException("Failed to execute command. DB2 CLP returned an error during " + checkedStep + ".\n" + processOutput.getOutput());
+                }
+            }
+        } catch (IOException e) {
+            throw new DbMaintainException("Unable to create DB2 command file.", e);
+        } finally {
+            deleteQuietly(commandFile);
+        }
+    }
+
+    /**
+     * Gets the steps of the command file that contain an error message in the given output.
+     *
+     * @param output The output of the CLP, not null
+     * @return The names of the failed steps in the order they were executed, not null
+     */
+    protected Set<String> getFailedSteps(String output) {
+        Set<String> failedSteps = new LinkedHashSet<>();
+        String currentStep = null;
+        for (String line : output.split("\\r?\\n")) {
+            String trimmedLine = line.trim();
+            if (trimmedLine.startsWith(STEP_MARKER)) {
+                currentStep = trimmedLine.substring(STEP_MARKER.length());
+                continue;
+            }
+            Matcher matcher = ERROR_MESSAGE_PATTERN.matcher(trimmedLine);
+            if (matcher.find() && currentStep != null) {
+                failedSteps.add(currentStep);
+            }
+        }
+        return failedSteps;
+    }
+
+
+    protected void addStep(String step, List<String> commands) {
+        commands.add(getStepCommand(step));
+    }
+
+    protected String getStepCommand(String step) {
+        return "echo " + STEP_MARKER + step + ";";
+    }
+
+    protected void addUnregisterCommands(List<String> commands) {
+        for (Db2ConnectionInfo db2ConnectionInfo : db2ConnectionInfos.values()) {
+            if (db2ConnectionInfo.isRemote()) {
+                commands.add("uncatalog database " + db2ConnectionInfo.getDatabaseAlias() + ";");
+                commands.add("uncatalog node " + db2ConnectionInfo.getDatabaseAlias() + ";");
+            }
+        }
+    }
+
+    protected boolean hasRemoteDatabases() {
+        for (Db2ConnectionInfo db2ConnectionInfo : db2ConnectionInfos.values()) {
+            if (db2ConnectionInfo.isRemote()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -60,7 +60,11 @@ public class Db2ScriptRunner extends BaseNativeScriptRunner {
                 unregisterDatabase(db2ConnectionInfo);
             }
         } finally {
-            terminateDb2Connections();
+            try {
+                terminateDb2Connections();
+            } finally {
+                deleteTemporaryScriptsDir();
+            }
         }
     }
 
@@ -0,0 +1,42 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.script.squash;
+
+import org.dbmaintain.script.executedscriptinfo.ScriptIndexes;
+
+import java.io.File;
+
+/**
+ * Squashes the incremental scripts up to a revision into one consolidated script. This script can then be configured
+ * as baseline script, so that a from scratch update executes this one script instead of all scripts below the
+ * baseline revision.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public interface ScriptSquasher {
+
+
+    /**
+     * Executes all incremental scripts with a revision lower than the given revision on a cleared database and
+     * writes a script that recreates the resulting database structure and data to the given file.
+     *
+     * @param revision           The revision up to which the scripts are squashed (exclusive), not null
+     * @param squashedScriptFile The file to write the consolidated script to, not null
+     */
+    void squashScripts(ScriptIndexes revision, File squashedScriptFile);
+
+}
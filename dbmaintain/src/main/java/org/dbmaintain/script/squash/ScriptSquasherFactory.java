@@ -0,0 +1,56 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.script.squash;
+
+import org.dbmaintain.MainFactory;
+import org.dbmaintain.config.FactoryContext;
+import org.dbmaintain.config.FactoryWithDatabase;
+import org.dbmaintain.script.repository.ScriptRepository;
+import org.dbmaintain.script.squash.impl.DefaultScriptSquasher;
+
+import java.util.Properties;
+
+import static org.dbmaintain.config.DbMaintainProperties.PROPERTY_BASELINE_REVISION;
+import static org.dbmaintain.config.DbMaintainProperties.PROPERTY_SCRIPT_ENCODING;
+import static org.dbmaintain.config.PropertyUtils.getString;
+
+/**
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class ScriptSquasherFactory extends FactoryWithDatabase<ScriptSquasher> {
+
+
+    public ScriptSquasher createInstance() {
+        String scriptEncoding = getString(PROPERTY_SCRIPT_ENCODING, getConfiguration());
+        MainFactory mainFactory = factoryWithDatabaseContext.getMainFactory();
+        return new DefaultScriptSquasher(createScriptRepositoryWithoutBaseline(), mainFactory.createScriptRunner(),
+                mainFactory.createDBClearer(), getDatabases(), factoryWithDatabaseContext.getExecutedScriptsTable(), scriptEncoding);
+    }
+
+    /**
+     * The scripts below the baseline revision are ignored by a regular script repository, but these are typically
+     * the scripts that need to be squashed.
+     *
+     * @return The repository containing all scripts, regardless of the baseline revision, not null
+     */
+    protected ScriptRepository createScriptRepositoryWithoutBaseline() {
+        Properties configuration = new Properties();
+        configuration.putAll(getConfiguration());
+        configuration.setProperty(PROPERTY_BASELINE_REVISION, "");
+        return new FactoryContext(configuration, factoryWithDatabaseContext.getMainFactory()).createScriptRepository();
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.script.squash.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dbmaintain.database.Database;
+import org.dbmaintain.database.Databases;
+import org.dbmaintain.script.Script;
+import org.dbmaintain.script.executedscriptinfo.ScriptIndexes;
+import org.dbmaintain.script.repository.ScriptRepository;
+import org.dbmaintain.script.runner.ScriptRunner;
+import org.dbmaintain.script.squash.ScriptSquasher;
+import org.dbmaintain.structure.clear.DBClearer;
+import org.dbmaintain.structure.model.DbItemIdentifier;
+import org.dbmaintain.util.DbMaintainException;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of {@link ScriptSquasher} that uses the configured database as scratch database: the database is
+ * cleared, the scripts are executed without registering them and the result is exported using
+ * {@link Database#exportScript}. The executed scripts table is dropped before exporting, so that it is not part of the
+ * consolidated script. Only scripts for the default database can be squashed.
+ * <p>
+ * The consolidated script uses the syntax of the scratch database, so the scratch database should be of the same
+ * dialect as the databases on which the script will be executed.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class DefaultScriptSquasher implements ScriptSquasher {
+
+    /* The logger instance for this class */
+    private static Log logger = LogFactory.getLog(DefaultScriptSquasher.class);
+
+    protected ScriptRepository scriptRepository;
+    protected ScriptRunner scriptRunner;
+    protected DBClearer dbClearer;
+    protected Databases databases;
+    /* The table in which dbmaintain registers the executed scripts */
+    protected DbItemIdentifier executedScriptsTable;
+    /* The encoding of the consolidated script */
+    protected String scriptEncoding;
+
+
+    /**
+     * @param scriptRepository     The repository containing the scripts to squash, not null
+     * @param scriptRunner         The runner that executes the scripts, not null
+     * @param dbClearer            The clearer that empties the scratch database, not null
+     * @param databases            The databases, the default database is the scratch database, not null
+     * @param executedScriptsTable The table in which dbmaintain registers the executed scripts, not null
+     * @param scriptEncoding       The encoding of the consolidated script, not null
+     */
+    public DefaultScriptSquasher(ScriptRepository scriptRepository, ScriptRunner scriptRunner, DBClearer dbClearer,
+                                 Databases databases, DbItemIdentifier executedScriptsTable, String scriptEncoding) {
+        this.scriptRepository = scriptRepository;
+        this.scriptRunner = scriptRunner;
+        this.dbClearer = dbClearer;
+        this.databases = databases;
+        this.executedScriptsTable = executedScriptsTable;
+        this.scriptEncoding = scriptEncoding;
+    }
+
+
+    public void squashScripts(ScriptIndexes revision, File squashedScriptFile) {
+        Database database = databases.getDefaultDatabase();
+        if (!database.supportsSnapshots()) {
+            throw new DbMaintainException("Unable to squash scripts: exporting a script is not supported for " + database.getSupportedDatabaseDialect() + ".");
+        }
+        List<Script> scriptsToSquash = getScriptsToSquash(revision);
+        logger.info("Squashing " + scriptsToSquash.size() + " scripts with a revision lower than " + revision.getIndexesString() + " into " + squashedScriptFile);
+
+        dbClearer.clearDatabase();
+        scriptRunner.initialize();
+        try {
+            for (Script script : scriptsToSquash) {
+                logger.info("Executing script " + script.getFileName());
+                scriptRunner.execute(script);
+            }
+        } finally {
+            scriptRunner.close();
+        }
+        String schemaName = executedScriptsTable.getSchemaName();
+        if (database.getTableNames(schemaName).contains(executedScriptsTable.getItemName())) {
+            database.dropTable(schemaName, executedScriptsTable.getItemName());
+        }
+        database.exportScript(squashedScriptFile, scriptEncoding);
+    }
+
+
+    /**
+     * Gets the incremental scripts with a revision lower than the given revision.
+     *
+     * @param revision The revision up to which the scripts are squashed (exclusive), not null
+     * @return The scripts in execution order, not null
+     */
+    protected List<Script> getScriptsToSquash(ScriptIndexes revision) {
+        List<Script> scriptsToSquash = new ArrayList<>();
+        for (Script script : scriptRepository.getAllScripts()) {
+            if (!script.isIncremental() || script.isPreProcessingScript() || script.isPostProcessingScript()
+                    || script.getScriptIndexes().compareTo(revision) >= 0) {
+                continue;
+            }
+            String targetDatabaseName = script.getTargetDatabaseName();
+            if (targetDatabaseName != null && !targetDatabaseName.equals(databases.getDefaultDatabase().getDatabaseName())) {
+                throw new DbMaintainException("Unable to squash scripts: script " + script.getFileName() + " targets database " + targetDatabaseName + ". Only scripts of the default database can be squashed.");
+            }
+            scriptsToSquash.add(script);
+        }
+        return scriptsToSquash;
+    }
+}
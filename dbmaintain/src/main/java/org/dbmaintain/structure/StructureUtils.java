@@ -45,13 +45,18 @@ public class StructureUtils {
 		    return unknownItems;
 		}
 		Set<DbItemIdentifier> filtered = new HashSet<>(unknownItems);
-		for (String schemaName : database.getSchemaNames()) {
-			for (DbItemType type : extractTypes(filtered)) {
-				if (type == SCHEMA)
-					filtered = filterSchema(filtered, database, schemaName);
-				else
-					filtered = removeDbItemOfGivenTypeInSchema(type, filtered, database, schemaName);
+		database.startCatalogSnapshot();
+		try {
+			for (String schemaName : database.getSchemaNames()) {
+				for (DbItemType type : extractTypes(filtered)) {
+					if (type == SCHEMA)
+						filtered = filterSchema(filtered, database, schemaName);
+					else
+						filtered = removeDbItemOfGivenTypeInSchema(type, filtered, database, schemaName);
+				}
 			}
+		} finally {
+			database.endCatalogSnapshot();
 		}
 		return filtered;
 	}
@@ -16,7 +16,9 @@
 package org.dbmaintain.structure.clean;
 
 import org.dbmaintain.config.FactoryWithDatabase;
+import org.dbmaintain.config.PropertyUtils;
 import org.dbmaintain.structure.clean.impl.DefaultDBCleaner;
+import org.dbmaintain.structure.clean.impl.TruncatingDBCleaner;
 import org.dbmaintain.structure.model.DbItemIdentifier;
 
 import java.util.HashSet;
@@ -34,6 +36,10 @@ public class DBCleanerFactory extends FactoryWithDatabase<DBCleaner> {
 
     public DBCleaner createInstance() {
         Set<DbItemIdentifier> itemsToPreserve = getItemsToPreserve();
+        if (PropertyUtils.getBoolean(PROPERTY_CLEANDB_TRUNCATE_ENABLED, false, getConfiguration())) {
+            int parallelism = PropertyUtils.getInt(PROPERTY_CLEANDB_PARALLELISM, 1, getConfiguration());
+            return new TruncatingDBCleaner(getDatabases(), itemsToPreserve, getSqlHandler(), parallelism);
+        }
         return new DefaultDBCleaner(getDatabases(), itemsToPreserve, getSqlHandler());
     }
 
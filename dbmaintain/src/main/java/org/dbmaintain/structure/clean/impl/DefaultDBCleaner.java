@@ -19,6 +19,7 @@ import static org.dbmaintain.structure.model.DbItemIdentifier.getItemIdentifier;
 import static org.dbmaintain.structure.model.DbItemIdentifier.getSchemaIdentifier;
 import static org.dbmaintain.structure.model.DbItemType.TABLE;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -78,18 +79,41 @@ public class DefaultDBCleaner implements DBCleaner {
                 if (itemsToPreserve.contains(getSchemaIdentifier(schemaName, database))) {
                     continue;
                 }
-                logger.info("Cleaning database schema. Deleting all records from tables in schema " + schemaName);
-
-                List<String> tableNames = database.getTableNamesSortedAccordingToConstraints(schemaName);
-                for (String tableName : tableNames) {
-                    // check whether table needs to be preserved
-                    if (itemsToPreserve.contains(getItemIdentifier(TABLE, schemaName, tableName, database))) {
-                        continue;
-                    }
-                    cleanTable(database, schemaName, tableName);
-                }
+                cleanSchema(database, schemaName);
+            }
+        }
+    }
+
+
+    /**
+     * Deletes the data of all tables in the given schema, except for the tables to preserve.
+     *
+     * @param database   The database support, not null
+     * @param schemaName The schema name, not null
+     */
+    protected void cleanSchema(Database database, String schemaName) {
+        logger.info("Cleaning database schema. Deleting all records from tables in schema " + schemaName);
+
+        for (String tableName : getTableNamesToClean(database, schemaName)) {
+            cleanTable(database, schemaName, tableName);
+        }
+    }
+
+
+    /**
+     * @param database   The database support, not null
+     * @param schemaName The schema name, not null
+     * @return The names of the tables of the schema that are not preserved, sorted according to their constraints, not null
+     */
+    protected List<String> getTableNamesToClean(Database database, String schemaName) {
+        List<String> tableNames = new ArrayList<>();
+        for (String tableName : database.getTableNamesSortedAccordingToConstraints(schemaName)) {
+            // check whether table needs to be preserved
+            if (!itemsToPreserve.contains(getItemIdentifier(TABLE, schemaName, tableName, database))) {
+                tableNames.add(tableName);
             }
         }
+        return tableNames;
     }
 
 
@@ -0,0 +1,145 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.structure.clean.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dbmaintain.database.Database;
+import org.dbmaintain.database.Databases;
+import org.dbmaintain.database.SQLHandler;
+import org.dbmaintain.structure.StructureUtils;
+import org.dbmaintain.structure.model.DbItemIdentifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import static org.dbmaintain.structure.model.DbItemIdentifier.getSchemaIdentifier;
+import static org.dbmaintain.util.ConcurrencyUtils.executeInParallel;
+
+/**
+ * Implementation of {@link org.dbmaintain.structure.clean.DBCleaner} that removes the data using truncate statements
+ * instead of deleting all records. Truncating a table does not generate undo and redo information for every row and is
+ * therefore a lot faster for large tables.
+ * <p>
+ * How foreign keys are handled depends on the database, see {@link Database#truncateTables}. Tables that cannot be
+ * truncated are cleaned by deleting their records, as is done by the {@link DefaultDBCleaner}.
+ * <p>
+ * If the parallelism is larger than 1, multiple schemas are cleaned at the same time, each using its own connection.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class TruncatingDBCleaner extends DefaultDBCleaner {
+
+    /* The logger instance for this class */
+    private static Log logger = LogFactory.getLog(TruncatingDBCleaner.class);
+
+    /* The nr of schemas that are cleaned at the same time, each using its own connection, 1 to clean the schemas one by one */
+    protected int parallelism;
+
+
+    /**
+     * Constructor for TruncatingDBCleaner.
+     *
+     * @param databases       The db support instances, not null
+     * @param itemsToPreserve The schema's and tables that should not be cleaned, not null
+     * @param sqlHandler      The sql handler that will execute the statements, not null
+     * @param parallelism     The nr of schemas that are cleaned at the same time, 1 to clean the schemas one by one
+     */
+    public TruncatingDBCleaner(Databases databases, Set<DbItemIdentifier> itemsToPreserve, SQLHandler sqlHandler, int parallelism) {
+        super(databases, itemsToPreserve, sqlHandler);
+        this.parallelism = parallelism;
+    }
+
+
+    /**
+     * Removes all data from the database, except for the tables that have been
+     * configured as <i>tablesToPreserve</i> , and the table in which the database version is stored
+     */
+    @Override
+    public void cleanDatabase() {
+        if (parallelism <= 1) {
+            super.cleanDatabase();
+            return;
+        }
+        StructureUtils.assertItemsToPreserveExist(databases, itemsToPreserve);
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Database database : databases.getDatabases()) {
+            for (String schemaName : database.getSchemaNames()) {
+                // check whether schema needs to be preserved
+                if (itemsToPreserve.contains(getSchemaIdentifier(schemaName, database))) {
+                    continue;
+                }
+                tasks.add(() -> {
+                    cleanSchemaUsingOwnConnection(database, schemaName);
+                    return null;
+                });
+            }
+        }
+        logger.info("Cleaning " + tasks.size() + " database schemas using " + Math.min(parallelism, tasks.size()) + " threads");
+        executeInParallel(tasks, parallelism, "Unable to clean database schema.");
+    }
+
+
+    /**
+     * Cleans the given schema using a new connection, that is closed afterwards.
+     *
+     * @param database   The database support, not null
+     * @param schemaName The schema name, not null
+     */
+    protected void cleanSchemaUsingOwnConnection(Database database, String schemaName) {
+        SQLHandler ownSqlHandler = database.getSQLHandler().copy();
+        try {
+            cleanSchema(database.copyWithSQLHandler(ownSqlHandler), schemaName);
+        } finally {
+            ownSqlHandler.closeAllConnections();
+        }
+    }
+
+
+    /**
+     * Truncates all tables of the given schema, except for the tables to preserve. The records of the tables that
+     * could not be truncated are deleted instead.
+     *
+     * @param database   The database support, not null
+     * @param schemaName The schema name, not null
+     */
+    @Override
+    protected void cleanSchema(Database database, String schemaName) {
+        logger.info("Cleaning database schema. Truncating all tables in schema " + schemaName);
+
+        // the records are deleted before the database restores the foreign keys that were changed for the truncate
+        database.truncateTables(schemaName, getTableNamesToClean(database, schemaName), tableName -> cleanTable(database, schemaName, tableName));
+    }
+
+
+    /**
+     * Deletes the data in the table with the given name using the sql handler of the given database. This way, the
+     * statement is executed on the connection of the schema that is being cleaned.
+     *
+     * @param database   The database support, not null
+     * @param schemaName The schema name, not null
+     * @param tableName  The name of the table that need to be cleared, not null
+     */
+    @Override
+    protected void cleanTable(Database database, String schemaName, String tableName) {
+        logger.debug("Deleting all records from table " + tableName + " in database schema " + schemaName);
+        database.getSQLHandler().execute("delete from " + database.qualified(schemaName, tableName), database.getDataSource());
+    }
+}
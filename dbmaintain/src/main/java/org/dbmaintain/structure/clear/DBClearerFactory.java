@@ -19,8 +19,10 @@ import org.dbmaintain.MainFactory;
 import org.dbmaintain.config.FactoryWithDatabase;
 import org.dbmaintain.script.executedscriptinfo.ExecutedScriptInfoSource;
 import org.dbmaintain.structure.clear.impl.DefaultDBClearer;
+import org.dbmaintain.structure.clear.impl.DependencyOrderedDBClearer;
 import org.dbmaintain.structure.constraint.ConstraintsDisabler;
 import org.dbmaintain.structure.model.DbItemIdentifier;
+import org.dbmaintain.config.PropertyUtils;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -43,7 +45,14 @@ public class DBClearerFactory extends FactoryWithDatabase<DBClearer> {
         ConstraintsDisabler constraintsDisabler = mainFactory.createConstraintsDisabler();
         ExecutedScriptInfoSource executedScriptInfoSource = mainFactory.createExecutedScriptInfoSource();
 
-        return new DefaultDBClearer(getDatabases(), itemsToPreserve, itemsToPurge, constraintsDisabler, executedScriptInfoSource);
+        boolean recreateSchemas = PropertyUtils.getBoolean(PROPERTY_CLEAR_RECREATE_SCHEMAS_ENABLED, false, getConfiguration());
+        boolean autoCreateExecutedScriptsTable = PropertyUtils.getBoolean(PROPERTY_AUTO_CREATE_DBMAINTAIN_SCRIPTS_TABLE, getConfiguration());
+        int parallelism = PropertyUtils.getInt(PROPERTY_CLEAR_PARALLELISM, 1, getConfiguration());
+
+        if (PropertyUtils.getBoolean(PROPERTY_CLEAR_DEPENDENCY_ORDERED_ENABLED, false, getConfiguration())) {
+            return new DependencyOrderedDBClearer(getDatabases(), itemsToPreserve, itemsToPurge, constraintsDisabler, executedScriptInfoSource, recreateSchemas, autoCreateExecutedScriptsTable, parallelism);
+        }
+        return new DefaultDBClearer(getDatabases(), itemsToPreserve, itemsToPurge, constraintsDisabler, executedScriptInfoSource, recreateSchemas, autoCreateExecutedScriptsTable, parallelism);
     }
 
 
@@ -19,6 +19,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.dbmaintain.database.Database;
 import org.dbmaintain.database.Databases;
+import org.dbmaintain.database.SQLHandler;
 import org.dbmaintain.script.executedscriptinfo.ExecutedScriptInfoSource;
 import org.dbmaintain.structure.StructureUtils;
 import org.dbmaintain.structure.clear.DBClearer;
@@ -27,10 +28,12 @@ import org.dbmaintain.structure.model.DbItemIdentifier;
 import org.dbmaintain.structure.model.DbItemType;
 
 import java.util.*;
+import java.util.concurrent.Callable;
 
 import static org.dbmaintain.structure.model.DbItemIdentifier.getItemIdentifier;
 import static org.dbmaintain.structure.model.DbItemIdentifier.getSchemaIdentifier;
 import static org.dbmaintain.structure.model.DbItemType.*;
+import static org.dbmaintain.util.ConcurrencyUtils.executeInParallel;
 
 /**
  * Implementation of {@link org.dbmaintain.structure.clear.DBClearer}. This implementation individually drops every table, view, materialized view, synonym,
@@ -48,6 +51,12 @@ public class DefaultDBClearer implements DBClearer {
     /* The logger instance for this class */
     private static Log logger = LogFactory.getLog(DefaultDBClearer.class);
 
+    /* The types of the items that are dropped when clearing a schema */
+    protected static final DbItemType[] TYPES_TO_CLEAR = {
+            TABLE, VIEW, MATERIALIZED_VIEW, SYNONYM,
+            DATABASE_LINK, SEQUENCE, TRIGGER, TYPE,
+            STORED_PROC, FUNCTION, PACKAGE, RULE};
+
     /* Disables of constraints before clearing the database */
     protected ConstraintsDisabler constraintsDisabler;
 
@@ -63,7 +72,20 @@ public class DefaultDBClearer implements DBClearer {
     /* The db support instances, not null */
     protected Databases databases;
 
-    private MultiPassErrorHandler multiPassErrorHandler;
+    /* True if schemas without items to preserve are dropped and recreated instead of dropping their items one by one */
+    protected boolean recreateSchemas;
+
+    /* True if the executed scripts table is created automatically, so it can be dropped when recreating its schema */
+    protected boolean autoCreateExecutedScriptsTable;
+
+    /* The schemas that were recreated during the current clear operation */
+    protected Set<DbItemIdentifier> recreatedSchemas = new HashSet<>();
+
+    /* The nr of schemas that are cleared at the same time, each using its own connection, 1 to clear the schemas one by one */
+    protected int parallelism;
+
+    /* Keeps track of the failed drops of the schema that is cleared by the current thread */
+    private final ThreadLocal<MultiPassErrorHandler> multiPassErrorHandler = new ThreadLocal<>();
 
     /**
      * @param databases                The db support instances, not null
@@ -77,11 +99,45 @@ public class DefaultDBClearer implements DBClearer {
     		Set<DbItemIdentifier> itemsToPurge, 
     		ConstraintsDisabler constraintsDisabler, 
     		ExecutedScriptInfoSource executedScriptInfoSource) {
+        this(databases, itemsToPreserve, itemsToPurge, constraintsDisabler, executedScriptInfoSource, false, false);
+    }
+
+    /**
+     * @param databases                      The db support instances, not null
+     * @param itemsToPreserve                The schema's, tables, triggers etc that should not be dropped, not null
+     * @param itemsToPurge                   The tables, triggers, types etc that should be dropped in addition to the schema objects, not null
+     * @param constraintsDisabler            Disables of constraints before clearing the database, not null
+     * @param executedScriptInfoSource       Clears the executed scripts table, not null
+     * @param recreateSchemas                True if schemas without items to preserve are dropped and recreated, if supported by the database
+     * @param autoCreateExecutedScriptsTable True if the executed scripts table is created automatically
+     */
+    public DefaultDBClearer(Databases databases, Set<DbItemIdentifier> itemsToPreserve, Set<DbItemIdentifier> itemsToPurge,
+                            ConstraintsDisabler constraintsDisabler, ExecutedScriptInfoSource executedScriptInfoSource,
+                            boolean recreateSchemas, boolean autoCreateExecutedScriptsTable) {
+        this(databases, itemsToPreserve, itemsToPurge, constraintsDisabler, executedScriptInfoSource, recreateSchemas, autoCreateExecutedScriptsTable, 1);
+    }
+
+    /**
+     * @param databases                      The db support instances, not null
+     * @param itemsToPreserve                The schema's, tables, triggers etc that should not be dropped, not null
+     * @param itemsToPurge                   The tables, triggers, types etc that should be dropped in addition to the schema objects, not null
+     * @param constraintsDisabler            Disables of constraints before clearing the database, not null
+     * @param executedScriptInfoSource       Clears the executed scripts table, not null
+     * @param recreateSchemas                True if schemas without items to preserve are dropped and recreated, if supported by the database
+     * @param autoCreateExecutedScriptsTable True if the executed scripts table is created automatically
+     * @param parallelism                    The nr of schemas that are cleared at the same time, 1 to clear the schemas one by one
+     */
+    public DefaultDBClearer(Databases databases, Set<DbItemIdentifier> itemsToPreserve, Set<DbItemIdentifier> itemsToPurge,
+                            ConstraintsDisabler constraintsDisabler, ExecutedScriptInfoSource executedScriptInfoSource,
+                            boolean recreateSchemas, boolean autoCreateExecutedScriptsTable, int parallelism) {
         this.databases = databases;
         this.itemsToPreserve = itemsToPreserve;
         this.itemsToPurge = itemsToPurge;
         this.constraintsDisabler = constraintsDisabler;
         this.executedScriptInfoSource = executedScriptInfoSource;
+        this.recreateSchemas = recreateSchemas;
+        this.autoCreateExecutedScriptsTable = autoCreateExecutedScriptsTable;
+        this.parallelism = parallelism;
     }
 
 
@@ -96,9 +152,18 @@ public class DefaultDBClearer implements DBClearer {
         // clear executed scripts, also makes sure that the scripts table exists
         executedScriptInfoSource.clearAllExecutedScripts();
 
+        recreatedSchemas.clear();
+        if (recreateSchemas) {
+            recreateSchemas();
+        }
+
         // Referential constraints are removed before clearing the database, to be sure there will be no conflicts when dropping tables
         constraintsDisabler.disableReferentialConstraints();
 
+        if (parallelism > 1) {
+            clearSchemasInParallel();
+            return;
+        }
         for (Database database : databases.getDatabases()) {
             if (database == null) {
                 continue;
@@ -108,32 +173,190 @@ public class DefaultDBClearer implements DBClearer {
     }
 
     protected void clearDatabase(Database database) {
-    	DbItemType[] typesToClear = {
-    			TABLE, VIEW, MATERIALIZED_VIEW, SYNONYM,
-    			DATABASE_LINK, SEQUENCE, TRIGGER, TYPE, 
-    			STORED_PROC, FUNCTION, PACKAGE, RULE};
-        for (String schemaName : database.getSchemaNames()) {
-            multiPassErrorHandler = new MultiPassErrorHandler();
-
-            // check whether schema needs to be preserved
-            if (itemsToPreserve.contains(getSchemaIdentifier(schemaName, database))) {
+        database.startCatalogSnapshot();
+        try {
+            for (String schemaName : database.getSchemaNames()) {
+                // check whether schema needs to be preserved or was already cleared
+                if (!isSchemaToClear(schemaName, database)) {
+                    continue;
+                }
+                clearSchema(database, schemaName);
+            }
+            dropPurgeItems(database);
+        } finally {
+            database.endCatalogSnapshot();
+        }
+    }
+
+    /**
+     * Clears the schemas of all databases concurrently, using at most {@link #parallelism} threads. Every schema is
+     * cleared using its own connection. When clearing a schema fails, the other schemas are still cleared. The first
+     * failure is thrown afterwards, the other failures are logged. The purge items are dropped after all schemas were
+     * cleared.
+     */
+    protected void clearSchemasInParallel() {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Database database : databases.getDatabases()) {
+            if (database == null) {
+                continue;
+            }
+            for (String schemaName : database.getSchemaNames()) {
+                if (isSchemaToClear(schemaName, database)) {
+                    tasks.add(() -> {
+                        clearSchemaUsingOwnConnection(database, schemaName);
+                        return null;
+                    });
+                }
+            }
+        }
+        if (!tasks.isEmpty()) {
+            logger.info("Clearing " + tasks.size() + " database schemas using " + Math.min(parallelism, tasks.size()) + " threads");
+            executeInParallel(tasks, parallelism, "Unable to clear database schema.");
+        }
+        for (Database database : databases.getDatabases()) {
+            if (database != null) {
+                dropPurgeItems(database);
+            }
+        }
+    }
+
+    /**
+     * Clears the given schema using a new connection, that is closed afterwards. This way, multiple schemas of the
+     * same database can be cleared at the same time.
+     *
+     * @param database   The database, not null
+     * @param schemaName The schema to clear, not null
+     */
+    protected void clearSchemaUsingOwnConnection(Database database, String schemaName) {
+        SQLHandler sqlHandler = database.getSQLHandler().copy();
+        Database copiedDatabase = database.copyWithSQLHandler(sqlHandler);
+        copiedDatabase.startCatalogSnapshot();
+        try {
+            clearSchema(copiedDatabase, schemaName);
+        } finally {
+            copiedDatabase.endCatalogSnapshot();
+            sqlHandler.closeAllConnections();
+        }
+    }
+
+    /**
+     * Drops all items of the given schema, except for the items to preserve.
+     *
+     * @param database   The database, not null
+     * @param schemaName The schema to clear, not null
+     */
+    protected void clearSchema(Database database, String schemaName) {
+        logger.info("Clearing database schema " + schemaName);
+        dropItemsInMultiplePasses(database, schemaName);
+    }
+
+    /**
+     * @param schemaName The schema, not null
+     * @param database   The database of the schema, not null
+     * @return True if the schema is not preserved and was not already cleared by recreating it
+     */
+    protected boolean isSchemaToClear(String schemaName, Database database) {
+        DbItemIdentifier schema = getSchemaIdentifier(schemaName, database);
+        return !itemsToPreserve.contains(schema) && !recreatedSchemas.contains(schema);
+    }
+
+    /**
+     * Drops and recreates all schemas that do not contain items to preserve, for the databases that support this.
+     * If the executed scripts table was dropped this way, it is created again. Schemas that could not be
+     * recreated are cleared item by item afterwards.
+     */
+    protected void recreateSchemas() {
+        boolean executedScriptsTableDropped = false;
+        for (Database database : databases.getDatabases()) {
+            if (database == null || !database.supportsRecreateSchema()) {
+                continue;
+            }
+            for (String schemaName : database.getSchemaNames()) {
+                DbItemIdentifier schema = getSchemaIdentifier(schemaName, database);
+                if (!canRecreateSchema(schema)) {
+                    continue;
+                }
+                logger.info("Clearing database schema " + schemaName + " by dropping and recreating it");
+                try {
+                    database.recreateSchema(schemaName);
+                } catch (RuntimeException e) {
+                    logger.warn("Unable to recreate database schema " + schemaName + ". The items of the schema will be dropped one by one.", e);
+                    continue;
+                }
+                recreatedSchemas.add(schema);
+                executedScriptsTableDropped |= containsExecutedScriptsTable(schema);
+            }
+        }
+        if (executedScriptsTableDropped) {
+            executedScriptInfoSource.resetCachedState();
+            executedScriptInfoSource.clearAllExecutedScripts();
+        }
+    }
+
+    /**
+     * A schema can be recreated if it does not contain any items to preserve. The executed scripts table does not
+     * need to be preserved if it is created automatically.
+     *
+     * @param schema The schema, not null
+     * @return True if the schema can be dropped and recreated
+     */
+    protected boolean canRecreateSchema(DbItemIdentifier schema) {
+        for (DbItemIdentifier itemToPreserve : itemsToPreserve) {
+            if (!itemToPreserve.getSchema().equals(schema)) {
                 continue;
             }
-            logger.info("Clearing database schema " + schemaName);
+            if (!itemToPreserve.isDbMaintainIdentifier() || !autoCreateExecutedScriptsTable) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected boolean containsExecutedScriptsTable(DbItemIdentifier schema) {
+        for (DbItemIdentifier itemToPreserve : itemsToPreserve) {
+            if (itemToPreserve.isDbMaintainIdentifier() && itemToPreserve.getSchema().equals(schema)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drops all items of the given schema, except for the items to preserve. The items are dropped in multiple
+     * passes, until all items are dropped or the number of failing drops no longer decreases.
+     *
+     * @param database   The database, not null
+     * @param schemaName The schema to clear, not null
+     */
+    protected void dropItemsInMultiplePasses(Database database, String schemaName) {
+        multiPassErrorHandler.set(new MultiPassErrorHandler());
+        try {
             do {
-            	for(DbItemType type : typesToClear) {
-            		dropDbItemsOfType(type, database, schemaName);
-            	}
+                for (DbItemType type : TYPES_TO_CLEAR) {
+                    dropDbItemsOfType(type, database, schemaName);
+                }
             }
-            while (multiPassErrorHandler.continueExecutionAfterPass());
+            while (multiPassErrorHandler.get().continueExecutionAfterPass());
+        } finally {
+            // the threads of a parallel clear are reused, don't keep the errors of this schema
+            multiPassErrorHandler.remove();
         }
-        multiPassErrorHandler = new MultiPassErrorHandler();
-        do {
-        	dropPurgeItems(database);
-        } while (multiPassErrorHandler.continueExecutionAfterPass());        
     }
-    
+
     protected void dropPurgeItems(Database database) {
+        database.startCatalogSnapshot();
+        try {
+            multiPassErrorHandler.set(new MultiPassErrorHandler());
+            do {
+            	dropPurgeItemsPass(database);
+            } while (multiPassErrorHandler.get().continueExecutionAfterPass());
+        } finally {
+            multiPassErrorHandler.remove();
+            database.endCatalogSnapshot();
+        }
+    }
+    
+    protected void dropPurgeItemsPass(Database database) {
         for (DbItemIdentifier item : itemsToPurge) {
             if (!database.supports(item.getType()))
                 continue;
@@ -173,7 +396,7 @@ public class DefaultDBClearer implements DBClearer {
 		try {
 			database.drop(type, schemaName, itemName);
 		} catch (RuntimeException e) {
-			multiPassErrorHandler.addError(e);
+			multiPassErrorHandler.get().addError(e);
 		}
 	}
 	
@@ -194,7 +417,7 @@ public class DefaultDBClearer implements DBClearer {
             try {
                 database.dropTable(schemaName, tableName);
             } catch (RuntimeException e) {
-                multiPassErrorHandler.addError(e);
+                multiPassErrorHandler.get().addError(e);
             }
         }
     }
@@ -216,7 +439,7 @@ public class DefaultDBClearer implements DBClearer {
             try {
                 database.dropView(schemaName, viewName);
             } catch (RuntimeException e) {
-                multiPassErrorHandler.addError(e);
+                multiPassErrorHandler.get().addError(e);
             }
         }
     }
@@ -241,7 +464,7 @@ public class DefaultDBClearer implements DBClearer {
             try {
                 database.dropMaterializedView(schemaName, materializedViewName);
             } catch (RuntimeException e) {
-                multiPassErrorHandler.addError(e);
+                multiPassErrorHandler.get().addError(e);
             }
         }
     }
@@ -266,7 +489,7 @@ public class DefaultDBClearer implements DBClearer {
             try {
                 database.dropSynonym(schemaName, synonymName);
             } catch (RuntimeException e) {
-                multiPassErrorHandler.addError(e);
+                multiPassErrorHandler.get().addError(e);
             }
 
         }
@@ -292,7 +515,7 @@ public class DefaultDBClearer implements DBClearer {
             try {
                 database.dropSequence(schemaName, sequenceName);
             } catch (RuntimeException e) {
-                multiPassErrorHandler.addError(e);
+                multiPassErrorHandler.get().addError(e);
             }
         }
     }
@@ -317,7 +540,7 @@ public class DefaultDBClearer implements DBClearer {
             try {
                 database.dropTrigger(schemaName, triggerName);
             } catch (RuntimeException e) {
-                multiPassErrorHandler.addError(e);
+                multiPassErrorHandler.get().addError(e);
             }
         }
     }
@@ -336,7 +559,7 @@ public class DefaultDBClearer implements DBClearer {
             try {
                 database.dropStoredProcedure(schemaName, storedProcedureName);
             } catch (RuntimeException e) {
-                multiPassErrorHandler.addError(e);
+                multiPassErrorHandler.get().addError(e);
             }
         }
     }
@@ -361,7 +584,7 @@ public class DefaultDBClearer implements DBClearer {
             try {
                 database.dropType(schemaName, typeName);
             } catch (RuntimeException e) {
-                multiPassErrorHandler.addError(e);
+                multiPassErrorHandler.get().addError(e);
             }
         }
     }
@@ -386,7 +609,7 @@ public class DefaultDBClearer implements DBClearer {
             try {
                 database.dropRule(schemaName, ruleName);
             } catch (RuntimeException e) {
-                multiPassErrorHandler.addError(e);
+                multiPassErrorHandler.get().addError(e);
             }
         }
     }
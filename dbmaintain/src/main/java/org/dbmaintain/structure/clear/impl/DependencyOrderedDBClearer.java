@@ -0,0 +1,192 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.structure.clear.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dbmaintain.database.Database;
+import org.dbmaintain.database.Databases;
+import org.dbmaintain.script.executedscriptinfo.ExecutedScriptInfoSource;
+import org.dbmaintain.structure.constraint.ConstraintsDisabler;
+import org.dbmaintain.structure.model.DbItemIdentifier;
+import org.dbmaintain.structure.model.DbItemType;
+
+import java.util.*;
+
+import static org.dbmaintain.structure.model.DbItemIdentifier.getItemIdentifier;
+import static org.dbmaintain.structure.model.DbItemIdentifier.getSchemaIdentifier;
+
+/**
+ * Implementation of {@link org.dbmaintain.structure.clear.DBClearer} that reads the dependencies between the database
+ * items from the database catalog and drops the items of a schema in one pass: an item is only dropped after all
+ * items that depend on it were dropped. This avoids the failing drop statements and repeated passes of the
+ * {@link DefaultDBClearer}.
+ * <p>
+ * Items that could not be dropped this way, because they are part of a dependency cycle, a preserved item depends
+ * on them or their drop failed, are dropped afterwards using the multi-pass approach of the {@link DefaultDBClearer}.
+ * Databases that do not support retrieving dependencies are cleared entirely using the multi-pass approach.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class DependencyOrderedDBClearer extends DefaultDBClearer {
+
+    /* The logger instance for this class */
+    private static Log logger = LogFactory.getLog(DependencyOrderedDBClearer.class);
+
+
+    /**
+     * @param databases                The db support instances, not null
+     * @param itemsToPreserve          The schema's, tables, triggers etc that should not be dropped, not null
+     * @param itemsToPurge             The tables, triggers, types etc that should be dropped in addition to the schema objects, not null
+     * @param constraintsDisabler      Disables of constraints before clearing the database, not null
+     * @param executedScriptInfoSource Clears the executed scripts table, not null
+     */
+    public DependencyOrderedDBClearer(Databases databases, Set<DbItemIdentifier> itemsToPreserve, Set<DbItemIdentifier> itemsToPurge, ConstraintsDisabler constraintsDisabler, ExecutedScriptInfoSource executedScriptInfoSource) {
+        super(databases, itemsToPreserve, itemsToPurge, constraintsDisabler, executedScriptInfoSource);
+    }
+
+    /**
+     * @param databases                      The db support instances, not null
+     * @param itemsToPreserve                The schema's, tables, triggers etc that should not be dropped, not null
+     * @param itemsToPurge                   The tables, triggers, types etc that should be dropped in addition to the schema objects, not null
+     * @param constraintsDisabler            Disables of constraints before clearing the database, not null
+     * @param executedScriptInfoSource       Clears the executed scripts table, not null
+     * @param recreateSchemas                True if schemas without items to preserve are dropped and recreated, if supported by the database
+     * @param autoCreateExecutedScriptsTable True if the executed scripts table is created automatically
+     */
+    public DependencyOrderedDBClearer(Databases databases, Set<DbItemIdentifier> itemsToPreserve, Set<DbItemIdentifier> itemsToPurge, ConstraintsDisabler constraintsDisabler, ExecutedScriptInfoSource executedScriptInfoSource,
+                                      boolean recreateSchemas, boolean autoCreateExecutedScriptsTable) {
+        super(databases, itemsToPreserve, itemsToPurge, constraintsDisabler, executedScriptInfoSource, recreateSchemas, autoCreateExecutedScriptsTable);
+    }
+
+    /**
+     * @param databases                      The db support instances, not null
+     * @param itemsToPreserve                The schema's, tables, triggers etc that should not be dropped, not null
+     * @param itemsToPurge                   The tables, triggers, types etc that should be dropped in addition to the schema objects, not null
+     * @param constraintsDisabler            Disables of constraints before clearing the database, not null
+     * @param executedScriptInfoSource       Clears the executed scripts table, not null
+     * @param recreateSchemas                True if schemas without items to preserve are dropped and recreated, if supported by the database
+     * @param autoCreateExecutedScriptsTable True if the executed scripts table is created automatically
+     * @param parallelism                    The nr of schemas that are cleared at the same time, 1 to clear the schemas one by one
+     */
+    public DependencyOrderedDBClearer(Databases databases, Set<DbItemIdentifier> itemsToPreserve, Set<DbItemIdentifier> itemsToPurge, ConstraintsDisabler constraintsDisabler, ExecutedScriptInfoSource executedScriptInfoSource,
+                                      boolean recreateSchemas, boolean autoCreateExecutedScriptsTable, int parallelism) {
+        super(databases, itemsToPreserve, itemsToPurge, constraintsDisabler, executedScriptInfoSource, recreateSchemas, autoCreateExecutedScriptsTable, parallelism);
+    }
+
+
+    @Override
+    protected void clearSchema(Database database, String schemaName) {
+        if (!database.supportsDbItemDependencies()) {
+            super.clearSchema(database, schemaName);
+            return;
+        }
+        logger.info("Clearing database schema " + schemaName);
+        int nrOfRemainingItems = dropItemsInDependencyOrder(database, schemaName);
+        if (nrOfRemainingItems > 0) {
+            logger.info(nrOfRemainingItems + " items of database schema " + schemaName + " could not be dropped in dependency order. Dropping these items using multiple passes.");
+            dropItemsInMultiplePasses(database, schemaName);
+        }
+    }
+
+    /**
+     * Drops the items of the given schema in reverse dependency order, i.e. an item is dropped once no remaining
+     * item depends on it anymore. Items to preserve are not dropped.
+     *
+     * @param database   The database, not null
+     * @param schemaName The schema to clear, not null
+     * @return The number of items that were not dropped, excluding the items to preserve
+     */
+    protected int dropItemsInDependencyOrder(Database database, String schemaName) {
+        Map<DbItemIdentifier, String> itemNames = new LinkedHashMap<>();
+        Set<DbItemIdentifier> preservedItems = new HashSet<>();
+        for (DbItemType type : TYPES_TO_CLEAR) {
+            if (!database.supports(type)) {
+                continue;
+            }
+            for (String itemName : database.getDbItemsOfType(type, schemaName)) {
+                DbItemIdentifier item = getItemIdentifier(type, schemaName, itemName, database);
+                itemNames.put(item, itemName);
+                if (itemsToPreserve.contains(item)) {
+                    preservedItems.add(item);
+                }
+            }
+        }
+        Map<DbItemIdentifier, Set<DbItemIdentifier>> dependencies = database.getDbItemDependencies(schemaName);
+
+        // count for every item the number of items that depend on it
+        Map<DbItemIdentifier, Integer> nrOfDependents = new HashMap<>();
+        for (Map.Entry<DbItemIdentifier, Set<DbItemIdentifier>> entry : dependencies.entrySet()) {
+            if (!itemNames.containsKey(entry.getKey())) {
+                continue;
+            }
+            for (DbItemIdentifier referencedItem : entry.getValue()) {
+                if (itemNames.containsKey(referencedItem)) {
+                    nrOfDependents.merge(referencedItem, 1, Integer::sum);
+                }
+            }
+        }
+        Deque<DbItemIdentifier> itemsToDrop = new ArrayDeque<>();
+        for (DbItemIdentifier item : itemNames.keySet()) {
+            if (!nrOfDependents.containsKey(item) && !preservedItems.contains(item)) {
+                itemsToDrop.add(item);
+            }
+        }
+
+        int nrOfDroppedItems = 0;
+        while (!itemsToDrop.isEmpty()) {
+            DbItemIdentifier item = itemsToDrop.poll();
+            if (!dropItem(database, schemaName, item.getType(), itemNames.get(item))) {
+                continue;
+            }
+            nrOfDroppedItems++;
+            for (DbItemIdentifier referencedItem : dependencies.getOrDefault(item, Collections.emptySet())) {
+                Integer count = nrOfDependents.get(referencedItem);
+                if (count == null) {
+                    continue;
+                }
+                if (count > 1) {
+                    nrOfDependents.put(referencedItem, count - 1);
+                } else {
+                    nrOfDependents.remove(referencedItem);
+                    if (!preservedItems.contains(referencedItem)) {
+                        itemsToDrop.add(referencedItem);
+                    }
+                }
+            }
+        }
+        return itemNames.size() - preservedItems.size() - nrOfDroppedItems;
+    }
+
+    /**
+     * @param database   The database, not null
+     * @param schemaName The schema of the item, not null
+     * @param type       The type of the item, not null
+     * @param itemName   The name of the item as stored in the catalog, not null
+     * @return True if the item was dropped, false if dropping failed
+     */
+    protected boolean dropItem(Database database, String schemaName, DbItemType type, String itemName) {
+        logger.debug("Dropping " + type + " " + itemName + " in database schema " + schemaName);
+        try {
+            database.drop(type, schemaName, itemName);
+            return true;
+        } catch (RuntimeException e) {
+            logger.debug("Unable to drop " + type + " " + itemName + ". It will be retried in a next pass.", e);
+            return false;
+        }
+    }
+}
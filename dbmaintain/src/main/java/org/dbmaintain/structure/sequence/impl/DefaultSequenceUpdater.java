@@ -20,8 +20,9 @@ import org.apache.commons.logging.LogFactory;
 import org.dbmaintain.database.Database;
 import org.dbmaintain.database.Databases;
 import org.dbmaintain.structure.sequence.SequenceUpdater;
-import org.dbmaintain.util.DbMaintainException;
 
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -52,18 +53,24 @@ public class DefaultSequenceUpdater implements SequenceUpdater {
      */
     public void updateSequences() {
         for (Database database : databases.getDatabases()) {
-            for (String schemaName : database.getSchemaNames()) {
-                logger.info("Updating sequences and identity columns in database " + (database.getDatabaseName() != null ? database.getDatabaseName() +
-                        ", and schema " : "schema ") + schemaName);
-                incrementSequencesWithLowValue(database, schemaName);
-                incrementIdentityColumnsWithLowValue(database, schemaName);
+            database.startCatalogSnapshot();
+            try {
+                for (String schemaName : database.getSchemaNames()) {
+                    logger.info("Updating sequences and identity columns in database " + (database.getDatabaseName() != null ? database.getDatabaseName() +
+                            ", and schema " : "schema ") + schemaName);
+                    incrementSequencesWithLowValue(database, schemaName);
+                    incrementIdentityColumnsWithLowValue(database, schemaName);
+                }
+            } finally {
+                database.endCatalogSnapshot();
             }
         }
     }
 
 
     /**
-     * Increments all sequences in the given schema whose value is too low.
+     * Increments all sequences in the given schema whose value is too low. The values of all sequences are retrieved
+     * at once and the sequences with a low value are incremented together.
      *
      * @param database   The database support, not null
      * @param schemaName The schema, not null
@@ -72,18 +79,22 @@ public class DefaultSequenceUpdater implements SequenceUpdater {
         if (!database.supportsSequences()) {
             return;
         }
-        Set<String> sequenceNames = database.getSequenceNames(schemaName);
-        for (String sequenceName : sequenceNames) {
-            if (database.getSequenceValue(schemaName, sequenceName) < lowestAcceptableSequenceValue) {
-                logger.debug("Incrementing value for sequence " + sequenceName + " in database schema " + schemaName);
-                database.incrementSequenceToValue(schemaName, sequenceName, lowestAcceptableSequenceValue);
+        Set<String> sequenceNamesWithLowValue = new HashSet<>();
+        for (Map.Entry<String, Long> sequenceValue : database.getSequenceValues(schemaName).entrySet()) {
+            if (sequenceValue.getValue() < lowestAcceptableSequenceValue) {
+                logger.debug("Incrementing value for sequence " + sequenceValue.getKey() + " in database schema " + schemaName);
+                sequenceNamesWithLowValue.add(sequenceValue.getKey());
             }
         }
+        if (!sequenceNamesWithLowValue.isEmpty()) {
+            database.incrementSequencesToValue(schemaName, sequenceNamesWithLowValue, lowestAcceptableSequenceValue);
+        }
     }
 
 
     /**
-     * Increments the next value for identity columns in the given schema whose next value is too low
+     * Increments the next value for identity columns in the given schema whose next value is too low. The identity
+     * columns of all tables are retrieved at once and incremented together.
      *
      * @param database   The database support, not null
      * @param schemaName The schema, not null
@@ -92,19 +103,12 @@ public class DefaultSequenceUpdater implements SequenceUpdater {
         if (!database.supportsIdentityColumns()) {
             return;
         }
-        Set<String> tableNames = database.getTableNames(schemaName);
-        for (String tableName : tableNames) {
-            Set<String> identityColumnNames = database.getIdentityColumnNames(schemaName, tableName);
-            for (String identityColumnName : identityColumnNames) {
-                try {
-                    database.incrementIdentityColumnToValue(schemaName, tableName, identityColumnName, lowestAcceptableSequenceValue);
-                    logger.debug("Incrementing value for identity column " + identityColumnName + " in database schema " + schemaName);
-
-                } catch (DbMaintainException e) {
-                    // primary key is not an identity column
-                    // skip column
-                }
-            }
+        Map<String, Set<String>> identityColumnNamesPerTable = database.getIdentityColumnNamesPerTable(schemaName);
+        for (Map.Entry<String, Set<String>> identityColumnNames : identityColumnNamesPerTable.entrySet()) {
+            logger.debug("Incrementing value for identity columns " + identityColumnNames.getValue() + " of table " + identityColumnNames.getKey() + " in database schema " + schemaName);
+        }
+        if (!identityColumnNamesPerTable.isEmpty()) {
+            database.incrementIdentityColumnsToValue(schemaName, identityColumnNamesPerTable, lowestAcceptableSequenceValue);
         }
     }
 
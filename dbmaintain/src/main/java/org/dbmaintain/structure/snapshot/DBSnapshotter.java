@@ -0,0 +1,48 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.structure.snapshot;
+
+import org.dbmaintain.script.Script;
+
+import java.util.Collection;
+
+/**
+ * Defines the contract for implementations that save a snapshot of the database after it was recreated from scratch,
+ * so that a later from scratch update with exactly the same scripts can restore the snapshot instead of clearing the
+ * database and executing all scripts again.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public interface DBSnapshotter {
+
+
+    /**
+     * Restores the snapshot that was saved for the given scripts, if there is one.
+     *
+     * @param scripts The update scripts that the snapshot should contain, not null
+     * @return True if a snapshot was restored, false if there was no snapshot for the given scripts
+     */
+    boolean restoreSnapshot(Collection<Script> scripts);
+
+    /**
+     * Saves a snapshot of the database, containing the result of executing the given scripts.
+     *
+     * @param scripts The update scripts that were executed, not null
+     */
+    void saveSnapshot(Collection<Script> scripts);
+
+}
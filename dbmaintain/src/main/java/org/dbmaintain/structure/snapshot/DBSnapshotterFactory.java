@@ -0,0 +1,53 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.structure.snapshot;
+
+import org.dbmaintain.config.FactoryWithDatabase;
+import org.dbmaintain.config.PropertyUtils;
+import org.dbmaintain.structure.snapshot.impl.DefaultDBSnapshotter;
+
+import java.io.File;
+
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+import static org.dbmaintain.config.DbMaintainProperties.*;
+
+/**
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class DBSnapshotterFactory extends FactoryWithDatabase<DBSnapshotter> {
+
+
+    public DBSnapshotter createInstance() {
+        String snapshotDirName = PropertyUtils.getString(PROPERTY_FROM_SCRATCH_SNAPSHOT_DIR, null, getConfiguration());
+        File snapshotDir = snapshotDirName == null ? new File(System.getProperty("java.io.tmpdir"), "dbmaintain-snapshots") : new File(snapshotDirName);
+        return new DefaultDBSnapshotter(getDatabases(), snapshotDir, isPreservedItemsConfigured());
+    }
+
+
+    protected boolean isPreservedItemsConfigured() {
+        String[] preserveProperties = {PROPERTY_PRESERVE_SCHEMAS, PROPERTY_PRESERVE_TABLES, PROPERTY_PRESERVE_DATABASE_LINKS,
+                PROPERTY_PRESERVE_VIEWS, PROPERTY_PRESERVE_MATERIALIZED_VIEWS, PROPERTY_PRESERVE_FUNCTIONS, PROPERTY_PRESERVE_PACKAGES,
+                PROPERTY_PRESERVE_PROCEDURES, PROPERTY_PRESERVE_SYNONYMS, PROPERTY_PRESERVE_SEQUENCES, PROPERTY_PRESERVE_TRIGGERS,
+                PROPERTY_PRESERVE_TYPES, PROPERTY_PRESERVE_DATA_SCHEMAS, PROPERTY_PRESERVE_DATA_TABLES};
+        for (String preserveProperty : preserveProperties) {
+            if (isNotBlank(getConfiguration().getProperty(preserveProperty))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.structure.snapshot.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dbmaintain.database.Database;
+import org.dbmaintain.database.Databases;
+import org.dbmaintain.script.Script;
+import org.dbmaintain.structure.snapshot.DBSnapshotter;
+import org.dbmaintain.util.DbMaintainException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.TreeMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Implementation of {@link DBSnapshotter} that saves a snapshot file per database in a snapshot directory. The
+ * snapshots are keyed by a fingerprint of the file names and check sums of the update scripts. A snapshot is only
+ * saved and restored if all databases support snapshots. Snapshots are not used when items of the database are
+ * preserved: a snapshot only contains the schemas that are managed by dbmaintain and restoring it would drop the
+ * preserved items or their data.
+ * <p>
+ * The snapshot is first written to a temporary file and then moved to its final name, so that builds that share the
+ * snapshot directory never restore a partially written snapshot.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class DefaultDBSnapshotter implements DBSnapshotter {
+
+    /* The logger instance for this class */
+    private static Log logger = LogFactory.getLog(DefaultDBSnapshotter.class);
+
+    protected Databases databases;
+    /* The directory containing the snapshot files */
+    protected File snapshotDir;
+    /* True if database items are configured to be preserved when clearing the database */
+    protected boolean preservedItemsConfigured;
+
+
+    /**
+     * @param databases   The databases to snapshot, not null
+     * @param snapshotDir The directory containing the snapshot files, not null
+     */
+    public DefaultDBSnapshotter(Databases databases, File snapshotDir) {
+        this(databases, snapshotDir, false);
+    }
+
+    /**
+     * @param databases                The databases to snapshot, not null
+     * @param snapshotDir              The directory containing the snapshot files, not null
+     * @param preservedItemsConfigured True if database items are preserved when clearing, snapshots are then not used
+     */
+    public DefaultDBSnapshotter(Databases databases, File snapshotDir, boolean preservedItemsConfigured) {
+        this.databases = databases;
+        this.snapshotDir = snapshotDir;
+        this.preservedItemsConfigured = preservedItemsConfigured;
+    }
+
+
+    public boolean restoreSnapshot(Collection<Script> scripts) {
+        if (preservedItemsConfigured) {
+            logger.info("Database items are configured to be preserved. No database snapshot is restored.");
+            return false;
+        }
+        if (!allDatabasesSupportSnapshots()) {
+            return false;
+        }
+        String snapshotKey = getSnapshotKey(scripts);
+        for (Database database : databases.getDatabases()) {
+            if (!getSnapshotFile(database, snapshotKey).exists()) {
+                logger.info("No database snapshot found for the current scripts (" + snapshotKey + ").");
+                return false;
+            }
+        }
+        for (Database database : databases.getDatabases()) {
+            File snapshotFile = getSnapshotFile(database, snapshotKey);
+            logger.info("Restoring " + getDatabaseDescription(database) + " from snapshot " + snapshotFile);
+            database.restoreSnapshot(snapshotFile);
+        }
+        return true;
+    }
+
+
+    public void saveSnapshot(Collection<Script> scripts) {
+        if (preservedItemsConfigured) {
+            return;
+        }
+        if (!allDatabasesSupportSnapshots()) {
+            logger.info("Not all databases support snapshots. No database snapshot is saved.");
+            return;
+        }
+        String snapshotKey = getSnapshotKey(scripts);
+        snapshotDir.mkdirs();
+        for (Database database : databases.getDatabases()) {
+            File snapshotFile = getSnapshotFile(database, snapshotKey);
+            File tempSnapshotFile = new File(snapshotDir, snapshotFile.getName() + ".tmp");
+            logger.info("Saving snapshot of " + getDatabaseDescription(database) + " to " + snapshotFile);
+            try {
+                Files.deleteIfExists(tempSnapshotFile.toPath());
+                database.saveSnapshot(tempSnapshotFile);
+                Files.move(tempSnapshotFile.toPath(), snapshotFile.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new DbMaintainException("Unable to save snapshot of " + getDatabaseDescription(database) + " to " + snapshotFile, e);
+            }
+        }
+    }
+
+
+    protected boolean allDatabasesSupportSnapshots() {
+        for (Database database : databases.getDatabases()) {
+            if (!database.supportsSnapshots()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected File getSnapshotFile(Database database, String snapshotKey) {
+        String databaseName = database.getDatabaseName() == null ? "default" : database.getDatabaseName();
+        return new File(snapshotDir, "dbmaintain-" + databaseName + "-" + snapshotKey + ".snapshot");
+    }
+
+    protected String getDatabaseDescription(Database database) {
+        return database.getDatabaseName() == null ? "the database" : "database " + database.getDatabaseName();
+    }
+
+    /**
+     * Computes the key of the snapshot: a fingerprint of the file name and check sum of every script.
+     *
+     * @param scripts The scripts, not null
+     * @return The key, not null
+     */
+    protected String getSnapshotKey(Collection<Script> scripts) {
+        TreeMap<String, String> sortedEntries = new TreeMap<>();
+        for (Script script : scripts) {
+            sortedEntries.put(script.getFileName(), script.getCheckSum());
+        }
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+            for (String fileName : sortedEntries.keySet()) {
+                messageDigest.update((fileName + "|" + sortedEntries.get(fileName) + "\n").getBytes(UTF_8));
+            }
+            StringBuilder result = new StringBuilder();
+            for (byte b : messageDigest.digest()) {
+                result.append(Integer.toString((b & 0xff) + 0x100, 16).substring(1));
+            }
+            return result.toString();
+        } catch (Exception e) {
+            throw new DbMaintainException("Unable to calculate fingerprint of scripts.", e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Class containing utilities for executing tasks concurrently
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class ConcurrencyUtils {
+
+    /* The logger instance for this class */
+    private static Log logger = LogFactory.getLog(ConcurrencyUtils.class);
+
+
+    /**
+     * Executes the given tasks using a thread pool of at most the given nr of threads and waits until all tasks are
+     * finished. A task that fails does not stop the other tasks. When tasks fail, the exception of the first failed
+     * task is thrown and the exceptions of the other failed tasks are logged.
+     *
+     * @param tasks        The tasks to execute, not null
+     * @param nrOfThreads  The maximum nr of tasks that are executed at the same time, at least 1
+     * @param errorMessage The message to log for the failed tasks, not null
+     */
+    public static void executeInParallel(List<Callable<Void>> tasks, int nrOfThreads, String errorMessage) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(nrOfThreads, tasks.size()));
+        try {
+            RuntimeException firstException = null;
+            for (Future<Void> future : executorService.invokeAll(tasks)) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    RuntimeException exception = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new DbMaintainException(e.getCause());
+                    if (firstException == null) {
+                        firstException = exception;
+                    } else {
+                        logger.error(errorMessage, exception);
+                    }
+                }
+            }
+            if (firstException != null) {
+                throw firstException;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DbMaintainException("Interrupted while waiting for the tasks to finish.", e);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
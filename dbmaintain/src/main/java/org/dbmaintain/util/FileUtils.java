@@ -18,6 +18,9 @@ package org.dbmaintain.util;
 import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
 
 import org.apache.commons.io.output.FileWriterWithEncoding;
 
@@ -75,4 +78,22 @@ public class FileUtils {
             writer.write(content);
         }
     }
+
+    /**
+     * Creates a new empty file that can only be read and written by its owner. On file systems that support posix
+     * permissions, the file is created with these permissions, so that no other user can open it in the meantime.
+     *
+     * @param file The new file to create, should not exist yet, not null
+     */
+    public static void createFileReadableByOwnerOnly(File file) throws IOException {
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(file.toPath(), PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+            return;
+        }
+        Files.createFile(file.toPath());
+        file.setReadable(false, false);
+        file.setWritable(false, false);
+        file.setReadable(true, true);
+        file.setWritable(true, true);
+    }
 }
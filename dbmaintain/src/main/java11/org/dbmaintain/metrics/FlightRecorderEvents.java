@@ -0,0 +1,221 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emits Java Flight Recorder events for the operations of DbMaintain, so that a recording shows which script or
+ * catalog query is taking the time.
+ * <p>
+ * This is the Java 11 version that is packaged in META-INF/versions/11 of the multi-release jar. It must have the
+ * same public methods as the Java 8 version.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+public class FlightRecorderEvents {
+
+    private static final FlightRecorderEvent NO_EVENT = new FlightRecorderEvent();
+
+
+    public static FlightRecorderEvent beginScriptLoad(String scriptLocation) {
+        ScriptLoadEvent event = new ScriptLoadEvent();
+        if (!event.isEnabled()) {
+            return NO_EVENT;
+        }
+        event.scriptLocation = scriptLocation;
+        return begin(event);
+    }
+
+    public static FlightRecorderEvent beginCheckSum(String scriptName) {
+        CheckSumEvent event = new CheckSumEvent();
+        if (!event.isEnabled()) {
+            return NO_EVENT;
+        }
+        event.script = scriptName;
+        return begin(event);
+    }
+
+    public static FlightRecorderEvent beginParseStatement(String scriptName) {
+        ParseStatementEvent event = new ParseStatementEvent();
+        if (!event.isEnabled()) {
+            return NO_EVENT;
+        }
+        event.script = scriptName;
+        return begin(event);
+    }
+
+    public static FlightRecorderEvent beginExecuteStatement(String scriptName, int statementNr, long nrOfChars) {
+        ExecuteStatementEvent event = new ExecuteStatementEvent();
+        if (!event.isEnabled()) {
+            return NO_EVENT;
+        }
+        event.script = scriptName;
+        event.statementNr = statementNr;
+        event.nrOfChars = nrOfChars;
+        return begin(event);
+    }
+
+    public static FlightRecorderEvent beginRegistryWrite(String operation, String scriptName) {
+        RegistryWriteEvent event = new RegistryWriteEvent();
+        if (!event.isEnabled()) {
+            return NO_EVENT;
+        }
+        event.operation = operation;
+        event.script = scriptName;
+        return begin(event);
+    }
+
+    public static FlightRecorderEvent beginQuery(String sql) {
+        QueryEvent event = new QueryEvent();
+        if (!event.isEnabled()) {
+            return NO_EVENT;
+        }
+        event.sql = sql;
+        return begin(event);
+    }
+
+
+    private static FlightRecorderEvent begin(DbMaintainEvent event) {
+        event.begin();
+        return new JfrEventHandle(event);
+    }
+
+
+    private static class JfrEventHandle extends FlightRecorderEvent {
+
+        private DbMaintainEvent event;
+
+        JfrEventHandle(DbMaintainEvent event) {
+            this.event = event;
+        }
+
+        @Override
+        public void end(long amount) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.setAmount(amount);
+                event.commit();
+            }
+        }
+    }
+
+
+    @Category("DbMaintain")
+    private static abstract class DbMaintainEvent extends Event {
+
+        abstract void setAmount(long amount);
+    }
+
+    @Name("org.dbmaintain.ScriptLoad")
+    @Label("Script Load")
+    private static class ScriptLoadEvent extends DbMaintainEvent {
+
+        @Label("Script Location")
+        String scriptLocation;
+
+        @Label("Scripts")
+        long nrOfScripts;
+
+        void setAmount(long amount) {
+            nrOfScripts = amount;
+        }
+    }
+
+    @Name("org.dbmaintain.CheckSum")
+    @Label("Check Sum")
+    private static class CheckSumEvent extends DbMaintainEvent {
+
+        @Label("Script")
+        String script;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        void setAmount(long amount) {
+            bytes = amount;
+        }
+    }
+
+    @Name("org.dbmaintain.ParseStatement")
+    @Label("Parse Statement")
+    private static class ParseStatementEvent extends DbMaintainEvent {
+
+        @Label("Script")
+        String script;
+
+        @Label("Characters")
+        long nrOfChars;
+
+        void setAmount(long amount) {
+            nrOfChars = amount;
+        }
+    }
+
+    @Name("org.dbmaintain.ExecuteStatement")
+    @Label("Execute Statement")
+    private static class ExecuteStatementEvent extends DbMaintainEvent {
+
+        @Label("Script")
+        String script;
+
+        @Label("Statement Nr")
+        int statementNr;
+
+        @Label("Characters")
+        long nrOfChars;
+
+        @Label("Update Count")
+        long updateCount;
+
+        void setAmount(long amount) {
+            updateCount = amount;
+        }
+    }
+
+    @Name("org.dbmaintain.RegistryWrite")
+    @Label("Executed Scripts Registry Write")
+    private static class RegistryWriteEvent extends DbMaintainEvent {
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Script")
+        String script;
+
+        void setAmount(long amount) {
+            // nothing to record
+        }
+    }
+
+    @Name("org.dbmaintain.Query")
+    @Label("Query")
+    private static class QueryEvent extends DbMaintainEvent {
+
+        @Label("SQL")
+        String sql;
+
+        void setAmount(long amount) {
+            // nothing to record
+        }
+    }
+}
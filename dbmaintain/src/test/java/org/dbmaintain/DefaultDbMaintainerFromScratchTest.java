@@ -0,0 +1,193 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain;
+
+import org.dbmaintain.database.SQLHandler;
+import org.dbmaintain.metrics.impl.NoOpMetrics;
+import org.dbmaintain.script.Script;
+import org.dbmaintain.script.ScriptContentHandle.StringScriptContentHandle;
+import org.dbmaintain.script.ScriptFactory;
+import org.dbmaintain.script.executedscriptinfo.ExecutedScriptInfoSource;
+import org.dbmaintain.script.executedscriptinfo.ScriptIndexes;
+import org.dbmaintain.script.repository.ScriptLocation;
+import org.dbmaintain.script.repository.ScriptRepository;
+import org.dbmaintain.script.runner.ScriptRunner;
+import org.dbmaintain.structure.clear.DBClearer;
+import org.dbmaintain.structure.snapshot.DBSnapshotter;
+import org.dbmaintain.util.DbMaintainException;
+import org.dbmaintain.util.TestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.io.File;
+import java.util.TreeSet;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the recreation of the database from scratch.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DefaultDbMaintainerFromScratchTest {
+
+    @Mock
+    private ExecutedScriptInfoSource executedScriptInfoSource;
+    @Mock
+    private ScriptRunner scriptRunner;
+    @Mock
+    private SQLHandler sqlHandler;
+    @Mock
+    private DBClearer dbClearer;
+    @Mock
+    private DBSnapshotter dbSnapshotter;
+
+    @TempDir
+    File tempDir;
+
+    private Script script1;
+    private Script script2;
+    private Script baselineScript;
+    private Script baselineScript2;
+    private Script baselineScript3;
+
+
+    @BeforeEach
+    void initialize() {
+        script1 = TestUtils.createScriptWithContent("01_script1.sql", "content of script 1");
+        script2 = TestUtils.createScriptWithContent("02_script2.sql", "content of script 2");
+        baselineScript = TestUtils.createScriptWithContent("baseline.sql", "content of baseline script");
+    }
+
+
+    @Test
+    void snapshotIsRestored() {
+        when(dbSnapshotter.restoreSnapshot(any())).thenReturn(true);
+        DefaultDbMaintainer defaultDbMaintainer = createDefaultDbMaintainer();
+
+        assertTrue(defaultDbMaintainer.updateDatabase(false));
+
+        verify(dbClearer, never()).clearDatabase();
+        verify(scriptRunner, never()).execute(any());
+    }
+
+    @Test
+    void databaseIsRecreatedWhenRestoringSnapshotFails() {
+        when(dbSnapshotter.restoreSnapshot(any())).thenThrow(new DbMaintainException("restore failed"));
+        DefaultDbMaintainer defaultDbMaintainer = createDefaultDbMaintainer();
+
+        assertTrue(defaultDbMaintainer.updateDatabase(false));
+
+        InOrder inOrder = inOrder(dbClearer, scriptRunner, dbSnapshotter);
+        inOrder.verify(dbClearer).clearDatabase();
+        inOrder.verify(scriptRunner).execute(script1);
+        inOrder.verify(scriptRunner).execute(script2);
+        inOrder.verify(dbSnapshotter).saveSnapshot(any());
+    }
+
+
+    @Test
+    void baselineScriptIsExecutedBeforeScriptsFromBaselineRevision() {
+        DefaultDbMaintainer defaultDbMaintainer = createDefaultDbMaintainerWithBaseline(baselineScript);
+
+        assertTrue(defaultDbMaintainer.updateDatabase(false));
+
+        InOrder inOrder = inOrder(dbClearer, scriptRunner);
+        inOrder.verify(dbClearer).clearDatabase();
+        inOrder.verify(scriptRunner).execute(baselineScript);
+        inOrder.verify(scriptRunner).execute(baselineScript2);
+        inOrder.verify(scriptRunner).execute(baselineScript3);
+        verify(scriptRunner, never()).execute(argThat(script -> script.getFileName().equals("01_script1.sql")));
+        verify(executedScriptInfoSource, never()).registerExecutedScript(argThat(executedScript -> executedScript.getScript() == baselineScript));
+        verify(executedScriptInfoSource).registerExecutedScript(argThat(executedScript -> executedScript.getScript() == baselineScript2));
+    }
+
+    @Test
+    void fromScratchWithBaselineRevisionRequiresBaselineScript() {
+        DefaultDbMaintainer defaultDbMaintainer = createDefaultDbMaintainerWithBaseline(null);
+
+        DbMaintainException e = assertThrows(DbMaintainException.class, () -> defaultDbMaintainer.updateDatabase(false));
+
+        assertTrue(e.getMessage().contains("a baseline revision is set"));
+        verify(dbClearer, never()).clearDatabase();
+    }
+
+    @Test
+    void baselineScriptIsPartOfSnapshotKey() {
+        DefaultDbMaintainer defaultDbMaintainer = createDefaultDbMaintainerWithBaseline(baselineScript);
+
+        defaultDbMaintainer.updateDatabase(false);
+
+        verify(dbSnapshotter).restoreSnapshot(asList(baselineScript, baselineScript2, baselineScript3));
+        verify(dbSnapshotter).saveSnapshot(asList(baselineScript, baselineScript2, baselineScript3));
+    }
+
+    @Test
+    void baselineScriptIsExecutedWhenApplyingFromScratchPlan() {
+        File planFile = new File(tempDir, "update.plan");
+        DefaultDbMaintainer defaultDbMaintainer = createDefaultDbMaintainerWithBaseline(baselineScript);
+        defaultDbMaintainer.planUpdate(planFile);
+
+        assertTrue(defaultDbMaintainer.applyPlan(planFile));
+
+        InOrder inOrder = inOrder(dbClearer, scriptRunner);
+        inOrder.verify(dbClearer).clearDatabase();
+        inOrder.verify(scriptRunner).execute(baselineScript);
+        inOrder.verify(scriptRunner).execute(baselineScript2);
+        inOrder.verify(scriptRunner).execute(baselineScript3);
+        verify(executedScriptInfoSource, never()).registerExecutedScript(argThat(executedScript -> executedScript.getScript() == baselineScript));
+    }
+
+
+    private DefaultDbMaintainer createDefaultDbMaintainer() {
+        return new DefaultDbMaintainer(scriptRunner, TestUtils.getScriptRepository(new TreeSet<>(asList(script1, script2))),
+                executedScriptInfoSource, true, false, false, false, false, false, dbClearer, null, null, null, null, sqlHandler,
+                0, null, false, 150, new NoOpMetrics(), false, 1, 0, dbSnapshotter, null);
+    }
+
+    /**
+     * Creates a maintainer with baseline revision 2 for the scripts 01, 02 and 03: script 01 is ignored.
+     */
+    private DefaultDbMaintainer createDefaultDbMaintainerWithBaseline(Script baselineScript) {
+        ScriptIndexes baselineRevision = new ScriptIndexes("2");
+        ScriptFactory scriptFactory = TestUtils.createScriptFactory(baselineRevision);
+        Script ignoredScript1 = scriptFactory.createScriptWithContent("01_script1.sql", 0L, new StringScriptContentHandle("content of script 1", "ISO-8859-1", false));
+        baselineScript2 = scriptFactory.createScriptWithContent("02_script2.sql", 0L, new StringScriptContentHandle("content of script 2", "ISO-8859-1", false));
+        baselineScript3 = scriptFactory.createScriptWithContent("03_script3.sql", 0L, new StringScriptContentHandle("content of script 3", "ISO-8859-1", false));
+        ScriptLocation scriptLocation = TestUtils.createArchiveScriptLocation(new TreeSet<>(asList(ignoredScript1, baselineScript2, baselineScript3)), baselineRevision);
+        ScriptRepository scriptRepository = new ScriptRepository(singleton(scriptLocation), TestUtils.getTrivialQualifierEvaluator());
+
+        return new DefaultDbMaintainer(scriptRunner, scriptRepository, executedScriptInfoSource, true, false, false, false, false, false,
+                dbClearer, null, null, null, null, sqlHandler, 0, baselineRevision, false, 150, new NoOpMetrics(), false, 1, 0,
+                dbSnapshotter, baselineScript);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain;
+
+import org.dbmaintain.database.SQLHandler;
+import org.dbmaintain.metrics.impl.NoOpMetrics;
+import org.dbmaintain.script.Script;
+import org.dbmaintain.script.executedscriptinfo.ExecutedScriptInfoSource;
+import org.dbmaintain.script.runner.ScriptRunner;
+import org.dbmaintain.util.DbMaintainException;
+import org.dbmaintain.util.TestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the execution of consecutive small scripts in one grouped transaction.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DefaultDbMaintainerGroupedTransactionTest {
+
+    @Mock
+    private ExecutedScriptInfoSource executedScriptInfoSource;
+    @Mock
+    private ScriptRunner scriptRunner;
+    @Mock
+    private SQLHandler sqlHandler;
+
+    private Script script1;
+    private Script script2;
+    private Script script3;
+    private Script largeScript;
+
+
+    @BeforeEach
+    void initialize() {
+        script1 = TestUtils.createScriptWithContent("01_script1.sql", "content of script 1");
+        script2 = TestUtils.createScriptWithContent("02_script2.sql", "content of script 2");
+        script3 = TestUtils.createScriptWithContent("03_script3.sql", "content of script 3");
+        largeScript = TestUtils.createScriptWithContent("04_script4.sql", "content of a script that is too large to be grouped");
+        when(scriptRunner.supportsGroupedTransaction(any())).thenReturn(true);
+    }
+
+
+    @Test
+    void consecutiveSmallScriptsAreExecutedInOneTransaction() {
+        DefaultDbMaintainer defaultDbMaintainer = createDefaultDbMaintainer(2);
+
+        defaultDbMaintainer.executeScripts(scripts(script1, script2, script3, largeScript));
+
+        InOrder inOrder = inOrder(sqlHandler, scriptRunner);
+        inOrder.verify(sqlHandler).startGroupedTransaction();
+        inOrder.verify(scriptRunner).execute(script1);
+        inOrder.verify(scriptRunner).execute(script2);
+        inOrder.verify(sqlHandler).endGroupedTransactionAndCommit();
+        inOrder.verify(scriptRunner).execute(script3);
+        inOrder.verify(scriptRunner).execute(largeScript);
+        verify(sqlHandler, times(1)).startGroupedTransaction();
+    }
+
+    @Test
+    void scriptsAreExecutedSeparatelyWhenGroupedTransactionFails() {
+        DefaultDbMaintainer defaultDbMaintainer = createDefaultDbMaintainer(3);
+        doNothing().doThrow(new DbMaintainException("error")).when(scriptRunner).execute(script1);
+        doThrow(new DbMaintainException("error")).when(scriptRunner).execute(script2);
+
+        assertThrows(DbMaintainException.class, () -> defaultDbMaintainer.executeScripts(scripts(script1, script2, script3)));
+
+        verify(sqlHandler).endGroupedTransactionAndRollback();
+        verify(sqlHandler, never()).endGroupedTransactionAndCommit();
+        verify(executedScriptInfoSource).resetCachedState();
+        // script 1 is executed again in its own transaction, which fails this time
+        verify(scriptRunner, times(2)).execute(script1);
+        verify(scriptRunner, times(1)).execute(script2);
+        verify(scriptRunner, never()).execute(script3);
+    }
+
+    @Test
+    void noGroupedTransactionsWhenNotSupportedByRunner() {
+        when(scriptRunner.supportsGroupedTransaction(any())).thenReturn(false);
+        DefaultDbMaintainer defaultDbMaintainer = createDefaultDbMaintainer(3);
+
+        defaultDbMaintainer.executeScripts(scripts(script1, script2, script3));
+
+        verify(sqlHandler, never()).startGroupedTransaction();
+        verify(scriptRunner).execute(script3);
+    }
+
+
+    private DefaultDbMaintainer createDefaultDbMaintainer(int maxNrOfScriptsPerGroupedTransaction) {
+        return new DefaultDbMaintainer(scriptRunner, null, executedScriptInfoSource, false, false, false, false, false,
+                false, null, null, null, null, null, sqlHandler, 0, null, false, 150, new NoOpMetrics(), false,
+                maxNrOfScriptsPerGroupedTransaction, 20);
+    }
+
+    private SortedSet<Script> scripts(Script... scripts) {
+        return new TreeSet<>(asList(scripts));
+    }
+}
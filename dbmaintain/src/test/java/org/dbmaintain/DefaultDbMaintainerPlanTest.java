@@ -0,0 +1,148 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain;
+
+import org.dbmaintain.database.SQLHandler;
+import org.dbmaintain.metrics.impl.NoOpMetrics;
+import org.dbmaintain.script.ExecutedScript;
+import org.dbmaintain.script.Script;
+import org.dbmaintain.script.executedscriptinfo.ExecutedScriptInfoSource;
+import org.dbmaintain.script.repository.ScriptRepository;
+import org.dbmaintain.script.runner.ScriptRunner;
+import org.dbmaintain.structure.clear.DBClearer;
+import org.dbmaintain.util.DbMaintainException;
+import org.dbmaintain.util.TestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.io.File;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.TreeSet;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singleton;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests making an update plan and applying it later.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DefaultDbMaintainerPlanTest {
+
+    @Mock
+    private ExecutedScriptInfoSource executedScriptInfoSource;
+    @Mock
+    private ScriptRunner scriptRunner;
+    @Mock
+    private SQLHandler sqlHandler;
+    @Mock
+    private DBClearer dbClearer;
+
+    @TempDir
+    File tempDir;
+
+    private File planFile;
+    private Script script1;
+    private Script script2;
+
+
+    @BeforeEach
+    void initialize() {
+        planFile = new File(tempDir, "update.plan");
+        script1 = TestUtils.createScriptWithContent("01_script1.sql", "content of script 1");
+        script2 = TestUtils.createScriptWithContent("02_script2.sql", "content of script 2");
+        when(executedScriptInfoSource.getExecutedScripts()).thenReturn(new HashSet<>());
+    }
+
+
+    @Test
+    void plannedScriptsAreExecuted() {
+        when(executedScriptInfoSource.getExecutedScripts()).thenReturn(new HashSet<>(singleton(new ExecutedScript(script1, new Date(), true))));
+        DefaultDbMaintainer defaultDbMaintainer = createDefaultDbMaintainer(getScriptRepository(script1, script2));
+
+        assertTrue(defaultDbMaintainer.planUpdate(planFile));
+        verify(scriptRunner, never()).execute(any());
+
+        assertTrue(defaultDbMaintainer.applyPlan(planFile));
+        verify(scriptRunner).execute(script2);
+        verify(scriptRunner, never()).execute(script1);
+        verify(dbClearer, never()).clearDatabase();
+    }
+
+    @Test
+    void plannedFromScratchUpdateClearsDatabaseAndExecutesAllScripts() {
+        DefaultDbMaintainer defaultDbMaintainer = createDefaultDbMaintainer(getScriptRepository(script1, script2));
+
+        assertTrue(defaultDbMaintainer.planUpdate(planFile));
+        verify(dbClearer, never()).clearDatabase();
+
+        assertTrue(defaultDbMaintainer.applyPlan(planFile));
+        InOrder inOrder = inOrder(dbClearer, scriptRunner);
+        inOrder.verify(dbClearer).clearDatabase();
+        inOrder.verify(scriptRunner).execute(script1);
+        inOrder.verify(scriptRunner).execute(script2);
+    }
+
+    @Test
+    void planIsRefusedWhenDatabaseWasUpdatedSincePlanning() {
+        DefaultDbMaintainer defaultDbMaintainer = createDefaultDbMaintainer(getScriptRepository(script1, script2));
+        defaultDbMaintainer.planUpdate(planFile);
+        when(executedScriptInfoSource.getExecutedScripts()).thenReturn(new HashSet<>(singleton(new ExecutedScript(script1, new Date(), true))));
+
+        DbMaintainException e = assertThrows(DbMaintainException.class, () -> defaultDbMaintainer.applyPlan(planFile));
+
+        assertTrue(e.getMessage().contains("the database was updated since the plan was made"));
+        verify(dbClearer, never()).clearDatabase();
+        verify(scriptRunner, never()).execute(any());
+    }
+
+    @Test
+    void planIsRefusedWhenScriptWasChangedSincePlanning() {
+        createDefaultDbMaintainer(getScriptRepository(script1, script2)).planUpdate(planFile);
+        Script changedScript2 = TestUtils.createScriptWithContent("02_script2.sql", "changed content of script 2");
+        DefaultDbMaintainer defaultDbMaintainer = createDefaultDbMaintainer(getScriptRepository(script1, changedScript2));
+
+        DbMaintainException e = assertThrows(DbMaintainException.class, () -> defaultDbMaintainer.applyPlan(planFile));
+
+        assertTrue(e.getMessage().contains("script 02_script2.sql was changed since the plan was made"));
+        verify(dbClearer, never()).clearDatabase();
+        verify(scriptRunner, never()).execute(any());
+    }
+
+
+    private DefaultDbMaintainer createDefaultDbMaintainer(ScriptRepository scriptRepository) {
+        return new DefaultDbMaintainer(scriptRunner, scriptRepository, executedScriptInfoSource, true, false, false, false, false, false,
+                dbClearer, null, null, null, null, sqlHandler, 0, null, false, 150, new NoOpMetrics(), false, 1, 0, null, null);
+    }
+
+    private ScriptRepository getScriptRepository(Script... scripts) {
+        return TestUtils.getScriptRepository(new TreeSet<>(asList(scripts)));
+    }
+}
@@ -15,7 +15,10 @@
  */
 package org.dbmaintain;
 
+import org.dbmaintain.metrics.impl.NoOpMetrics;
+import org.dbmaintain.script.ExecutedScript;
 import org.dbmaintain.script.Script;
+import org.dbmaintain.script.StatementCheckpoint;
 import org.dbmaintain.script.executedscriptinfo.ExecutedScriptInfoSource;
 import org.dbmaintain.script.runner.ScriptRunner;
 import org.dbmaintain.util.DbMaintainException;
@@ -29,7 +32,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class DefaultDbMaintainerScriptErrorTest {
@@ -81,6 +87,24 @@ class DefaultDbMaintainerScriptErrorTest {
 
     }
 
+    @Test
+    void checkpointOfFailedScriptIsRegisteredWhenResumingIsEnabled() {
+        DefaultDbMaintainer defaultDbMaintainer = new DefaultDbMaintainer(scriptRunner, null, executedScriptInfoSource, false, false, false, false, false,
+                false, null, null, null, null, null, null, 0, null, false, 150, new NoOpMetrics(), true);
+        doThrow(new DbMaintainException("error message")).when(scriptRunner).execute(script);
+        when(scriptRunner.getLastStatementCheckpoint()).thenReturn(new StatementCheckpoint(2, 40));
+
+        Throwable e = assertThrows(DbMaintainException.class, () -> defaultDbMaintainer.executeScript(script));
+
+        assertTrue(e.getMessage().contains("Statements up to statement 2 (offset 40) were committed."));
+        verify(executedScriptInfoSource).updateExecutedScript(argThat(this::hasCheckpointAfterStatement2));
+    }
+
+    private boolean hasCheckpointAfterStatement2(ExecutedScript executedScript) {
+        StatementCheckpoint statementCheckpoint = executedScript.getStatementCheckpoint();
+        return !executedScript.isSuccessful() && statementCheckpoint != null && statementCheckpoint.getStatementNr() == 2;
+    }
+
     private DefaultDbMaintainer createDefaultDbMaintainer(long maxNrOfCharsWhenLoggingScriptContent) {
         return new DefaultDbMaintainer(scriptRunner, null, executedScriptInfoSource, false, false, false, false, false,
                 false, null, null, null, null, null, null, maxNrOfCharsWhenLoggingScriptContent, null, false, 150);
@@ -0,0 +1,127 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+
+import static org.dbmaintain.structure.model.DbItemType.*;
+import static org.dbmaintain.util.SQLTestUtils.executeUpdate;
+import static org.dbmaintain.util.SQLTestUtils.executeUpdateQuietly;
+import static org.dbmaintain.util.TestUtils.getDatabases;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test class for the catalog snapshot of the {@link Database}. <p> This test is currently only implemented for HsqlDb
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+class CatalogSnapshotTest {
+
+    /* Tested object */
+    private Database database;
+
+    private DataSource dataSource;
+
+
+    @BeforeEach
+    void setUp() {
+        database = getDatabases().getDefaultDatabase();
+        dataSource = database.getDataSource();
+
+        dropTestDatabase();
+        executeUpdate("create table TEST_TABLE (col1 varchar(10))", dataSource);
+        executeUpdate("create view TEST_VIEW as select col1 from TEST_TABLE", dataSource);
+        executeUpdate("create sequence TEST_SEQUENCE", dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.endCatalogSnapshot();
+        dropTestDatabase();
+    }
+
+
+    @Test
+    void itemsAreServedFromSnapshot() {
+        database.startCatalogSnapshot();
+        assertTrue(database.getDbItemsOfType(TABLE, "PUBLIC").contains("TEST_TABLE"));
+
+        executeUpdate("create table OTHER_TABLE (col1 varchar(10))", dataSource);
+
+        assertFalse(database.getDbItemsOfType(TABLE, "PUBLIC").contains("OTHER_TABLE"));
+        database.endCatalogSnapshot();
+        assertTrue(database.getDbItemsOfType(TABLE, "PUBLIC").contains("OTHER_TABLE"));
+    }
+
+    @Test
+    void snapshotEndsWhenEndedAsOftenAsStarted() {
+        database.startCatalogSnapshot();
+        database.startCatalogSnapshot();
+        database.getDbItemsOfType(TABLE, "PUBLIC");
+        executeUpdate("create table OTHER_TABLE (col1 varchar(10))", dataSource);
+
+        database.endCatalogSnapshot();
+        assertFalse(database.getDbItemsOfType(TABLE, "PUBLIC").contains("OTHER_TABLE"));
+        database.endCatalogSnapshot();
+        assertTrue(database.getDbItemsOfType(TABLE, "PUBLIC").contains("OTHER_TABLE"));
+    }
+
+    @Test
+    void droppedItemIsRemovedFromSnapshot() {
+        database.startCatalogSnapshot();
+        assertTrue(database.getDbItemsOfType(SEQUENCE, "PUBLIC").contains("TEST_SEQUENCE"));
+
+        database.drop(SEQUENCE, "PUBLIC", "TEST_SEQUENCE");
+
+        assertFalse(database.getDbItemsOfType(SEQUENCE, "PUBLIC").contains("TEST_SEQUENCE"));
+    }
+
+    @Test
+    void itemsDroppedByCascadeAreNoLongerReturned() {
+        database.startCatalogSnapshot();
+        assertTrue(database.getDbItemsOfType(VIEW, "PUBLIC").contains("TEST_VIEW"));
+
+        database.drop(TABLE, "PUBLIC", "TEST_TABLE");
+
+        assertFalse(database.getDbItemsOfType(TABLE, "PUBLIC").contains("TEST_TABLE"));
+        assertFalse(database.getDbItemsOfType(VIEW, "PUBLIC").contains("TEST_VIEW"));
+    }
+
+    @Test
+    void invalidatedSchemaIsLoadedAgain() {
+        database.startCatalogSnapshot();
+        database.getDbItemsOfType(TABLE, "PUBLIC");
+        executeUpdate("create table OTHER_TABLE (col1 varchar(10))", dataSource);
+
+        database.invalidateCatalogSnapshot("PUBLIC");
+
+        assertTrue(database.getDbItemsOfType(TABLE, "PUBLIC").contains("OTHER_TABLE"));
+    }
+
+
+    private void dropTestDatabase() {
+        executeUpdateQuietly("drop view TEST_VIEW", dataSource);
+        executeUpdateQuietly("drop table TEST_TABLE cascade", dataSource);
+        executeUpdateQuietly("drop table OTHER_TABLE", dataSource);
+        executeUpdateQuietly("drop sequence TEST_SEQUENCE", dataSource);
+    }
+}
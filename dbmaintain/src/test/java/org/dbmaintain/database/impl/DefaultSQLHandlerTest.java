@@ -0,0 +1,151 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.database.impl;
+
+import org.dbmaintain.database.DatabaseException;
+import org.dbmaintain.datasource.SimpleDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.util.HashSet;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static org.dbmaintain.util.SQLTestUtils.executeUpdate;
+import static org.dbmaintain.util.SQLTestUtils.executeUpdateQuietly;
+import static org.dbmaintain.util.TestUtils.getHsqlDatabaseInfo;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the parameterized queries, the reuse of statements and the grouped transactions of the DefaultSQLHandler.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+class DefaultSQLHandlerTest {
+
+    /* Tested object */
+    private DefaultSQLHandler defaultSQLHandler;
+
+    private DataSource dataSource;
+
+
+    @BeforeEach
+    void setUp() {
+        dataSource = SimpleDataSource.createDataSource(getHsqlDatabaseInfo());
+        defaultSQLHandler = new DefaultSQLHandler(true, 2);
+
+        executeUpdateQuietly("drop table TEST_TABLE", dataSource);
+        executeUpdate("create table TEST_TABLE (id integer, name varchar(10))", dataSource);
+        executeUpdate("insert into TEST_TABLE values (1, 'a')", dataSource);
+        executeUpdate("insert into TEST_TABLE values (2, 'b')", dataSource);
+        executeUpdate("insert into TEST_TABLE values (3, 'c')", dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        defaultSQLHandler.closeAllConnections();
+        executeUpdateQuietly("drop table TEST_TABLE", dataSource);
+    }
+
+
+    @Test
+    void parameterizedQueries() {
+        Set<String> result = defaultSQLHandler.getItemsAsStringSet("select name from TEST_TABLE where id > ?", dataSource, 1);
+        assertEquals(asSet("b", "c"), result);
+        assertEquals(2, defaultSQLHandler.getItemAsLong("select id from TEST_TABLE where name = ?", dataSource, "b"));
+        assertEquals("c", defaultSQLHandler.getItemAsString("select name from TEST_TABLE where id = ?", dataSource, 3));
+        assertTrue(defaultSQLHandler.exists("select 1 from TEST_TABLE where name = ?", dataSource, "a"));
+        assertFalse(defaultSQLHandler.exists("select 1 from TEST_TABLE where name = ?", dataSource, "x"));
+    }
+
+    @Test
+    void reusePreparedStatementWithOtherParameters() {
+        for (int i = 1; i <= 3; i++) {
+            assertEquals(i, defaultSQLHandler.getItemAsLong("select id from TEST_TABLE where id = ?", dataSource, i));
+        }
+    }
+
+    @Test
+    void reuseStatementForNonParameterizedQueries() {
+        defaultSQLHandler.execute("update TEST_TABLE set name = 'x' where id = 1", dataSource);
+        assertEquals(asSet("x", "b", "c"), defaultSQLHandler.getItemsAsStringSet("select name from TEST_TABLE", dataSource));
+        assertEquals(3, defaultSQLHandler.getItemAsLong("select count(*) from TEST_TABLE", dataSource));
+    }
+
+    @Test
+    void parameterizedUpdate() {
+        defaultSQLHandler.execute("delete from TEST_TABLE where id = ?", dataSource, 2);
+        assertEquals(asSet("a", "c"), defaultSQLHandler.getItemsAsStringSet("select name from TEST_TABLE", dataSource));
+    }
+
+    @Test
+    void statementsCanBeUsedAgainAfterClosingConnections() {
+        defaultSQLHandler.getItemAsLong("select id from TEST_TABLE where id = ?", dataSource, 1);
+        defaultSQLHandler.closeAllConnections();
+        assertEquals(2, defaultSQLHandler.getItemAsLong("select id from TEST_TABLE where id = ?", dataSource, 2));
+    }
+
+    @Test
+    void batchOfStatements() {
+        defaultSQLHandler.executeBatch(asList("insert into TEST_TABLE values (4, 'd')", "update TEST_TABLE set name = 'x' where id = 1", "delete from TEST_TABLE where id = 2"), dataSource);
+        assertEquals(asSet("x", "c", "d"), defaultSQLHandler.getItemsAsStringSet("select name from TEST_TABLE", dataSource));
+    }
+
+    @Test
+    void failingBatchOfStatements() {
+        assertThrows(DatabaseException.class, () -> defaultSQLHandler.executeBatch(asList("insert into TEST_TABLE values (4, 'd')", "insert into UNKNOWN_TABLE values (5)"), dataSource));
+        // the statement can be used again after a failed batch
+        defaultSQLHandler.execute("delete from TEST_TABLE where id = 1", dataSource);
+        assertFalse(defaultSQLHandler.exists("select 1 from TEST_TABLE where id = 1", dataSource));
+    }
+
+    @Test
+    void noItemFound() {
+        assertThrows(DatabaseException.class, () -> defaultSQLHandler.getItemAsLong("select id from TEST_TABLE where id = ?", dataSource, 5));
+    }
+
+
+    @Test
+    void commitsAreDeferredUntilGroupedTransactionEnds() {
+        defaultSQLHandler.startGroupedTransaction();
+        defaultSQLHandler.executeUpdateAndCommit("insert into TEST_TABLE values (4, 'd')", dataSource);
+        defaultSQLHandler.startTransaction(dataSource);
+        defaultSQLHandler.executeAndGetUpdateCount("insert into TEST_TABLE values (5, 'e')", dataSource);
+        defaultSQLHandler.endTransactionAndCommit(dataSource);
+        defaultSQLHandler.endGroupedTransactionAndRollback();
+
+        assertEquals(3, defaultSQLHandler.getItemAsLong("select count(*) from TEST_TABLE", dataSource));
+    }
+
+    @Test
+    void groupedTransactionIsCommitted() {
+        defaultSQLHandler.startGroupedTransaction();
+        defaultSQLHandler.executeUpdateAndCommit("insert into TEST_TABLE values (4, 'd')", dataSource);
+        defaultSQLHandler.executeUpdateAndCommit("insert into TEST_TABLE values (5, 'e')", dataSource);
+        defaultSQLHandler.endGroupedTransactionAndCommit();
+        defaultSQLHandler.closeAllConnections();
+
+        assertEquals(5, defaultSQLHandler.getItemAsLong("select count(*) from TEST_TABLE", dataSource));
+    }
+
+
+    private Set<String> asSet(String... values) {
+        return new HashSet<>(asList(values));
+    }
+}
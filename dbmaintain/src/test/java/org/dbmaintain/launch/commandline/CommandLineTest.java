@@ -15,15 +15,121 @@
  */
 package org.dbmaintain.launch.commandline;
 
+import org.dbmaintain.MainFactory;
+import org.dbmaintain.config.DbMaintainConfigurationLoader;
+import org.dbmaintain.launch.commandline.CommandLine.DbMaintainOperation;
+import org.dbmaintain.util.DbMaintainException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.dbmaintain.util.SQLTestUtils.executeUpdate;
+import static org.dbmaintain.util.SQLTestUtils.executeUpdateQuietly;
+import static org.dbmaintain.util.SQLTestUtils.getItemAsLong;
+import static org.dbmaintain.util.SQLTestUtils.getItemsAsStringSet;
+import static org.dbmaintain.util.TestUtils.getDatabases;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * @author Filip Neven
  */
 class CommandLineTest {
 
+    @TempDir
+    File scriptsDir;
+
+    private DataSource dataSource;
+    private Properties configuration;
+
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = getDatabases().getDefaultDatabase().getDataSource();
+        dropTestTables();
+        Files.write(new File(scriptsDir, "01_create.sql").toPath(), "create table BATCH_TABLE (ID int);".getBytes(ISO_8859_1));
+
+        Properties customConfiguration = new Properties();
+        customConfiguration.setProperty("database.driverClassName", "org.hsqldb.jdbcDriver");
+        customConfiguration.setProperty("database.url", "jdbc:hsqldb:mem:unitils");
+        customConfiguration.setProperty("database.userName", "sa");
+        customConfiguration.setProperty("database.password", "");
+        customConfiguration.setProperty("database.dialect", "hsqldb");
+        customConfiguration.setProperty("database.schemaNames", "PUBLIC");
+        customConfiguration.setProperty("dbMaintainer.autoCreateDbMaintainScriptsTable", "true");
+        customConfiguration.setProperty("dbMaintainer.script.locations", scriptsDir.getAbsolutePath());
+        configuration = new DbMaintainConfigurationLoader().loadConfiguration(customConfiguration);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dropTestTables();
+    }
+
+
     @Test
     void testHelp() {
         CommandLine.printHelpMessage();
     }
+
+    @Test
+    void runOperationsWithOneMainFactory() {
+        executeUpdate("create table OTHER_TABLE (ID int)", dataSource);
+        AtomicInteger nrOfMainFactories = new AtomicInteger();
+
+        CommandLine.executeOperation(DbMaintainOperation.RUN, configuration, new CommandLineArguments(new String[]{"run", "clearDatabase, updateDatabase,updateSequences"}),
+                properties -> {
+                    nrOfMainFactories.incrementAndGet();
+                    return new MainFactory(properties);
+                });
+
+        assertEquals(1, nrOfMainFactories.get());
+        assertTrue(getItemsAsStringSet("select TABLE_NAME from INFORMATION_SCHEMA.TABLES where TABLE_SCHEMA = 'PUBLIC'", dataSource).contains("BATCH_TABLE"));
+        assertFalse(getItemsAsStringSet("select TABLE_NAME from INFORMATION_SCHEMA.TABLES where TABLE_SCHEMA = 'PUBLIC'", dataSource).contains("OTHER_TABLE"));
+    }
+
+    @Test
+    void runClosesConnectionsAfterEachOperation() {
+        long nrOfSessions = getItemAsLong("select count(*) from INFORMATION_SCHEMA.SYSTEM_SESSIONS", dataSource);
+
+        CommandLine.executeOperation(DbMaintainOperation.RUN, configuration, new CommandLineArguments(new String[]{"run", "clearDatabase,disableConstraints"}));
+
+        assertEquals(nrOfSessions, getItemAsLong("select count(*) from INFORMATION_SCHEMA.SYSTEM_SESSIONS", dataSource));
+    }
+
+    @Test
+    void runInvalidOperation() {
+        DbMaintainException e = assertThrows(DbMaintainException.class, () -> CommandLine.executeOperation(DbMaintainOperation.RUN, configuration,
+                new CommandLineArguments(new String[]{"run", "clearDatabase,run"})));
+        assertTrue(e.getMessage().contains("Invalid operation run"));
+    }
+
+    @Test
+    void runOperationThatRequiresExtraArgument() {
+        executeUpdate("create table BATCH_TABLE (ID int)", dataSource);
+
+        DbMaintainException e = assertThrows(DbMaintainException.class, () -> CommandLine.executeOperation(DbMaintainOperation.RUN, configuration,
+                new CommandLineArguments(new String[]{"run", "clearDatabase,planUpdate"})));
+
+        assertTrue(e.getMessage().contains("Operation planUpdate in list of operations clearDatabase,planUpdate requires an extra argument"));
+        // nothing is executed when the list is invalid
+        assertTrue(getItemsAsStringSet("select TABLE_NAME from INFORMATION_SCHEMA.TABLES where TABLE_SCHEMA = 'PUBLIC'", dataSource).contains("BATCH_TABLE"));
+        for (String operationName : new String[]{"createScriptArchive", "applyPlan", "squashScripts"}) {
+            assertThrows(DbMaintainException.class, () -> CommandLine.getBatchOperations(operationName));
+        }
+    }
+
+
+    private void dropTestTables() {
+        executeUpdateQuietly("drop table BATCH_TABLE", dataSource);
+        executeUpdateQuietly("drop table OTHER_TABLE", dataSource);
+        executeUpdateQuietly("drop table DBMAINTAIN_SCRIPTS", dataSource);
+    }
 }
@@ -0,0 +1,214 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.launch.daemon;
+
+import org.dbmaintain.MainFactory;
+import org.dbmaintain.script.repository.ScriptRepository;
+import org.dbmaintain.script.repository.ScriptRepositoryCache;
+import org.dbmaintain.util.DbMaintainException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.util.Collections.singletonList;
+import static org.dbmaintain.util.SQLTestUtils.*;
+import static org.dbmaintain.util.TestUtils.getDatabases;
+import static org.dbmaintain.util.TestUtils.getScriptRepository;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link DbMaintainDaemon} and {@link DbMaintainDaemonClient}.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+class DbMaintainDaemonTest {
+
+    @TempDir
+    File tempDir;
+
+    private DbMaintainDaemon dbMaintainDaemon;
+    private DbMaintainDaemonClient dbMaintainDaemonClient;
+    private DataSource dataSource;
+    private File scriptsDir;
+    private String configFileName;
+
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = getDatabases().getDefaultDatabase().getDataSource();
+        dropTestTables();
+
+        scriptsDir = new File(tempDir, "scripts");
+        scriptsDir.mkdirs();
+        Files.write(new File(scriptsDir, "01_create.sql").toPath(), "create table DAEMON_TABLE (ID int);".getBytes(ISO_8859_1));
+        File configFile = new File(tempDir, "dbmaintain.properties");
+        Files.write(configFile.toPath(), ("database.driverClassName=org.hsqldb.jdbcDriver\n" +
+                "database.url=jdbc:hsqldb:mem:unitils\n" +
+                "database.userName=sa\n" +
+                "database.password=\n" +
+                "database.dialect=hsqldb\n" +
+                "database.schemaNames=PUBLIC\n" +
+                "dbMaintainer.autoCreateDbMaintainScriptsTable=true\n" +
+                "dbMaintainer.script.locations=" + scriptsDir.getAbsolutePath().replace('\\', '/') + "\n").getBytes(ISO_8859_1));
+        configFileName = configFile.getAbsolutePath();
+
+        dbMaintainDaemon = new DbMaintainDaemon(0, tempDir);
+        dbMaintainDaemon.start();
+        Thread daemonThread = new Thread(dbMaintainDaemon::run);
+        daemonThread.setDaemon(true);
+        daemonThread.start();
+        dbMaintainDaemonClient = new DbMaintainDaemonClient(dbMaintainDaemon.getPort(), tempDir);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dbMaintainDaemonClient.executeOperation(null, singletonList(DbMaintainDaemon.STOP_REQUEST));
+        dropTestTables();
+    }
+
+
+    @Test
+    void operationsReuseMainFactory() {
+        dbMaintainDaemonClient.executeOperation(configFileName, singletonList("updateDatabase"));
+        assertTrue(getItemsAsStringSet("select TABLE_NAME from INFORMATION_SCHEMA.TABLES where TABLE_SCHEMA = 'PUBLIC'", dataSource).contains("DAEMON_TABLE"));
+
+        dbMaintainDaemonClient.executeOperation(configFileName, singletonList("checkScriptUpdates"));
+        assertEquals(1, dbMaintainDaemon.mainFactories.size());
+    }
+
+    @Test
+    void mainFactoriesReleasedWhenConfigFileIsReloaded() throws Exception {
+        dbMaintainDaemonClient.executeOperation(configFileName, singletonList("checkScriptUpdates"));
+        MainFactory mainFactory = dbMaintainDaemon.mainFactories.values().iterator().next();
+
+        File configFile = new File(configFileName);
+        Files.write(configFile.toPath(), (new String(Files.readAllBytes(configFile.toPath()), ISO_8859_1) + "dbMaintainer.fromScratch.enabled=true\n").getBytes(ISO_8859_1));
+        configFile.setLastModified(configFile.lastModified() + 2000);
+        dbMaintainDaemonClient.executeOperation(configFileName, singletonList("checkScriptUpdates"));
+
+        assertEquals(1, dbMaintainDaemon.mainFactories.size());
+        assertNotSame(mainFactory, dbMaintainDaemon.mainFactories.values().iterator().next());
+    }
+
+    @Test
+    void connectionsAreClosedAfterOperation() {
+        long nrOfSessions = getItemAsLong("select count(*) from INFORMATION_SCHEMA.SYSTEM_SESSIONS", dataSource);
+        dbMaintainDaemonClient.executeOperation(configFileName, singletonList("disableConstraints"));
+
+        assertEquals(nrOfSessions, getItemAsLong("select count(*) from INFORMATION_SCHEMA.SYSTEM_SESSIONS", dataSource));
+    }
+
+    @Test
+    void silentClientDoesNotBlockDaemon() throws Exception {
+        dbMaintainDaemon.socketReadTimeout = 500;
+        try (Socket silentSocket = new Socket(InetAddress.getLoopbackAddress(), dbMaintainDaemon.getPort())) {
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> dbMaintainDaemonClient.executeOperation(configFileName, singletonList("checkScriptUpdates")));
+        }
+    }
+
+    @Test
+    void requestWithInvalidTokenIsRefused() throws Exception {
+        File otherTokenDir = new File(tempDir, "other");
+        DbMaintainDaemonClient otherDbMaintainDaemonClient = new DbMaintainDaemonClient(dbMaintainDaemon.getPort(), otherTokenDir);
+        assertThrows(DbMaintainException.class, () -> otherDbMaintainDaemonClient.executeOperation(configFileName, singletonList("updateDatabase")));
+
+        otherTokenDir.mkdirs();
+        Files.write(DbMaintainDaemon.getTokenFile(otherTokenDir, dbMaintainDaemon.getPort()).toPath(), "invalid".getBytes(ISO_8859_1));
+        DbMaintainException e = assertThrows(DbMaintainException.class, () -> otherDbMaintainDaemonClient.executeOperation(configFileName, singletonList("updateDatabase")));
+        assertTrue(e.getMessage().contains("Invalid daemon token"));
+        assertFalse(getItemsAsStringSet("select TABLE_NAME from INFORMATION_SCHEMA.TABLES where TABLE_SCHEMA = 'PUBLIC'", dataSource).contains("DAEMON_TABLE"));
+    }
+
+    @Test
+    void tokenFileIsOnlyReadableByOwner() throws Exception {
+        File tokenFile = DbMaintainDaemon.getTokenFile(tempDir, dbMaintainDaemon.getPort());
+        assertTrue(tokenFile.exists());
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile.toPath())));
+        }
+    }
+
+    @Test
+    void failedOperation() {
+        DbMaintainException e = assertThrows(DbMaintainException.class, () -> dbMaintainDaemonClient.executeOperation(configFileName, singletonList("xxx")));
+        assertTrue(e.getMessage().contains("Invalid operation xxx"));
+
+        e = assertThrows(DbMaintainException.class, () -> dbMaintainDaemonClient.executeOperation(configFileName, singletonList("applyPlan")));
+        assertTrue(e.getMessage().contains("Plan file name must be specified"));
+    }
+
+    @Test
+    void scriptRepositoryInvalidatedWhenScriptLocationChanges() throws Exception {
+        Properties configuration = new Properties();
+        AtomicInteger nrOfScans = new AtomicInteger();
+        ScriptRepository scriptRepository = getScriptRepository(new TreeSet<>());
+        dbMaintainDaemon.scriptLocationWatcher.watch(singletonList(scriptsDir.getAbsolutePath()));
+        dbMaintainDaemon.scriptRepositoryCache.getScriptRepository(configuration, () -> { nrOfScans.incrementAndGet(); return scriptRepository; });
+        dbMaintainDaemon.scriptRepositoryCache.getScriptRepository(configuration, () -> { nrOfScans.incrementAndGet(); return scriptRepository; });
+        assertEquals(1, nrOfScans.get());
+
+        Files.write(new File(scriptsDir, "02_other.sql").toPath(), "create table OTHER_TABLE (ID int);".getBytes(ISO_8859_1));
+        for (int i = 0; i < 100 && nrOfScans.get() == 1; i++) {
+            Thread.sleep(100);
+            dbMaintainDaemon.scriptRepositoryCache.getScriptRepository(configuration, () -> { nrOfScans.incrementAndGet(); return scriptRepository; });
+        }
+        assertEquals(2, nrOfScans.get());
+    }
+
+    @Test
+    void scriptRepositoryRescannedWhenScriptLocationChangesWithoutWatcher() throws Exception {
+        ScriptRepositoryCache scriptRepositoryCache = new ScriptRepositoryCache();
+        Properties configuration = new Properties();
+        List<File> scriptLocationFiles = singletonList(scriptsDir);
+        AtomicInteger nrOfScans = new AtomicInteger();
+        ScriptRepository scriptRepository = getScriptRepository(new TreeSet<>());
+        Supplier<ScriptRepository> scriptRepositorySupplier = () -> { nrOfScans.incrementAndGet(); return scriptRepository; };
+        scriptRepositoryCache.getScriptRepository(configuration, scriptLocationFiles, scriptRepositorySupplier);
+        scriptRepositoryCache.getScriptRepository(configuration, scriptLocationFiles, scriptRepositorySupplier);
+        assertEquals(1, nrOfScans.get());
+
+        Files.write(new File(scriptsDir, "02_other.sql").toPath(), "create table OTHER_TABLE (ID int);".getBytes(ISO_8859_1));
+        scriptRepositoryCache.getScriptRepository(configuration, scriptLocationFiles, scriptRepositorySupplier);
+        assertEquals(2, nrOfScans.get());
+
+        Files.write(new File(scriptsDir, "01_create.sql").toPath(), "create table DAEMON_TABLE (ID bigint);".getBytes(ISO_8859_1));
+        scriptRepositoryCache.getScriptRepository(configuration, scriptLocationFiles, scriptRepositorySupplier);
+        assertEquals(3, nrOfScans.get());
+    }
+
+
+    private void dropTestTables() {
+        executeUpdateQuietly("drop table DAEMON_TABLE", dataSource);
+        executeUpdateQuietly("drop table DBMAINTAIN_SCRIPTS", dataSource);
+    }
+}
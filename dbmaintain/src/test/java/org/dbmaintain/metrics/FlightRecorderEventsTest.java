@@ -0,0 +1,168 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.metrics;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Test class for the Java 11 version of {@link FlightRecorderEvents}. The tests run on the compiled classes instead
+ * of the multi-release jar, so the Java 11 version is loaded explicitly from the versions directory.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+class FlightRecorderEventsTest {
+
+    private static final String VERSION_11_PREFIX = "META-INF/versions/11/";
+
+    @TempDir
+    Path tempDir;
+
+    private Class<?> flightRecorderEventsClass;
+
+
+    @BeforeEach
+    void setUp() throws Exception {
+        assumeTrue(getClass().getClassLoader().getResource(VERSION_11_PREFIX + "org/dbmaintain/metrics/FlightRecorderEvents.class") != null,
+                "The Java 11 version of the flight recorder events is not compiled");
+        flightRecorderEventsClass = new Version11ClassLoader().loadClass(FlightRecorderEvents.class.getName());
+    }
+
+
+    @Test
+    void executeStatementEvent() throws Exception {
+        List<RecordedEvent> events = record("org.dbmaintain.ExecuteStatement", () -> {
+            FlightRecorderEvent event = begin("beginExecuteStatement", new Class<?>[]{String.class, int.class, long.class}, "01_script.sql", 3, 42L);
+            event.end(7);
+        });
+
+        assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        assertEquals("01_script.sql", event.getString("script"));
+        assertEquals(3, event.getInt("statementNr"));
+        assertEquals(42, event.getLong("nrOfChars"));
+        assertEquals(7, event.getLong("updateCount"));
+        assertEquals("DbMaintain", event.getEventType().getCategoryNames().get(0));
+    }
+
+    @Test
+    void parseStatementEvent() throws Exception {
+        List<RecordedEvent> events = record("org.dbmaintain.ParseStatement", () -> {
+            FlightRecorderEvent event = begin("beginParseStatement", new Class<?>[]{String.class}, "01_script.sql");
+            event.end(12);
+        });
+
+        assertEquals(1, events.size());
+        assertEquals("01_script.sql", events.get(0).getString("script"));
+        assertEquals(12, events.get(0).getLong("nrOfChars"));
+    }
+
+    @Test
+    void queryEvent() throws Exception {
+        List<RecordedEvent> events = record("org.dbmaintain.Query", () -> begin("beginQuery", new Class<?>[]{String.class}, "select 1").end());
+
+        assertEquals(1, events.size());
+        assertEquals("select 1", events.get(0).getString("sql"));
+    }
+
+    @Test
+    void noEventsWhenNotRecording() throws Exception {
+        FlightRecorderEvent event = begin("beginCheckSum", new Class<?>[]{String.class}, "01_script.sql");
+
+        assertSame(FlightRecorderEvent.class, event.getClass());
+    }
+
+
+    private List<RecordedEvent> record(String eventName, ThrowingRunnable operation) throws Exception {
+        File recordingFile = tempDir.resolve("recording.jfr").toFile();
+        try (Recording recording = new Recording()) {
+            recording.enable(eventName).withoutThreshold();
+            recording.start();
+            operation.run();
+            recording.stop();
+            recording.dump(recordingFile.toPath());
+        }
+        return RecordingFile.readAllEvents(recordingFile.toPath()).stream()
+                .filter(event -> event.getEventType().getName().equals(eventName))
+                .collect(Collectors.toList());
+    }
+
+    private FlightRecorderEvent begin(String methodName, Class<?>[] parameterTypes, Object... arguments) throws Exception {
+        Method method = flightRecorderEventsClass.getMethod(methodName, parameterTypes);
+        return (FlightRecorderEvent) method.invoke(null, arguments);
+    }
+
+
+    private interface ThrowingRunnable {
+
+        void run() throws Exception;
+    }
+
+    /**
+     * Loads the Java 11 version of the flight recorder event classes, the other classes are loaded by the parent.
+     */
+    private static class Version11ClassLoader extends ClassLoader {
+
+        Version11ClassLoader() {
+            super(FlightRecorderEventsTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith(FlightRecorderEvents.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loadedClass = findLoadedClass(name);
+                if (loadedClass == null) {
+                    loadedClass = findClass(name);
+                }
+                return loadedClass;
+            }
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            String resourceName = VERSION_11_PREFIX + name.replace('.', '/') + ".class";
+            try (InputStream inputStream = getParent().getResourceAsStream(resourceName)) {
+                if (inputStream == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                byte[] bytes = IOUtils.toByteArray(inputStream);
+                return defineClass(name, bytes, 0, bytes.length);
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+        }
+    }
+}
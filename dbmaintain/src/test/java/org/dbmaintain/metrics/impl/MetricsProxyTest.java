@@ -0,0 +1,72 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.metrics.impl;
+
+import org.dbmaintain.metrics.Metrics;
+import org.dbmaintain.structure.clear.DBClearer;
+import org.dbmaintain.util.DbMaintainException;
+import org.junit.jupiter.api.Test;
+
+import static org.dbmaintain.metrics.impl.MetricsProxy.createMetricsProxy;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+class MetricsProxyTest {
+
+    private Metrics metrics = new DefaultMetrics();
+
+
+    @Test
+    void callsAreTimed() {
+        DBClearer dbClearer = createMetricsProxy(DBClearer.class, () -> {}, "dbClearer", metrics);
+        dbClearer.clearDatabase();
+        dbClearer.clearDatabase();
+
+        assertEquals(2, metrics.getValues().get("dbClearer.clearDatabase.count"));
+        assertNotNull(metrics.getValues().get("dbClearer.clearDatabase.totalMs"));
+        assertNotNull(metrics.getValues().get("dbClearer.clearDatabase.maxMs"));
+    }
+
+    @Test
+    void exceptionsAreRethrownUnwrapped() {
+        DBClearer dbClearer = createMetricsProxy(DBClearer.class, () -> {
+            throw new DbMaintainException("expected");
+        }, "dbClearer", metrics);
+
+        DbMaintainException e = assertThrows(DbMaintainException.class, dbClearer::clearDatabase);
+        assertEquals("expected", e.getMessage());
+        assertEquals(1, metrics.getValues().get("dbClearer.clearDatabase.count"));
+    }
+
+    @Test
+    void proxyHasIdentitySemantics() {
+        DBClearer dbClearer = createMetricsProxy(DBClearer.class, () -> {}, "dbClearer", metrics);
+
+        assertEquals(dbClearer, dbClearer);
+        assertNotEquals(dbClearer, createMetricsProxy(DBClearer.class, () -> {}, "dbClearer", metrics));
+        assertEquals(System.identityHashCode(dbClearer), dbClearer.hashCode());
+    }
+
+    @Test
+    void noProxyWhenMetricsAreDisabled() {
+        DBClearer instance = () -> {};
+        DBClearer result = createMetricsProxy(DBClearer.class, instance, "dbClearer", new NoOpMetrics());
+        assertSame(instance, result);
+    }
+}
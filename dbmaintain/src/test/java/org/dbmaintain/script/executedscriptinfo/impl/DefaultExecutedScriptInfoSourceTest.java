@@ -16,8 +16,12 @@
 package org.dbmaintain.script.executedscriptinfo.impl;
 
 import org.dbmaintain.database.Database;
+import org.dbmaintain.database.impl.DefaultSQLHandler;
 import org.dbmaintain.script.ExecutedScript;
 import org.dbmaintain.script.Script;
+import org.dbmaintain.script.ScriptFactory;
+import org.dbmaintain.script.StatementCheckpoint;
+import org.dbmaintain.script.qualifier.Qualifier;
 import org.dbmaintain.util.DbMaintainException;
 import org.dbmaintain.util.TestUtils;
 import org.junit.jupiter.api.AfterEach;
@@ -26,6 +30,8 @@ import org.junit.jupiter.api.Test;
 
 import javax.sql.DataSource;
 import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Set;
 
 import static org.apache.commons.lang3.time.DateUtils.parseDate;
@@ -197,6 +203,29 @@ class DefaultExecutedScriptInfoSourceTest {
     }
 
 
+    @Test
+    void optionalColumnsAreAddedAndStoreStatisticsAndCheckpoint() {
+        executedScript1.setExecutionStatistics(1500L, 3L, 120L);
+        executedScript1.setStatementCheckpoint(new StatementCheckpoint(2, 80));
+        createExecutedScriptInfoSourceWithOptionalColumns().registerExecutedScript(executedScript1);
+
+        ExecutedScript result = createExecutedScriptInfoSourceWithOptionalColumns().getExecutedScripts().first();
+        assertEquals(1500L, (long) result.getExecutionTime());
+        assertEquals(3L, (long) result.getStatementCount());
+        assertEquals(120L, (long) result.getScriptSize());
+        assertEquals(2, result.getStatementCheckpoint().getStatementNr());
+        assertEquals(80, result.getStatementCheckpoint().getOffset());
+    }
+
+
+    private DefaultExecutedScriptInfoSource createExecutedScriptInfoSourceWithOptionalColumns() {
+        ScriptFactory scriptFactory = new ScriptFactory("^([0-9]+)_", "(?:\\\\G|_)@([a-zA-Z0-9]+)_", "(?:\\\\G|_)#([a-zA-Z0-9]+)_", Collections.emptySet(),
+                Collections.singleton(new Qualifier("patch")), "preprocessing", "postprocessing", null);
+        return new DefaultExecutedScriptInfoSource(true, "dbmaintain_scripts", "file_name", 150, "file_last_modified_at", "checksum", 50,
+                "executed_at", 50, "succeeded", "execution_time", "statement_count", "script_size", "checkpoint_statement_nr", "checkpoint_offset",
+                new SimpleDateFormat("dd/MM/yyyy"), defaultDatabase, new DefaultSQLHandler(), scriptFactory);
+    }
+
     private void createExecutedScriptsTable() {
         executeUpdate(executedScriptInfoSource.getCreateExecutedScriptTableStatement(), dataSource);
     }
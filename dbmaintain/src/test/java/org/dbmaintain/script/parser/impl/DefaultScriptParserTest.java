@@ -122,6 +122,21 @@ class DefaultScriptParserTest extends ScriptParserTestBase {
                 "statement\ron\r\nmultiple\nlines;");
     }
 
+    @Test
+    void statementOffsetAndLineNr() {
+        ScriptParser parser = createScriptParser(new StringReader("-- comment\nstatement 1;\n\n  statement\n2;"));
+        assertEquals(-1, parser.getCurrentStatementOffset());
+        assertEquals(-1, parser.getCurrentStatementLineNr());
+
+        parser.getNextStatement();
+        assertEquals(11, parser.getCurrentStatementOffset());
+        assertEquals(2, parser.getCurrentStatementLineNr());
+
+        parser.getNextStatement();
+        assertEquals(27, parser.getCurrentStatementOffset());
+        assertEquals(4, parser.getCurrentStatementLineNr());
+    }
+
     @Test
     void replaceParameters() {
         Properties scriptParameters = new Properties();
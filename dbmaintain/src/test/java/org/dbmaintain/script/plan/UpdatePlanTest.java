@@ -0,0 +1,99 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.script.plan;
+
+import org.dbmaintain.script.ExecutedScript;
+import org.dbmaintain.script.plan.UpdatePlan.PlannedScript;
+import org.dbmaintain.util.DbMaintainException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Date;
+
+import static java.util.Arrays.asList;
+import static org.dbmaintain.util.TestUtils.createScriptWithCheckSum;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the serialization of an update plan.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+class UpdatePlanTest {
+
+    @Test
+    void writeAndRead() throws Exception {
+        UpdatePlan updatePlan = new UpdatePlan("fingerprint", false, true);
+        updatePlan.getPreProcessingScripts().add(new PlannedScript("pre/01_pre.sql", "pre-checksum", null));
+        updatePlan.getScripts().add(new PlannedScript("01_script1.sql", "checksum1", null));
+        updatePlan.getScripts().add(new PlannedScript("02_script2.sql", "checksum2", null));
+        updatePlan.getDeletedRepeatableScripts().add(new PlannedScript("repeatable/view.sql", null, null));
+        updatePlan.getRenamedScripts().add(new PlannedScript("03_old.sql", null, "03_new.sql"));
+
+        UpdatePlan result = writeAndRead(updatePlan);
+
+        assertEquals("fingerprint", result.getExecutedScriptsFingerprint());
+        assertFalse(result.isRecreateFromScratch());
+        assertTrue(result.isPostProcessing());
+        assertFalse(result.isEmpty());
+        assertEquals("pre/01_pre.sql", result.getPreProcessingScripts().get(0).getFileName());
+        assertEquals(2, result.getScripts().size());
+        assertEquals("02_script2.sql", result.getScripts().get(1).getFileName());
+        assertEquals("checksum2", result.getScripts().get(1).getCheckSum());
+        assertNull(result.getDeletedRepeatableScripts().get(0).getCheckSum());
+        assertEquals("03_new.sql", result.getRenamedScripts().get(0).getRenamedToFileName());
+    }
+
+    @Test
+    void emptyPlan() throws Exception {
+        UpdatePlan result = writeAndRead(new UpdatePlan("fingerprint", false, false));
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void notAnUpdatePlan() {
+        assertThrows(DbMaintainException.class, () -> UpdatePlan.readFrom(new ByteArrayInputStream("some other content".getBytes())));
+    }
+
+    @Test
+    void fingerprintDoesNotDependOnOrder() {
+        ExecutedScript executedScript1 = new ExecutedScript(createScriptWithCheckSum("01_script1.sql", "checksum1"), new Date(), true);
+        ExecutedScript executedScript2 = new ExecutedScript(createScriptWithCheckSum("02_script2.sql", "checksum2"), new Date(), true);
+
+        String fingerprint = UpdatePlan.getFingerprint(asList(executedScript1, executedScript2));
+
+        assertEquals(fingerprint, UpdatePlan.getFingerprint(asList(executedScript2, executedScript1)));
+        assertNotEquals(fingerprint, UpdatePlan.getFingerprint(asList(executedScript1)));
+    }
+
+    @Test
+    void fingerprintChangesWhenScriptFailed() {
+        ExecutedScript successful = new ExecutedScript(createScriptWithCheckSum("01_script1.sql", "checksum1"), new Date(), true);
+        ExecutedScript failed = new ExecutedScript(createScriptWithCheckSum("01_script1.sql", "checksum1"), new Date(), false);
+
+        assertNotEquals(UpdatePlan.getFingerprint(asList(successful)), UpdatePlan.getFingerprint(asList(failed)));
+    }
+
+
+    private UpdatePlan writeAndRead(UpdatePlan updatePlan) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        updatePlan.writeTo(outputStream);
+        return UpdatePlan.readFrom(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.script.progress;
+
+import org.dbmaintain.script.ExecutedScript;
+import org.dbmaintain.script.Script;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.dbmaintain.util.TestUtils.createScriptWithContent;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+class ProgressReporterTest {
+
+    private List<UpdateProgress> reportedProgress = new ArrayList<>();
+    private List<ProgressListener> progressListeners;
+
+    private Script script1;
+    private Script script2;
+    private Script script3;
+
+
+    @BeforeEach
+    void initialize() {
+        progressListeners = singletonList(reportedProgress::add);
+
+        script1 = createScriptWithContent("01_script1.sql", "1234567890");
+        script2 = createScriptWithContent("02_script2.sql", "12345678901234567890");
+        script3 = createScriptWithContent("03_script3.sql", "123456789012345678901234567890");
+    }
+
+
+    @Test
+    void estimateUsingPreviousExecutionTimes() {
+        ExecutedScript executedScript1 = createExecutedScript(script1, 100L, 10L);
+        ExecutedScript executedScript2 = createExecutedScript(script2, 200L, 20L);
+        ProgressReporter progressReporter = new ProgressReporter(asList(executedScript1, executedScript2), progressListeners);
+        progressReporter.addScripts(asList(script1, script2));
+
+        progressReporter.scriptExecuted(script1, 150);
+
+        UpdateProgress updateProgress = reportedProgress.get(0);
+        assertEquals(1, updateProgress.getNrOfExecutedScripts());
+        assertEquals(2, updateProgress.getNrOfScripts());
+        assertEquals(42, updateProgress.getPercentageComplete());
+        assertEquals(150, updateProgress.getElapsedTime());
+        assertEquals(200, updateProgress.getEstimatedRemainingTime());
+    }
+
+    @Test
+    void estimateNewScriptUsingPreviousTimePerByte() {
+        ExecutedScript executedScript1 = createExecutedScript(script1, 100L, 10L);
+        ProgressReporter progressReporter = new ProgressReporter(singletonList(executedScript1), progressListeners);
+        progressReporter.addScripts(asList(script1, script3));
+
+        progressReporter.scriptExecuted(script1, 100);
+
+        assertEquals(300, reportedProgress.get(0).getEstimatedRemainingTime());
+    }
+
+    @Test
+    void estimateUsingCurrentSpeedWhenNoHistory() {
+        ProgressReporter progressReporter = new ProgressReporter(new ArrayList<>(), progressListeners);
+        progressReporter.addScripts(asList(script1, script2, script3));
+
+        progressReporter.scriptExecuted(script1, 20);
+        progressReporter.scriptExecuted(script2, 40);
+        progressReporter.scriptExecuted(script3, 60);
+
+        assertEquals(100, reportedProgress.get(0).getEstimatedRemainingTime());
+        assertEquals(60, reportedProgress.get(1).getEstimatedRemainingTime());
+        assertEquals(0, reportedProgress.get(2).getEstimatedRemainingTime());
+        assertEquals(100, reportedProgress.get(2).getPercentageComplete());
+    }
+
+    @Test
+    void failedExecutionsAreIgnored() {
+        ExecutedScript executedScript1 = createExecutedScript(script1, 100L, 10L);
+        executedScript1.setSuccessful(false);
+        ProgressReporter progressReporter = new ProgressReporter(singletonList(executedScript1), progressListeners);
+        progressReporter.addScripts(asList(script1, script2));
+
+        progressReporter.scriptExecuted(script1, 10);
+
+        assertEquals(20, reportedProgress.get(0).getEstimatedRemainingTime());
+    }
+
+
+    private ExecutedScript createExecutedScript(Script script, Long executionTime, Long scriptSize) {
+        ExecutedScript executedScript = new ExecutedScript(script, new Date(), true);
+        executedScript.setExecutionStatistics(executionTime, 1L, scriptSize);
+        return executedScript;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.script.runner.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+class ApplicationTest {
+
+    private Application application;
+
+
+    @BeforeEach
+    void initialize() {
+        assumeTrue(new File("/bin/sh").canExecute(), "Test requires a Unix shell");
+        application = new Application("shell", "/bin/sh", new HashMap<>(), Pattern.compile("^ERR-[0-9]+"), Application.DEFAULT_MAX_OUTPUT_SIZE);
+    }
+
+
+    @Test
+    void processIsStoppedWhenErrorIsDetected() {
+        long startTime = System.currentTimeMillis();
+        Application.ProcessOutput processOutput = application.execute("-c", "echo line; echo ERR-1: error; sleep 30; echo after error");
+
+        assertTrue(System.currentTimeMillis() - startTime < 20000);
+        assertEquals("ERR-1: error", processOutput.getFirstErrorLine());
+        assertNotEquals(0, processOutput.getExitValue());
+        assertTrue(processOutput.getOutput().contains("line"));
+        assertFalse(processOutput.getOutput().contains("after error"));
+    }
+
+    @Test
+    void processWithoutErrorRunsToTheEnd() {
+        Application.ProcessOutput processOutput = application.execute("-c", "echo line 1; echo line 2");
+
+        assertFalse(processOutput.isErrorDetected());
+        assertEquals(0, processOutput.getExitValue());
+        assertEquals("line 1\nline 2\n", processOutput.getOutput());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.script.runner.impl;
+
+import org.dbmaintain.database.Database;
+import org.dbmaintain.script.Script;
+import org.dbmaintain.script.ScriptContentHandle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.dbmaintain.util.FileUtils.getUrl;
+import static org.dbmaintain.util.TestUtils.createScriptFactory;
+import static org.dbmaintain.util.TestUtils.createScriptWithContent;
+import static org.dbmaintain.util.TestUtils.getDatabases;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+class BaseNativeScriptRunnerTest {
+
+    @TempDir
+    File tempDir;
+
+    private RecordingNativeScriptRunner recordingNativeScriptRunner;
+
+
+    @BeforeEach
+    void initialize() {
+        recordingNativeScriptRunner = new RecordingNativeScriptRunner();
+    }
+
+
+    @Test
+    void fileIsPassedAsIsForScriptOnFileSystem() throws Exception {
+        File scriptFile = new File(tempDir, "01_script.sql");
+        Files.write(scriptFile.toPath(), "content".getBytes(UTF_8));
+        ScriptContentHandle scriptContentHandle = new ScriptContentHandle.UrlScriptContentHandle(getUrl(scriptFile), "UTF-8", false);
+        Script script = createScriptFactory().createScriptWithContent("01_script.sql", 0L, scriptContentHandle);
+
+        recordingNativeScriptRunner.execute(script);
+
+        assertEquals(scriptFile, recordingNativeScriptRunner.executedFile);
+        assertTrue(scriptFile.exists());
+    }
+
+    @Test
+    void temporaryFileIsDeletedAfterExecution() {
+        Script script = createScriptWithContent("01_script.sql", "content");
+
+        recordingNativeScriptRunner.execute(script);
+
+        assertNotEquals("01_script.sql", recordingNativeScriptRunner.executedFile.getName());
+        assertEquals("content", recordingNativeScriptRunner.executedContent);
+        assertFalse(recordingNativeScriptRunner.executedFile.exists());
+    }
+
+    @Test
+    void temporaryScriptsDirIsRemovedOnClose() {
+        recordingNativeScriptRunner.execute(createScriptWithContent("01_script.sql", "content"));
+        File temporaryScriptsDir = recordingNativeScriptRunner.executedFile.getParentFile();
+        assertTrue(temporaryScriptsDir.exists());
+
+        recordingNativeScriptRunner.close();
+        assertFalse(temporaryScriptsDir.exists());
+    }
+
+
+    private static class RecordingNativeScriptRunner extends BaseNativeScriptRunner {
+
+        private File executedFile;
+        private String executedContent;
+
+        public RecordingNativeScriptRunner() {
+            super(getDatabases());
+        }
+
+        @Override
+        protected void executeScript(File scriptFile, Database targetDatabase) throws Exception {
+            executedFile = scriptFile;
+            executedContent = new String(Files.readAllBytes(scriptFile.toPath()), UTF_8);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.script.runner.impl;
+
+import org.dbmaintain.database.impl.DefaultSQLHandler;
+import org.dbmaintain.script.Script;
+import org.dbmaintain.script.runner.ScriptRunner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.HashMap;
+
+import static org.dbmaintain.util.TestUtils.createScriptWithContent;
+import static org.dbmaintain.util.TestUtils.getDatabases;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+/**
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+@ExtendWith(MockitoExtension.class)
+class FileExtensionDispatcherTest {
+
+    @Mock
+    private ScriptRunner sqlScriptRunner;
+    @Mock
+    private ScriptRunner defaultScriptRunner;
+
+    private FileExtensionDispatcher fileExtensionDispatcher;
+
+
+    @BeforeEach
+    void initialize() {
+        fileExtensionDispatcher = new FileExtensionDispatcher(getDatabases(), new DefaultSQLHandler(), "sqlldr", "sqlplus", "chmod +x", new HashMap<>());
+    }
+
+
+    @Test
+    void defaultRunnersAreCreatedOnce() {
+        Script sqlScript = createScriptWithContent("01_script.sql", "");
+        Script ctlScript = createScriptWithContent("02_script.ctl", "");
+        Script ldrScript = createScriptWithContent("03_script.ldr", "");
+
+        ScriptRunner jdbcScriptRunner = fileExtensionDispatcher.getScriptRunner(sqlScript);
+        assertSame(jdbcScriptRunner, fileExtensionDispatcher.getScriptRunner(createScriptWithContent("04_other.sql", "")));
+        assertSame(JdbcScriptRunner.class, jdbcScriptRunner.getClass());
+        assertSame(fileExtensionDispatcher.getScriptRunner(ctlScript), fileExtensionDispatcher.getScriptRunner(ldrScript));
+        assertSame(SqlLoaderScriptRunner.class, fileExtensionDispatcher.getScriptRunner(ctlScript).getClass());
+        assertSame(ShellScriptRunner.class, fileExtensionDispatcher.getScriptRunner(createScriptWithContent("05_script.sh", "")).getClass());
+        assertSame(ShellScriptRunner.class, fileExtensionDispatcher.getScriptRunner(createScriptWithContent("06_script", "")).getClass());
+    }
+
+    @Test
+    void scriptIsExecutedWithRegisteredRunner() {
+        fileExtensionDispatcher.registerScriptRunner("sql", sqlScriptRunner);
+        fileExtensionDispatcher.setDefaultScriptRunner(defaultScriptRunner);
+        Script script1 = createScriptWithContent("01_script.sql", "");
+        Script script2 = createScriptWithContent("02_script.sql", "");
+
+        fileExtensionDispatcher.execute(script1);
+        fileExtensionDispatcher.execute(script2);
+
+        verify(sqlScriptRunner).execute(script1, null);
+        verify(sqlScriptRunner).execute(script2, null);
+        verifyZeroInteractions(defaultScriptRunner);
+    }
+
+    @Test
+    void lifecycleIsForwardedOnceToEveryRunner() {
+        fileExtensionDispatcher.registerScriptRunner("sql", sqlScriptRunner);
+        fileExtensionDispatcher.registerScriptRunner("ddl", sqlScriptRunner);
+        fileExtensionDispatcher.setDefaultScriptRunner(defaultScriptRunner);
+
+        fileExtensionDispatcher.initialize();
+        fileExtensionDispatcher.close();
+
+        verify(sqlScriptRunner, times(1)).initialize();
+        verify(sqlScriptRunner, times(1)).close();
+        verify(defaultScriptRunner).initialize();
+        verify(defaultScriptRunner).close();
+    }
+}
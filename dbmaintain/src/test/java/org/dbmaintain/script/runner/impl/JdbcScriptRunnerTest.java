@@ -17,9 +17,12 @@ package org.dbmaintain.script.runner.impl;
 
 import org.dbmaintain.database.Databases;
 import org.dbmaintain.database.impl.DefaultSQLHandler;
+import org.dbmaintain.metrics.Metrics;
+import org.dbmaintain.metrics.impl.DefaultMetrics;
 import org.dbmaintain.script.Script;
 import org.dbmaintain.script.ScriptContentHandle;
 import org.dbmaintain.script.ScriptFactory;
+import org.dbmaintain.script.StatementCheckpoint;
 import org.dbmaintain.script.parser.ScriptParserFactory;
 import org.dbmaintain.script.parser.impl.DefaultScriptParserFactory;
 import org.dbmaintain.util.DbMaintainException;
@@ -29,7 +32,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.dbmaintain.util.SQLTestUtils.executeUpdateQuietly;
@@ -37,6 +44,7 @@ import static org.dbmaintain.util.SQLTestUtils.getItemAsLong;
 import static org.dbmaintain.util.SQLTestUtils.isEmpty;
 import static org.dbmaintain.util.TestUtils.createScriptFactory;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -70,13 +78,16 @@ class JdbcScriptRunnerTest {
     /* An empty test script */
     private Script emptyScript;
 
+    private Map<String, ScriptParserFactory> databaseDialectScriptParserClassMap;
+    private Databases databases;
+
 
     @BeforeEach
     void initialize() {
-        Databases databases = TestUtils.getDatabases();
+        databases = TestUtils.getDatabases();
         dataSource = databases.getDefaultDatabase().getDataSource();
 
-        Map<String, ScriptParserFactory> databaseDialectScriptParserClassMap = new HashMap<>();
+        databaseDialectScriptParserClassMap = new HashMap<>();
         databaseDialectScriptParserClassMap.put("hsqldb", new DefaultScriptParserFactory(false, null));
         defaultScriptRunner = new JdbcScriptRunner(databaseDialectScriptParserClassMap, databases, new DefaultSQLHandler());
 
@@ -151,6 +162,62 @@ class JdbcScriptRunnerTest {
     }
 
 
+    @Test
+    void slowStatementsAreWrittenToJournal() throws IOException {
+        File journalFile = File.createTempFile("slow-statements", ".json");
+        journalFile.deleteOnExit();
+        JdbcScriptRunner scriptRunner = new JdbcScriptRunner(databaseDialectScriptParserClassMap, databases, new DefaultSQLHandler(), new StatementTimingJournal(0, journalFile), new DefaultMetrics());
+        try {
+            scriptRunner.execute(script1);
+            scriptRunner.execute(insertsWithoutError);
+        } finally {
+            scriptRunner.close();
+        }
+
+        List<String> entries = Files.readAllLines(journalFile.toPath());
+        assertEquals(5, entries.size());
+        assertTrue(entries.get(2).startsWith("{\"script\":\"inserts-without-error.sql\",\"statement\":1,"));
+        assertTrue(entries.get(2).contains("\"updateCount\":1,"));
+    }
+
+
+    @Test
+    void statementTimingsAreRecordedInMetrics() {
+        Metrics metrics = new DefaultMetrics();
+        JdbcScriptRunner scriptRunner = new JdbcScriptRunner(databaseDialectScriptParserClassMap, databases, new DefaultSQLHandler(), new StatementTimingJournal(-1, null), metrics);
+        scriptRunner.execute(script1);
+        scriptRunner.execute(insertsWithoutError);
+
+        assertEquals(5, metrics.getValues().get("jdbcScriptRunner.executeStatement.count"));
+        assertEquals(7, metrics.getValues().get("jdbcScriptRunner.parseStatement.count"));
+        assertEquals(3, metrics.getValues().get("jdbcScriptRunner.updateCount"));
+    }
+
+
+    @Test
+    void failedScriptIsResumedAfterLastCommittedStatement() {
+        JdbcScriptRunner scriptRunner = new JdbcScriptRunner(databaseDialectScriptParserClassMap, databases, new DefaultSQLHandler(), new StatementTimingJournal(-1, null), new DefaultMetrics(), true);
+        scriptRunner.execute(script1);
+        assertThrows(DbMaintainException.class, () -> scriptRunner.execute(insertsWithError));
+        assertEquals(2, getItemAsLong("select count(1) from table1", dataSource), "Committed statements should not have been rolled back");
+
+        StatementCheckpoint statementCheckpoint = scriptRunner.getLastStatementCheckpoint();
+        assertEquals(2, statementCheckpoint.getStatementNr());
+
+        // the first 2 statements of both scripts are identical
+        scriptRunner.execute(insertsWithoutError, statementCheckpoint);
+        assertEquals(3, getItemAsLong("select count(1) from table1", dataSource));
+        assertEquals(3, scriptRunner.getLastExecutedStatementCount());
+    }
+
+    @Test
+    void noCheckpointWhenScriptIsExecutedInOneTransaction() {
+        defaultScriptRunner.execute(script1);
+        assertThrows(DbMaintainException.class, () -> defaultScriptRunner.execute(insertsWithError));
+        assertNull(defaultScriptRunner.getLastStatementCheckpoint());
+    }
+
+
     private void cleanupTestDatabase() {
         executeUpdateQuietly("drop table table1", dataSource);
         executeUpdateQuietly("drop table table2", dataSource);
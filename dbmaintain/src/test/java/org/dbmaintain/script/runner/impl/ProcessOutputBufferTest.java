@@ -0,0 +1,75 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.script.runner.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+class ProcessOutputBufferTest {
+
+    private ProcessOutputBuffer processOutputBuffer = new ProcessOutputBuffer("test", Pattern.compile("^ERR-[0-9]+"), 10);
+
+
+    @Test
+    void blankLinesAreIgnored() {
+        processOutputBuffer.append("line 1");
+        processOutputBuffer.append("  ");
+        processOutputBuffer.append("line 2");
+
+        assertEquals("<7 chars of output omitted>\nline 2\n", processOutputBuffer.getOutput());
+    }
+
+    @Test
+    void onlyLastPartOfOutputIsKept() {
+        for (int i = 0; i < 1000; i++) {
+            processOutputBuffer.append("abc");
+        }
+        assertEquals("<3992 chars of output omitted>\nabc\nabc\n", processOutputBuffer.getOutput());
+    }
+
+    @Test
+    void endOfTooLongLineIsKept() {
+        processOutputBuffer.append("0123456789abcdef");
+
+        assertEquals("<7 chars of output omitted>\n789abcdef\n", processOutputBuffer.getOutput());
+    }
+
+    @Test
+    void firstErrorIsDetectedEvenIfOmittedFromOutput() {
+        processOutputBuffer.append("ERR-1: first");
+        processOutputBuffer.append("ERR-2: second");
+        for (int i = 0; i < 100; i++) {
+            processOutputBuffer.append("line");
+        }
+        assertEquals("ERR-1: first", processOutputBuffer.getFirstErrorLine());
+    }
+
+    @Test
+    void noErrorPattern() {
+        ProcessOutputBuffer bufferWithoutErrorPattern = new ProcessOutputBuffer("test", null, 10);
+        bufferWithoutErrorPattern.append("ERR-1: error");
+
+        assertNull(bufferWithoutErrorPattern.getFirstErrorLine());
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.script.runner.impl;
+
+import org.dbmaintain.script.Script;
+import org.dbmaintain.util.DbMaintainException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Properties;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.dbmaintain.config.DbMaintainProperties.PROPERTY_SCRIPT_ENCODING;
+import static org.dbmaintain.config.DbMaintainProperties.PROPERTY_SQL_PLUS_PERSISTENT_SESSION;
+import static org.dbmaintain.util.TestUtils.createScriptWithContent;
+import static org.dbmaintain.util.TestUtils.getDatabases;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests the persistent session mode of the SQL*Plus script runner using a stub SQL*Plus executable
+ * that logs every start, echoes prompts and prints the content of the executed scripts.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+class SqlPlusScriptRunnerTest {
+
+    @TempDir
+    File tempDir;
+
+    private File startLogFile;
+    private File commandLogFile;
+    private SqlPlusScriptRunner sqlPlusScriptRunner;
+
+
+    @BeforeEach
+    void initialize() throws Exception {
+        assumeTrue(new File("/bin/sh").exists(), "A unix shell is needed to run the stub SQL*Plus");
+
+        startLogFile = new File(tempDir, "starts.log");
+        commandLogFile = new File(tempDir, "commands.log");
+        File stubSqlPlus = new File(tempDir, "sqlplus");
+        String stub = "#!/bin/sh\n" +
+                "echo started >> '" + startLogFile.getAbsolutePath() + "'\n" +
+                "while IFS= read -r line; do\n" +
+                "  echo \"$line\" >> '" + commandLogFile.getAbsolutePath() + "'\n" +
+                "  case \"$line\" in\n" +
+                "    prompt\\ *) echo \"${line#prompt }\" ;;\n" +
+                "    @*) file=$(echo \"$line\" | sed 's/^@\"//; s/\"$//')\n" +
+                "        cat \"$file\"\n" +
+                "        if grep -q FAIL \"$file\"; then echo 'ORA-00942: table or view does not exist'; exit 1; fi ;;\n" +
+                "    exit) exit 0 ;;\n" +
+                "  esac\n" +
+                "done\n";
+        Files.write(stubSqlPlus.toPath(), stub.getBytes(UTF_8));
+        assumeTrue(stubSqlPlus.setExecutable(true));
+
+        Properties configuration = new Properties();
+        configuration.setProperty(PROPERTY_SCRIPT_ENCODING, "ISO-8859-1");
+        configuration.setProperty(PROPERTY_SQL_PLUS_PERSISTENT_SESSION, "true");
+        sqlPlusScriptRunner = new SqlPlusScriptRunner(getDatabases(), configuration, stubSqlPlus.getAbsolutePath());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        if (sqlPlusScriptRunner != null) {
+            sqlPlusScriptRunner.close();
+        }
+    }
+
+
+    @Test
+    void scriptsAreExecutedInOneSession() throws Exception {
+        sqlPlusScriptRunner.execute(createScript("01_script1.sql", "create table table1 (id int);"));
+        sqlPlusScriptRunner.execute(createScript("02_script2.sql", "create table table2 (id int);"));
+
+        assertEquals(1, getNrOfStarts());
+    }
+
+    @Test
+    void errorHandlingAndSchemaAreSetAgainForEveryScript() throws Exception {
+        sqlPlusScriptRunner.execute(createScript("01_script1.sql", "whenever sqlerror continue"));
+        sqlPlusScriptRunner.execute(createScript("02_script2.sql", "create table table2 (id int);"));
+
+        List<String> commands = Files.readAllLines(commandLogFile.toPath(), UTF_8);
+        int indexOfScript2 = indexOfScript(commands, "02_script2.sql");
+        List<String> commandsBeforeScript2 = commands.subList(indexOfScript(commands, "01_script1.sql") + 1, indexOfScript2);
+        assertTrue(commandsBeforeScript2.contains("whenever sqlerror exit sql.sqlcode rollback"));
+        assertTrue(commandsBeforeScript2.contains("whenever oserror exit sql.sqlcode rollback"));
+        assertTrue(commandsBeforeScript2.contains("alter session set current_schema=PUBLIC;"));
+    }
+
+    @Test
+    void newSessionIsStartedAfterSqlPlusExitedWithError() throws Exception {
+        sqlPlusScriptRunner.execute(createScript("01_script1.sql", "create table table1 (id int);"));
+
+        DbMaintainException e = assertThrows(DbMaintainException.class, () -> sqlPlusScriptRunner.execute(createScript("02_script2.sql", "FAIL")));
+        assertTrue(e.getCause().getMessage().contains("ORA-00942"));
+
+        sqlPlusScriptRunner.execute(createScript("03_script3.sql", "create table table3 (id int);"));
+        assertEquals(2, getNrOfStarts());
+    }
+
+
+    @Test
+    void outputIsReadWithScriptEncoding() {
+        DbMaintainException e = assertThrows(DbMaintainException.class, () -> sqlPlusScriptRunner.execute(createScript("01_script1.sql", "FAIL caf\u00e9")));
+        assertTrue(e.getCause().getMessage().contains("FAIL caf\u00e9"));
+    }
+
+
+    private Script createScript(String fileName, String content) {
+        return createScriptWithContent(fileName, content);
+    }
+
+    private int indexOfScript(List<String> commands, String fileName) {
+        for (int i = 0; i < commands.size(); i++) {
+            if (commands.get(i).startsWith("@") && commands.get(i).contains(fileName)) {
+                return i;
+            }
+        }
+        throw new AssertionError("Script " + fileName + " was not executed");
+    }
+
+    private int getNrOfStarts() throws Exception {
+        List<String> lines = Files.readAllLines(startLogFile.toPath(), UTF_8);
+        return lines.size();
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.script.runner.impl.db2;
+
+import org.dbmaintain.database.Database;
+import org.dbmaintain.database.DatabaseInfo;
+import org.dbmaintain.database.Databases;
+import org.dbmaintain.util.DbMaintainException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.dbmaintain.util.TestUtils.createScriptWithContent;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the DB2 batch script runner using a stub db2 executable that logs every invocation and the
+ * content of the command file, echoes the markers and fails on statements containing FAIL.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class Db2BatchScriptRunnerTest {
+
+    @TempDir
+    File tempDir;
+    @Mock
+    private Database database;
+
+    private File invocationLogFile;
+    private File commandLogFile;
+    private File permissionsLogFile;
+    private File stubDb2;
+
+
+    @BeforeEach
+    void initialize() throws Exception {
+        assumeTrue(new File("/bin/sh").exists(), "A unix shell is needed to run the stub db2");
+
+        invocationLogFile = new File(tempDir, "invocations.log");
+        commandLogFile = new File(tempDir, "commands.log");
+        permissionsLogFile = new File(tempDir, "permissions.log");
+        stubDb2 = new File(tempDir, "db2");
+        String stub = "#!/bin/sh\n" +
+                "echo \"$@\" >> '" + invocationLogFile.getAbsolutePath() + "'\n" +
+                "stopOnError=false\n" +
+                "for arg in \"$@\"; do\n" +
+                "  case \"$arg\" in\n" +
+                "    -s) stopOnError=true ;;\n" +
+                "    -f*) file=\"${arg#-f}\" ;;\n" +
+                "  esac\n" +
+                "done\n" +
+                "cat \"$file\" >> '" + commandLogFile.getAbsolutePath() + "'\n" +
+                "ls -l \"$file\" | cut -c1-10 >> '" + permissionsLogFile.getAbsolutePath() + "'\n" +
+                "exitValue=0\n" +
+                "while IFS= read -r line; do\n" +
+                "  case \"$line\" in\n" +
+                "    echo\\ *) text=\"${line#echo }\"; echo \"${text%;}\" ;;\n" +
+                "    *FAIL*) echo 'SQL0204N  \"FAIL\" is an undefined name.'; exitValue=4\n" +
+                "        if [ $stopOnError = true ]; then exit 4; fi ;;\n" +
+                "  esac\n" +
+                "done < \"$file\"\n" +
+                "exit $exitValue\n";
+        Files.write(stubDb2.toPath(), stub.getBytes(UTF_8));
+        assumeTrue(stubDb2.setExecutable(true));
+
+        when(database.getDatabaseName()).thenReturn("mydatabase");
+        when(database.getDefaultSchemaName()).thenReturn("MYSCHEMA");
+    }
+
+
+    @Test
+    void scriptIsExecutedWithOneInvocation() throws Exception {
+        Db2BatchScriptRunner db2BatchScriptRunner = createDb2BatchScriptRunner("jdbc:db2:mydb");
+
+        db2BatchScriptRunner.execute(createScriptWithContent("01_script.sql", "create table table1 (id int);"));
+
+        assertEquals(1, readLines(invocationLogFile).size());
+        List<String> commands = readLines(commandLogFile);
+        assertTrue(commands.contains("connect to mydb user user using pass;"));
+        assertTrue(commands.contains("set schema MYSCHEMA;"));
+        assertTrue(commands.contains("create table table1 (id int);"));
+        assertTrue(commands.contains("commit;"));
+    }
+
+    @Test
+    void commandFileIsOnlyReadableByOwner() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        Db2BatchScriptRunner db2BatchScriptRunner = createDb2BatchScriptRunner("jdbc:db2:mydb");
+
+        db2BatchScriptRunner.execute(createScriptWithContent("01_script.sql", "create table table1 (id int);"));
+
+        assertEquals(singletonList("-rw-------"), readLines(permissionsLogFile));
+    }
+
+    @Test
+    void errorIsAttributedToScript() {
+        Db2BatchScriptRunner db2BatchScriptRunner = createDb2BatchScriptRunner("jdbc:db2:mydb");
+
+        DbMaintainException e = assertThrows(DbMaintainException.class, () -> db2BatchScriptRunner.execute(createScriptWithContent("01_script.sql", "select * from FAIL;")));
+        assertTrue(e.getCause().getMessage().contains("DB2 CLP returned an error during script 01_script.sql"));
+    }
+
+    @Test
+    void remoteDatabasesAreRegisteredAndUnregisteredWithOneInvocation() throws Exception {
+        Db2BatchScriptRunner db2BatchScriptRunner = createDb2BatchScriptRunner("jdbc:db2://host:50000/mydb");
+
+        db2BatchScriptRunner.initialize();
+        db2BatchScriptRunner.close();
+
+        assertEquals(2, readLines(invocationLogFile).size());
+        List<String> commands = readLines(commandLogFile);
+        assertTrue(commands.contains("catalog tcpip node dbm1 remote host server 50000;"));
+        assertTrue(commands.contains("catalog database mydb as dbm1 at node dbm1;"));
+        assertTrue(commands.contains("uncatalog database dbm1;"));
+        assertTrue(commands.contains("terminate;"));
+    }
+
+
+    private Db2BatchScriptRunner createDb2BatchScriptRunner(String url) {
+        DatabaseInfo databaseInfo = new DatabaseInfo("mydatabase", "db2", "com.ibm.db2.jcc.DB2Driver", url, "user", "pass", singletonList("MYSCHEMA"), false, true);
+        when(database.getDatabaseInfo()).thenReturn(databaseInfo);
+        Databases databases = new Databases(database, asList(database), new ArrayList<>());
+        return new Db2BatchScriptRunner(databases, stubDb2.getAbsolutePath());
+    }
+
+    private List<String> readLines(File file) throws Exception {
+        return Files.readAllLines(file.toPath(), UTF_8);
+    }
+}
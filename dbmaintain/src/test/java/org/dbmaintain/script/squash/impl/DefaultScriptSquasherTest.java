@@ -0,0 +1,144 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.script.squash.impl;
+
+import org.dbmaintain.database.Database;
+import org.dbmaintain.database.Databases;
+import org.dbmaintain.database.impl.DefaultSQLHandler;
+import org.dbmaintain.script.Script;
+import org.dbmaintain.script.executedscriptinfo.ScriptIndexes;
+import org.dbmaintain.script.parser.ScriptParserFactory;
+import org.dbmaintain.script.parser.impl.DefaultScriptParserFactory;
+import org.dbmaintain.script.runner.impl.JdbcScriptRunner;
+import org.dbmaintain.structure.clear.DBClearer;
+import org.dbmaintain.util.DbMaintainException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.util.Arrays.asList;
+import static org.dbmaintain.structure.model.DbItemIdentifier.getItemIdentifier;
+import static org.dbmaintain.structure.model.DbItemType.TABLE;
+import static org.dbmaintain.util.SQLTestUtils.*;
+import static org.dbmaintain.util.TestUtils.createScriptWithContent;
+import static org.dbmaintain.util.TestUtils.getDatabases;
+import static org.dbmaintain.util.TestUtils.getScriptRepository;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Test class for the {@link DefaultScriptSquasher}. <p> This test is currently only implemented for HsqlDb
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+class DefaultScriptSquasherTest {
+
+    @TempDir
+    File tempDir;
+
+    private DataSource dataSource;
+    private Databases databases;
+    private Database defaultDatabase;
+    private JdbcScriptRunner scriptRunner;
+    private DBClearer dbClearer = mock(DBClearer.class);
+
+
+    @BeforeEach
+    void setUp() {
+        databases = getDatabases("PUBLIC", "SCHEMA_A");
+        defaultDatabase = databases.getDefaultDatabase();
+        dataSource = defaultDatabase.getDataSource();
+
+        Map<String, ScriptParserFactory> databaseDialectScriptParserFactoryMap = new HashMap<>();
+        databaseDialectScriptParserFactoryMap.put("hsqldb", new DefaultScriptParserFactory(false, null));
+        scriptRunner = new JdbcScriptRunner(databaseDialectScriptParserFactoryMap, databases, new DefaultSQLHandler());
+
+        dropTestDatabase();
+        executeUpdate("create schema SCHEMA_A AUTHORIZATION DBA", dataSource);
+        executeUpdate("create table DBMAINTAIN_SCRIPTS (FILE_NAME varchar(150))", dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dropTestDatabase();
+    }
+
+
+    @Test
+    void squashScripts() throws Exception {
+        File squashedScriptFile = new File(tempDir, "squashed.sql");
+        createScriptSquasher(
+                createScriptWithContent("01_create.sql", "create table SCHEMA_A.TEST_TABLE (ID int generated by default as identity primary key, NAME varchar(20));\n" +
+                        "create table TEST_REFERENCING_TABLE (ID int, TEST_ID int, foreign key (TEST_ID) references SCHEMA_A.TEST_TABLE(ID));"),
+                createScriptWithContent("02_data.sql", "insert into SCHEMA_A.TEST_TABLE(NAME) values ('café');\n" +
+                        "insert into TEST_REFERENCING_TABLE values (1, 0);"),
+                createScriptWithContent("03_later.sql", "create table LATER_TABLE (ID int);"),
+                createScriptWithContent("view.sql", "create view TEST_VIEW as select * from TEST_REFERENCING_TABLE;")
+        ).squashScripts(new ScriptIndexes("3"), squashedScriptFile);
+
+        verify(dbClearer).clearDatabase();
+        String squashedScript = new String(Files.readAllBytes(squashedScriptFile.toPath()), ISO_8859_1);
+        assertFalse(squashedScript.contains("DBMAINTAIN_SCRIPTS"));
+        assertFalse(squashedScript.contains("LATER_TABLE"));
+        assertFalse(squashedScript.contains("TEST_VIEW"));
+
+        dropTestDatabase();
+        executeUpdate("create schema SCHEMA_A AUTHORIZATION DBA", dataSource);
+        scriptRunner.execute(createScriptWithContent("squashed.sql", squashedScript));
+
+        assertEquals("café", getItemAsString("select NAME from SCHEMA_A.TEST_TABLE", dataSource));
+        assertEquals(1, getItemAsLong("select count(*) from TEST_REFERENCING_TABLE", dataSource));
+        // the recreated identity and foreign key still work
+        executeUpdate("insert into SCHEMA_A.TEST_TABLE(NAME) values ('other')", dataSource);
+        assertEquals(1, getItemAsLong("select ID from SCHEMA_A.TEST_TABLE where NAME = 'other'", dataSource));
+        assertThrows(Exception.class, () -> executeUpdate("insert into TEST_REFERENCING_TABLE values (2, 99)", dataSource));
+    }
+
+    @Test
+    void scriptForOtherDatabase() {
+        DefaultScriptSquasher scriptSquasher = createScriptSquasher(createScriptWithContent("01_@otherdb_create.sql", "create table TEST_TABLE (ID int);"));
+
+        DbMaintainException e = assertThrows(DbMaintainException.class, () -> scriptSquasher.squashScripts(new ScriptIndexes("2"), new File(tempDir, "squashed.sql")));
+        assertTrue(e.getMessage().contains("01_@otherdb_create.sql"));
+    }
+
+
+    private DefaultScriptSquasher createScriptSquasher(Script... scripts) {
+        SortedSet<Script> scriptSet = new TreeSet<>(asList(scripts));
+        return new DefaultScriptSquasher(getScriptRepository(scriptSet), scriptRunner, dbClearer, databases,
+                getItemIdentifier(TABLE, "PUBLIC", "DBMAINTAIN_SCRIPTS", defaultDatabase, true), "ISO-8859-1");
+    }
+
+    private void dropTestDatabase() {
+        executeUpdateQuietly("drop table DBMAINTAIN_SCRIPTS", dataSource);
+        executeUpdateQuietly("drop table LATER_TABLE", dataSource);
+        executeUpdateQuietly("drop view TEST_VIEW", dataSource);
+        executeUpdateQuietly("drop table TEST_REFERENCING_TABLE", dataSource);
+        executeUpdateQuietly("drop schema SCHEMA_A cascade", dataSource);
+    }
+}
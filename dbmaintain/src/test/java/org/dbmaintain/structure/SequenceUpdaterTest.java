@@ -28,7 +28,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import javax.sql.DataSource;
+import java.util.Map;
+import java.util.Set;
 
+import static java.util.Collections.singleton;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -148,6 +153,36 @@ class SequenceUpdaterTest {
     }
 
 
+    /**
+     * Verifies that the values of all sequences of a schema are retrieved at once
+     */
+    @Test
+    void testGetSequenceValues() {
+        if (!defaultDatabase.supportsSequences()) {
+            logger.warn("Current dialect does not support sequences. Skipping test.");
+            return;
+        }
+        Map<String, Long> sequenceValues = defaultDatabase.getSequenceValues(defaultDatabase.getDefaultSchemaName());
+        Long sequenceValue = sequenceValues.get(defaultDatabase.toCorrectCaseIdentifier("test_sequence"));
+        assertTrue(sequenceValue != null && sequenceValue >= 0 && sequenceValue <= 10, "Unexpected sequence values " + sequenceValues);
+    }
+
+
+    /**
+     * Verifies that only the real identity columns of all tables of a schema are retrieved at once
+     */
+    @Test
+    void testGetIdentityColumnNamesPerTable() {
+        if (!defaultDatabase.supportsIdentityColumns()) {
+            logger.warn("Current dialect does not support identity columns. Skipping test.");
+            return;
+        }
+        Map<String, Set<String>> identityColumnNamesPerTable = defaultDatabase.getIdentityColumnNamesPerTable(defaultDatabase.getDefaultSchemaName());
+        assertEquals(singleton(defaultDatabase.toCorrectCaseIdentifier("col1")), identityColumnNamesPerTable.get(defaultDatabase.toCorrectCaseIdentifier("test_table1")));
+        assertFalse(identityColumnNamesPerTable.containsKey(defaultDatabase.toCorrectCaseIdentifier("test_table2")));
+    }
+
+
     /**
      * Asserts that the current value for the test_sequence is between the given values
      *
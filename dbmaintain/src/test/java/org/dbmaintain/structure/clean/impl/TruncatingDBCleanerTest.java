@@ -0,0 +1,170 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.structure.clean.impl;
+
+import org.dbmaintain.database.Database;
+import org.dbmaintain.database.Databases;
+import org.dbmaintain.database.impl.DefaultSQLHandler;
+import org.dbmaintain.structure.model.DbItemIdentifier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.dbmaintain.structure.model.DbItemIdentifier.getItemIdentifier;
+import static org.dbmaintain.structure.model.DbItemIdentifier.getSchemaIdentifier;
+import static org.dbmaintain.structure.model.DbItemType.TABLE;
+import static org.dbmaintain.util.SQLTestUtils.*;
+import static org.dbmaintain.util.TestUtils.getDatabases;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link TruncatingDBCleaner}. <p> This test is currently only implemented for HsqlDb
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+class TruncatingDBCleanerTest {
+
+    private DataSource dataSource;
+    private Databases databases;
+    private Database defaultDatabase;
+    private Set<DbItemIdentifier> itemsToPreserve = new HashSet<>();
+
+
+    @BeforeEach
+    void setUp() {
+        databases = getDatabases("PUBLIC", "SCHEMA_A", "SCHEMA_B");
+        defaultDatabase = databases.getDefaultDatabase();
+        dataSource = defaultDatabase.getDataSource();
+
+        itemsToPreserve.add(getItemIdentifier(TABLE, "PUBLIC", "TEST_TABLE_PRESERVE", defaultDatabase));
+        itemsToPreserve.add(getSchemaIdentifier("SCHEMA_B", defaultDatabase));
+
+        dropTestDatabase();
+        createTestDatabase();
+        insertTestData();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dropTestDatabase();
+    }
+
+
+    @Test
+    void cleanDatabase() {
+        TruncatingDBCleaner truncatingDBCleaner = new TruncatingDBCleaner(databases, itemsToPreserve, new DefaultSQLHandler(), 1);
+
+        truncatingDBCleaner.cleanDatabase();
+
+        assertCleaned();
+    }
+
+    @Test
+    void cleanDatabaseInParallel() {
+        TruncatingDBCleaner truncatingDBCleaner = new TruncatingDBCleaner(databases, itemsToPreserve, new DefaultSQLHandler(), 2);
+
+        truncatingDBCleaner.cleanDatabase();
+
+        assertCleaned();
+    }
+
+    @Test
+    void cleanDatabaseInParallelWithSettingsOfSQLHandler() {
+        DefaultSQLHandler sqlHandler = new DefaultSQLHandler(false);
+        try {
+            Database database = defaultDatabase.copyWithSQLHandler(sqlHandler);
+            Databases databasesWithoutUpdates = new Databases(database, singletonList(database), new ArrayList<>());
+            TruncatingDBCleaner truncatingDBCleaner = new TruncatingDBCleaner(databasesWithoutUpdates, itemsToPreserve, sqlHandler, 2);
+
+            truncatingDBCleaner.cleanDatabase();
+
+            assertFalse(isEmpty("TEST_TABLE", dataSource));
+            assertFalse(isEmpty("SCHEMA_A.PARENT_TABLE", dataSource));
+        } finally {
+            sqlHandler.closeAllConnections();
+        }
+    }
+
+    @Test
+    void tablesThatCannotBeTruncatedAreCleanedByGivenCleaner() {
+        executeUpdate("insert into SCHEMA_B.REFERENCING_TABLE values('parent')", dataSource);
+        List<String> cleanedTableNames = new ArrayList<>();
+
+        assertEquals(asList("PARENT_TABLE"), defaultDatabase.truncateTables("SCHEMA_A", asList("PARENT_TABLE"), cleanedTableNames::add));
+        assertEquals(asList("PARENT_TABLE"), cleanedTableNames);
+    }
+
+    @Test
+    void tablesThatCannotBeTruncatedAreReturned() {
+        executeUpdate("insert into SCHEMA_B.REFERENCING_TABLE values('parent')", dataSource);
+
+        assertEquals(asList("PARENT_TABLE"), defaultDatabase.truncateTables("SCHEMA_A", asList("PARENT_TABLE")));
+        assertFalse(isEmpty("SCHEMA_A.PARENT_TABLE", dataSource));
+    }
+
+
+    private void assertCleaned() {
+        assertTrue(isEmpty("TEST_TABLE", dataSource));
+        assertFalse(isEmpty("TEST_TABLE_PRESERVE", dataSource));
+        assertTrue(isEmpty("SCHEMA_A.PARENT_TABLE", dataSource));
+        assertTrue(isEmpty("SCHEMA_A.CHILD_TABLE", dataSource));
+        assertFalse(isEmpty("SCHEMA_B.TEST_TABLE", dataSource));
+    }
+
+    /**
+     * Creates all test database structures
+     */
+    private void createTestDatabase() {
+        executeUpdate("create schema SCHEMA_A AUTHORIZATION DBA", dataSource);
+        executeUpdate("create schema SCHEMA_B AUTHORIZATION DBA", dataSource);
+        executeUpdate("create table TEST_TABLE (col1 varchar(10))", dataSource);
+        executeUpdate("create table TEST_TABLE_PRESERVE (col1 varchar(10))", dataSource);
+        executeUpdate("create table SCHEMA_A.PARENT_TABLE (col1 varchar(10) primary key)", dataSource);
+        executeUpdate("create table SCHEMA_A.CHILD_TABLE (col1 varchar(10) references SCHEMA_A.PARENT_TABLE(col1))", dataSource);
+        executeUpdate("create table SCHEMA_B.TEST_TABLE (col1 varchar(10))", dataSource);
+        executeUpdate("create table SCHEMA_B.REFERENCING_TABLE (col1 varchar(10) references SCHEMA_A.PARENT_TABLE(col1))", dataSource);
+    }
+
+    /**
+     * Inserts a test record in each test table
+     */
+    private void insertTestData() {
+        executeUpdate("insert into TEST_TABLE values('test')", dataSource);
+        executeUpdate("insert into TEST_TABLE_PRESERVE values('test')", dataSource);
+        executeUpdate("insert into SCHEMA_A.PARENT_TABLE values('parent')", dataSource);
+        executeUpdate("insert into SCHEMA_A.CHILD_TABLE values('parent')", dataSource);
+        executeUpdate("insert into SCHEMA_B.TEST_TABLE values('test')", dataSource);
+    }
+
+    /**
+     * Drops all created test database structures
+     */
+    private void dropTestDatabase() {
+        executeUpdateQuietly("drop schema SCHEMA_B cascade", dataSource);
+        executeUpdateQuietly("drop schema SCHEMA_A cascade", dataSource);
+        executeUpdateQuietly("drop table TEST_TABLE", dataSource);
+        executeUpdateQuietly("drop table TEST_TABLE_PRESERVE", dataSource);
+    }
+}
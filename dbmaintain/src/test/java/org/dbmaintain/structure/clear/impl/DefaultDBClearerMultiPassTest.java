@@ -22,7 +22,6 @@ import org.dbmaintain.structure.constraint.ConstraintsDisabler;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -48,7 +47,7 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class DefaultDBClearerMultiPassTest {
 
-    @InjectMocks
+    /* Tested object */
     private DefaultDBClearer defaultDBClearer;
 
     @Mock
@@ -0,0 +1,158 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.structure.clear.impl;
+
+import org.dbmaintain.database.Database;
+import org.dbmaintain.database.Databases;
+import org.dbmaintain.database.SQLHandler;
+import org.dbmaintain.database.impl.DefaultSQLHandler;
+import org.dbmaintain.script.executedscriptinfo.ExecutedScriptInfoSource;
+import org.dbmaintain.structure.constraint.ConstraintsDisabler;
+import org.dbmaintain.structure.constraint.impl.DefaultConstraintsDisabler;
+import org.dbmaintain.structure.model.DbItemIdentifier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+import static java.util.Collections.singletonList;
+import static org.dbmaintain.structure.model.DbItemIdentifier.getItemIdentifier;
+import static org.dbmaintain.structure.model.DbItemType.TABLE;
+import static org.dbmaintain.util.SQLTestUtils.executeUpdate;
+import static org.dbmaintain.util.SQLTestUtils.executeUpdateQuietly;
+import static org.dbmaintain.util.TestUtils.getDatabases;
+import static org.dbmaintain.util.TestUtils.getDefaultExecutedScriptInfoSource;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link DefaultDBClearer} when multiple schemas are cleared at the same time. <p> This test is
+ * currently only implemented for HsqlDb
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+class DefaultDBClearerParallelTest {
+
+    /* Tested object */
+    private DefaultDBClearer defaultDBClearer;
+
+    private DataSource dataSource;
+    private Database defaultDatabase;
+
+
+    @BeforeEach
+    void setUp() {
+        Databases databases = getDatabases("PUBLIC", "SCHEMA_A", "SCHEMA_B");
+        defaultDatabase = databases.getDefaultDatabase();
+        dataSource = defaultDatabase.getDataSource();
+
+        ConstraintsDisabler constraintsDisabler = new DefaultConstraintsDisabler(databases);
+        ExecutedScriptInfoSource executedScriptInfoSource = getDefaultExecutedScriptInfoSource(defaultDatabase, true);
+        Set<DbItemIdentifier> itemsToPreserve = new HashSet<>();
+        itemsToPreserve.add(getItemIdentifier(TABLE, "PUBLIC", "DBMAINTAIN_SCRIPTS", defaultDatabase, true));
+        defaultDBClearer = new DefaultDBClearer(databases, itemsToPreserve, new HashSet<>(), constraintsDisabler, executedScriptInfoSource, false, true, 3);
+
+        dropTestDatabase();
+        createTestDatabase();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dropTestDatabase();
+    }
+
+
+    @Test
+    void allSchemasAreCleared() {
+        defaultDBClearer.clearDatabase();
+
+        assertTrue(defaultDatabase.getViewNames("PUBLIC").isEmpty());
+        assertTrue(defaultDatabase.getSequenceNames("PUBLIC").isEmpty());
+        assertTrue(defaultDatabase.getTableNames("SCHEMA_A").isEmpty());
+        assertTrue(defaultDatabase.getViewNames("SCHEMA_A").isEmpty());
+        assertTrue(defaultDatabase.getTableNames("SCHEMA_B").isEmpty());
+        assertTrue(defaultDatabase.getViewNames("SCHEMA_B").isEmpty());
+    }
+
+    @Test
+    void schemasAreClearedWithSettingsOfSQLHandler() {
+        SQLHandler sqlHandler = new DefaultSQLHandler(false);
+        try {
+            Database database = defaultDatabase.copyWithSQLHandler(sqlHandler);
+            Databases databases = new Databases(database, singletonList(database), new ArrayList<>());
+            DefaultDBClearer dbClearer = new DefaultDBClearer(databases, new HashSet<>(), new HashSet<>(), new DefaultConstraintsDisabler(databases),
+                    getDefaultExecutedScriptInfoSource(database, true), false, true, 3);
+            dbClearer.clearDatabase();
+
+            assertFalse(defaultDatabase.getTableNames("SCHEMA_A").isEmpty());
+            assertFalse(defaultDatabase.getTableNames("SCHEMA_B").isEmpty());
+        } finally {
+            sqlHandler.closeAllConnections();
+        }
+    }
+
+    @Test
+    void copyUsesGivenSQLHandler() {
+        SQLHandler sqlHandler = new DefaultSQLHandler();
+        try {
+            Database copiedDatabase = defaultDatabase.copyWithSQLHandler(sqlHandler);
+
+            assertSame(defaultDatabase.getClass(), copiedDatabase.getClass());
+            assertSame(sqlHandler, copiedDatabase.getSQLHandler());
+            assertEquals(defaultDatabase.getTableNames("SCHEMA_A"), copiedDatabase.getTableNames("SCHEMA_A"));
+        } finally {
+            sqlHandler.closeAllConnections();
+        }
+    }
+
+
+    /**
+     * Creates all test database structures (view, tables...)
+     */
+    private void createTestDatabase() {
+        // create schemas
+        executeUpdate("create schema SCHEMA_A AUTHORIZATION DBA", dataSource);
+        executeUpdate("create schema SCHEMA_B AUTHORIZATION DBA", dataSource);
+        // create tables
+        executeUpdate("create table TEST_TABLE (col1 varchar(100) primary key)", dataSource);
+        executeUpdate("create table SCHEMA_A.TEST_TABLE (col1 varchar(100) primary key)", dataSource);
+        executeUpdate("create table SCHEMA_A.REFERENCING_TABLE (col1 varchar(100) references SCHEMA_A.TEST_TABLE(col1))", dataSource);
+        executeUpdate("create table SCHEMA_B.TEST_TABLE (col1 varchar(100) references PUBLIC.TEST_TABLE(col1))", dataSource);
+        // create views
+        executeUpdate("create view TEST_VIEW as select col1 from TEST_TABLE", dataSource);
+        executeUpdate("create view SCHEMA_A.TEST_VIEW as select col1 from SCHEMA_A.TEST_TABLE", dataSource);
+        executeUpdate("create view SCHEMA_B.TEST_VIEW as select col1 from SCHEMA_B.TEST_TABLE", dataSource);
+        // create sequences
+        executeUpdate("create sequence TEST_SEQUENCE", dataSource);
+        executeUpdate("create sequence SCHEMA_A.TEST_SEQUENCE", dataSource);
+    }
+
+    /**
+     * Drops all created test database structures (views, tables...)
+     */
+    private void dropTestDatabase() {
+        executeUpdateQuietly("drop schema SCHEMA_A cascade", dataSource);
+        executeUpdateQuietly("drop schema SCHEMA_B cascade", dataSource);
+        executeUpdateQuietly("drop view TEST_VIEW", dataSource);
+        executeUpdateQuietly("drop table dbmaintain_scripts", dataSource);
+        executeUpdateQuietly("drop table TEST_TABLE", dataSource);
+        executeUpdateQuietly("drop sequence TEST_SEQUENCE", dataSource);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.structure.clear.impl;
+
+import org.dbmaintain.database.Database;
+import org.dbmaintain.database.Databases;
+import org.dbmaintain.script.executedscriptinfo.ExecutedScriptInfoSource;
+import org.dbmaintain.structure.constraint.ConstraintsDisabler;
+import org.dbmaintain.structure.constraint.impl.DefaultConstraintsDisabler;
+import org.dbmaintain.structure.model.DbItemIdentifier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.dbmaintain.structure.model.DbItemIdentifier.getItemIdentifier;
+import static org.dbmaintain.structure.model.DbItemIdentifier.getSchemaIdentifier;
+import static org.dbmaintain.structure.model.DbItemType.TABLE;
+import static org.dbmaintain.util.SQLTestUtils.executeUpdate;
+import static org.dbmaintain.util.SQLTestUtils.executeUpdateQuietly;
+import static org.dbmaintain.util.TestUtils.getDatabases;
+import static org.dbmaintain.util.TestUtils.getDefaultExecutedScriptInfoSource;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link DefaultDBClearer} when schemas are cleared by dropping and recreating them. <p> This test
+ * is currently only implemented for HsqlDb
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+class DefaultDBClearerRecreateSchemaTest {
+
+    private DataSource dataSource;
+    private Databases databases;
+    private Database defaultDatabase;
+    private ConstraintsDisabler constraintsDisabler;
+    private ExecutedScriptInfoSource executedScriptInfoSource;
+    private Set<DbItemIdentifier> itemsToPreserve = new HashSet<>();
+
+
+    @BeforeEach
+    void setUp() {
+        databases = getDatabases("PUBLIC", "SCHEMA_A", "SCHEMA_B");
+        defaultDatabase = databases.getDefaultDatabase();
+        dataSource = defaultDatabase.getDataSource();
+
+        constraintsDisabler = new DefaultConstraintsDisabler(databases);
+        executedScriptInfoSource = getDefaultExecutedScriptInfoSource(defaultDatabase, true);
+        itemsToPreserve.add(getItemIdentifier(TABLE, "PUBLIC", "DBMAINTAIN_SCRIPTS", defaultDatabase, true));
+        itemsToPreserve.add(getItemIdentifier(TABLE, "SCHEMA_B", "PRESERVED_TABLE", defaultDatabase));
+
+        dropTestDatabase();
+        createTestDatabase();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dropTestDatabase();
+    }
+
+
+    @Test
+    void schemasAreRecreated() {
+        DefaultDBClearer defaultDBClearer = createDefaultDBClearer(true);
+
+        defaultDBClearer.clearDatabase();
+
+        assertTrue(defaultDatabase.getTableNames("SCHEMA_A").isEmpty());
+        assertTrue(defaultDatabase.getViewNames("SCHEMA_A").isEmpty());
+        assertTrue(defaultDatabase.getSequenceNames("SCHEMA_A").isEmpty());
+        assertTrue(defaultDBClearer.recreatedSchemas.contains(getSchemaIdentifier("SCHEMA_A", defaultDatabase)));
+    }
+
+    @Test
+    void executedScriptsTableIsCreatedAgain() {
+        DefaultDBClearer defaultDBClearer = createDefaultDBClearer(true);
+
+        defaultDBClearer.clearDatabase();
+
+        assertEquals(1, defaultDatabase.getTableNames("PUBLIC").size());
+        assertTrue(defaultDatabase.getTableNames("PUBLIC").contains("DBMAINTAIN_SCRIPTS"));
+        assertTrue(defaultDatabase.getViewNames("PUBLIC").isEmpty());
+        assertTrue(executedScriptInfoSource.getExecutedScripts().isEmpty());
+        assertTrue(defaultDBClearer.recreatedSchemas.contains(getSchemaIdentifier("PUBLIC", defaultDatabase)));
+    }
+
+    @Test
+    void schemaWithItemsToPreserveIsClearedItemByItem() {
+        DefaultDBClearer defaultDBClearer = createDefaultDBClearer(true);
+
+        defaultDBClearer.clearDatabase();
+
+        assertEquals(1, defaultDatabase.getTableNames("SCHEMA_B").size());
+        assertTrue(defaultDatabase.getViewNames("SCHEMA_B").isEmpty());
+        assertFalse(defaultDBClearer.recreatedSchemas.contains(getSchemaIdentifier("SCHEMA_B", defaultDatabase)));
+    }
+
+    @Test
+    void schemaWithExecutedScriptsTableIsNotRecreatedWithoutAutoCreate() {
+        DefaultDBClearer defaultDBClearer = createDefaultDBClearer(false);
+
+        assertFalse(defaultDBClearer.canRecreateSchema(getSchemaIdentifier("PUBLIC", defaultDatabase)));
+        assertTrue(defaultDBClearer.canRecreateSchema(getSchemaIdentifier("SCHEMA_A", defaultDatabase)));
+    }
+
+
+    private DefaultDBClearer createDefaultDBClearer(boolean autoCreateExecutedScriptsTable) {
+        return new DefaultDBClearer(databases, itemsToPreserve, new HashSet<>(), constraintsDisabler, executedScriptInfoSource, true, autoCreateExecutedScriptsTable);
+    }
+
+    /**
+     * Creates all test database structures (view, tables...)
+     */
+    private void createTestDatabase() {
+        // create schemas
+        executeUpdate("create schema SCHEMA_A AUTHORIZATION DBA", dataSource);
+        executeUpdate("create schema SCHEMA_B AUTHORIZATION DBA", dataSource);
+        // create tables
+        executeUpdate("create table TEST_TABLE (col1 varchar(100))", dataSource);
+        executeUpdate("create table SCHEMA_A.TEST_TABLE (col1 varchar(100))", dataSource);
+        executeUpdate("create table SCHEMA_B.PRESERVED_TABLE (col1 varchar(100))", dataSource);
+        // create views
+        executeUpdate("create view TEST_VIEW as select col1 from TEST_TABLE", dataSource);
+        executeUpdate("create view SCHEMA_A.TEST_VIEW as select col1 from SCHEMA_A.TEST_TABLE", dataSource);
+        executeUpdate("create view SCHEMA_B.TEST_VIEW as select col1 from SCHEMA_B.PRESERVED_TABLE", dataSource);
+        // create sequences
+        executeUpdate("create sequence SCHEMA_A.TEST_SEQUENCE", dataSource);
+    }
+
+    /**
+     * Drops all created test database structures (views, tables...)
+     */
+    private void dropTestDatabase() {
+        executeUpdateQuietly("drop view TEST_VIEW", dataSource);
+        executeUpdateQuietly("drop table dbmaintain_scripts", dataSource);
+        executeUpdateQuietly("drop table TEST_TABLE", dataSource);
+        executeUpdateQuietly("drop schema SCHEMA_A cascade", dataSource);
+        executeUpdateQuietly("drop schema SCHEMA_B cascade", dataSource);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.structure.clear.impl;
+
+import org.dbmaintain.database.Database;
+import org.dbmaintain.database.Databases;
+import org.dbmaintain.script.executedscriptinfo.ExecutedScriptInfoSource;
+import org.dbmaintain.structure.constraint.ConstraintsDisabler;
+import org.dbmaintain.structure.constraint.impl.DefaultConstraintsDisabler;
+import org.dbmaintain.structure.model.DbItemIdentifier;
+import org.dbmaintain.structure.model.DbItemType;
+import org.dbmaintain.util.TestUtils;
+import org.hsqldb.Trigger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.dbmaintain.structure.model.DbItemIdentifier.getItemIdentifier;
+import static org.dbmaintain.structure.model.DbItemType.*;
+import static org.dbmaintain.util.SQLTestUtils.*;
+import static org.dbmaintain.util.TestUtils.getDefaultExecutedScriptInfoSource;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link DependencyOrderedDBClearer}.
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+class DependencyOrderedDBClearerTest {
+
+    /* Tested object */
+    private DependencyOrderedDBClearer dependencyOrderedDBClearer;
+
+    private DataSource dataSource;
+    private Database defaultDatabase;
+    private Set<DbItemIdentifier> itemsToPreserve = new HashSet<>();
+
+
+    @BeforeEach
+    void setUp() {
+        Databases databases = TestUtils.getDatabases();
+        defaultDatabase = databases.getDefaultDatabase();
+        dataSource = defaultDatabase.getDataSource();
+        ConstraintsDisabler constraintsDisabler = new DefaultConstraintsDisabler(databases);
+        ExecutedScriptInfoSource executedScriptInfoSource = getDefaultExecutedScriptInfoSource(defaultDatabase, true);
+
+        dependencyOrderedDBClearer = new DependencyOrderedDBClearer(databases, itemsToPreserve, new HashSet<>(), constraintsDisabler, executedScriptInfoSource);
+
+        cleanupTestDatabase();
+        createTestDatabase();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cleanupTestDatabase();
+    }
+
+
+    @Test
+    void dependencies() {
+        Map<DbItemIdentifier, Set<DbItemIdentifier>> dependencies = defaultDatabase.getDbItemDependencies("PUBLIC");
+
+        assertEquals(items(TABLE, "PARENT_TABLE"), dependencies.get(item(TABLE, "CHILD_TABLE")));
+        assertEquals(items(TABLE, "CHILD_TABLE"), dependencies.get(item(VIEW, "CHILD_VIEW")));
+        assertEquals(items(VIEW, "CHILD_VIEW"), dependencies.get(item(VIEW, "VIEW_ON_VIEW")));
+        assertEquals(items(TABLE, "CHILD_TABLE"), dependencies.get(item(TRIGGER, "TEST_TRIGGER")));
+        assertNull(dependencies.get(item(TABLE, "PARENT_TABLE")));
+    }
+
+    @Test
+    void allItemsDroppedInOnePass() {
+        int nrOfRemainingItems = dependencyOrderedDBClearer.dropItemsInDependencyOrder(defaultDatabase, "PUBLIC");
+
+        assertEquals(0, nrOfRemainingItems);
+        assertTrue(defaultDatabase.getTableNames("PUBLIC").isEmpty());
+        assertTrue(defaultDatabase.getViewNames("PUBLIC").isEmpty());
+        assertTrue(defaultDatabase.getTriggerNames("PUBLIC").isEmpty());
+        assertTrue(defaultDatabase.getSequenceNames("PUBLIC").isEmpty());
+    }
+
+    @Test
+    void itemsReferencedByPreservedItemAreNotDroppedInOnePass() {
+        itemsToPreserve.add(item(VIEW, "VIEW_ON_VIEW"));
+
+        int nrOfRemainingItems = dependencyOrderedDBClearer.dropItemsInDependencyOrder(defaultDatabase, "PUBLIC");
+
+        // child view, child table and parent table
+        assertEquals(3, nrOfRemainingItems);
+        assertEquals(2, defaultDatabase.getViewNames("PUBLIC").size());
+        assertEquals(2, defaultDatabase.getTableNames("PUBLIC").size());
+    }
+
+    @Test
+    void clearDatabase() {
+        dependencyOrderedDBClearer.clearDatabase();
+
+        assertTrue(defaultDatabase.getTableNames("PUBLIC").isEmpty());
+        assertTrue(defaultDatabase.getViewNames("PUBLIC").isEmpty());
+        assertTrue(defaultDatabase.getSequenceNames("PUBLIC").isEmpty());
+    }
+
+
+    private DbItemIdentifier item(DbItemType type, String name) {
+        return getItemIdentifier(type, "PUBLIC", name, defaultDatabase);
+    }
+
+    private Set<DbItemIdentifier> items(DbItemType type, String name) {
+        Set<DbItemIdentifier> items = new HashSet<>();
+        items.add(item(type, name));
+        return items;
+    }
+
+    private void createTestDatabase() {
+        executeUpdate("create table parent_table (col1 int not null primary key)", dataSource);
+        executeUpdate("create table child_table (col1 int, foreign key (col1) references parent_table(col1))", dataSource);
+        executeUpdate("create view child_view as select col1 from child_table", dataSource);
+        executeUpdate("create view view_on_view as select col1 from child_view", dataSource);
+        executeUpdate("create sequence test_sequence", dataSource);
+        executeUpdate("create trigger test_trigger before insert on child_table call \"org.dbmaintain.structure.clear.impl.DependencyOrderedDBClearerTest.TestTrigger\"", dataSource);
+    }
+
+    private void cleanupTestDatabase() {
+        executeUpdateQuietly("drop table dbmaintain_scripts", dataSource);
+        dropTestViews(defaultDatabase, "view_on_view", "child_view");
+        dropTestTriggers(defaultDatabase, "test_trigger");
+        dropTestTables(defaultDatabase, "child_table", "parent_table");
+        dropTestSequences(defaultDatabase, "test_sequence");
+    }
+
+
+    /**
+     * Test trigger for hypersonic.
+     */
+    private static class TestTrigger implements Trigger {
+
+        public void fire(int i, String string, String string1, Object[] objects, Object[] objects1) {
+        }
+    }
+}
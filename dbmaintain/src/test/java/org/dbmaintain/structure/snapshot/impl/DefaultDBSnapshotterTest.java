@@ -0,0 +1,166 @@
+/*
+ * Copyright DbMaintain.org
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dbmaintain.structure.snapshot.impl;
+
+import org.dbmaintain.database.Database;
+import org.dbmaintain.database.DatabaseException;
+import org.dbmaintain.database.Databases;
+import org.dbmaintain.script.Script;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.dbmaintain.util.SQLTestUtils.*;
+import static org.dbmaintain.util.TestUtils.createScriptWithCheckSum;
+import static org.dbmaintain.util.TestUtils.getDatabases;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link DefaultDBSnapshotter}. <p> This test is currently only implemented for HsqlDb
+ *
+ * @author Tim Ducheyne
+ * @author Filip Neven
+ */
+class DefaultDBSnapshotterTest {
+
+    /* Tested object */
+    private DefaultDBSnapshotter defaultDBSnapshotter;
+
+    @TempDir
+    File snapshotDir;
+
+    private DataSource dataSource;
+    private Database defaultDatabase;
+
+    private List<Script> scripts = asList(createScriptWithCheckSum("01_create.sql", "aaa"), createScriptWithCheckSum("02_data.sql", "bbb"));
+
+
+    @BeforeEach
+    void setUp() {
+        Databases databases = getDatabases("PUBLIC", "SCHEMA_A");
+        defaultDatabase = databases.getDefaultDatabase();
+        dataSource = defaultDatabase.getDataSource();
+        defaultDBSnapshotter = new DefaultDBSnapshotter(databases, snapshotDir);
+
+        dropTestDatabase();
+        executeUpdate("create schema SCHEMA_A AUTHORIZATION DBA", dataSource);
+        executeUpdate("create table SCHEMA_A.TEST_TABLE (ID int generated by default as identity primary key, NAME varchar(20))", dataSource);
+        executeUpdate("create table TEST_REFERENCING_TABLE (ID int, TEST_ID int, foreign key (TEST_ID) references SCHEMA_A.TEST_TABLE(ID))", dataSource);
+        executeUpdate("create sequence TEST_SEQUENCE start with 5", dataSource);
+        executeUpdate("insert into SCHEMA_A.TEST_TABLE(NAME) values ('café\\n''s')", dataSource);
+        executeUpdate("insert into TEST_REFERENCING_TABLE values (1, 0)", dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dropTestDatabase();
+    }
+
+
+    @Test
+    void noSnapshotAvailable() {
+        assertFalse(defaultDBSnapshotter.restoreSnapshot(scripts));
+    }
+
+    @Test
+    void restoreSavedSnapshot() {
+        defaultDBSnapshotter.saveSnapshot(scripts);
+        executeUpdate("delete from TEST_REFERENCING_TABLE", dataSource);
+        executeUpdate("drop table SCHEMA_A.TEST_TABLE cascade", dataSource);
+        executeUpdate("create table SCHEMA_A.OTHER_TABLE (ID int)", dataSource);
+
+        assertTrue(defaultDBSnapshotter.restoreSnapshot(scripts));
+
+        assertEquals("café\\n's", getItemAsString("select NAME from SCHEMA_A.TEST_TABLE", dataSource));
+        assertEquals(1, getItemAsLong("select count(*) from TEST_REFERENCING_TABLE", dataSource));
+        assertEquals(5, getItemAsLong("select NEXT_VALUE from INFORMATION_SCHEMA.SEQUENCES where SEQUENCE_NAME = 'TEST_SEQUENCE'", dataSource));
+        assertTrue(getItemsAsStringSet("select TABLE_NAME from INFORMATION_SCHEMA.TABLES where TABLE_SCHEMA = 'SCHEMA_A'", dataSource).contains("TEST_TABLE"));
+        assertFalse(getItemsAsStringSet("select TABLE_NAME from INFORMATION_SCHEMA.TABLES where TABLE_SCHEMA = 'SCHEMA_A'", dataSource).contains("OTHER_TABLE"));
+        // the restored identity and foreign key still work
+        executeUpdate("insert into SCHEMA_A.TEST_TABLE(NAME) values ('other')", dataSource);
+        assertEquals(1, getItemAsLong("select ID from SCHEMA_A.TEST_TABLE where NAME = 'other'", dataSource));
+        assertThrows(Exception.class, () -> executeUpdate("insert into TEST_REFERENCING_TABLE values (2, 99)", dataSource));
+    }
+
+    @Test
+    void snapshotOfOtherScriptsIsNotRestored() {
+        defaultDBSnapshotter.saveSnapshot(scripts);
+
+        assertFalse(defaultDBSnapshotter.restoreSnapshot(asList(createScriptWithCheckSum("01_create.sql", "aaa"), createScriptWithCheckSum("02_data.sql", "changed"))));
+        assertFalse(defaultDBSnapshotter.restoreSnapshot(asList(createScriptWithCheckSum("01_create.sql", "aaa"))));
+    }
+
+    @Test
+    void otherSchemasAreNotRestored() {
+        executeUpdate("create schema SCHEMA_B AUTHORIZATION DBA", dataSource);
+        executeUpdate("create table SCHEMA_B.UNMANAGED_TABLE (ID int)", dataSource);
+        defaultDBSnapshotter.saveSnapshot(scripts);
+        executeUpdate("insert into SCHEMA_B.UNMANAGED_TABLE values (1)", dataSource);
+        executeUpdate("create table SCHEMA_B.OTHER_TABLE (ID int)", dataSource);
+
+        assertTrue(defaultDBSnapshotter.restoreSnapshot(scripts));
+
+        assertEquals(1, getItemAsLong("select count(*) from SCHEMA_B.UNMANAGED_TABLE", dataSource));
+        assertTrue(getItemsAsStringSet("select TABLE_NAME from INFORMATION_SCHEMA.TABLES where TABLE_SCHEMA = 'SCHEMA_B'", dataSource).contains("OTHER_TABLE"));
+    }
+
+    @Test
+    void snapshotWithoutAllSchemas() {
+        dropTestDatabase();
+        defaultDBSnapshotter.saveSnapshot(scripts);
+        executeUpdate("create schema SCHEMA_A AUTHORIZATION DBA", dataSource);
+        executeUpdate("create table SCHEMA_A.TEST_TABLE (ID int)", dataSource);
+
+        assertThrows(DatabaseException.class, () -> defaultDBSnapshotter.restoreSnapshot(scripts));
+        assertTrue(getItemsAsStringSet("select TABLE_NAME from INFORMATION_SCHEMA.TABLES where TABLE_SCHEMA = 'SCHEMA_A'", dataSource).contains("TEST_TABLE"));
+    }
+
+    @Test
+    void noSnapshotsWhenItemsArePreserved() {
+        DefaultDBSnapshotter preservingDBSnapshotter = new DefaultDBSnapshotter(getDatabases("PUBLIC", "SCHEMA_A"), snapshotDir, true);
+        preservingDBSnapshotter.saveSnapshot(scripts);
+        assertFalse(preservingDBSnapshotter.restoreSnapshot(scripts));
+
+        defaultDBSnapshotter.saveSnapshot(scripts);
+        assertFalse(preservingDBSnapshotter.restoreSnapshot(scripts));
+    }
+
+    @Test
+    void snapshotIsReplaced() {
+        defaultDBSnapshotter.saveSnapshot(scripts);
+        executeUpdate("update SCHEMA_A.TEST_TABLE set NAME = 'updated'", dataSource);
+        defaultDBSnapshotter.saveSnapshot(scripts);
+        executeUpdate("update SCHEMA_A.TEST_TABLE set NAME = 'other'", dataSource);
+
+        assertTrue(defaultDBSnapshotter.restoreSnapshot(scripts));
+
+        assertEquals("updated", getItemAsString("select NAME from SCHEMA_A.TEST_TABLE", dataSource));
+    }
+
+
+    private void dropTestDatabase() {
+        executeUpdateQuietly("drop table TEST_REFERENCING_TABLE", dataSource);
+        executeUpdateQuietly("drop sequence TEST_SEQUENCE", dataSource);
+        executeUpdateQuietly("drop schema SCHEMA_A cascade", dataSource);
+        executeUpdateQuietly("drop schema SCHEMA_B cascade", dataSource);
+    }
+}